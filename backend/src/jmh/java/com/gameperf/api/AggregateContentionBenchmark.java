@@ -0,0 +1,133 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.store.AggregateRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures concurrent ingest into the striped {@link AggregateRegistry} against a
+ * baseline of one synchronized map of per-game sums, which is what a single lock
+ * around the aggregates would cost.
+ *
+ * The write benchmarks run on every available core ({@code @Threads(Threads.MAX)});
+ * compare with {@code -t 1} to see how throughput scales. The grouped benchmarks run
+ * three writers next to one reader merging the totals, to show whether reads hold
+ * up writers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregateContentionBenchmark {
+
+    /**
+     * Distinct games interleaved in each batch: one for a single client's batch, six for a mixed bulk batch.
+     */
+    @Param({"1", "6"})
+    public int gamesPerBatch;
+
+    private AggregateRegistry registry;
+    private LockedAggregates locked;
+
+    /**
+     * Each thread ingests its own batch, as separate request threads would.
+     */
+    @State(Scope.Thread)
+    public static class Batch {
+        List<MetricSample> samples;
+
+        @Setup
+        public void setUp(AggregateContentionBenchmark benchmark) {
+            samples = BenchmarkData.samples(100, Thread.currentThread().getId());
+            for (int i = 0; i < samples.size(); i++) {
+                samples.get(i).setGame("Game" + (i % benchmark.gamesPerBatch));
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        registry = new AggregateRegistry();
+        locked = new LockedAggregates();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void stripedRecord(Batch batch) {
+        registry.recordAll(batch.samples);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void lockedRecord(Batch batch) {
+        locked.recordAll(batch.samples);
+    }
+
+    @Benchmark
+    @Group("stripedReadWrite")
+    @GroupThreads(3)
+    public void stripedWriter(Batch batch) {
+        registry.recordAll(batch.samples);
+    }
+
+    @Benchmark
+    @Group("stripedReadWrite")
+    @GroupThreads(1)
+    public long stripedReader() {
+        return registry.total().getCount();
+    }
+
+    @Benchmark
+    @Group("lockedReadWrite")
+    @GroupThreads(3)
+    public void lockedWriter(Batch batch) {
+        locked.recordAll(batch.samples);
+    }
+
+    @Benchmark
+    @Group("lockedReadWrite")
+    @GroupThreads(1)
+    public long lockedReader() {
+        return locked.totalCount();
+    }
+
+    /**
+     * Baseline: the same per-game count, sums, sums of squares and newest timestamp behind one monitor.
+     */
+    static class LockedAggregates {
+        private final Map<String, long[]> totals = new HashMap<>();
+
+        synchronized void recordAll(List<MetricSample> samples) {
+            for (MetricSample s : samples) {
+                long[] game = totals.computeIfAbsent(s.getGame(), g -> new long[12]);
+                game[0]++;
+                add(game, 0, s.getFps());
+                add(game, 1, s.getCpuUsage());
+                add(game, 2, s.getGpuUsage());
+                add(game, 3, s.getLatencyMs());
+                add(game, 4, s.getTemperatureC());
+                game[11] = Math.max(game[11], s.getTimestamp());
+            }
+        }
+
+        private static void add(long[] game, int metric, int value) {
+            game[1 + metric] += value;
+            game[6 + metric] += (long) value * value;
+        }
+
+        synchronized long totalCount() {
+            long count = 0;
+            for (long[] game : totals.values()) {
+                count += game[0];
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.store.GameMetricBatch;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for GameAnalyticsService session analysis and anomaly detection.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyticsBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int sessionSize;
+
+    private GameAnalyticsService service;
+    private List<GameMetric> session;
+    private GameMetricBatch batch;
+
+    @Setup
+    public void setUp() {
+        service = new GameAnalyticsService();
+        session = BenchmarkData.session(sessionSize, 42);
+        batch = GameMetricBatch.of(session);
+    }
+
+    @Benchmark
+    public Map<String, Object> analyzeSession() {
+        return service.analyzeSession(session);
+    }
+
+    @Benchmark
+    public Map<String, Object> analyzeBatch() {
+        return service.analyzeBatch(batch);
+    }
+
+    /**
+     * Single-metric anomaly detection does not depend on the session size, so it
+     * lives in its own benchmark instead of running once per {@code sessionSize}.
+     */
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    @State(Scope.Benchmark)
+    public static class Anomalies {
+
+        private GameAnalyticsService service;
+        private GameMetric metric;
+
+        @Setup
+        public void setUp() {
+            service = new GameAnalyticsService();
+            metric = BenchmarkData.session(1, 42).get(0);
+        }
+
+        @Benchmark
+        public Map<String, Object> detectAnomalies() {
+            return service.detectAnomalies(metric);
+        }
+    }
+}
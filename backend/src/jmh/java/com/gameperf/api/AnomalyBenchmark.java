@@ -0,0 +1,105 @@
+package com.gameperf.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameperf.api.model.AnomalyBatchRequest;
+import com.gameperf.api.model.AnomalyBatchResult;
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.rules.AnomalyRuleRegistry;
+import com.gameperf.api.rules.RuleSet;
+import io.micrometer.core.instrument.Metrics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per-sample detectAnomalies calls with batch evaluation over primitive columns,
+ * with the built-in thresholds and with per-game and per-tier rules loaded from a rules file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnomalyBenchmark {
+
+    @Param({"1000", "100000"})
+    public int batchSize;
+
+    private GameAnalyticsService service;
+    private GameAnalyticsService ruledService;
+    private List<GameMetric> metrics;
+    private AnomalyBatchRequest batch;
+    private RuleSet.Rule[] gameRules;
+
+    @Setup
+    public void setUp() throws IOException {
+        service = new GameAnalyticsService();
+        // Every game of the benchmark data has its own rule, inheriting from one of two tiers
+        Path rules = Files.createTempFile("anomaly-rules", ".json");
+        Files.writeString(rules, """
+            {
+              "tiers": {"low-end": {"anomaly": {"minFps": 30}}, "high-end": {"anomaly": {"minFps": 120}}},
+              "games": {
+                "Game0": {"tier": "low-end"}, "Game1": {"tier": "high-end"}, "Game2": {"anomaly": {"maxLatency": 40}},
+                "Game3": {"tier": "low-end"}, "Game4": {"tier": "high-end"}, "Game5": {"anomaly": {"maxCpu": 95}}
+              }
+            }
+            """);
+        ruledService = new GameAnalyticsService(Metrics.globalRegistry,
+            new AnomalyRuleRegistry(rules, new ObjectMapper(), Metrics.globalRegistry));
+        Files.delete(rules);
+        metrics = BenchmarkData.session(batchSize, 11);
+        gameRules = new RuleSet.Rule[6];
+        for (int g = 0; g < gameRules.length; g++) {
+            gameRules[g] = ruledService.anomalyRule("Game" + g);
+        }
+        batch = new AnomalyBatchRequest(
+            metrics.stream().mapToInt(GameMetric::getAvgFps).toArray(),
+            metrics.stream().mapToInt(GameMetric::getCpuUsage).toArray(),
+            metrics.stream().mapToInt(GameMetric::getGpuUsage).toArray(),
+            metrics.stream().mapToInt(GameMetric::getLatencyMs).toArray(),
+            metrics.stream().mapToInt(GameMetric::getTemperatureC).toArray()
+        );
+    }
+
+    @Benchmark
+    public void detectAnomaliesLoop(Blackhole blackhole) {
+        for (GameMetric metric : metrics) {
+            blackhole.consume(service.detectAnomalies(metric));
+        }
+    }
+
+    @Benchmark
+    public AnomalyBatchResult detectAnomaliesBatch() {
+        return service.detectAnomalies(batch);
+    }
+
+    @Benchmark
+    public void detectAnomaliesLoopWithRules(Blackhole blackhole) {
+        for (GameMetric metric : metrics) {
+            blackhole.consume(ruledService.detectAnomalies(metric));
+        }
+    }
+
+    @Benchmark
+    public void detectAnomaliesLoopWithResolvedRules(Blackhole blackhole) {
+        // A caller holding the samples of one game resolves its rule once, not per sample
+        for (int g = 0; g < gameRules.length; g++) {
+            RuleSet.Rule rule = gameRules[g];
+            for (int i = g; i < metrics.size(); i += gameRules.length) {
+                blackhole.consume(ruledService.detectAnomalies(metrics.get(i), rule));
+            }
+        }
+    }
+
+    @Benchmark
+    public AnomalyBatchResult detectAnomaliesBatchWithRules() {
+        return ruledService.detectAnomalies(batch, "Game1", null);
+    }
+}
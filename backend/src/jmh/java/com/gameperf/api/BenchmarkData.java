@@ -0,0 +1,64 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.model.MetricSample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic input data shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generate a synthetic session with realistic value ranges.
+     *
+     * @param size Number of samples
+     * @param seed Random seed, so every fork sees the same data
+     * @return List of GameMetric samples
+     */
+    static List<GameMetric> session(int size, long seed) {
+        Random random = new Random(seed);
+        List<GameMetric> samples = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            samples.add(metric(random, "Game" + (i % 6)));
+        }
+        return samples;
+    }
+
+    static GameMetric metric(Random random, String name) {
+        return new GameMetric(
+            name,
+            40 + random.nextInt(140),
+            30 + random.nextInt(70),
+            30 + random.nextInt(70),
+            5 + random.nextInt(120),
+            50 + random.nextInt(45),
+            0, 0
+        );
+    }
+
+    /**
+     * Generate raw samples spread over six games and a few sessions.
+     *
+     * @param size Number of samples
+     * @param seed Random seed, so every fork sees the same data
+     * @return List of MetricSample objects
+     */
+    static List<MetricSample> samples(int size, long seed) {
+        Random random = new Random(seed);
+        List<MetricSample> samples = new ArrayList<>(size);
+        long timestamp = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            GameMetric m = metric(random, "Game" + (i % 6));
+            samples.add(new MetricSample(m.getName(), "session-" + (i % 64), timestamp + i,
+                    m.getAvgFps(), m.getCpuUsage(), m.getGpuUsage(), m.getLatencyMs(), m.getTemperatureC()));
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,108 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.rollup.RollupStore;
+import com.gameperf.api.session.SessionRegistry;
+import com.gameperf.api.stats.MetricAccumulator;
+import com.gameperf.api.stats.PercentileTracker;
+import com.gameperf.api.store.AggregateRegistry;
+import com.gameperf.api.store.TimeSeriesStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the Micrometer instrumentation on the analytics and ingest hot paths.
+ * Compares a service reporting to a real registry against one whose meters are
+ * no-ops (an empty composite registry). The analytics meters are updated through
+ * plain adders whatever the registry, so {@link #analyzeSessionUninstrumented}
+ * runs the same analysis without touching any meter as the reference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstrumentationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int sessionSize;
+
+    @Param({"simple", "noop"})
+    public String registry;
+
+    private GameAnalyticsService service;
+    private List<GameMetric> session;
+    private GameMetric metric;
+
+    @Setup
+    public void setUp() {
+        service = new GameAnalyticsService(meterRegistry(registry));
+        session = BenchmarkData.session(sessionSize, 42);
+        metric = session.get(0);
+    }
+
+    @Benchmark
+    public Map<String, Object> analyzeSession() {
+        return service.analyzeSession(session);
+    }
+
+    @Benchmark
+    public Map<String, Object> analyzeSessionUninstrumented() {
+        MetricAccumulator accumulator = new MetricAccumulator();
+        for (GameMetric sample : session) {
+            accumulator.add(sample);
+        }
+        return service.analyze(accumulator, session.get(0).getName());
+    }
+
+    @Benchmark
+    public Map<String, Object> detectAnomalies() {
+        return service.detectAnomalies(metric);
+    }
+
+    /**
+     * Ingest of one client batch through every in-memory sink, with the ingest
+     * counters and the analytics meters of the session registry.
+     */
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    @State(Scope.Benchmark)
+    public static class Ingest {
+
+        @Param({"simple", "noop"})
+        public String registry;
+
+        private MetricsIngestService ingestService;
+        private List<MetricSample> batch;
+
+        @Setup
+        public void setUp() {
+            MeterRegistry meterRegistry = meterRegistry(registry);
+            ingestService = new MetricsIngestService(new TimeSeriesStore(),
+                    new SessionRegistry(new GameAnalyticsService(meterRegistry)), new PercentileTracker(),
+                    new RollupStore(), new AggregateRegistry(), Optional.empty(), meterRegistry);
+            batch = BenchmarkData.samples(100, 42);
+        }
+
+        @Benchmark
+        public Map<String, Object> ingest() {
+            return ingestService.ingest(batch);
+        }
+    }
+
+    private static MeterRegistry meterRegistry(String registry) {
+        return "simple".equals(registry) ? new SimpleMeterRegistry() : new CompositeMeterRegistry();
+    }
+}
@@ -0,0 +1,62 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.stats.Leaderboard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a top-10 query on an incrementally maintained leaderboard with sorting
+ * the full list of scored games, and measures the cost of one leaderboard update.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeaderboardBenchmark {
+
+    @Param({"1000", "100000"})
+    public int games;
+
+    private List<GameMetric> metrics;
+    private Leaderboard leaderboard;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        GameMetricsService service = new GameMetricsService();
+        metrics = BenchmarkData.session(games, 13).stream()
+                .map(service::calculateScores)
+                .toList();
+        leaderboard = new Leaderboard();
+        for (int i = 0; i < games; i++) {
+            // Names are unique per game here, unlike the six names of the benchmark data
+            leaderboard.update("Game" + i, metrics.get(i).getPerformanceScore());
+        }
+        random = new Random(17);
+    }
+
+    @Benchmark
+    public List<Leaderboard.Entry> leaderboardTop10() {
+        return leaderboard.highest(10);
+    }
+
+    @Benchmark
+    public List<GameMetric> sortTop10() {
+        return metrics.stream()
+                .sorted(Comparator.comparingDouble(GameMetric::getPerformanceScore).reversed())
+                .limit(10)
+                .toList();
+    }
+
+    @Benchmark
+    public void leaderboardUpdate() {
+        leaderboard.update("Game" + random.nextInt(games), random.nextInt(10_000) / 100.0);
+    }
+}
@@ -0,0 +1,182 @@
+package com.gameperf.api;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for the live SSE stream: opens many concurrent connections to a running
+ * server and reports how many were established, how long the first event took and
+ * how many events arrived while holding them.
+ *
+ * Connections are driven by a single non-blocking {@link HttpClient}, so the client
+ * side does not need a thread per connection. Raise {@code ulimit -n} on both sides
+ * and, beyond ~28k connections from one client host, widen
+ * {@code net.ipv4.ip_local_port_range}.
+ *
+ * Usage:
+ * <pre>
+ *   mvn -Pbenchmarks -DskipTests test-compile exec:exec@load-test \
+ *       -Dload.args="--url http://localhost:8080 --connections 50000 --ramp 2000 --hold 60"
+ * </pre>
+ * Run it once against the default server and once against
+ * {@code mvn -Pjava21 spring-boot:run} (virtual-threads profile) to compare.
+ */
+public final class LiveConnectionLoadTest {
+
+    private static final String EVENT_PREFIX = "event:";
+
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+    private final AtomicLong events = new AtomicLong();
+    private final ConcurrentLinkedQueue<Long> firstEventMicros = new ConcurrentLinkedQueue<>();
+
+    private LiveConnectionLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = option(args, "--url", "http://localhost:8080");
+        int connections = Integer.parseInt(option(args, "--connections", "1000"));
+        int rampPerSecond = Integer.parseInt(option(args, "--ramp", "2000"));
+        int holdSeconds = Integer.parseInt(option(args, "--hold", "30"));
+
+        new LiveConnectionLoadTest().run(url, connections, rampPerSecond, holdSeconds);
+        System.exit(0);
+    }
+
+    private void run(String url, int connections, int rampPerSecond, int holdSeconds) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/metrics/live"))
+                .header("Accept", "text/event-stream")
+                .build();
+
+        System.out.printf("Opening %d connections to %s at %d/s%n", connections, url, rampPerSecond);
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            // Pace the ramp so the server's accept queue is not the thing being measured
+            long due = start + (long) i * 1_000_000_000L / rampPerSecond;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            }
+            long opened = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(new EventCounter(opened)))
+                    .whenComplete((response, error) -> {
+                        if (error != null || response.statusCode() != 200) {
+                            failed.incrementAndGet();
+                        }
+                    });
+            if ((i + 1) % Math.max(1, rampPerSecond * 5) == 0) {
+                report("ramp");
+            }
+        }
+        double rampSeconds = (System.nanoTime() - start) / 1e9;
+
+        long eventsBeforeHold = events.get();
+        for (int s = 5; s <= holdSeconds; s += 5) {
+            Thread.sleep(5_000);
+            report("hold");
+        }
+        double eventRate = (events.get() - eventsBeforeHold) / (double) Math.max(1, holdSeconds);
+
+        System.out.println("==========================================");
+        System.out.printf("Requested:    %d connections in %.1f s%n", connections, rampSeconds);
+        System.out.printf("Connected:    %d (failed %d, closed early %d)%n", connected.get(), failed.get(), closed.get());
+        System.out.printf("First event:  p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                percentile(50), percentile(99), percentile(100));
+        System.out.printf("Events:       %.0f/s while holding%n", eventRate);
+        System.out.println("Server stats: " + serverStats(client, url));
+        System.out.println("==========================================");
+    }
+
+    private void report(String phase) {
+        System.out.printf("[%s] connected=%d failed=%d closed=%d events=%d%n",
+                phase, connected.get(), failed.get(), closed.get(), events.get());
+    }
+
+    private double percentile(double p) {
+        long[] values = firstEventMicros.stream().mapToLong(Long::longValue).toArray();
+        if (values.length == 0) {
+            return 0;
+        }
+        Arrays.sort(values);
+        int index = (int) Math.min(values.length - 1, Math.ceil(p / 100.0 * values.length) - 1);
+        return values[Math.max(0, index)] / 1000.0;
+    }
+
+    private static String serverStats(HttpClient client, String url) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/metrics/live/stats"))
+                    .timeout(Duration.ofSeconds(10))
+                    .build();
+            return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        } catch (Exception e) {
+            return "unavailable (" + e.getMessage() + ")";
+        }
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Counts SSE events of one connection; the first event marks it as connected.
+     */
+    private final class EventCounter implements Flow.Subscriber<String> {
+
+        private final long openedNanos;
+        private boolean seenFirst;
+
+        EventCounter(long openedNanos) {
+            this.openedNanos = openedNanos;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (!line.startsWith(EVENT_PREFIX)) {
+                return;
+            }
+            events.incrementAndGet();
+            if (!seenFirst) {
+                seenFirst = true;
+                connected.incrementAndGet();
+                firstEventMicros.add((System.nanoTime() - openedNanos) / 1000);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (seenFirst) {
+                closed.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (seenFirst) {
+                closed.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.GameMetric;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the GameMetricsService read paths behind /api/metrics and /api/metrics/analyze.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsServiceBenchmark {
+
+    private GameMetricsService service;
+    private GameMetric metric;
+
+    @Setup
+    public void setUp() {
+        service = new GameMetricsService();
+        metric = BenchmarkData.metric(new Random(1), "Cyber Drift X");
+    }
+
+    @Benchmark
+    public List<GameMetric> getMetrics() {
+        return service.getMetrics();
+    }
+
+    @Benchmark
+    public GameMetric calculateScores() {
+        return service.calculateScores(metric);
+    }
+
+    @Benchmark
+    public Map<String, Object> getAnalysisSummary() {
+        return service.getAnalysisSummary();
+    }
+}
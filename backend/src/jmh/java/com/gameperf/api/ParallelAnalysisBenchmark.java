@@ -0,0 +1,78 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.stats.MetricAccumulator;
+import com.gameperf.api.stats.ParallelAnalysis;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of fork/join session analysis with the pool's parallelism.
+ * Compare {@code sequential} with {@code parallel} at each {@code parallelism};
+ * near-linear scaling shows as the time per operation halving as parallelism doubles,
+ * up to the number of physical cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ParallelAnalysisBenchmark {
+
+    private static final int SESSIONS = 2_000;
+    private static final int SAMPLES_PER_SESSION = 2_500;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int parallelism;
+
+    private GameAnalyticsService service;
+    private ForkJoinPool pool;
+    private List<GameMetric> session;
+    private Map<String, List<GameMetric>> sessions;
+
+    @Setup
+    public void setUp() {
+        service = new GameAnalyticsService();
+        pool = new ForkJoinPool(parallelism);
+        session = BenchmarkData.session(SESSIONS * SAMPLES_PER_SESSION, 42);
+        sessions = new LinkedHashMap<>();
+        for (int s = 0; s < SESSIONS; s++) {
+            sessions.put("session-" + s,
+                    new ArrayList<>(session.subList(s * SAMPLES_PER_SESSION, (s + 1) * SAMPLES_PER_SESSION)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Single-threaded baseline over the same 5M samples.
+     */
+    @Benchmark
+    public MetricAccumulator sequential() {
+        MetricAccumulator accumulator = new MetricAccumulator();
+        for (GameMetric metric : session) {
+            accumulator.add(metric);
+        }
+        return accumulator;
+    }
+
+    @Benchmark
+    public MetricAccumulator parallelSession() {
+        return ParallelAnalysis.accumulate(session, pool);
+    }
+
+    @Benchmark
+    public Map<String, Object> parallelSessions() {
+        return service.analyzeSessions(sessions, pool);
+    }
+}
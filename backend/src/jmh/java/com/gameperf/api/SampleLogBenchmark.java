@@ -0,0 +1,67 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.persistence.SampleLog;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks for the memory-mapped sample log: batch append and zero-copy replay.
+ * Replay throughput bounds startup recovery time (a 10 GB log holds ~268M records).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SampleLogBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int REPLAY_RECORDS = 4_000_000;
+
+    private Path directory;
+    private SampleLog sampleLog;
+    private List<MetricSample> batch;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("sample-log-bench");
+        sampleLog = new SampleLog(directory, 1 << 20, Duration.ofDays(3650));
+        batch = BenchmarkData.samples(BATCH_SIZE, 42);
+        for (int i = 0; i < REPLAY_RECORDS / BATCH_SIZE; i++) {
+            sampleLog.appendAll(batch);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sampleLog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void appendBatch() {
+        sampleLog.appendAll(batch);
+    }
+
+    @Benchmark
+    public long replay4M(Blackhole blackhole) {
+        return sampleLog.replay((timestamp, gameId, sessionId, fps, cpu, gpu, latency, temperature) ->
+                blackhole.consume(timestamp + fps), REPLAY_RECORDS);
+    }
+}
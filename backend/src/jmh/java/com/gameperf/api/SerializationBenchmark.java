@@ -0,0 +1,65 @@
+package com.gameperf.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.stream.MetricsCborCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encoding and decoding the /api/metrics payload, as Jackson JSON
+ * and as the columnar CBOR of {@link MetricsCborCodec}. Payload sizes are printed
+ * once per trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"6", "1000"})
+    public int games;
+
+    private ObjectMapper objectMapper;
+    private List<GameMetric> metrics;
+    private byte[] json;
+    private byte[] cbor;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper();
+        GameMetricsService service = new GameMetricsService();
+        metrics = BenchmarkData.session(games, 7).stream()
+                .map(service::calculateScores)
+                .toList();
+        json = serializeMetrics();
+        cbor = serializeMetricsCbor();
+        System.out.printf("%n%d games: JSON %d bytes, CBOR %d bytes%n", games, json.length, cbor.length);
+    }
+
+    @Benchmark
+    public byte[] serializeMetrics() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(metrics);
+    }
+
+    @Benchmark
+    public byte[] serializeMetricsCbor() {
+        return MetricsCborCodec.encode(metrics);
+    }
+
+    @Benchmark
+    public List<GameMetric> deserializeMetrics() throws Exception {
+        return objectMapper.readValue(json, new TypeReference<List<GameMetric>>() { });
+    }
+
+    @Benchmark
+    public List<GameMetric> deserializeMetricsCbor() {
+        return MetricsCborCodec.decode(cbor);
+    }
+}
@@ -0,0 +1,89 @@
+package com.gameperf.api;
+
+import com.gameperf.api.importer.ImportFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line import of session files.
+ *
+ * Started with {@code --import=<file>} (repeatable, optionally with
+ * {@code --import-format=csv|ndjson}), the application imports each file through
+ * {@link BulkImportService}, logs the result and exits without starting the web
+ * server, demo feed or schedulers (the {@value #IMPORT_PROFILE} profile); see
+ * {@link GamingMetricsApplication#main(String[])}. With persistence
+ * enabled this loads files into the sample log for the next server start.
+ */
+@Slf4j
+@Component
+public class BulkImportRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    public static final String IMPORT_OPTION = "import";
+    public static final String FORMAT_OPTION = "import-format";
+    /**
+     * Profile added in import mode; disables the demo feed and the schedulers.
+     */
+    public static final String IMPORT_PROFILE = "import";
+
+    private final BulkImportService importService;
+    private int exitCode;
+
+    @Autowired
+    public BulkImportRunner(BulkImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * @param args Raw command-line arguments
+     * @return Whether the arguments ask for a command-line import
+     */
+    public static boolean isImport(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--" + IMPORT_OPTION + "=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> files = args.getOptionValues(IMPORT_OPTION);
+        if (files == null) {
+            return;
+        }
+        List<String> formats = args.getOptionValues(FORMAT_OPTION);
+        String format = formats == null || formats.isEmpty() ? null : formats.get(0);
+
+        for (String file : files) {
+            Path path = Path.of(file);
+            try (InputStream in = Files.newInputStream(path)) {
+                Map<String, Object> result = importService.importSamples(
+                        in, ImportFormat.resolve(format, null, path.getFileName().toString()));
+                long elapsedMs = Math.max(1, (Long) result.get("elapsedMs"));
+                log.info("Imported {}: {} samples accepted, {} rejected, {} malformed lines in {} ms ({} MB/s)",
+                        path, result.get("accepted"), result.get("rejected"), result.get("malformed"),
+                        elapsedMs, (Long) result.get("bytes") / 1000 / elapsedMs);
+                log.info("Analysis of {}: {}", path, result.get("analysis"));
+            } catch (Exception e) {
+                log.error("Failed to import {}: {}", path, e.getMessage());
+                exitCode = 1;
+            }
+        }
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
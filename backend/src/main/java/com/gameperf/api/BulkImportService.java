@@ -0,0 +1,417 @@
+package com.gameperf.api;
+
+import com.gameperf.api.importer.ImportFormat;
+import com.gameperf.api.importer.SampleReader;
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.stats.MetricAccumulator;
+import jakarta.annotation.PreDestroy;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for importing session telemetry files of any size.
+ *
+ * The input is parsed incrementally into batches of {@link #BATCH_SIZE} samples on
+ * the calling thread and ingested on a second thread, so parsing the next batch
+ * overlaps with ingesting the previous one. The two stages are connected by a queue
+ * of {@link #PIPELINE_DEPTH} batches: when ingest falls behind, the parser blocks
+ * and stops reading, which backpressures the sender through the socket or the disk.
+ * Memory use is a few batches whatever the size of the input. On a single CPU
+ * there is nothing to overlap, so batches are ingested inline instead. Ingest
+ * threads come from a pool of one per CPU; an import started while all of them
+ * are busy ingests inline as well, so concurrent imports cannot add threads. Every accepted sample
+ * is also folded into an accumulator, so the import returns a session analysis of
+ * the whole file.
+ *
+ * {@link #importStream} is the demand-driven variant: it reports progress per batch
+ * and only reads the next batch when the client asks for the next progress report.
+ * Streaming imports read, ingest and write their progress on a scheduler of their
+ * own, one thread per import, and at most {@code metrics.ingest.max-streams} run at
+ * once, so uploads blocked on slow clients cannot take threads from anything else.
+ */
+@Service
+public class BulkImportService {
+
+    public static final int BATCH_SIZE = 8192;
+    public static final int PIPELINE_DEPTH = 2;
+    public static final int DEFAULT_MAX_STREAMS = 4;
+
+    private static final List<MetricSample> END_OF_INPUT = List.of();
+
+    private final MetricsIngestService ingestService;
+    private final GameAnalyticsService analyticsService;
+    private final boolean pipelined;
+
+    /**
+     * Runs the ingest stage of pipelined imports, or null if imports ingest inline.
+     */
+    private final ThreadPoolExecutor ingestExecutor;
+
+    /**
+     * Runs streaming imports, one thread each; permits of {@link #streams} bound its use.
+     */
+    private final Scheduler streamScheduler;
+    private final Semaphore streams;
+    private final int maxStreams;
+
+    /**
+     * @param maxStreams Streaming imports allowed at once
+     */
+    @Autowired
+    public BulkImportService(MetricsIngestService ingestService, GameAnalyticsService analyticsService,
+                             @Value("${metrics.ingest.max-streams:" + DEFAULT_MAX_STREAMS + "}") int maxStreams) {
+        // Nothing to overlap with on a single CPU: ingest inline and skip the handoff
+        this(ingestService, analyticsService, Runtime.getRuntime().availableProcessors() > 1, maxStreams);
+    }
+
+    BulkImportService(MetricsIngestService ingestService, GameAnalyticsService analyticsService, boolean pipelined,
+                      int maxStreams) {
+        if (maxStreams < 1) {
+            throw new IllegalArgumentException("Max streams must be positive: " + maxStreams);
+        }
+        this.ingestService = ingestService;
+        this.analyticsService = analyticsService;
+        this.pipelined = pipelined;
+        this.maxStreams = maxStreams;
+        this.streams = new Semaphore(maxStreams);
+        this.streamScheduler = Schedulers.newBoundedElastic(maxStreams, maxStreams, "bulk-import-stream");
+        if (pipelined) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("bulk-import-ingest-");
+            threadFactory.setDaemon(true);
+            this.ingestExecutor = new ThreadPoolExecutor(0, Runtime.getRuntime().availableProcessors(),
+                    60, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+        } else {
+            this.ingestExecutor = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ingestExecutor != null) {
+            ingestExecutor.shutdown();
+        }
+        streamScheduler.dispose();
+    }
+
+    /**
+     * Import every sample of a stream.
+     *
+     * @param in Stream to read until its end; not closed
+     * @param format Format of the stream
+     * @return Map containing line, byte and sample counts, the elapsed time and the analysis
+     * @throws IllegalArgumentException if the stream is not in the given format
+     */
+    public Map<String, Object> importSamples(InputStream in, ImportFormat format) throws IOException {
+        long start = System.nanoTime();
+        SampleReader reader = SampleReader.of(format, in);
+        IngestStage stage = new IngestStage();
+
+        if (!startIngest(stage)) {
+            List<MetricSample> batch = new ArrayList<>(BATCH_SIZE);
+            while (reader.readBatch(batch, BATCH_SIZE) > 0) {
+                stage.ingest(batch);
+                batch.clear();
+            }
+        } else {
+            try {
+                while (true) {
+                    List<MetricSample> batch = new ArrayList<>(BATCH_SIZE);
+                    if (reader.readBatch(batch, BATCH_SIZE) == 0) {
+                        break;
+                    }
+                    stage.put(batch);
+                }
+            } finally {
+                stage.finish();
+                stage.awaitDone();
+            }
+            stage.rethrowFailure();
+        }
+
+        return Map.of(
+            "format", format.name().toLowerCase(Locale.ROOT),
+            "lines", reader.getLines(),
+            "bytes", reader.getBytesRead(),
+            "accepted", stage.accepted,
+            "rejected", stage.rejected,
+            "malformed", reader.getMalformed(),
+            "elapsedMs", (System.nanoTime() - start) / 1_000_000,
+            "analysis", analyticsService.analyze(stage.accumulator)
+        );
+    }
+
+    /**
+     * Import a stream batch by batch as the caller asks for progress.
+     *
+     * Each element of the returned flux is produced on demand: the next batch is read
+     * from the stream and ingested only when the subscriber requests another element.
+     * A client that reads the progress slowly therefore slows down reading of its
+     * upload, and memory holds one batch. Reading runs on the streaming import
+     * scheduler, since it blocks on the stream.
+     *
+     * @param in Stream to read until its end; not closed
+     * @param format Format of the stream
+     * @param batchSize Samples per batch, 1 to {@value #BATCH_SIZE}
+     * @return Flux of per-batch results: batch number, accepted, rejected, and lines and malformed lines so far
+     * @throws IllegalArgumentException if the batch size is out of range
+     */
+    public Flux<Map<String, Object>> importStream(InputStream in, ImportFormat format, int batchSize) {
+        if (batchSize < 1 || batchSize > BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + BATCH_SIZE + ": " + batchSize);
+        }
+        return Flux.defer(() -> {
+            long[] batches = {0};
+            return Flux.<Map<String, Object>, SampleReader>generate(() -> SampleReader.of(format, in), (reader, sink) -> {
+                List<MetricSample> batch = new ArrayList<>(Math.min(batchSize, 1024));
+                try {
+                    if (reader.readBatch(batch, batchSize) == 0) {
+                        sink.complete();
+                        return reader;
+                    }
+                } catch (IOException e) {
+                    sink.error(new UncheckedIOException(e));
+                    return reader;
+                }
+                List<MetricSample> valid = ingestService.ingestValid(batch);
+                sink.next(Map.of(
+                    "batch", ++batches[0],
+                    "lines", reader.getLines(),
+                    "accepted", valid.size(),
+                    "rejected", batch.size() - valid.size(),
+                    "malformed", reader.getMalformed()
+                ));
+                return reader;
+            });
+        }).subscribeOn(streamScheduler);
+    }
+
+    /**
+     * Run a streaming import, writing its progress to an emitter as NDJSON lines.
+     *
+     * Each line is written on the import's own thread, and the next batch is only
+     * read once the write returned, so a client that stops reading holds that one
+     * thread until the container's write timeout fails the write.
+     *
+     * @param in Stream to read until its end; not closed
+     * @param format Format of the stream
+     * @param batchSize Samples per batch, 1 to {@value #BATCH_SIZE}
+     * @return Emitter streaming the progress, or null if {@code metrics.ingest.max-streams}
+     *         imports are already running
+     * @throws IllegalArgumentException if the batch size is out of range
+     */
+    public ResponseBodyEmitter openStream(InputStream in, ImportFormat format, int batchSize) {
+        Flux<Map<String, Object>> progress = importStream(in, format, batchSize);
+        if (!streams.tryAcquire()) {
+            return null;
+        }
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(Long.MAX_VALUE);
+        ProgressWriter writer = new ProgressWriter(emitter);
+        progress.doFinally(signal -> streams.release()).subscribe(writer);
+        emitter.onCompletion(writer::dispose);
+        emitter.onTimeout(writer::dispose);
+        emitter.onError(e -> writer.dispose());
+        return emitter;
+    }
+
+    /**
+     * @return Number of streaming imports running
+     */
+    public int getActiveStreams() {
+        return maxStreams - streams.availablePermits();
+    }
+
+    /**
+     * Writes one progress line at a time and requests the next batch once the write
+     * returned.
+     */
+    private static final class ProgressWriter extends BaseSubscriber<Map<String, Object>> {
+        private final ResponseBodyEmitter emitter;
+
+        ProgressWriter(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(1);
+        }
+
+        @Override
+        protected void hookOnNext(Map<String, Object> progress) {
+            try {
+                emitter.send(new LinkedHashSet<>(List.of(
+                        new DataWithMediaType(progress, MediaType.APPLICATION_JSON),
+                        new DataWithMediaType("\n", MediaType.TEXT_PLAIN))));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away, the write timed out or the emitter already completed
+                dispose();
+                emitter.completeWithError(e);
+                return;
+            }
+            request(1);
+        }
+
+        @Override
+        protected void hookOnError(Throwable error) {
+            emitter.completeWithError(error);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            emitter.complete();
+        }
+    }
+
+    /**
+     * Run the ingest stage on a pool thread, if imports are pipelined and one is free.
+     *
+     * @return Whether the stage was started; if not, the caller ingests inline
+     */
+    private boolean startIngest(IngestStage stage) {
+        if (ingestExecutor == null) {
+            return false;
+        }
+        try {
+            ingestExecutor.execute(stage);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Consumer side of the pipeline: ingests queued batches until the end marker.
+     * Its counters are read by the producer only after {@link #awaitDone()}.
+     */
+    private final class IngestStage implements Runnable {
+
+        private final BlockingQueue<List<MetricSample>> queue = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+        private final MetricAccumulator accumulator = new MetricAccumulator();
+        private long accepted;
+        private long rejected;
+        private volatile RuntimeException failure;
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        @Override
+        public void run() {
+            try {
+                List<MetricSample> batch;
+                while ((batch = queue.take()) != END_OF_INPUT) {
+                    ingest(batch);
+                }
+            } catch (InterruptedException e) {
+                failure = new IllegalStateException("Import interrupted", e);
+            } catch (RuntimeException e) {
+                // Keep draining so the producer never blocks on a full queue
+                failure = e;
+                drain();
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * Wait for the stage to see the end marker, even if interrupted.
+         */
+        void awaitDone() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void ingest(List<MetricSample> batch) {
+            List<MetricSample> valid = ingestService.ingestValid(batch);
+            for (MetricSample s : valid) {
+                accumulator.add(s.getFps(), s.getCpuUsage(), s.getGpuUsage(), s.getLatencyMs(), s.getTemperatureC());
+            }
+            accepted += valid.size();
+            rejected += batch.size() - valid.size();
+        }
+
+        /**
+         * Hand a batch to the ingest thread, blocking while the queue is full.
+         *
+         * @throws RuntimeException the ingest failure, if ingest has failed
+         */
+        void put(List<MetricSample> batch) throws IOException {
+            rethrowFailure();
+            try {
+                queue.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Import interrupted");
+            }
+        }
+
+        /**
+         * Signal the end of the input; waits for room in the queue like {@link #put}.
+         */
+        void finish() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    queue.put(END_OF_INPUT);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void rethrowFailure() {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private void drain() {
+            try {
+                while (queue.take() != END_OF_INPUT) {
+                    // discard
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
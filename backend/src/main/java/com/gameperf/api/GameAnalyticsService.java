@@ -1,19 +1,132 @@
 package com.gameperf.api;
 
+import com.gameperf.api.model.AnomalyBatchRequest;
+import com.gameperf.api.model.AnomalyBatchResult;
 import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.rules.AnomalyRuleRegistry;
+import com.gameperf.api.rules.RuleSet;
+import com.gameperf.api.stats.AnomalyEvaluator;
+import com.gameperf.api.stats.MetricAccumulator;
+import com.gameperf.api.stats.ParallelAnalysis;
+import com.gameperf.api.stats.StabilityThresholds;
+import com.gameperf.api.store.GameMetricBatch;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service for analyzing game session data.
  * Provides statistical analysis and performance recommendations.
+ * Anomaly and stability thresholds come from the rules of the game being
+ * analyzed, see {@link AnomalyRuleRegistry}.
  */
 @Service
 public class GameAnalyticsService {
 
+    /**
+     * Upper bounds (exclusive) of the session size buckets used to tag analysis timings.
+     */
+    static final int[] SIZE_BUCKET_LIMITS = {1_000, 100_000};
+    static final String[] SIZE_BUCKET_TAGS = {"small", "medium", "large"};
+
+    /**
+     * Default rate at which the cheap calls are timed: one in this many. Reading the
+     * clock costs as much as analyzing a handful of samples, so small and medium
+     * sessions are only timed on sampled calls, with the time scaled up by the same
+     * factor. Every call is counted exactly; large sessions are always timed.
+     */
+    static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    /**
+     * One in how many cheap calls is timed; a power of two.
+     */
+    private final int sampleInterval;
+
+    // Plain adders read by function meters: a call costs a few uncontended adds
+    private final LongAdder[] analysisCounts = new LongAdder[SIZE_BUCKET_TAGS.length];
+    private final LongAdder[] analysisNanos = new LongAdder[SIZE_BUCKET_TAGS.length];
+    private final LongAdder analyzedSamples = new LongAdder();
+    private final LongAdder anomalousResults = new LongAdder();
+    private final LongAdder normalResults = new LongAdder();
+    // Multi-session analyses are bulk calls, so they use ordinary meters
+    private final Timer fleetTimer;
+    private final DistributionSummary fleetSessions;
+    private final AnomalyRuleRegistry ruleRegistry;
+
+    /**
+     * Create a standalone service with the built-in thresholds, reporting to the global meter registry.
+     */
+    public GameAnalyticsService() {
+        this(Metrics.globalRegistry);
+    }
+
+    /**
+     * Create a service with the built-in thresholds.
+     */
+    public GameAnalyticsService(MeterRegistry meterRegistry) {
+        this(meterRegistry, new AnomalyRuleRegistry());
+    }
+
+    @Autowired
+    public GameAnalyticsService(MeterRegistry meterRegistry, AnomalyRuleRegistry ruleRegistry) {
+        this(meterRegistry, ruleRegistry, DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * @param sampleInterval One in how many cheap calls is timed, a power of two; 1 times every call
+     */
+    GameAnalyticsService(MeterRegistry meterRegistry, AnomalyRuleRegistry ruleRegistry, int sampleInterval) {
+        if (sampleInterval < 1 || Integer.bitCount(sampleInterval) != 1) {
+            throw new IllegalArgumentException("Sample interval must be a power of two: " + sampleInterval);
+        }
+        this.ruleRegistry = ruleRegistry;
+        this.sampleInterval = sampleInterval;
+        for (int i = 0; i < SIZE_BUCKET_TAGS.length; i++) {
+            LongAdder count = analysisCounts[i] = new LongAdder();
+            LongAdder nanos = analysisNanos[i] = new LongAdder();
+            FunctionTimer.builder("gameperf.analysis.session", this,
+                            service -> count.sum(), service -> nanos.sum(), TimeUnit.NANOSECONDS)
+                    .description("Time to analyze a session, by session size")
+                    .tag("size", SIZE_BUCKET_TAGS[i])
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("gameperf.analysis.session.samples", analyzedSamples, LongAdder::sum)
+                .description("Samples in analyzed sessions")
+                .baseUnit("samples")
+                .register(meterRegistry);
+        fleetTimer = Timer.builder("gameperf.analysis.fleet")
+                .description("Time to analyze many sessions at once, including the fleet-wide merge")
+                .register(meterRegistry);
+        fleetSessions = DistributionSummary.builder("gameperf.analysis.fleet.sessions")
+                .description("Number of sessions per multi-session analysis")
+                .baseUnit("sessions")
+                .register(meterRegistry);
+        FunctionCounter.builder("gameperf.anomalies.evaluated", anomalousResults, LongAdder::sum)
+                .description("Samples checked for anomalies, by result")
+                .tag("result", "anomalous")
+                .register(meterRegistry);
+        FunctionCounter.builder("gameperf.anomalies.evaluated", normalResults, LongAdder::sum)
+                .description("Samples checked for anomalies, by result")
+                .tag("result", "normal")
+                .register(meterRegistry);
+    }
+
     /**
      * Analyze a game session based on collected metrics.
      * Calculates variance and provides stability recommendations.
@@ -23,48 +136,212 @@ public class GameAnalyticsService {
      */
     public Map<String, Object> analyzeSession(List<GameMetric> sessionData) {
         if (sessionData == null || sessionData.isEmpty()) {
-            return Map.of(
-                "error", "No session data provided",
-                "sessionStable", false,
-                "recommendation", "Unable to analyze empty session"
-            );
-        }
-        
-        // Extract FPS values for variance calculation
-        int[] fpsValues = sessionData.stream()
-                .mapToInt(GameMetric::getAvgFps)
-                .toArray();
-        
-        // Extract CPU and GPU values for load analysis
-        int[] cpuValues = sessionData.stream()
-                .mapToInt(GameMetric::getCpuUsage)
-                .toArray();
-        
-        int[] gpuValues = sessionData.stream()
-                .mapToInt(GameMetric::getGpuUsage)
-                .toArray();
-        
-        // Extract latency values
-        int[] latencyValues = sessionData.stream()
-                .mapToInt(GameMetric::getLatencyMs)
-                .toArray();
-        
-        // Calculate statistics
-        double fpsVariance = calculateVariance(fpsValues);
-        double cpuVariance = calculateVariance(cpuValues);
-        double gpuVariance = calculateVariance(gpuValues);
-        double latencyVariance = calculateVariance(latencyValues);
-        
-        double avgFps = Arrays.stream(fpsValues).average().orElse(0);
-        double avgCpu = Arrays.stream(cpuValues).average().orElse(0);
-        double avgGpu = Arrays.stream(gpuValues).average().orElse(0);
-        double avgLatency = Arrays.stream(latencyValues).average().orElse(0);
+            return emptySessionResult();
+        }
+        
+        int size = sessionData.size();
+        long start = startTiming(size);
+        
+        // Single pass over the session: mean, variance, min and max of every metric
+        MetricAccumulator accumulator = new MetricAccumulator();
+        for (GameMetric metric : sessionData) {
+            accumulator.add(metric);
+        }
+        Map<String, Object> result = analyze(accumulator, sessionData.get(0).getName());
+        
+        recordAnalysis(size, start);
+        return result;
+    }
+
+    /**
+     * Analyze a game session held in a columnar batch.
+     * Walks the batch with a cursor, so no per-sample objects are created.
+     * 
+     * @param batch Samples of the session
+     * @return Map containing analysis results and recommendations
+     */
+    public Map<String, Object> analyzeBatch(GameMetricBatch batch) {
+        if (batch == null || batch.size() == 0) {
+            return emptySessionResult();
+        }
+        
+        int size = batch.size();
+        long start = startTiming(size);
+        
+        MetricAccumulator accumulator = new MetricAccumulator();
+        GameMetricBatch.Cursor cursor = batch.cursor();
+        while (cursor.next()) {
+            accumulator.add(cursor.getAvgFps(), cursor.getCpuUsage(), cursor.getGpuUsage(),
+                cursor.getLatencyMs(), cursor.getTemperatureC());
+        }
+        cursor.moveTo(0);
+        Map<String, Object> result = analyze(accumulator, cursor.getName());
+        
+        recordAnalysis(size, start);
+        return result;
+    }
+
+    /**
+     * Analyze a very large session on the common fork/join pool.
+     * Produces the same result as {@link #analyzeSession(List)} up to rounding;
+     * below a few chunks of samples the sequential path is faster.
+     * 
+     * @param sessionData Samples of the session; should be random access
+     * @return Map containing analysis results and recommendations
+     */
+    public Map<String, Object> analyzeSessionParallel(List<GameMetric> sessionData) {
+        if (sessionData == null || sessionData.isEmpty()) {
+            return emptySessionResult();
+        }
+        
+        int size = sessionData.size();
+        long start = startTiming(size);
+        Map<String, Object> result = analyze(ParallelAnalysis.accumulate(sessionData, ForkJoinPool.commonPool()),
+            sessionData.get(0).getName());
+        
+        recordAnalysis(size, start);
+        return result;
+    }
+
+    /**
+     * Analyze many sessions at once on the common fork/join pool, e.g. the replays
+     * of a tournament.
+     * 
+     * @param sessions Samples of each session, keyed by session id
+     * @return Map containing per-session analyses and a fleet-wide analysis over all samples
+     */
+    public Map<String, Object> analyzeSessions(Map<String, List<GameMetric>> sessions) {
+        return analyzeSessions(sessions, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Analyze many sessions at once on the given pool.
+     * Each session is accumulated in parallel, and the fleet-wide statistics are
+     * merged from the per-session partial results without another pass over the samples.
+     * 
+     * @param sessions Samples of each session, keyed by session id
+     * @param pool Pool to run on
+     * @return Map containing per-session analyses and a fleet-wide analysis over all samples
+     */
+    public Map<String, Object> analyzeSessions(Map<String, List<GameMetric>> sessions, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        List<String> ids = new ArrayList<>(sessions.keySet());
+        List<List<GameMetric>> samples = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            List<GameMetric> session = sessions.get(id);
+            samples.add(session == null ? List.of() : session);
+        }
+        
+        MetricAccumulator[] accumulators = ParallelAnalysis.accumulateSessions(samples, pool);
+        
+        MetricAccumulator fleet = new MetricAccumulator();
+        Map<String, Object> perSession = new LinkedHashMap<>();
+        for (int i = 0; i < accumulators.length; i++) {
+            fleet.merge(accumulators[i]);
+            List<GameMetric> session = samples.get(i);
+            perSession.put(ids.get(i), analyze(accumulators[i], session.isEmpty() ? null : session.get(0).getName()));
+        }
+        
+        Map<String, Object> result = Map.of(
+            "sessionCount", ids.size(),
+            "sampleCount", fleet.getCount(),
+            "sessions", perSession,
+            "fleet", analyze(fleet)
+        );
+        
+        fleetTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        fleetSessions.record(ids.size());
+        return result;
+    }
+
+    /**
+     * @return Whether this call is one of the sampled ones
+     */
+    private boolean sampled() {
+        return (ThreadLocalRandom.current().nextInt() & (sampleInterval - 1)) == 0;
+    }
+
+    /**
+     * @param size Number of samples in the session about to be analyzed
+     * @return Start time to pass to {@link #recordAnalysis}, or {@code NOT_TIMED} if this analysis is not timed
+     */
+    private long startTiming(int size) {
+        if (size < SIZE_BUCKET_LIMITS[SIZE_BUCKET_LIMITS.length - 1] && !sampled()) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Count an analysis in its size bucket and add its time if it was timed.
+     * The time of a sampled small or medium session is scaled up by the sample interval.
+     *
+     * @param size Number of samples analyzed
+     * @param start Value returned by {@link #startTiming}
+     */
+    private void recordAnalysis(int size, long start) {
+        int bucket = sizeBucket(size);
+        analysisCounts[bucket].increment();
+        analyzedSamples.add(size);
+        if (start != NOT_TIMED) {
+            long nanos = System.nanoTime() - start;
+            analysisNanos[bucket].add(bucket < SIZE_BUCKET_LIMITS.length ? nanos * sampleInterval : nanos);
+        }
+    }
+
+    /**
+     * @param size Number of samples in a session
+     * @return Index of the size bucket the session falls into
+     */
+    static int sizeBucket(int size) {
+        int bucket = 0;
+        while (bucket < SIZE_BUCKET_LIMITS.length && size >= SIZE_BUCKET_LIMITS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * Analyze a game session from an accumulator of its samples, using the default
+     * stability thresholds.
+     * 
+     * @param accumulator Accumulator holding the session statistics
+     * @return Map containing analysis results and recommendations
+     */
+    public Map<String, Object> analyze(MetricAccumulator accumulator) {
+        return analyze(accumulator, null);
+    }
+
+    /**
+     * Analyze a game session from an accumulator of its samples.
+     * Applies the variance thresholds of the game's rule and builds the
+     * recommendation in O(1), independent of how many samples were accumulated.
+     * 
+     * @param accumulator Accumulator holding the session statistics
+     * @param game Name of the game whose rule applies (optional, defaults otherwise)
+     * @return Map containing analysis results and recommendations
+     */
+    public Map<String, Object> analyze(MetricAccumulator accumulator, String game) {
+        if (accumulator.getCount() == 0) {
+            return emptySessionResult();
+        }
+        StabilityThresholds thresholds = ruleRegistry.getRules().forGame(game).stability();
+        
+        double fpsVariance = accumulator.getFps().getVariance();
+        double cpuVariance = accumulator.getCpu().getVariance();
+        double gpuVariance = accumulator.getGpu().getVariance();
+        double latencyVariance = accumulator.getLatency().getVariance();
+        
+        double avgFps = accumulator.getFps().getMean();
+        double avgCpu = accumulator.getCpu().getMean();
+        double avgGpu = accumulator.getGpu().getMean();
+        double avgLatency = accumulator.getLatency().getMean();
         
         // Determine stability based on variance thresholds
-        boolean fpsUnstable = fpsVariance > 50;
-        boolean cpuUnstable = cpuVariance > 30;
-        boolean gpuUnstable = gpuVariance > 30;
-        boolean latencyUnstable = latencyVariance > 20;
+        boolean fpsUnstable = fpsVariance > thresholds.maxFpsVariance();
+        boolean cpuUnstable = cpuVariance > thresholds.maxCpuVariance();
+        boolean gpuUnstable = gpuVariance > thresholds.maxGpuVariance();
+        boolean latencyUnstable = latencyVariance > thresholds.maxLatencyVariance();
         
         boolean sessionStable = !fpsUnstable && !cpuUnstable && !gpuUnstable && !latencyUnstable;
         
@@ -89,23 +366,16 @@ public class GameAnalyticsService {
     }
 
     /**
-     * Calculate variance for a set of values.
-     * Variance measures how spread out the values are from the mean.
+     * Result returned when there is no session data to analyze.
      * 
-     * @param values Array of integer values
-     * @return Variance value
+     * @return Map containing the error and an unstable verdict
      */
-    private double calculateVariance(int[] values) {
-        if (values == null || values.length == 0) {
-            return 0;
-        }
-        
-        double mean = Arrays.stream(values).average().orElse(0);
-        
-        return Arrays.stream(values)
-                .mapToDouble(v -> Math.pow(v - mean, 2))
-                .average()
-                .orElse(0);
+    private Map<String, Object> emptySessionResult() {
+        return Map.of(
+            "error", "No session data provided",
+            "sessionStable", false,
+            "recommendation", "Unable to analyze empty session"
+        );
     }
 
     /**
@@ -172,26 +442,42 @@ public class GameAnalyticsService {
     }
 
     /**
-     * Analyze individual game metric for anomalies.
+     * Analyze individual game metric for anomalies, using the thresholds of its game's rule.
      * 
      * @param metric GameMetric to analyze
      * @return Map containing anomaly detection results
      */
     public Map<String, Object> detectAnomalies(GameMetric metric) {
-        boolean highTemp = metric.getTemperatureC() > 80;
-        boolean lowFps = metric.getAvgFps() < 60;
-        boolean highLatency = metric.getLatencyMs() > 50;
-        boolean highCpu = metric.getCpuUsage() > 90;
-        boolean highGpu = metric.getGpuUsage() > 90;
+        return detectAnomalies(metric, ruleRegistry.getRules().forGame(metric.getName()));
+    }
+
+    /**
+     * Analyze individual game metric for anomalies with an already resolved rule.
+     * Lets a caller checking many samples of one game resolve its rule once,
+     * see {@link #anomalyRule(String)}.
+     * 
+     * @param metric GameMetric to analyze
+     * @param rule Rule to apply
+     * @return Map containing anomaly detection results
+     */
+    public Map<String, Object> detectAnomalies(GameMetric metric, RuleSet.Rule rule) {
+        int flags = rule.anomaly().evaluate(
+            metric.getAvgFps(), metric.getCpuUsage(), metric.getGpuUsage(),
+            metric.getLatencyMs(), metric.getTemperatureC());
         
-        boolean hasAnomalies = highTemp || lowFps || highLatency || highCpu || highGpu;
+        boolean hasAnomalies = flags != 0;
+        if (hasAnomalies) {
+            anomalousResults.increment();
+        } else {
+            normalResults.increment();
+        }
         
         StringBuilder issues = new StringBuilder();
-        if (highTemp) issues.append("High temperature. ");
-        if (lowFps) issues.append("Low FPS. ");
-        if (highLatency) issues.append("High latency. ");
-        if (highCpu) issues.append("High CPU usage. ");
-        if (highGpu) issues.append("High GPU usage. ");
+        if ((flags & AnomalyEvaluator.HIGH_TEMPERATURE) != 0) issues.append("High temperature. ");
+        if ((flags & AnomalyEvaluator.LOW_FPS) != 0) issues.append("Low FPS. ");
+        if ((flags & AnomalyEvaluator.HIGH_LATENCY) != 0) issues.append("High latency. ");
+        if ((flags & AnomalyEvaluator.HIGH_CPU) != 0) issues.append("High CPU usage. ");
+        if ((flags & AnomalyEvaluator.HIGH_GPU) != 0) issues.append("High GPU usage. ");
         
         return Map.of(
             "gameName", metric.getName(),
@@ -201,4 +487,64 @@ public class GameAnalyticsService {
             "stabilityIndex", metric.getStabilityIndex()
         );
     }
+
+    /**
+     * @param game Name of the game (optional)
+     * @return Rule currently applying to the game's samples
+     */
+    public RuleSet.Rule anomalyRule(String game) {
+        return ruleRegistry.getRules().forGame(game);
+    }
+
+    /**
+     * Detect anomalies in a columnar batch of samples using the default thresholds.
+     * 
+     * @param batch Columnar batch; all columns must have the same length
+     * @return Compact result with per-sample flags and aggregate counts
+     * @throws IllegalArgumentException if a column is missing or the lengths differ
+     */
+    public AnomalyBatchResult detectAnomalies(AnomalyBatchRequest batch) {
+        return detectAnomalies(batch, null, null);
+    }
+
+    /**
+     * Detect anomalies in a columnar batch of samples.
+     * Uses the same thresholds as {@link #detectAnomalies(GameMetric)} but evaluates
+     * primitive columns in a branch-free loop and returns bitmask flags plus counts
+     * instead of per-sample maps and strings. The rule is resolved once per batch.
+     * 
+     * @param batch Columnar batch; all columns must have the same length
+     * @param game Game whose rule applies (optional)
+     * @param tier Hardware tier whose rule applies when the game has none (optional)
+     * @return Compact result with per-sample flags and aggregate counts
+     * @throws IllegalArgumentException if a column is missing or the lengths differ
+     */
+    public AnomalyBatchResult detectAnomalies(AnomalyBatchRequest batch, String game, String tier) {
+        int[] fps = batch.getFps();
+        int[] cpu = batch.getCpuUsage();
+        int[] gpu = batch.getGpuUsage();
+        int[] latency = batch.getLatencyMs();
+        int[] temperature = batch.getTemperatureC();
+        
+        if (fps == null || cpu == null || gpu == null || latency == null || temperature == null) {
+            throw new IllegalArgumentException("Batch must contain fps, cpuUsage, gpuUsage, latencyMs and temperatureC");
+        }
+        int n = fps.length;
+        if (cpu.length != n || gpu.length != n || latency.length != n || temperature.length != n) {
+            throw new IllegalArgumentException("All batch columns must have the same length");
+        }
+        
+        byte[] flags = new byte[n];
+        RuleSet.Rule rule = ruleRegistry.getRules().resolve(game, tier);
+        rule.anomaly().evaluate(fps, cpu, gpu, latency, temperature, flags, 0, n);
+        int[] counts = AnomalyEvaluator.countFlags(flags, n);
+        anomalousResults.add(counts[5]);
+        normalResults.add(n - counts[5]);
+        
+        return new AnomalyBatchResult(
+            n, counts[5],
+            counts[0], counts[1], counts[2], counts[3], counts[4],
+            flags
+        );
+    }
 }
@@ -1,15 +1,34 @@
 package com.gameperf.api;
 
-import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.importer.ImportFormat;
+import com.gameperf.api.model.AnomalyBatchRequest;
+import com.gameperf.api.model.AnomalyBatchResult;
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.rollup.RollupStore;
+import com.gameperf.api.rules.AnomalyRuleRegistry;
+import com.gameperf.api.stats.PercentileTracker;
+import com.gameperf.api.store.AggregateRegistry;
+import com.gameperf.api.stream.BackpressurePolicy;
+import com.gameperf.api.stream.MetricsBroadcastHub;
+import com.gameperf.api.stream.MetricsCborCodec;
+import com.gameperf.api.stream.ReactiveMetricsStream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
+import java.util.Set;
 
 /**
  * REST Controller for game metrics API.
@@ -23,66 +42,398 @@ public class GameMetricsController {
     @Autowired
     private GameMetricsService metricsService;
 
+    @Autowired
+    private MetricsIngestService ingestService;
+
+    @Autowired
+    private GameAnalyticsService analyticsService;
+
+    @Autowired
+    private MetricsBroadcastHub broadcastHub;
+
+    @Autowired
+    private PercentileTracker percentileTracker;
+
+    @Autowired
+    private RollupStore rollupStore;
+
+    @Autowired
+    private BulkImportService importService;
+
+    @Autowired
+    private AnomalyRuleRegistry ruleRegistry;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private AggregateRegistry aggregateRegistry;
+
+    @Autowired
+    private ReactiveMetricsStream reactiveStream;
+
+    @Autowired
+    private HistoryService historyService;
+
     /**
      * Get all game metrics with calculated performance scores.
+     * Serves the pre-serialized JSON of the current snapshot and answers
+     * 304 Not Modified when the client's If-None-Match matches its ETag.
      * 
-     * @return List of game metrics
+     * @param request Current request, used for the conditional check
+     * @return JSON array of game metrics
      */
     @GetMapping
-    public List<GameMetric> getAllMetrics() {
-        return metricsService.getMetrics();
+    public ResponseEntity<byte[]> getAllMetrics(WebRequest request) {
+        MetricsSnapshot snapshot = metricsService.getSnapshot();
+        return cached(request, snapshot.metricsEtag(), snapshot.metricsJson(), MediaType.APPLICATION_JSON, true);
+    }
+
+    /**
+     * Get all game metrics as columnar CBOR, selected with {@code Accept: application/cbor}.
+     * Serves the pre-encoded CBOR of the current snapshot with its own ETag.
+     * 
+     * @param request Current request, used for the conditional check
+     * @return CBOR map from field name to an array of values, see {@link MetricsCborCodec}
+     */
+    @GetMapping(produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<byte[]> getAllMetricsCbor(WebRequest request) {
+        MetricsSnapshot snapshot = metricsService.getSnapshot();
+        return cached(request, snapshot.metricsCborEtag(), snapshot.metricsCbor(), MediaType.APPLICATION_CBOR, true);
     }
 
     /**
      * Get analysis summary of all metrics.
      * Includes averages for performance, stability, and other key metrics.
      * 
-     * @return Map containing analysis statistics
+     * @param request Current request, used for the conditional check
+     * @return JSON object containing analysis statistics
      */
     @GetMapping("/analyze")
-    public Map<String, Object> analyzeAll() {
-        return metricsService.getAnalysisSummary();
+    public ResponseEntity<byte[]> analyzeAll(WebRequest request) {
+        MetricsSnapshot snapshot = metricsService.getSnapshot();
+        return cached(request, snapshot.summaryEtag(), snapshot.summaryJson(), MediaType.APPLICATION_JSON, false);
+    }
+
+    /**
+     * Get the best and worst games by performance score, stability index or p99 latency.
+     * Served from incrementally maintained leaderboards in O(k), without sorting all games.
+     * 
+     * @param by Value to rank by: performanceScore, stabilityIndex or p99Latency
+     * @param k Number of games on each side (1-1000)
+     * @return Map containing the k best and k worst games with their values
+     */
+    @GetMapping("/top")
+    public Map<String, Object> getTop(@RequestParam(defaultValue = LeaderboardService.PERFORMANCE_SCORE) String by,
+                                      @RequestParam(defaultValue = "10") int k) {
+        return leaderboardService.top(by, k);
+    }
+
+    /**
+     * Get running totals of every sample ingested since startup, overall and grouped
+     * by game, region or hardware tier. Merged from the lock-free aggregates at read
+     * time, so the result may include part of a batch still being ingested.
+     * 
+     * @param by Dimension to group by: game, region or hardwareTier
+     * @return Map containing the sample count, mean and standard deviation overall and per group
+     */
+    @GetMapping("/aggregates")
+    public Map<String, Object> getAggregates(@RequestParam(defaultValue = AggregateRegistry.GAME) String by) {
+        return aggregateRegistry.describe(by);
+    }
+
+    /**
+     * Get FPS and latency percentiles (p50/p95/p99) per game over sliding windows.
+     * 
+     * @param window Window label such as "1m", "5m" or "1h" (optional, defaults to all windows)
+     * @return Map from window label to per-game percentiles
+     */
+    @GetMapping("/percentiles")
+    public ResponseEntity<Map<String, Object>> getPercentiles(@RequestParam(required = false) String window) {
+        if (window == null) {
+            return ResponseEntity.ok(percentileTracker.snapshot());
+        }
+        List<Map<String, Object>> games = percentileTracker.snapshot(window);
+        if (games == null) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Unknown window: " + window,
+                "windows", percentileTracker.getWindows()
+            ));
+        }
+        return ResponseEntity.ok(Map.of(window, games));
+    }
+
+    /**
+     * Get historical aggregates of a game from the multi-resolution rollups.
+     * The coarsest resolution (1s, 1m or 1h) that fits the step and still covers
+     * the range is chosen automatically.
+     * 
+     * @param game Name of the game
+     * @param from Start of the range in epoch milliseconds (optional, defaults to {@code to - range})
+     * @param to End of the range in epoch milliseconds (optional, defaults to now)
+     * @param range Length of the range when {@code from} is omitted, e.g. "24h"
+     * @param step Width of one point, e.g. "1m" (optional, defaults to range / 60)
+     * @return Chosen resolution, effective step and per-point statistics
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<Map<String, Object>> getRollups(@RequestParam String game,
+                                                          @RequestParam(required = false) Long from,
+                                                          @RequestParam(required = false) Long to,
+                                                          @RequestParam(defaultValue = "1h") String range,
+                                                          @RequestParam(required = false) String step) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = rangeStart(from, end, range);
+        long stepMillis = step != null ? millis(step) : Math.max(1, span(start, end) / 60);
+
+        Map<String, Object> result = rollupStore.query(game, start, end, stepMillis);
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "No rollups for game: " + game));
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Get persisted samples of a time range from the sample log, raw or downsampled.
+     * The result is streamed as a JSON array of metrics that can be analyzed like a
+     * session; only the index blocks overlapping the range are read.
+     * 
+     * @param game Name of the game (optional, defaults to all games)
+     * @param from Start of the range in epoch milliseconds (optional, defaults to {@code to - range})
+     * @param to End of the range in epoch milliseconds (optional, defaults to now)
+     * @param range Length of the range when {@code from} is omitted, e.g. "24h"
+     * @param step Width of one point, e.g. "1m" (optional; raw samples when omitted)
+     * @return Streamed samples, or per-game point means in time order
+     */
+    @GetMapping("/history")
+    public ResponseEntity<StreamingResponseBody> getHistory(@RequestParam(required = false) String game,
+                                                            @RequestParam(required = false) Long from,
+                                                            @RequestParam(required = false) Long to,
+                                                            @RequestParam(defaultValue = "1h") String range,
+                                                            @RequestParam(required = false) String step) {
+        if (!historyService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(HistoryService.error("Persistence is disabled"));
+        }
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = rangeStart(from, end, range);
+        Long stepMillis = step != null ? millis(step) : null;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(historyService.range(game, start, end, stepMillis));
+    }
+
+    /**
+     * @return {@code from}, or {@code range} before {@code end} when it is omitted
+     * @throws IllegalArgumentException if the range reaches past the earliest representable time
+     */
+    private static long rangeStart(Long from, long end, String range) {
+        if (from != null) {
+            return from;
+        }
+        try {
+            return Math.subtractExact(end, millis(range));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Range is too long: " + range);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the range is longer than a long of milliseconds
+     */
+    private static long span(long start, long end) {
+        try {
+            return Math.subtractExact(end, start);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Range is too long");
+        }
+    }
+
+    /**
+     * @param duration Duration such as {@code 250ms} or {@code 24h}
+     * @throws IllegalArgumentException if the duration is malformed or longer than a long of milliseconds
+     */
+    private static long millis(String duration) {
+        try {
+            return DurationStyle.detectAndParse(duration).toMillis();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Duration is too long: " + duration);
+        }
+    }
+
+    /**
+     * Ingest a batch of raw telemetry samples into the time-series store.
+     * Accepts a JSON array or, with {@code Content-Type: application/cbor}, the same
+     * array encoded as CBOR.
+     * 
+     * @param samples Samples with game, session id, timestamp and measurements
+     * @return Map containing accepted and rejected counts
+     */
+    @PostMapping("/ingest")
+    public Map<String, Object> ingest(@RequestBody List<MetricSample> samples) {
+        return ingestService.ingest(samples);
+    }
+
+    /**
+     * Import a CSV or NDJSON session file streamed in the request body.
+     * The body is parsed incrementally and ingested batch by batch, so memory use
+     * does not depend on the size of the upload.
+     * 
+     * @param format Format name ({@code csv} or {@code ndjson}); defaults to the content type
+     * @param contentType Content type of the body ({@code text/csv} or {@code application/x-ndjson})
+     * @param body Raw request body
+     * @return Map containing line, byte and sample counts, the elapsed time and the analysis
+     */
+    @PostMapping("/import")
+    public Map<String, Object> importSamples(@RequestParam(required = false) String format,
+                                             @RequestHeader(value = "Content-Type", required = false) String contentType,
+                                             InputStream body) throws IOException {
+        return importService.importSamples(body, ImportFormat.resolve(format, contentType, null));
+    }
+
+    /**
+     * Ingest a CSV or NDJSON stream with demand-driven flow control.
+     * Progress is streamed back as one NDJSON line per batch, and the next batch is
+     * only read from the upload once the previous line was written, so a slow client
+     * throttles its own upload and at most one batch is held in memory. Each import
+     * holds one thread of a small dedicated pool while it runs.
+     * 
+     * @param format Format name ({@code csv} or {@code ndjson}); defaults to the content type
+     * @param batchSize Samples per batch (1-8192)
+     * @param contentType Content type of the body ({@code text/csv} or {@code application/x-ndjson})
+     * @param body Raw request body
+     * @return Emitter of per-batch accepted, rejected and malformed counts, or 429 Too Many
+     *         Requests if the streaming import limit is reached
+     */
+    @PostMapping(value = "/ingest/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> ingestStream(@RequestParam(required = false) String format,
+                                                           @RequestParam(defaultValue = "1024") int batchSize,
+                                                           @RequestHeader(value = "Content-Type", required = false) String contentType,
+                                                           InputStream body) {
+        ResponseBodyEmitter emitter = importService.openStream(body, ImportFormat.resolve(format, contentType, null), batchSize);
+        return emitter == null ? ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build()
+                : ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    /**
+     * Detect anomalies in a columnar batch of samples.
+     * 
+     * @param batch Columnar samples (fps, cpuUsage, gpuUsage, latencyMs, temperatureC arrays)
+     * @param game Game whose thresholds apply (optional)
+     * @param tier Hardware tier whose thresholds apply when the game has no rule (optional)
+     * @return Per-sample anomaly bitmasks (base64) and aggregate counts
+     */
+    @PostMapping("/anomalies/batch")
+    public AnomalyBatchResult detectAnomalies(@RequestBody AnomalyBatchRequest batch,
+                                              @RequestParam(required = false) String game,
+                                              @RequestParam(required = false) String tier) {
+        return analyticsService.detectAnomalies(batch, game, tier);
+    }
+
+    /**
+     * Get the anomaly and stability rules currently in effect.
+     * 
+     * @return Map containing the rules file, version, load time, last reload error and rules
+     */
+    @GetMapping("/rules")
+    public Map<String, Object> getRules() {
+        return ruleRegistry.describe();
     }
 
     /**
      * Stream live metrics using Server-Sent Events (SSE).
-     * Pushes updated metrics every 3 seconds.
+     * Pushes updated metrics at the requested interval through the shared broadcast
+     * hub. Subscribers asking for the same interval and games share one group, so
+     * each distinct view is computed and serialized once per push for all of them.
      * 
      * Frontend usage:
-     * const evtSource = new EventSource("http://localhost:8080/api/metrics/live");
-     * evtSource.onmessage = e => setGames(JSON.parse(e.data));
+     * const evtSource = new EventSource("http://localhost:8080/api/metrics/live?interval=250ms&games=Neon%20Havoc");
+     * evtSource.addEventListener("metrics-update", e => setGames(JSON.parse(e.data)));
      * 
-     * @return SseEmitter for streaming updates
+     * @param interval Push interval such as {@code 250ms} or {@code 5s} (100ms-60s); defaults to 3s
+     * @param games Games to include (comma-separated or repeated, at most 32); defaults to every game
+     * @return SseEmitter for streaming updates, or 429 Too Many Requests if the view limit is reached
      */
     @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamMetrics() {
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-        
-        Executors.newSingleThreadExecutor().execute(() -> {
-            try {
-                while (true) {
-                    // Send updated metrics every 3 seconds
-                    List<GameMetric> metrics = metricsService.getMetrics();
-                    emitter.send(SseEmitter.event()
-                            .data(metrics)
-                            .name("metrics-update"));
-                    
-                    Thread.sleep(3000);
-                }
-            } catch (IOException e) {
-                emitter.completeWithError(e);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                emitter.complete();
-            }
-        });
-        
-        // Handle client disconnect
-        emitter.onCompletion(() -> System.out.println("SSE connection completed"));
-        emitter.onTimeout(() -> System.out.println("SSE connection timed out"));
-        emitter.onError(e -> System.out.println("SSE error: " + e.getMessage()));
-        
-        return emitter;
+    public ResponseEntity<SseEmitter> streamMetrics(@RequestParam(required = false) String interval,
+                                                    @RequestParam(required = false) Set<String> games) {
+        return live(broadcastHub.subscribe(liveInterval(interval), games));
+    }
+
+    /**
+     * Stream live metrics as a CBOR sequence, selected with {@code Accept: application/cbor-seq}.
+     * Carries the same events as the SSE stream, each encoded as one
+     * {@code {"event": name, "data": ...}} item with the metrics in columnar form.
+     * 
+     * @param interval Push interval such as {@code 250ms} or {@code 5s} (100ms-60s); defaults to 3s
+     * @param games Games to include (comma-separated or repeated, at most 32); defaults to every game
+     * @return ResponseBodyEmitter for streaming updates, or 429 Too Many Requests if the view limit is reached
+     */
+    @GetMapping(value = "/live", produces = MetricsCborCodec.CBOR_SEQ_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamMetricsBinary(@RequestParam(required = false) String interval,
+                                                                   @RequestParam(required = false) Set<String> games) {
+        return live(broadcastHub.subscribeBinary(liveInterval(interval), games));
+    }
+
+    private static <E extends ResponseBodyEmitter> ResponseEntity<E> live(E emitter) {
+        return emitter == null ? ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build() : ResponseEntity.ok(emitter);
+    }
+
+    private long liveInterval(String interval) {
+        return interval == null ? broadcastHub.getDefaultIntervalMillis() : millis(interval);
+    }
+
+    /**
+     * Stream live metrics as Server-Sent Events with demand-driven flow control.
+     * Unlike {@code /live}, an update is only written when the client is ready for
+     * it; updates published while the client lags are handled by its policy, so a
+     * stalled client holds at most {@code bufferSize} shared snapshots and one thread
+     * of the live push executor.
+     * 
+     * @param policy {@code drop}, {@code latest} (keep the newest snapshot) or {@code buffer}
+     * @param bufferSize Pending updates kept with the {@code buffer} policy (1-256)
+     * @return SseEmitter of metrics-update events, with the update sequence number as id
+     */
+    @GetMapping(value = "/live/reactive", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMetricsReactive(@RequestParam(defaultValue = "latest") String policy,
+                                            @RequestParam(defaultValue = "16") int bufferSize) {
+        return reactiveStream.open(BackpressurePolicy.parse(policy), bufferSize);
+    }
+
+    /**
+     * Get statistics of the live stream broadcast hub.
+     * 
+     * @return Map containing subscriber count and fan-out latency
+     */
+    @GetMapping("/live/stats")
+    public Map<String, Object> streamStats() {
+        return broadcastHub.getStats();
+    }
+
+    /**
+     * Report invalid request content as 400 Bad Request.
+     * 
+     * @param e Validation error
+     * @return Map containing the error message
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    private ResponseEntity<byte[]> cached(WebRequest request, String etag, byte[] body, MediaType contentType,
+                                          boolean negotiated) {
+        // Representations chosen by Accept carry different ETags, so caches must key on it too
+        String[] vary = negotiated ? new String[] {HttpHeaders.ACCEPT} : new String[0];
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(vary).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(vary)
+                .contentType(contentType)
+                .body(body);
     }
 
     /**
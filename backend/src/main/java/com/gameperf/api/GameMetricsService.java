@@ -1,105 +1,132 @@
 package com.gameperf.api;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gameperf.api.model.GameMetric;
-import org.springframework.cache.annotation.Cacheable;
+import com.gameperf.api.store.GameMetricBatch;
+import com.gameperf.api.store.TimeSeriesStore;
+import com.gameperf.api.stream.MetricsCborCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service for managing game metrics data.
- * Provides sample data generation, score calculations, and analysis summaries.
+ * Reads the latest window of each game from the time-series store once per refresh
+ * tick, scores it and publishes the result as an immutable {@link MetricsSnapshot}.
+ * All readers share the current snapshot without locks or per-request computation.
  */
 @Service
 public class GameMetricsService {
 
-    private final Random random = new Random();
+    public static final long DEFAULT_WINDOW_MS = 5000;
+
+    private final TimeSeriesStore store;
+    private final DemoMetricsFeed demoFeed;
+    private final ObjectMapper objectMapper;
+    private final long windowMillis;
+    private final Timer scoringTimer;
+
+    private final AtomicReference<MetricsSnapshot> snapshot = new AtomicReference<>();
+    private long version;
+
+    /**
+     * Create a standalone service with its own store and the demo feed enabled.
+     */
+    public GameMetricsService() {
+        this(new TimeSeriesStore());
+    }
+
+    private GameMetricsService(TimeSeriesStore store) {
+        this(store, new DemoMetricsFeed(store::appendAll), new ObjectMapper(), DEFAULT_WINDOW_MS,
+                Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public GameMetricsService(TimeSeriesStore store,
+                              Optional<DemoMetricsFeed> demoFeed,
+                              ObjectMapper objectMapper,
+                              @Value("${metrics.window-ms:5000}") long windowMillis,
+                              MeterRegistry meterRegistry) {
+        this(store, demoFeed.orElse(null), objectMapper, windowMillis, meterRegistry);
+    }
+
+    private GameMetricsService(TimeSeriesStore store, DemoMetricsFeed demoFeed,
+                               ObjectMapper objectMapper, long windowMillis, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.demoFeed = demoFeed;
+        this.objectMapper = objectMapper;
+        this.windowMillis = windowMillis;
+        this.scoringTimer = Timer.builder("gameperf.scoring")
+                .description("Time to score every game of a refresh tick")
+                .register(meterRegistry);
+        refresh();
+    }
 
     /**
      * Get all game metrics with calculated scores.
-     * Data is refreshed with slight variations to simulate real-time updates.
+     * Each game is reported as the average of its latest window in the time-series store,
+     * as of the last refresh tick. The list is shared by all readers and must not be modified.
      * 
      * @return List of GameMetric objects with calculated performance scores
      */
     public List<GameMetric> getMetrics() {
-        return generateSampleData().stream()
-                .map(this::calculateScores)
-                .toList();
+        return snapshot.get().metrics();
     }
 
     /**
-     * Generate sample game data with slight randomization for realistic simulation.
+     * Get the current immutable snapshot holding the scored metrics, the summary
+     * and their pre-serialized JSON.
      * 
-     * @return List of GameMetric objects with raw measurements
+     * @return Snapshot published by the last refresh tick
      */
-    private List<GameMetric> generateSampleData() {
-        List<GameMetric> games = new ArrayList<>();
-        
-        // Base metrics for each game (with slight variations for realism)
-        games.add(new GameMetric(
-            "Cyber Drift X", 
-            144 + random.nextInt(11) - 5,  // 139-149 fps
-            62 + random.nextInt(7) - 3,     // 59-65% CPU
-            75 + random.nextInt(7) - 3,     // 72-78% GPU
-            21 + random.nextInt(5) - 2,     // 19-23ms latency
-            68 + random.nextInt(5) - 2,     // 66-70°C
-            0, 0
-        ));
-        
-        games.add(new GameMetric(
-            "StarForge Arena", 
-            119 + random.nextInt(9) - 4,    // 115-123 fps
-            70 + random.nextInt(7) - 3,     // 67-73% CPU
-            81 + random.nextInt(7) - 3,     // 78-84% GPU
-            30 + random.nextInt(7) - 3,     // 27-33ms latency
-            72 + random.nextInt(5) - 2,     // 70-74°C
-            0, 0
-        ));
-        
-        games.add(new GameMetric(
-            "Legends Reborn", 
-            165 + random.nextInt(11) - 5,   // 160-170 fps
-            55 + random.nextInt(7) - 3,     // 52-58% CPU
-            64 + random.nextInt(7) - 3,     // 61-67% GPU
-            17 + random.nextInt(5) - 2,     // 15-19ms latency
-            63 + random.nextInt(5) - 2,     // 61-65°C
-            0, 0
-        ));
-        
-        games.add(new GameMetric(
-            "Shadow Protocol", 
-            98 + random.nextInt(9) - 4,     // 94-102 fps
-            78 + random.nextInt(7) - 3,     // 75-81% CPU
-            85 + random.nextInt(7) - 3,     // 82-88% GPU
-            42 + random.nextInt(7) - 3,     // 39-45ms latency
-            75 + random.nextInt(5) - 2,     // 73-77°C
-            0, 0
-        ));
-        
-        games.add(new GameMetric(
-            "Neon Havoc", 
-            132 + random.nextInt(11) - 5,   // 127-137 fps
-            64 + random.nextInt(7) - 3,     // 61-67% CPU
-            71 + random.nextInt(7) - 3,     // 68-74% GPU
-            25 + random.nextInt(5) - 2,     // 23-27ms latency
-            69 + random.nextInt(5) - 2,     // 67-71°C
-            0, 0
-        ));
-        
-        games.add(new GameMetric(
-            "Quantum Raiders", 
-            156 + random.nextInt(11) - 5,   // 151-161 fps
-            58 + random.nextInt(7) - 3,     // 55-61% CPU
-            68 + random.nextInt(7) - 3,     // 65-71% GPU
-            19 + random.nextInt(5) - 2,     // 17-21ms latency
-            65 + random.nextInt(5) - 2,     // 63-67°C
-            0, 0
-        ));
-        
-        return games;
+    public MetricsSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Recompute the snapshot from the time-series store and publish it.
+     * When the demo feed is enabled it publishes a fresh sample per game first,
+     * so the data keeps varying slightly to simulate real-time updates.
+     * Readers keep using the previous snapshot until the new one is swapped in.
+     */
+    @Scheduled(fixedRateString = "${metrics.refresh-ms:1000}")
+    public synchronized void refresh() {
+        if (demoFeed != null) {
+            demoFeed.publish();
+        }
+        List<GameMetric> latest = store.latestWindow(windowMillis);
+        // Timed per pass rather than per game: a single score is a handful of flops
+        long start = System.nanoTime();
+        List<GameMetric> metrics = latest.stream()
+                .map(this::calculateScores)
+                .toList();
+        scoringTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        Map<String, Object> summary = summarize(metrics);
+
+        try {
+            snapshot.set(new MetricsSnapshot(
+                ++version,
+                System.currentTimeMillis(),
+                metrics,
+                summary,
+                objectMapper.writeValueAsBytes(metrics),
+                objectMapper.writeValueAsBytes(summary),
+                MetricsCborCodec.encode(metrics)
+            ));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize metrics snapshot", e);
+        }
     }
 
     /**
@@ -117,77 +144,90 @@ public class GameMetricsService {
      * @param g GameMetric with raw measurements
      * @return GameMetric with calculated scores
      */
-    private GameMetric calculateScores(GameMetric g) {
-        // Performance score: weighted calculation favoring high FPS and low resource usage
-        double perf = (g.getAvgFps() * 0.6)
-                    - (g.getCpuUsage() * 0.15)
-                    - (g.getGpuUsage() * 0.15)
-                    - (g.getLatencyMs() * 0.1);
-        
-        // Stability index: measures balance between CPU and GPU usage
-        // Lower difference = more stable performance
-        double stab = 100 - Math.abs(g.getCpuUsage() - g.getGpuUsage()) * 0.6;
-        
-        // Normalize scores to 0-100 range
-        g.setPerformanceScore(Math.max(0, Math.min(perf, 100)));
-        g.setStabilityIndex(Math.max(0, Math.min(stab, 100)));
+    GameMetric calculateScores(GameMetric g) {
+        g.setPerformanceScore(GameMetric.performanceScore(
+                g.getAvgFps(), g.getCpuUsage(), g.getGpuUsage(), g.getLatencyMs()));
+        g.setStabilityIndex(GameMetric.stabilityIndex(g.getCpuUsage(), g.getGpuUsage()));
         
         return g;
     }
 
     /**
      * Get analysis summary of all metrics.
-     * Includes averages for performance and stability across all games.
+     * Includes averages for performance and stability across all games,
+     * precomputed on the last refresh tick.
      * 
      * @return Map containing analysis summary statistics
      */
     public Map<String, Object> getAnalysisSummary() {
-        List<GameMetric> metrics = getMetrics();
-        
-        double avgPerf = metrics.stream()
-                .mapToDouble(GameMetric::getPerformanceScore)
-                .average()
-                .orElse(0);
-        
-        double avgStab = metrics.stream()
-                .mapToDouble(GameMetric::getStabilityIndex)
-                .average()
-                .orElse(0);
-        
-        double avgFps = metrics.stream()
-                .mapToDouble(GameMetric::getAvgFps)
-                .average()
-                .orElse(0);
-        
-        double avgCpu = metrics.stream()
-                .mapToDouble(GameMetric::getCpuUsage)
-                .average()
-                .orElse(0);
-        
-        double avgGpu = metrics.stream()
-                .mapToDouble(GameMetric::getGpuUsage)
-                .average()
-                .orElse(0);
-        
-        double avgLatency = metrics.stream()
-                .mapToDouble(GameMetric::getLatencyMs)
-                .average()
-                .orElse(0);
-        
-        double avgTemp = metrics.stream()
-                .mapToDouble(GameMetric::getTemperatureC)
-                .average()
-                .orElse(0);
-        
+        return snapshot.get().summary();
+    }
+
+    /**
+     * Calculate the analysis summary of a list of scored metrics.
+     * 
+     * @param metrics Scored metrics
+     * @return Map containing analysis summary statistics
+     */
+    private Map<String, Object> summarize(List<GameMetric> metrics) {
+        double sumPerf = 0, sumStab = 0;
+        long sumFps = 0, sumCpu = 0, sumGpu = 0, sumLatency = 0, sumTemp = 0;
+        for (GameMetric m : metrics) {
+            sumPerf += m.getPerformanceScore();
+            sumStab += m.getStabilityIndex();
+            sumFps += m.getAvgFps();
+            sumCpu += m.getCpuUsage();
+            sumGpu += m.getGpuUsage();
+            sumLatency += m.getLatencyMs();
+            sumTemp += m.getTemperatureC();
+        }
+        return summary(metrics.size(), sumPerf, sumStab, sumFps, sumCpu, sumGpu, sumLatency, sumTemp);
+    }
+
+    /**
+     * Score and summarize a columnar batch of samples.
+     * Scores are derived per sample while walking the batch, so the summary is
+     * computed in one pass without materializing GameMetric objects.
+     * 
+     * @param batch Samples to summarize
+     * @return Map containing the same statistics as {@link #getAnalysisSummary()}
+     */
+    public Map<String, Object> summarize(GameMetricBatch batch) {
+        long start = System.nanoTime();
+        double sumPerf = 0, sumStab = 0;
+        long sumFps = 0, sumCpu = 0, sumGpu = 0, sumLatency = 0, sumTemp = 0;
+        GameMetricBatch.Cursor c = batch.cursor();
+        while (c.next()) {
+            sumPerf += c.getPerformanceScore();
+            sumStab += c.getStabilityIndex();
+            sumFps += c.getAvgFps();
+            sumCpu += c.getCpuUsage();
+            sumGpu += c.getGpuUsage();
+            sumLatency += c.getLatencyMs();
+            sumTemp += c.getTemperatureC();
+        }
+        scoringTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return summary(batch.size(), sumPerf, sumStab, sumFps, sumCpu, sumGpu, sumLatency, sumTemp);
+    }
+
+    private static Map<String, Object> summary(int n, double sumPerf, double sumStab, long sumFps,
+                                               long sumCpu, long sumGpu, long sumLatency, long sumTemp) {
         return Map.of(
-            "totalGames", metrics.size(),
-            "averagePerformance", Math.round(avgPerf * 100.0) / 100.0,
-            "averageStability", Math.round(avgStab * 100.0) / 100.0,
-            "averageFps", Math.round(avgFps * 100.0) / 100.0,
-            "averageCpuUsage", Math.round(avgCpu * 100.0) / 100.0,
-            "averageGpuUsage", Math.round(avgGpu * 100.0) / 100.0,
-            "averageLatency", Math.round(avgLatency * 100.0) / 100.0,
-            "averageTemperature", Math.round(avgTemp * 100.0) / 100.0
+            "totalGames", n,
+            "averagePerformance", average(sumPerf, n),
+            "averageStability", average(sumStab, n),
+            "averageFps", average(sumFps, n),
+            "averageCpuUsage", average(sumCpu, n),
+            "averageGpuUsage", average(sumGpu, n),
+            "averageLatency", average(sumLatency, n),
+            "averageTemperature", average(sumTemp, n)
         );
     }
+
+    /**
+     * @return Mean rounded to two decimals, or 0 when there are no values
+     */
+    private static double average(double sum, int n) {
+        return n == 0 ? 0 : Math.round(sum / n * 100.0) / 100.0;
+    }
 }
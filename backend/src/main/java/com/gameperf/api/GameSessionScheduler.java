@@ -1,53 +1,135 @@
 package com.gameperf.api;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Scheduled task for periodic metrics aggregation.
- * Runs every 10 seconds to log and monitor system metrics.
+ * Scheduled aggregation stage for system-wide metrics.
+ *
+ * Every {@code metrics.aggregation.interval-ms} it takes the summary of the current
+ * {@link MetricsSnapshot} (already computed by the refresh tick, so nothing is
+ * recomputed here), publishes each value as a {@code gameperf.summary.*} gauge and
+ * logs it as one key=value line. Logging goes through the asynchronous, non-blocking
+ * appender configured in {@code logback-spring.xml}, so a slow log sink can never
+ * hold a scheduler thread.
+ *
+ * The stage reports its own run time ({@code gameperf.scheduler.aggregation}) and
+ * counts overruns ({@code gameperf.scheduler.overruns}): runs that took longer than
+ * the interval, or started a full interval late because the scheduler pool was busy.
  */
+@Slf4j
 @Component
 public class GameSessionScheduler {
 
-    @Autowired
-    private GameMetricsService metricsService;
+    /**
+     * Summary keys published as gauges, with meter name suffix, base unit and description.
+     */
+    static final String[][] SUMMARY_GAUGES = {
+        {"totalGames", "games", "games", "Games in the latest window"},
+        {"averagePerformance", "performance", null, "Average performance score"},
+        {"averageStability", "stability", null, "Average stability index"},
+        {"averageFps", "fps", "frames/s", "Average FPS"},
+        {"averageCpuUsage", "cpu", "percent", "Average CPU usage"},
+        {"averageGpuUsage", "gpu", "percent", "Average GPU usage"},
+        {"averageLatency", "latency", "milliseconds", "Average latency"},
+        {"averageTemperature", "temperature", "celsius", "Average GPU temperature"}
+    };
+
+    private final GameMetricsService metricsService;
+    private final long intervalMillis;
+
+    /**
+     * Latest aggregated value per entry of {@link #SUMMARY_GAUGES}, read by the gauges.
+     */
+    private volatile double[] latest;
 
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final Timer aggregationTimer;
+    private final Counter overruns;
+    private final AtomicLong runs = new AtomicLong();
 
     /**
-     * Aggregate and log metrics summary every 10 seconds.
-     * This scheduled task monitors overall system performance.
+     * Start of the previous run in nanoseconds, or 0 before the first run.
+     * Only touched by the scheduler thread running {@link #aggregateMetrics()}.
      */
-    @Scheduled(fixedRate = 10000)
+    private long lastStartNanos;
+
+    @Autowired
+    public GameSessionScheduler(GameMetricsService metricsService, MeterRegistry meterRegistry,
+                                @Value("${metrics.aggregation.interval-ms:10000}") long intervalMillis) {
+        this.metricsService = metricsService;
+        this.intervalMillis = intervalMillis;
+        this.latest = new double[SUMMARY_GAUGES.length];
+        for (int i = 0; i < SUMMARY_GAUGES.length; i++) {
+            int index = i;
+            Gauge.builder("gameperf.summary." + SUMMARY_GAUGES[i][1], this, s -> s.latest[index])
+                    .description(SUMMARY_GAUGES[i][3])
+                    .baseUnit(SUMMARY_GAUGES[i][2])
+                    .register(meterRegistry);
+        }
+        this.aggregationTimer = Timer.builder("gameperf.scheduler.aggregation")
+                .description("Time to run one metrics aggregation")
+                .register(meterRegistry);
+        this.overruns = Counter.builder("gameperf.scheduler.overruns")
+                .description("Aggregation runs that took longer than the interval or started an interval late")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Aggregate the current summary into the gauges and the log.
+     */
+    @Scheduled(fixedRateString = "${metrics.aggregation.interval-ms:10000}")
     public void aggregateMetrics() {
-        Map<String, Object> summary = metricsService.getAnalysisSummary();
-        String timestamp = LocalDateTime.now().format(formatter);
-        
-        System.out.println("=== Metrics Aggregation [" + timestamp + "] ===");
-        System.out.println("Total Games: " + summary.get("totalGames"));
-        System.out.println("Avg Performance: " + summary.get("averagePerformance"));
-        System.out.println("Avg Stability: " + summary.get("averageStability"));
-        System.out.println("Avg FPS: " + summary.get("averageFps"));
-        System.out.println("Avg CPU: " + summary.get("averageCpuUsage") + "%");
-        System.out.println("Avg GPU: " + summary.get("averageGpuUsage") + "%");
-        System.out.println("Avg Latency: " + summary.get("averageLatency") + "ms");
-        System.out.println("Avg Temperature: " + summary.get("averageTemperature") + "°C");
-        System.out.println("==========================================");
+        long start = System.nanoTime();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        boolean late = lastStartNanos != 0 && start - lastStartNanos >= 2 * intervalNanos;
+        lastStartNanos = start;
+
+        MetricsSnapshot snapshot = metricsService.getSnapshot();
+        Map<String, Object> summary = snapshot.summary();
+        double[] values = new double[SUMMARY_GAUGES.length];
+        StringBuilder line = new StringBuilder(256).append("Metrics aggregation version=").append(snapshot.version());
+        for (int i = 0; i < SUMMARY_GAUGES.length; i++) {
+            Object value = summary.get(SUMMARY_GAUGES[i][0]);
+            values[i] = value instanceof Number n ? n.doubleValue() : Double.NaN;
+            line.append(' ').append(SUMMARY_GAUGES[i][0]).append('=').append(value);
+        }
+        latest = values;
+        log.info(line.toString());
+        runs.incrementAndGet();
+
+        long elapsed = System.nanoTime() - start;
+        aggregationTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        if (late || elapsed > intervalNanos) {
+            overruns.increment();
+            log.warn("Metrics aggregation overrun: took {} ms, {}", TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    late ? "started at least one interval late" : "longer than the interval");
+        }
     }
 
     /**
-     * Periodic health check every 30 seconds.
-     * Logs a heartbeat message to confirm scheduler is running.
+     * Log a heartbeat with the aggregation statistics.
      */
-    @Scheduled(fixedRate = 30000)
+    @Scheduled(fixedRateString = "${metrics.heartbeat.interval-ms:30000}")
     public void healthCheck() {
-        String timestamp = LocalDateTime.now().format(formatter);
-        System.out.println("[" + timestamp + "] Scheduler heartbeat - System monitoring active");
+        log.info("Scheduler heartbeat aggregations={} overruns={} maxAggregationMs={}",
+                runs.get(), (long) overruns.count(), aggregationTimer.max(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * @return Latest aggregated summary value per entry of {@link #SUMMARY_GAUGES}
+     */
+    double[] getLatest() {
+        return latest.clone();
     }
 }
@@ -1,16 +1,22 @@
 package com.gameperf.api;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching
-@EnableScheduling
 public class GamingMetricsApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(GamingMetricsApplication.class, args);
+        SpringApplication application = new SpringApplication(GamingMetricsApplication.class);
+        if (BulkImportRunner.isImport(args)) {
+            // Command-line import: no web server, demo feed or schedulers; exit once the files are imported
+            application.setWebApplicationType(WebApplicationType.NONE);
+            application.setAdditionalProfiles(BulkImportRunner.IMPORT_PROFILE);
+            System.exit(SpringApplication.exit(application.run(args)));
+        }
+        application.run(args);
     }
 }
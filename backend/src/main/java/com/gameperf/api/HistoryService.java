@@ -0,0 +1,241 @@
+package com.gameperf.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.persistence.RecordScan;
+import com.gameperf.api.persistence.SampleLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Time-range and session queries over the persisted sample log.
+ *
+ * Queries seek through the log's block index, and their results are written
+ * straight from the mapped segments to the response as a JSON array, so memory
+ * use does not depend on the size of the result. Every element carries the fields
+ * of a {@link GameMetric}, so a result can be fed back into
+ * {@link GameAnalyticsService#analyzeSession} as is. Downsampled queries keep one
+ * accumulator per point and game instead, bounded by {@link #MAX_POINTS}.
+ *
+ * Only available when persistence is enabled.
+ */
+@Service
+public class HistoryService {
+
+    public static final int MAX_POINTS = 10_000;
+
+    // The servlet container owns the response stream
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final SampleLog sampleLog;
+
+    @Autowired
+    public HistoryService(Optional<SampleLog> sampleLog) {
+        this.sampleLog = sampleLog.orElse(null);
+    }
+
+    /**
+     * @return Whether the sample log is enabled and can be queried
+     */
+    public boolean isEnabled() {
+        return sampleLog != null;
+    }
+
+    /**
+     * Query the persisted samples of a time range, raw or downsampled.
+     * The range is selected when this is called; the result is read while it is written.
+     *
+     * @param game Name of the game, or null for all games
+     * @param from Start of the range in epoch milliseconds (inclusive)
+     * @param to End of the range in epoch milliseconds (exclusive)
+     * @param step Width of one point in milliseconds, or null for raw samples
+     * @return Body writing the samples in log order, or the per-game mean of each point in time order
+     * @throws IllegalArgumentException if the range or step is invalid or yields too many points
+     * @throws IllegalStateException if persistence is disabled
+     */
+    public StreamingResponseBody range(String game, long from, long to, Long step) {
+        if (to <= from) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+        if (step == null) {
+            RecordScan scan = requireLog().select(game, null, from, to);
+            return out -> writeSamples(scan, out);
+        }
+        if (step <= 0) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+        long span;
+        try {
+            span = Math.subtractExact(to, from);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Range from " + from + " to " + to + " is too long");
+        }
+        long pointCount = span / step + (span % step == 0 ? 0 : 1);
+        if (pointCount > MAX_POINTS) {
+            throw new IllegalArgumentException("Query yields " + pointCount + " points, at most "
+                    + MAX_POINTS + " are allowed; use a larger step");
+        }
+        RecordScan scan = requireLog().select(game, null, from, to);
+        return out -> writePoints(scan, from, step, (int) pointCount, out);
+    }
+
+    /**
+     * Query the persisted samples of one session.
+     *
+     * @param sessionId Session id
+     * @param from Start of the range in epoch milliseconds (inclusive)
+     * @param to End of the range in epoch milliseconds (exclusive)
+     * @return Body writing the samples in log order, or null if the log holds no samples of the session
+     * @throws IllegalStateException if persistence is disabled
+     */
+    public StreamingResponseBody session(String sessionId, long from, long to) {
+        if (!requireLog().hasSession(sessionId)) {
+            return null;
+        }
+        RecordScan scan = sampleLog.select(null, sessionId, from, to);
+        return out -> writeSamples(scan, out);
+    }
+
+    /**
+     * @param message Error message
+     * @return Body writing {@code {"error": message}}, for errors of streamed endpoints
+     */
+    public static StreamingResponseBody error(String message) {
+        return out -> {
+            try (JsonGenerator json = JSON.createGenerator(out)) {
+                json.writeStartObject();
+                json.writeStringField("error", message);
+                json.writeEndObject();
+            }
+        };
+    }
+
+    private SampleLog requireLog() {
+        if (sampleLog == null) {
+            throw new IllegalStateException("Persistence is disabled");
+        }
+        return sampleLog;
+    }
+
+    private void writeSamples(RecordScan scan, OutputStream out) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (JsonGenerator json = JSON.createGenerator(out)) {
+            json.writeStartArray();
+            scan.forEach((timestamp, gameId, sessionId, fps, cpu, gpu, latency, temperature) -> {
+                try {
+                    json.writeStartObject();
+                    json.writeNumberField("timestamp", timestamp);
+                    json.writeStringField("name", gameName(names, gameId));
+                    json.writeStringField("sessionId", sampleLog.sessionName(sessionId));
+                    writeMeasurements(json, fps, cpu, gpu, latency, temperature);
+                    json.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.writeEndArray();
+        } catch (UncheckedIOException e) {
+            // Usually the client going away mid-response
+            throw e.getCause();
+        }
+    }
+
+    private void writePoints(RecordScan scan, long from, long step, int pointCount, OutputStream out)
+            throws IOException {
+        List<Point[]> pointsByGame = new ArrayList<>();
+        scan.forEach((timestamp, gameId, sessionId, fps, cpu, gpu, latency, temperature) -> {
+            while (pointsByGame.size() <= gameId) {
+                pointsByGame.add(null);
+            }
+            Point[] points = pointsByGame.get(gameId);
+            if (points == null) {
+                points = new Point[pointCount];
+                pointsByGame.set(gameId, points);
+            }
+            int index = (int) ((timestamp - from) / step);
+            if (points[index] == null) {
+                points[index] = new Point();
+            }
+            points[index].add(fps, cpu, gpu, latency, temperature);
+        });
+
+        Map<String, Point[]> games = new TreeMap<>();
+        for (int gameId = 0; gameId < pointsByGame.size(); gameId++) {
+            if (pointsByGame.get(gameId) != null) {
+                games.put(sampleLog.gameName(gameId), pointsByGame.get(gameId));
+            }
+        }
+        try (JsonGenerator json = JSON.createGenerator(out)) {
+            json.writeStartArray();
+            for (int i = 0; i < pointCount; i++) {
+                for (Map.Entry<String, Point[]> game : games.entrySet()) {
+                    Point point = game.getValue()[i];
+                    if (point == null) {
+                        continue;
+                    }
+                    json.writeStartObject();
+                    json.writeNumberField("timestamp", from + i * step);
+                    json.writeStringField("name", game.getKey());
+                    json.writeNumberField("samples", point.count);
+                    writeMeasurements(json, point.mean(0), point.mean(1), point.mean(2), point.mean(3), point.mean(4));
+                    json.writeEndObject();
+                }
+            }
+            json.writeEndArray();
+        }
+    }
+
+    private String gameName(List<String> names, int gameId) {
+        while (names.size() <= gameId) {
+            names.add(sampleLog.gameName(names.size()));
+        }
+        return names.get(gameId);
+    }
+
+    private static void writeMeasurements(JsonGenerator json, int fps, int cpu, int gpu, int latency,
+                                          int temperature) throws IOException {
+        json.writeNumberField("avgFps", fps);
+        json.writeNumberField("cpuUsage", cpu);
+        json.writeNumberField("gpuUsage", gpu);
+        json.writeNumberField("latencyMs", latency);
+        json.writeNumberField("temperatureC", temperature);
+        json.writeNumberField("performanceScore", GameMetric.performanceScore(fps, cpu, gpu, latency));
+        json.writeNumberField("stabilityIndex", GameMetric.stabilityIndex(cpu, gpu));
+    }
+
+    /**
+     * Sums of the samples of one game in one point.
+     */
+    private static final class Point {
+
+        int count;
+        final long[] sums = new long[5];
+
+        void add(int fps, int cpu, int gpu, int latency, int temperature) {
+            count++;
+            sums[0] += fps;
+            sums[1] += cpu;
+            sums[2] += gpu;
+            sums[3] += latency;
+            sums[4] += temperature;
+        }
+
+        int mean(int measurement) {
+            return (int) Math.round(sums[measurement] / (double) count);
+        }
+    }
+}
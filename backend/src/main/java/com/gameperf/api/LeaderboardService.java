@@ -0,0 +1,119 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.stats.Leaderboard;
+import com.gameperf.api.stats.PercentileTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Server-side leaderboards of the live per-game values.
+ *
+ * Games are ranked by performance score, stability index and p99 latency in
+ * {@link Leaderboard}s that are updated incrementally on every refresh tick: only
+ * games whose value changed are moved, and games that dropped out of the latest
+ * window are removed. A top-k query then walks k entries from either end.
+ *
+ * Scores are taken from the published {@link MetricsSnapshot}, and p99 latency from
+ * the shortest configured percentile window.
+ */
+@Service
+public class LeaderboardService {
+
+    public static final String PERFORMANCE_SCORE = "performanceScore";
+    public static final String STABILITY_INDEX = "stabilityIndex";
+    public static final String P99_LATENCY = "p99Latency";
+
+    public static final int MAX_K = 1000;
+
+    private final GameMetricsService metricsService;
+    private final PercentileTracker percentileTracker;
+    private final String latencyWindow;
+
+    private final Leaderboard performance = new Leaderboard();
+    private final Leaderboard stability = new Leaderboard();
+    private final Leaderboard latency = new Leaderboard();
+
+    /**
+     * Version of the last snapshot ranked. Guarded by {@code this}.
+     */
+    private long rankedVersion = -1;
+
+    @Autowired
+    public LeaderboardService(GameMetricsService metricsService, PercentileTracker percentileTracker) {
+        this.metricsService = metricsService;
+        this.percentileTracker = percentileTracker;
+        this.latencyWindow = percentileTracker.getWindows().get(0);
+        update();
+    }
+
+    /**
+     * Bring the leaderboards up to date with the current snapshot and latency windows.
+     */
+    @Scheduled(fixedRateString = "${metrics.refresh-ms:1000}")
+    public synchronized void update() {
+        MetricsSnapshot snapshot = metricsService.getSnapshot();
+        if (snapshot.version() != rankedVersion) {
+            List<GameMetric> metrics = snapshot.metrics();
+            Set<String> names = new HashSet<>(metrics.size() * 2);
+            for (GameMetric metric : metrics) {
+                names.add(metric.getName());
+                performance.update(metric.getName(), metric.getPerformanceScore());
+                stability.update(metric.getName(), metric.getStabilityIndex());
+            }
+            performance.retainAll(names);
+            stability.retainAll(names);
+            rankedVersion = snapshot.version();
+        }
+
+        // Latency percentiles also move as old samples leave the window, so they are re-read every tick
+        Set<String> measured = new HashSet<>();
+        percentileTracker.forEachLatencyPercentile(latencyWindow, 99, (game, p99) -> {
+            measured.add(game);
+            latency.update(game, p99);
+        });
+        latency.retainAll(measured);
+    }
+
+    /**
+     * Get the k best and k worst games by one value. Best means the highest score or
+     * stability index, or the lowest p99 latency.
+     *
+     * @param by One of {@value #PERFORMANCE_SCORE}, {@value #STABILITY_INDEX} or {@value #P99_LATENCY}
+     * @param k Number of games on each side, 1 to {@value #MAX_K}
+     * @return Map containing the ranked value, k, the number of ranked games and the best and worst entries
+     * @throws IllegalArgumentException if {@code by} or {@code k} is invalid
+     */
+    public Map<String, Object> top(String by, int k) {
+        if (k < 1 || k > MAX_K) {
+            throw new IllegalArgumentException("k must be between 1 and " + MAX_K + ": " + k);
+        }
+        Leaderboard board;
+        boolean lowerIsBetter = false;
+        switch (by) {
+            case PERFORMANCE_SCORE -> board = performance;
+            case STABILITY_INDEX -> board = stability;
+            case P99_LATENCY -> {
+                board = latency;
+                lowerIsBetter = true;
+            }
+            default -> throw new IllegalArgumentException("Unknown leaderboard: " + by + " (expected "
+                    + PERFORMANCE_SCORE + ", " + STABILITY_INDEX + " or " + P99_LATENCY + ")");
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("by", by);
+        result.put("k", k);
+        result.put("ranked", board.size());
+        result.put("best", lowerIsBetter ? board.lowest(k) : board.highest(k));
+        result.put("worst", lowerIsBetter ? board.highest(k) : board.lowest(k));
+        return result;
+    }
+}
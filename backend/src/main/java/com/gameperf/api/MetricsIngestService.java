@@ -0,0 +1,218 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.persistence.SampleLog;
+import com.gameperf.api.persistence.SampleLogRecovery;
+import com.gameperf.api.rollup.RollupStore;
+import com.gameperf.api.session.SessionRegistry;
+import com.gameperf.api.stats.PercentileTracker;
+import com.gameperf.api.store.AggregateRegistry;
+import com.gameperf.api.store.TimeSeriesStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for ingesting batches of raw telemetry samples.
+ * Validates each sample and appends the accepted ones to the time-series store,
+ * the live session they belong to, the per-game percentile windows, the
+ * multi-resolution rollups and the running aggregate totals. When
+ * persistence is enabled, accepted samples are written to the {@link SampleLog}
+ * before anything else sees them.
+ *
+ * Every stage keeps state per game, so the number of distinct games is capped at
+ * {@code metrics.store.max-games}. Samples of a new game past the cap are rejected
+ * here, before any per-game structure is created for them.
+ */
+@Service
+public class MetricsIngestService {
+
+    public static final int MAX_NAME_LENGTH = 128;
+    public static final int MAX_FPS = 10_000;
+    public static final int MAX_LATENCY_MS = 60_000;
+    public static final int MIN_TEMPERATURE_C = -50;
+    public static final int MAX_TEMPERATURE_C = 150;
+    public static final int DEFAULT_MAX_GAMES = 1024;
+
+    private final TimeSeriesStore store;
+    private final SessionRegistry sessionRegistry;
+    private final PercentileTracker percentileTracker;
+    private final RollupStore rollupStore;
+    private final AggregateRegistry aggregates;
+    private final SampleLog sampleLog;
+    private final int maxGames;
+    private final Set<String> games = ConcurrentHashMap.newKeySet();
+
+    private final Counter batches;
+    private final Counter acceptedSamples;
+    private final Counter rejectedSamples;
+
+    public MetricsIngestService(TimeSeriesStore store, SessionRegistry sessionRegistry,
+                                PercentileTracker percentileTracker, RollupStore rollupStore,
+                                AggregateRegistry aggregates, Optional<SampleLogRecovery> recovery,
+                                MeterRegistry meterRegistry) {
+        this(store, sessionRegistry, percentileTracker, rollupStore, aggregates, recovery, meterRegistry,
+                DEFAULT_MAX_GAMES);
+    }
+
+    @Autowired
+    public MetricsIngestService(TimeSeriesStore store, SessionRegistry sessionRegistry,
+                                PercentileTracker percentileTracker, RollupStore rollupStore,
+                                AggregateRegistry aggregates, Optional<SampleLogRecovery> recovery,
+                                MeterRegistry meterRegistry,
+                                @Value("${metrics.store.max-games:1024}") int maxGames) {
+        if (maxGames < 1) {
+            throw new IllegalArgumentException("max-games must be positive: " + maxGames);
+        }
+        this.maxGames = maxGames;
+        this.store = store;
+        this.sessionRegistry = sessionRegistry;
+        this.percentileTracker = percentileTracker;
+        this.rollupStore = rollupStore;
+        this.aggregates = aggregates;
+        // Taking the log from the recovery ensures it was replayed before the first ingest
+        this.sampleLog = recovery.map(SampleLogRecovery::getSampleLog).orElse(null);
+        // Games replayed from the log count against the cap
+        this.games.addAll(store.getGames());
+        this.batches = Counter.builder("gameperf.ingest.batches")
+                .description("Ingested sample batches")
+                .register(meterRegistry);
+        this.acceptedSamples = Counter.builder("gameperf.ingest.samples")
+                .description("Ingested samples, by result")
+                .tag("result", "accepted")
+                .register(meterRegistry);
+        this.rejectedSamples = Counter.builder("gameperf.ingest.samples")
+                .description("Ingested samples, by result")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ingest a batch of samples.
+     * Samples failing {@link #validate(MetricSample)} or of a new game past the game
+     * cap are rejected; samples without a timestamp are stamped with the server
+     * receive time.
+     *
+     * @param samples Batch of samples from one or more clients
+     * @return Map containing accepted and rejected counts
+     */
+    public Map<String, Object> ingest(List<MetricSample> samples) {
+        if (samples == null || samples.isEmpty()) {
+            return Map.of("accepted", 0, "rejected", 0);
+        }
+
+        List<MetricSample> accepted = ingestValid(samples);
+        return Map.of(
+            "accepted", accepted.size(),
+            "rejected", samples.size() - accepted.size()
+        );
+    }
+
+    /**
+     * Ingest a non-empty batch of samples.
+     *
+     * @param samples Batch of samples; not retained after the call
+     * @return Samples that passed validation and were ingested
+     */
+    List<MetricSample> ingestValid(List<MetricSample> samples) {
+        long now = System.currentTimeMillis();
+        List<MetricSample> accepted = new ArrayList<>(samples.size());
+        for (MetricSample sample : samples) {
+            if (!isValid(sample)) {
+                continue;
+            }
+            if (sample.getTimestamp() <= 0) {
+                sample.setTimestamp(now);
+            }
+            accepted.add(sample);
+        }
+
+        if (sampleLog != null) {
+            sampleLog.appendAll(accepted);
+        }
+        store.appendAll(accepted);
+        sessionRegistry.recordAll(accepted);
+        percentileTracker.recordAll(accepted, now);
+        rollupStore.recordAll(accepted);
+        aggregates.recordAll(accepted);
+
+        batches.increment();
+        acceptedSamples.increment(accepted.size());
+        rejectedSamples.increment(samples.size() - accepted.size());
+        return accepted;
+    }
+
+    private boolean isValid(MetricSample sample) {
+        return validate(sample) == null && admitGame(sample.getGame());
+    }
+
+    /**
+     * @param game Name of a valid sample's game
+     * @return Whether the game is known or could be added under the cap
+     */
+    private boolean admitGame(String game) {
+        if (games.contains(game)) {
+            return true;
+        }
+        synchronized (games) {
+            if (games.size() >= maxGames) {
+                return games.contains(game);
+            }
+            games.add(game);
+            return true;
+        }
+    }
+
+    /**
+     * @return Number of distinct games admitted so far
+     */
+    public int getGameCount() {
+        return games.size();
+    }
+
+    /**
+     * Check a sample against the ingest limits. Names are bounded because every
+     * distinct game and session id takes a dictionary entry in the store and the log.
+     *
+     * @param sample Sample to check
+     * @return Why the sample is rejected, or null if it is valid
+     */
+    public static String validate(MetricSample sample) {
+        if (sample == null) {
+            return "sample is null";
+        }
+        if (sample.getGame() == null || sample.getGame().isBlank()) {
+            return "game is required";
+        }
+        if (sample.getGame().length() > MAX_NAME_LENGTH) {
+            return "game is longer than " + MAX_NAME_LENGTH + " characters";
+        }
+        if (sample.getSessionId() != null && (sample.getSessionId().isEmpty()
+                || sample.getSessionId().length() > MAX_NAME_LENGTH)) {
+            return "sessionId must have 1 to " + MAX_NAME_LENGTH + " characters";
+        }
+        if (sample.getFps() < 0 || sample.getFps() > MAX_FPS) {
+            return "fps must be between 0 and " + MAX_FPS;
+        }
+        if (sample.getCpuUsage() < 0 || sample.getCpuUsage() > 100
+                || sample.getGpuUsage() < 0 || sample.getGpuUsage() > 100) {
+            return "cpuUsage and gpuUsage must be between 0 and 100";
+        }
+        if (sample.getLatencyMs() < 0 || sample.getLatencyMs() > MAX_LATENCY_MS) {
+            return "latencyMs must be between 0 and " + MAX_LATENCY_MS;
+        }
+        if (sample.getTemperatureC() < MIN_TEMPERATURE_C || sample.getTemperatureC() > MAX_TEMPERATURE_C) {
+            return "temperatureC must be between " + MIN_TEMPERATURE_C + " and " + MAX_TEMPERATURE_C;
+        }
+        return null;
+    }
+}
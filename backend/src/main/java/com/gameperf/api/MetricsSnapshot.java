@@ -0,0 +1,55 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.GameMetric;
+
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Immutable snapshot of the scored metrics and their summary, computed once per refresh tick.
+ * Holds the pre-serialized JSON of both and the CBOR encoding of the metrics, plus
+ * content-based ETags, so HTTP and streaming readers can serve it without any per-request work.
+ *
+ * @param version Sequence number of the refresh that produced the snapshot
+ * @param createdAt Creation time in epoch milliseconds
+ * @param metrics Scored metrics (unmodifiable)
+ * @param summary Analysis summary (unmodifiable)
+ * @param metricsJson JSON encoding of {@code metrics}
+ * @param summaryJson JSON encoding of {@code summary}
+ * @param metricsEtag Strong ETag derived from {@code metricsJson}
+ * @param summaryEtag Strong ETag derived from {@code summaryJson}
+ * @param metricsCbor Columnar CBOR encoding of {@code metrics}, see {@link com.gameperf.api.stream.MetricsCborCodec}
+ * @param metricsCborEtag Strong ETag derived from {@code metricsCbor}
+ */
+public record MetricsSnapshot(
+        long version,
+        long createdAt,
+        List<GameMetric> metrics,
+        Map<String, Object> summary,
+        byte[] metricsJson,
+        byte[] summaryJson,
+        String metricsEtag,
+        String summaryEtag,
+        byte[] metricsCbor,
+        String metricsCborEtag) {
+
+    public MetricsSnapshot(long version, long createdAt, List<GameMetric> metrics,
+                           Map<String, Object> summary, byte[] metricsJson, byte[] summaryJson,
+                           byte[] metricsCbor) {
+        this(version, createdAt, metrics, summary, metricsJson, summaryJson,
+             etagOf(metricsJson), etagOf(summaryJson), metricsCbor, etagOf(metricsCbor));
+    }
+
+    /**
+     * Derive a strong ETag from content, so unchanged data keeps its tag across ticks and restarts.
+     *
+     * @param content Encoded content
+     * @return Quoted ETag value
+     */
+    static String etagOf(byte[] content) {
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        return "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(content.length) + "\"";
+    }
+}
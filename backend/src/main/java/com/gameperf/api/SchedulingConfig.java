@@ -0,0 +1,51 @@
+package com.gameperf.api;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Runs the {@code @Scheduled} refresh, flush and push tasks.
+ * Disabled with {@code metrics.scheduling.enabled=false}, as in the {@code import}
+ * profile of the command-line import, which only ingests and exits.
+ *
+ * The live stream tick runs on a scheduler of its own ({@value #LIVE_TICK_SCHEDULER}),
+ * so a broadcast waiting on its push tasks never delays the snapshot refresh,
+ * leaderboard or aggregation ticks on the shared {@code taskScheduler}. Declaring a
+ * second scheduler disables Boot's default one, so that is declared here as well,
+ * configured by {@code spring.task.scheduling.*} as before.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "metrics.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+
+    public static final String LIVE_TICK_SCHEDULER = "liveTickScheduler";
+
+    @Bean(name = "taskScheduler")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = "taskScheduler")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskScheduler taskSchedulerVirtualThreads(SimpleAsyncTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = LIVE_TICK_SCHEDULER)
+    public ThreadPoolTaskScheduler liveTickScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("live-tick-");
+        return scheduler;
+    }
+}
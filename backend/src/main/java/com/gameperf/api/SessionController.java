@@ -0,0 +1,151 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.session.LiveSession;
+import com.gameperf.api.session.SessionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for live game sessions.
+ * Sessions are analyzed incrementally on the server, so clients append samples
+ * as they go instead of resending the whole session for every analysis.
+ */
+@RestController
+@RequestMapping("/api/sessions")
+@CrossOrigin(origins = "*")
+public class SessionController {
+
+    @Autowired
+    private SessionRegistry sessionRegistry;
+
+    @Autowired
+    private HistoryService historyService;
+
+    /**
+     * Open a new live session.
+     * 
+     * @param game Name of the game (optional)
+     * @return Map containing the generated session id
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> openSession(@RequestParam(required = false) String game) {
+        LiveSession session = sessionRegistry.open(game);
+        if (session == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("error", "Session limit reached"));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(Map.of("sessionId", session.getId()));
+    }
+
+    /**
+     * Append samples to a live session.
+     * Samples are checked like ingested ones; those without a game take the session's.
+     * 
+     * @param id Session id
+     * @param samples Samples to append
+     * @return Map containing the session id and its total sample count, or the
+     *         first invalid sample if the batch is rejected
+     */
+    @PostMapping("/{id}/samples")
+    public ResponseEntity<Map<String, Object>> appendSamples(@PathVariable String id,
+                                                             @RequestBody List<MetricSample> samples) {
+        LiveSession session = sessionRegistry.get(id);
+        if (session == null) {
+            return sessionNotFound(id);
+        }
+        for (int i = 0; i < samples.size(); i++) {
+            MetricSample sample = samples.get(i);
+            if (sample != null && sample.getGame() == null) {
+                sample.setGame(session.getGame());
+            }
+            String error = MetricsIngestService.validate(sample);
+            if (error != null) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Invalid sample at index " + i + ": " + error));
+            }
+        }
+        session = sessionRegistry.append(id, samples);
+        if (session == null) {
+            return sessionNotFound(id);
+        }
+        return ResponseEntity.ok(Map.of(
+            "sessionId", id,
+            "sampleCount", session.getSampleCount()
+        ));
+    }
+
+    /**
+     * Replay the persisted samples of a session, open or closed, from the sample log.
+     * Streamed as a JSON array of metrics that can be analyzed like a live session.
+     * Only samples that went through ingestion are persisted.
+     * 
+     * @param id Session id
+     * @param from Start of the range in epoch milliseconds (optional)
+     * @param to End of the range in epoch milliseconds (optional)
+     * @return Streamed samples of the session in log order
+     */
+    @GetMapping("/{id}/samples")
+    public ResponseEntity<StreamingResponseBody> getSamples(@PathVariable String id,
+                                                            @RequestParam(required = false) Long from,
+                                                            @RequestParam(required = false) Long to) {
+        if (!historyService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(HistoryService.error("Persistence is disabled"));
+        }
+        StreamingResponseBody samples = historyService.session(id,
+                from != null ? from : Long.MIN_VALUE, to != null ? to : Long.MAX_VALUE);
+        if (samples == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(HistoryService.error("Session not found: " + id));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(samples);
+    }
+
+    /**
+     * Get the current stability analysis of a live session.
+     * 
+     * @param id Session id
+     * @return Map containing variances, averages, stability and recommendation
+     */
+    @GetMapping("/{id}/analysis")
+    public ResponseEntity<Map<String, Object>> analyzeSession(@PathVariable String id) {
+        Map<String, Object> analysis = sessionRegistry.analyze(id);
+        if (analysis == null) {
+            return sessionNotFound(id);
+        }
+        return ResponseEntity.ok(analysis);
+    }
+
+    /**
+     * Close a live session and return its final analysis.
+     * 
+     * @param id Session id
+     * @return Map containing the final analysis
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> closeSession(@PathVariable String id) {
+        Map<String, Object> analysis = sessionRegistry.close(id);
+        if (analysis == null) {
+            return sessionNotFound(id);
+        }
+        return ResponseEntity.ok(analysis);
+    }
+
+    private ResponseEntity<Map<String, Object>> sessionNotFound(String id) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Session not found: " + id));
+    }
+}
@@ -0,0 +1,249 @@
+package com.gameperf.api.importer;
+
+import com.gameperf.api.model.MetricSample;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Reads samples from CSV. The first non-blank line is a header naming the columns,
+ * e.g. {@code game,sessionId,timestamp,fps,cpuUsage,gpuUsage,latencyMs,temperatureC};
+ * columns may appear in any order, unknown columns are ignored and only
+ * {@code game} and {@code fps} are required.
+ *
+ * Fields are parsed straight from the line bytes: numbers without an intermediate
+ * string, and repeated game and session names without a new string per line.
+ * Fields may be double-quoted, with {@code ""} escaping a quote.
+ */
+final class CsvSampleReader extends SampleReader {
+
+    private static final int IGNORED = -1;
+    private static final int GAME = 0;
+    private static final int SESSION = 1;
+    private static final int TIMESTAMP = 2;
+    private static final int FPS = 3;
+    private static final int CPU = 4;
+    private static final int GPU = 5;
+    private static final int LATENCY = 6;
+    private static final int TEMPERATURE = 7;
+
+    /**
+     * Marks a field that is not a valid number.
+     */
+    private static final long INVALID = Long.MIN_VALUE;
+
+    private final StringCache games = new StringCache();
+    private final StringCache sessions = new StringCache();
+
+    /**
+     * Field of each column, or {@link #IGNORED}; null until the header is read.
+     */
+    private int[] columns;
+
+    /**
+     * Scratch state of the field being parsed.
+     */
+    private int fieldStart;
+    private int fieldEnd;
+    private boolean fieldEscaped;
+
+    CsvSampleReader(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    protected boolean skip() {
+        if (columns != null) {
+            return false;
+        }
+        readHeader(lines.buffer(), lines.start(), lines.end());
+        return true;
+    }
+
+    @Override
+    protected MetricSample parse(byte[] buffer, int start, int end) {
+        MetricSample sample = new MetricSample();
+        boolean hasGame = false;
+        int pos = start;
+        for (int column = 0; column < columns.length && pos <= end; column++) {
+            pos = nextField(buffer, pos, end);
+            if (pos < 0) {
+                return null;
+            }
+            int field = columns[column];
+            if (field == IGNORED) {
+                continue;
+            }
+            if (field == GAME || field == SESSION) {
+                String value = text(buffer, field == GAME ? games : sessions);
+                if (field == GAME) {
+                    sample.setGame(value);
+                    hasGame = !value.isEmpty();
+                } else {
+                    sample.setSessionId(value.isEmpty() ? null : value);
+                }
+                continue;
+            }
+            long value = number(buffer, fieldStart, fieldEnd);
+            if (value == INVALID) {
+                return null;
+            }
+            switch (field) {
+                case TIMESTAMP -> sample.setTimestamp(value);
+                case FPS -> sample.setFps(clamp(value));
+                case CPU -> sample.setCpuUsage(clamp(value));
+                case GPU -> sample.setGpuUsage(clamp(value));
+                case LATENCY -> sample.setLatencyMs(clamp(value));
+                case TEMPERATURE -> sample.setTemperatureC(clamp(value));
+                default -> { }
+            }
+        }
+        return hasGame ? sample : null;
+    }
+
+    private void readHeader(byte[] buffer, int start, int end) {
+        int count = 1;
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == ',') {
+                count++;
+            }
+        }
+        int[] header = new int[count];
+        boolean hasGame = false;
+        boolean hasFps = false;
+        int pos = start;
+        for (int column = 0; column < count; column++) {
+            pos = nextField(buffer, pos, end);
+            if (pos < 0) {
+                throw new IllegalArgumentException("Malformed CSV header");
+            }
+            String name = new String(buffer, fieldStart, fieldEnd - fieldStart, StandardCharsets.UTF_8);
+            header[column] = field(name.trim().toLowerCase(Locale.ROOT).replace("_", ""));
+            hasGame |= header[column] == GAME;
+            hasFps |= header[column] == FPS;
+        }
+        if (!hasGame || !hasFps) {
+            throw new IllegalArgumentException("CSV header must name at least the game and fps columns");
+        }
+        columns = header;
+    }
+
+    private static int field(String name) {
+        return switch (name) {
+            case "game", "name" -> GAME;
+            case "sessionid", "session" -> SESSION;
+            case "timestamp", "time", "ts" -> TIMESTAMP;
+            case "fps", "avgfps" -> FPS;
+            case "cpuusage", "cpu" -> CPU;
+            case "gpuusage", "gpu" -> GPU;
+            case "latencyms", "latency" -> LATENCY;
+            case "temperaturec", "temperature", "temp" -> TEMPERATURE;
+            default -> IGNORED;
+        };
+    }
+
+    /**
+     * Locate the field starting at {@code pos}, leaving its bounds in
+     * {@link #fieldStart} and {@link #fieldEnd}.
+     *
+     * @return Position after the field's separator, or -1 for an unterminated quote
+     */
+    private int nextField(byte[] buffer, int pos, int end) {
+        fieldEscaped = false;
+        int quote = pos;
+        while (quote < end && buffer[quote] == ' ') {
+            quote++;
+        }
+        if (quote < end && buffer[quote] == '"') {
+            int i = quote + 1;
+            while (true) {
+                if (i >= end) {
+                    return -1;
+                }
+                if (buffer[i] == '"') {
+                    if (i + 1 < end && buffer[i + 1] == '"') {
+                        fieldEscaped = true;
+                        i += 2;
+                        continue;
+                    }
+                    break;
+                }
+                i++;
+            }
+            fieldStart = quote + 1;
+            fieldEnd = i;
+            int next = i + 1;
+            while (next < end && buffer[next] != ',') {
+                next++;
+            }
+            return next + 1;
+        }
+        int i = pos;
+        while (i < end && buffer[i] != ',') {
+            i++;
+        }
+        fieldStart = pos;
+        fieldEnd = i;
+        return i + 1;
+    }
+
+    private String text(byte[] buffer, StringCache cache) {
+        int start = fieldStart;
+        int end = fieldEnd;
+        while (start < end && buffer[start] == ' ') {
+            start++;
+        }
+        while (end > start && buffer[end - 1] == ' ') {
+            end--;
+        }
+        String value = cache.decode(buffer, start, end);
+        return fieldEscaped ? value.replace("\"\"", "\"") : value;
+    }
+
+    /**
+     * Parse a decimal number, rounding any fraction to the nearest integer.
+     *
+     * @return Parsed value, 0 for an empty field, or {@link #INVALID}
+     */
+    static long number(byte[] buffer, int start, int end) {
+        while (start < end && buffer[start] == ' ') {
+            start++;
+        }
+        while (end > start && buffer[end - 1] == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return 0;
+        }
+        boolean negative = buffer[start] == '-';
+        int i = negative || buffer[start] == '+' ? start + 1 : start;
+        if (i == end) {
+            return INVALID;
+        }
+        long value = 0;
+        for (; i < end && buffer[i] != '.'; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                return INVALID;
+            }
+            value = value * 10 + digit;
+        }
+        if (i < end) {
+            // Fraction: only validated, and its first digit decides the rounding
+            for (int j = i + 1; j < end; j++) {
+                if (buffer[j] < '0' || buffer[j] > '9') {
+                    return INVALID;
+                }
+            }
+            if (i + 1 < end && buffer[i + 1] >= '5') {
+                value++;
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    private static int clamp(long value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+}
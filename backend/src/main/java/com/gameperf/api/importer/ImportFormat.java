@@ -0,0 +1,61 @@
+package com.gameperf.api.importer;
+
+import java.util.Locale;
+
+/**
+ * Supported bulk import formats.
+ */
+public enum ImportFormat {
+
+    /**
+     * Comma-separated values with a header line naming the columns.
+     */
+    CSV,
+
+    /**
+     * Newline-delimited JSON, one sample object per line.
+     */
+    NDJSON;
+
+    /**
+     * Resolve a format from an explicit name, a content type or a file name, in that order.
+     *
+     * @param name Explicit format name ({@code csv} or {@code ndjson}), may be null
+     * @param contentType Content type of the upload, may be null
+     * @param fileName Name of the file being imported, may be null
+     * @return Resolved format
+     * @throws IllegalArgumentException if none of the hints identifies a format
+     */
+    public static ImportFormat resolve(String name, String contentType, String fileName) {
+        if (name != null && !name.isBlank()) {
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "csv":
+                    return CSV;
+                case "ndjson":
+                case "jsonl":
+                    return NDJSON;
+                default:
+                    throw new IllegalArgumentException("Unknown import format: " + name);
+            }
+        }
+        if (contentType != null) {
+            String type = contentType.toLowerCase(Locale.ROOT);
+            if (type.startsWith("text/csv")) {
+                return CSV;
+            }
+            if (type.startsWith("application/x-ndjson") || type.startsWith("application/jsonl")) {
+                return NDJSON;
+            }
+        }
+        if (fileName != null) {
+            String file = fileName.toLowerCase(Locale.ROOT);
+            if (file.endsWith(".csv")) {
+                return CSV;
+            }
+            if (file.endsWith(".ndjson") || file.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+        }
+        throw new IllegalArgumentException("Cannot determine import format; use text/csv or application/x-ndjson");
+    }
+}
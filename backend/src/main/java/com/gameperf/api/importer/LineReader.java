@@ -0,0 +1,131 @@
+package com.gameperf.api.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits an input stream into lines without copying or decoding them.
+ *
+ * Each line is exposed as a range of the internal buffer, valid until the next
+ * call to {@link #next()}. Memory use is the buffer alone, whatever the size of
+ * the stream; the buffer only grows for a line longer than it, up to
+ * {@link #MAX_LINE_BYTES}.
+ */
+final class LineReader {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final int MAX_LINE_BYTES = 1024 * 1024;
+
+    private final InputStream in;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * Unconsumed data lives in {@code buffer[position, limit)}.
+     */
+    private int position;
+    private int limit;
+    private boolean eof;
+    private long bytesRead;
+    private long lineNumber;
+
+    private int lineStart;
+    private int lineEnd;
+
+    LineReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Advance to the next line; a trailing {@code \r} is not part of the line.
+     *
+     * @return false at the end of the stream
+     * @throws IllegalArgumentException if a line exceeds {@link #MAX_LINE_BYTES}
+     */
+    boolean next() throws IOException {
+        int scanFrom = position;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    return line(position, i, i + 1);
+                }
+            }
+            if (eof) {
+                return position < limit && line(position, limit, limit);
+            }
+            scanFrom = limit - position;
+            fill();
+        }
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int start() {
+        return lineStart;
+    }
+
+    int end() {
+        return lineEnd;
+    }
+
+    /**
+     * @return Whether the current line holds nothing but whitespace
+     */
+    boolean isBlank() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buffer[i] != ' ' && buffer[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of the current line, starting at 1
+     */
+    long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return Bytes read from the stream so far
+     */
+    long bytesRead() {
+        return bytesRead;
+    }
+
+    private boolean line(int start, int end, int next) {
+        lineStart = start;
+        lineEnd = end > start && buffer[end - 1] == '\r' ? end - 1 : end;
+        position = next;
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * Move the unconsumed tail to the front of the buffer and read more after it.
+     */
+    private void fill() throws IOException {
+        int pending = limit - position;
+        if (pending == buffer.length) {
+            if (buffer.length >= MAX_LINE_BYTES) {
+                throw new IllegalArgumentException("Line " + (lineNumber + 1) + " exceeds " + MAX_LINE_BYTES + " bytes");
+            }
+            buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, MAX_LINE_BYTES));
+        }
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, pending);
+            position = 0;
+            limit = pending;
+        }
+        int n = in.read(buffer, limit, buffer.length - limit);
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+            bytesRead += n;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.gameperf.api.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.gameperf.api.model.MetricSample;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads samples from newline-delimited JSON, one object per line with the same
+ * properties as the ingest endpoint ({@code game}, {@code sessionId},
+ * {@code timestamp}, {@code fps}, {@code cpuUsage}, {@code gpuUsage},
+ * {@code latencyMs}, {@code temperatureC}). Unknown properties are skipped.
+ *
+ * Each line is parsed with a streaming parser over the line bytes, so no tree or
+ * intermediate string is built, and a malformed line only costs that line.
+ */
+final class NdjsonSampleReader extends SampleReader {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    NdjsonSampleReader(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    protected MetricSample parse(byte[] buffer, int start, int end) {
+        try (JsonParser parser = JSON.createParser(buffer, start, end - start)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            MetricSample sample = new MetricSample();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "game", "name" -> sample.setGame(value == JsonToken.VALUE_STRING ? parser.getText() : null);
+                    case "sessionId" -> sample.setSessionId(value == JsonToken.VALUE_NULL ? null : parser.getText());
+                    case "timestamp" -> sample.setTimestamp(parser.getValueAsLong());
+                    case "fps", "avgFps" -> sample.setFps(parser.getValueAsInt());
+                    case "cpuUsage" -> sample.setCpuUsage(parser.getValueAsInt());
+                    case "gpuUsage" -> sample.setGpuUsage(parser.getValueAsInt());
+                    case "latencyMs" -> sample.setLatencyMs(parser.getValueAsInt());
+                    case "temperatureC" -> sample.setTemperatureC(parser.getValueAsInt());
+                    case "region" -> sample.setRegion(value == JsonToken.VALUE_NULL ? null : parser.getText());
+                    case "hardwareTier" -> sample.setHardwareTier(value == JsonToken.VALUE_NULL ? null : parser.getText());
+                    default -> parser.skipChildren();
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                return null;
+            }
+            return sample.getGame() == null ? null : sample;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
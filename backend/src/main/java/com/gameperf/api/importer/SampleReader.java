@@ -0,0 +1,119 @@
+package com.gameperf.api.importer;
+
+import com.gameperf.api.model.MetricSample;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incremental reader of telemetry samples from a line-oriented stream.
+ *
+ * Samples are parsed one line at a time and handed out in batches, so the caller
+ * decides how many are in memory at once. Lines that cannot be parsed are counted
+ * and skipped rather than failing the whole import.
+ */
+public abstract class SampleReader {
+
+    final LineReader lines;
+    private long malformed;
+
+    SampleReader(InputStream in) {
+        this.lines = new LineReader(in);
+    }
+
+    /**
+     * Create a reader for the given format.
+     *
+     * @param format Format of the stream
+     * @param in Stream to read; not closed by the reader
+     * @return Reader positioned at the first sample
+     */
+    public static SampleReader of(ImportFormat format, InputStream in) {
+        return switch (format) {
+            case CSV -> new CsvSampleReader(in);
+            case NDJSON -> new NdjsonSampleReader(in);
+        };
+    }
+
+    /**
+     * Read up to {@code max} samples into {@code batch}.
+     *
+     * @param batch List to append the samples to
+     * @param max Maximum number of samples to read
+     * @return Number of samples appended; 0 only at the end of the stream
+     */
+    public int readBatch(List<MetricSample> batch, int max) throws IOException {
+        int read = 0;
+        while (read < max && lines.next()) {
+            if (lines.isBlank() || skip()) {
+                continue;
+            }
+            MetricSample sample = parse(lines.buffer(), lines.start(), lines.end());
+            if (sample == null) {
+                malformed++;
+            } else {
+                batch.add(sample);
+                read++;
+            }
+        }
+        return read;
+    }
+
+    /**
+     * @return Lines that could not be parsed so far
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * @return Lines read so far, including blank and malformed ones
+     */
+    public long getLines() {
+        return lines.lineNumber();
+    }
+
+    /**
+     * @return Bytes read from the stream so far
+     */
+    public long getBytesRead() {
+        return lines.bytesRead();
+    }
+
+    /**
+     * Whether the current line is not a sample, e.g. a header.
+     */
+    protected boolean skip() {
+        return false;
+    }
+
+    /**
+     * Parse one non-blank line.
+     *
+     * @return Parsed sample, or null if the line is malformed
+     */
+    protected abstract MetricSample parse(byte[] buffer, int start, int end);
+
+    /**
+     * Decodes UTF-8 strings, reusing the previous result when the bytes repeat.
+     * Session dumps repeat the same game and session on every line, so this saves
+     * nearly all string allocations.
+     */
+    static final class StringCache {
+
+        private byte[] bytes = new byte[0];
+        private String value;
+
+        String decode(byte[] buffer, int start, int end) {
+            if (value != null && Arrays.equals(bytes, 0, bytes.length, buffer, start, end)) {
+                return value;
+            }
+            bytes = Arrays.copyOfRange(buffer, start, end);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.gameperf.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Columnar batch of samples for anomaly detection.
+ * Each field holds one value per sample; all arrays must have the same length.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnomalyBatchRequest {
+
+    /**
+     * Frames per second of each sample
+     */
+    private int[] fps;
+
+    /**
+     * CPU usage percentage (0-100) of each sample
+     */
+    private int[] cpuUsage;
+
+    /**
+     * GPU usage percentage (0-100) of each sample
+     */
+    private int[] gpuUsage;
+
+    /**
+     * Network latency in milliseconds of each sample
+     */
+    private int[] latencyMs;
+
+    /**
+     * GPU temperature in Celsius of each sample
+     */
+    private int[] temperatureC;
+}
@@ -0,0 +1,57 @@
+package com.gameperf.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compact result of batch anomaly detection.
+ * Per-sample results are a bitmask per sample (serialized as base64 in JSON);
+ * everything else is aggregated into counts.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnomalyBatchResult {
+
+    /**
+     * Number of samples evaluated
+     */
+    private int sampleCount;
+
+    /**
+     * Number of samples with at least one anomaly
+     */
+    private int anomalousCount;
+
+    /**
+     * Samples with temperature above the threshold
+     */
+    private int highTemperatureCount;
+
+    /**
+     * Samples with FPS below the threshold
+     */
+    private int lowFpsCount;
+
+    /**
+     * Samples with latency above the threshold
+     */
+    private int highLatencyCount;
+
+    /**
+     * Samples with CPU usage above the threshold
+     */
+    private int highCpuCount;
+
+    /**
+     * Samples with GPU usage above the threshold
+     */
+    private int highGpuCount;
+
+    /**
+     * One bitmask per sample: 1 = high temperature, 2 = low FPS, 4 = high latency,
+     * 8 = high CPU, 16 = high GPU
+     */
+    private byte[] flags;
+}
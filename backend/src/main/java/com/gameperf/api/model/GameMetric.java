@@ -54,4 +54,25 @@ public class GameMetric {
      * Based on load balance between CPU and GPU
      */
     private double stabilityIndex;
+
+    /**
+     * Performance score of raw measurements, clamped to 0-100.
+     * (fps * 0.6) - (cpu * 0.15) - (gpu * 0.15) - (latency * 0.1)
+     */
+    public static double performanceScore(int fps, int cpuUsage, int gpuUsage, int latencyMs) {
+        double perf = (fps * 0.6)
+                    - (cpuUsage * 0.15)
+                    - (gpuUsage * 0.15)
+                    - (latencyMs * 0.1);
+        return Math.max(0, Math.min(perf, 100));
+    }
+
+    /**
+     * Stability index of raw measurements, clamped to 0-100.
+     * 100 - |cpu - gpu| * 0.6; a lower difference means more balanced load.
+     */
+    public static double stabilityIndex(int cpuUsage, int gpuUsage) {
+        double stab = 100 - Math.abs(cpuUsage - gpuUsage) * 0.6;
+        return Math.max(0, Math.min(stab, 100));
+    }
 }
@@ -0,0 +1,70 @@
+package com.gameperf.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Model representing a single raw telemetry sample sent by a game client.
+ * Samples are ingested in batches and stored per game in the time-series store.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MetricSample {
+
+    /**
+     * Name of the game
+     */
+    private String game;
+
+    /**
+     * Identifier of the client session that produced the sample
+     */
+    private String sessionId;
+
+    /**
+     * Sample time in epoch milliseconds (0 means "use server receive time")
+     */
+    private long timestamp;
+
+    /**
+     * Frames per second
+     */
+    private int fps;
+
+    /**
+     * CPU usage percentage (0-100)
+     */
+    private int cpuUsage;
+
+    /**
+     * GPU usage percentage (0-100)
+     */
+    private int gpuUsage;
+
+    /**
+     * Network latency in milliseconds
+     */
+    private int latencyMs;
+
+    /**
+     * GPU temperature in Celsius
+     */
+    private int temperatureC;
+
+    /**
+     * Region the client reported from, or null when unknown
+     */
+    private String region;
+
+    /**
+     * Hardware tier of the client (for example "low", "mid" or "high"), or null when unknown
+     */
+    private String hardwareTier;
+
+    public MetricSample(String game, String sessionId, long timestamp, int fps, int cpuUsage,
+                        int gpuUsage, int latencyMs, int temperatureC) {
+        this(game, sessionId, timestamp, fps, cpuUsage, gpuUsage, latencyMs, temperatureC, null, null);
+    }
+}
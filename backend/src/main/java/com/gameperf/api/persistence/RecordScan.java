@@ -0,0 +1,106 @@
+package com.gameperf.api.persistence;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records selected by {@link SampleLog#select}: runs of candidate blocks in the
+ * mapped segments, filtered by game, session and time range as they are read.
+ *
+ * The runs only cover records written before the selection, which are never
+ * modified again, so a scan can be read on any thread without the log lock.
+ * Segments deleted by retention in the meantime stay readable through their mapping.
+ */
+public class RecordScan {
+
+    /**
+     * Filter value matching every game or session.
+     */
+    static final int ANY = Integer.MIN_VALUE;
+
+    private final int gameId;
+    private final int sessionId;
+    private final long from;
+    private final long to;
+    private final int gameCount;
+    private final int sessionCount;
+    private final List<Run> runs = new ArrayList<>();
+
+    /**
+     * Consecutive records of one segment.
+     *
+     * @param buffer Mapped segment
+     * @param start First record (inclusive)
+     * @param end Last record (exclusive)
+     */
+    private record Run(ByteBuffer buffer, int start, int end) {
+    }
+
+    RecordScan(int gameId, int sessionId, long from, long to, int gameCount, int sessionCount) {
+        this.gameId = gameId;
+        this.sessionId = sessionId;
+        this.from = from;
+        this.to = to;
+        this.gameCount = gameCount;
+        this.sessionCount = sessionCount;
+    }
+
+    void add(ByteBuffer buffer, int start, int end) {
+        int last = runs.size() - 1;
+        if (last >= 0 && runs.get(last).buffer() == buffer && runs.get(last).end() == start) {
+            runs.set(last, new Run(buffer, runs.get(last).start(), end));
+        } else {
+            runs.add(new Run(buffer, start, end));
+        }
+    }
+
+    /**
+     * Read the candidate blocks and pass every matching record to the visitor, in log order.
+     *
+     * @param visitor Callback receiving each matching record
+     * @return Number of matching records
+     */
+    public long forEach(RecordVisitor visitor) {
+        long matched = 0;
+        for (Run run : runs) {
+            ByteBuffer buffer = run.buffer();
+            for (int r = run.start(); r < run.end(); r++) {
+                int offset = r * SampleLog.RECORD_SIZE;
+                long timestamp = buffer.getLong(offset);
+                int game = buffer.getInt(offset + SampleLog.GAME_OFFSET);
+                int session = buffer.getInt(offset + SampleLog.SESSION_OFFSET);
+                if (timestamp < from || timestamp >= to
+                        || (gameId != ANY && game != gameId)
+                        || (sessionId != ANY && session != sessionId)
+                        // Record written after a dictionary entry that did not reach the disk
+                        || game < 0 || game >= gameCount || session >= sessionCount) {
+                    continue;
+                }
+                visitor.accept(
+                    timestamp,
+                    game,
+                    session,
+                    buffer.getInt(offset + SampleLog.FPS_OFFSET),
+                    buffer.getInt(offset + SampleLog.CPU_OFFSET),
+                    buffer.getInt(offset + SampleLog.GPU_OFFSET),
+                    buffer.getInt(offset + SampleLog.LATENCY_OFFSET),
+                    buffer.getInt(offset + SampleLog.TEMPERATURE_OFFSET)
+                );
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * @return Number of records in the candidate blocks, i.e. the records a scan reads
+     */
+    public long getCandidateCount() {
+        long count = 0;
+        for (Run run : runs) {
+            count += run.end() - run.start();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,17 @@
+package com.gameperf.api.persistence;
+
+/**
+ * Callback receiving the fields of one persisted sample straight from the mapped
+ * segment, without materializing a sample object.
+ */
+@FunctionalInterface
+public interface RecordVisitor {
+
+    /**
+     * @param timestamp Sample timestamp in epoch milliseconds
+     * @param gameId Game id in the log dictionary, see {@link SampleLog#gameName(int)}
+     * @param sessionId Session id in the log dictionary, or {@link SampleLog#NO_SESSION}
+     */
+    void accept(long timestamp, int gameId, int sessionId,
+                int fps, int cpuUsage, int gpuUsage, int latencyMs, int temperatureC);
+}
@@ -0,0 +1,986 @@
+package com.gameperf.api.persistence;
+
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.store.NameDictionary;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of ingested samples in memory-mapped segment files.
+ *
+ * Every sample is stored as a fixed 40-byte big-endian record:
+ * <pre>
+ *   long timestamp | int gameId | int sessionId | int fps | int cpu | int gpu
+ *   | int latency | int temperature | int CRC32C of the preceding 36 bytes
+ * </pre>
+ * Game names and session ids are dictionary-encoded; the dictionary is a file of
+ * {@code byte 0 | short length | UTF-8 name} game entries, numbered in file order, and
+ * {@code byte 2 | int id | short length | UTF-8 name} session entries, the length
+ * unsigned and at most {@value #MAX_NAME_BYTES}. The new entries of a batch are written
+ * and forced to disk together before any record referencing their ids, so a crash can
+ * never keep a record whose name was lost and let the id be handed to another name on
+ * the next open. Sessions without any retained record are evicted after retention and
+ * the dictionary is rewritten without them, so it follows the retained sessions
+ * instead of every session ever seen. Session ids are not handed out again while the
+ * log is open.
+ *
+ * Segments are pre-allocated to a fixed number of records and named after the
+ * sequence number of their first record. When the active segment is full it is
+ * forced to disk and a new one is started. Sealed segments whose newest record is
+ * older than the retention are deleted on open, after a roll and on a timer, so they
+ * also expire while nothing is appended. On open only the active segment is
+ * scanned: the first record failing its checksum marks the end of the log, so a
+ * torn write after a crash is discarded and recovery time does not grow with the
+ * size of the log. Replay reads records directly from the mapped segments.
+ *
+ * Range queries are served from a sparse index kept next to the log: every block of
+ * {@code index-block-records} records has its minimum and maximum timestamp, and
+ * every game and session has the ordered list of blocks it appears in. A query
+ * only reads the blocks that can hold matching records, so its cost follows the
+ * result size rather than the size of the log. The index of a sealed segment is
+ * written to a {@code .idx} file next to it and loaded on open; a missing or
+ * damaged index file is rebuilt from its segment.
+ *
+ * Disabled by default; enable with {@code metrics.persistence.enabled=true}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "metrics.persistence.enabled", havingValue = "true")
+public class SampleLog implements Closeable {
+
+    public static final int RECORD_SIZE = 40;
+    public static final int NO_SESSION = -1;
+    /**
+     * Longest game name or session id, in UTF-8 bytes, that fits a dictionary entry.
+     */
+    public static final int MAX_NAME_BYTES = 0xFFFF;
+
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String INDEX_SUFFIX = ".idx";
+    static final String DICTIONARY_FILE = "names.dict";
+
+    static final int GAME_OFFSET = 8;
+    static final int SESSION_OFFSET = 12;
+    static final int FPS_OFFSET = 16;
+    static final int CPU_OFFSET = 20;
+    static final int GPU_OFFSET = 24;
+    static final int LATENCY_OFFSET = 28;
+    static final int TEMPERATURE_OFFSET = 32;
+    static final int CHECKSUM_OFFSET = 36;
+
+    private static final byte GAME_ENTRY = 0;
+    /**
+     * Session entry numbered in file order, as written by earlier versions.
+     */
+    private static final byte LEGACY_SESSION_ENTRY = 1;
+    private static final byte SESSION_ENTRY = 2;
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final int blockRecords;
+    private final long retentionMillis;
+
+    private final NameDictionary games = new NameDictionary();
+    private FileChannel dictionary;
+
+    /**
+     * Retained sessions. Guarded by {@code this}; names are also read without the lock.
+     */
+    private final Map<String, Integer> sessionIds = new HashMap<>();
+    private final Map<Integer, String> sessionNames = new ConcurrentHashMap<>();
+    private int nextSessionId;
+
+    /**
+     * Segments oldest first; the last one is the active segment. Guarded by {@code this}.
+     */
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+
+    /**
+     * Blocks each game and session appears in, by dictionary id. Guarded by {@code this}.
+     */
+    private final List<BlockList> gameBlocks = new ArrayList<>();
+    private final Map<Integer, BlockList> sessionBlocks = new HashMap<>();
+    private int lastSessionId = NO_SESSION;
+    private BlockList lastSessionBlocks;
+
+    private final byte[] scratch = new byte[RECORD_SIZE];
+    private final ByteBuffer record = ByteBuffer.wrap(scratch);
+    private final CRC32C crc = new CRC32C();
+
+    public SampleLog(Path directory, int recordsPerSegment, Duration retention) throws IOException {
+        this(directory, recordsPerSegment, retention, 1024);
+    }
+
+    @Autowired
+    public SampleLog(@Value("${metrics.persistence.directory:data/samples}") Path directory,
+                     @Value("${metrics.persistence.segment-records:1048576}") int recordsPerSegment,
+                     @Value("${metrics.persistence.retention:3d}") Duration retention,
+                     @Value("${metrics.persistence.index-block-records:1024}") int blockRecords) throws IOException {
+        if (recordsPerSegment <= 0) {
+            throw new IllegalArgumentException("segment-records must be positive: " + recordsPerSegment);
+        }
+        if (blockRecords <= 0) {
+            throw new IllegalArgumentException("index-block-records must be positive: " + blockRecords);
+        }
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.blockRecords = blockRecords;
+        this.retentionMillis = retention.toMillis();
+
+        Files.createDirectories(directory);
+        this.dictionary = FileChannel.open(directory.resolve(DICTIONARY_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        loadDictionary();
+        openSegments();
+        if (enforceRetention(System.currentTimeMillis()) == 0) {
+            // Retention may have run before a crash that kept the dictionary from being rewritten
+            evictSessions();
+        }
+    }
+
+    /**
+     * Append a batch of validated samples to the active segment, rolling to a new
+     * segment whenever it fills up.
+     *
+     * @param samples Samples to persist
+     * @throws IllegalArgumentException if a name is longer than {@value #MAX_NAME_BYTES} UTF-8 bytes;
+     *         the samples before it are appended
+     * @throws UncheckedIOException if a segment or dictionary entry cannot be written
+     */
+    public synchronized void appendAll(List<MetricSample> samples) {
+        // Resolve every name first, so all new dictionary entries of the batch share one sync
+        int[] gameIds = new int[samples.size()];
+        int[] recordSessions = new int[samples.size()];
+        NewEntries entries = new NewEntries();
+        IllegalArgumentException invalid = null;
+        int resolved = 0;
+        try {
+            for (; resolved < samples.size(); resolved++) {
+                MetricSample s = samples.get(resolved);
+                gameIds[resolved] = entries.gameId(s.getGame());
+                recordSessions[resolved] = s.getSessionId() == null ? NO_SESSION : entries.sessionId(s.getSessionId());
+            }
+        } catch (IllegalArgumentException e) {
+            invalid = e;
+        }
+        entries.commit();
+
+        boolean rolled = false;
+        for (int i = 0; i < resolved; i++) {
+            MetricSample s = samples.get(i);
+            if (active.count == active.capacity) {
+                roll();
+                rolled = true;
+            }
+            record.putLong(0, s.getTimestamp());
+            record.putInt(GAME_OFFSET, gameIds[i]);
+            record.putInt(SESSION_OFFSET, recordSessions[i]);
+            record.putInt(FPS_OFFSET, s.getFps());
+            record.putInt(CPU_OFFSET, s.getCpuUsage());
+            record.putInt(GPU_OFFSET, s.getGpuUsage());
+            record.putInt(LATENCY_OFFSET, s.getLatencyMs());
+            record.putInt(TEMPERATURE_OFFSET, s.getTemperatureC());
+            record.putInt(CHECKSUM_OFFSET, checksum());
+
+            active.buffer.put(active.count * RECORD_SIZE, scratch);
+            index(active, active.count, s.getTimestamp(), gameIds[i], recordSessions[i]);
+            active.count++;
+        }
+        if (rolled) {
+            // Only once every record is indexed, or sessions new in the batch would look unused
+            enforceRetention(System.currentTimeMillis());
+        }
+        if (invalid != null) {
+            throw invalid;
+        }
+    }
+
+    /**
+     * Select the records of a game or session in a time range.
+     * Candidate blocks are picked from the index under the log lock; the returned
+     * scan reads them afterwards without it, so a slow consumer never holds up
+     * appends. Records appended after the call are not included.
+     *
+     * @param game Name of the game, or null for any game
+     * @param sessionId Session id, or null for any session
+     * @param from Start of the range in epoch milliseconds (inclusive)
+     * @param to End of the range in epoch milliseconds (exclusive)
+     * @return Scan over the matching records, in log order
+     */
+    public synchronized RecordScan select(String game, String sessionId, long from, long to) {
+        int gameId = game == null ? RecordScan.ANY : games.find(game);
+        int sessionFilter = sessionId == null ? RecordScan.ANY : sessionIds.getOrDefault(sessionId, NO_SESSION);
+        RecordScan scan = new RecordScan(gameId, sessionFilter, from, to, games.size(), nextSessionId);
+        // The narrower list drives the seek; sessions usually span far fewer blocks than games
+        BlockList candidates = sessionId != null ? sessionBlocks.get(sessionFilter)
+                : game != null && gameId >= 0 ? blockList(gameBlocks, gameId)
+                : null;
+        if ((game != null && gameId < 0) || (sessionId != null && candidates == null) || to <= from) {
+            return scan;
+        }
+
+        for (Segment segment : segments) {
+            if (segment.count == 0 || segment.maxTimestamp < from || segment.minTimestamp >= to) {
+                continue;
+            }
+            ByteBuffer buffer = null;
+            int blocks = (segment.count + blockRecords - 1) / blockRecords;
+            int next = candidates == null ? 0 : candidates.lowerBound(segment.base);
+            while (true) {
+                int block;
+                if (candidates == null) {
+                    if (next == blocks) {
+                        break;
+                    }
+                    block = next++;
+                } else {
+                    if (next == candidates.size || candidates.keys[next] >= segment.base + segment.capacity) {
+                        break;
+                    }
+                    block = (int) ((candidates.keys[next++] - segment.base) / blockRecords);
+                }
+                if (segment.blockMax[block] < from || segment.blockMin[block] >= to) {
+                    continue;
+                }
+                if (buffer == null) {
+                    buffer = segment.read();
+                }
+                int start = block * blockRecords;
+                scan.add(buffer, start, Math.min(start + blockRecords, segment.count));
+            }
+        }
+        return scan;
+    }
+
+    /**
+     * Replay the newest records, oldest first, straight from the mapped segments.
+     *
+     * @param visitor Callback receiving each record
+     * @param maxRecords Maximum number of (newest) records to replay
+     * @return Number of records replayed
+     */
+    public synchronized long replay(RecordVisitor visitor, long maxRecords) {
+        int first = segments.size() - 1;
+        long skip = -maxRecords;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            first = i;
+            skip += segments.get(i).count;
+            if (skip >= 0) {
+                break;
+            }
+        }
+
+        long replayed = 0;
+        int gameCount = games.size();
+        int sessionCount = nextSessionId;
+        for (int i = first; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            ByteBuffer buffer = segment.read();
+            int from = i == first ? (int) Math.max(0, skip) : 0;
+            for (int r = from; r < segment.count; r++) {
+                int offset = r * RECORD_SIZE;
+                int gameId = buffer.getInt(offset + GAME_OFFSET);
+                int sessionId = buffer.getInt(offset + SESSION_OFFSET);
+                if (gameId < 0 || gameId >= gameCount || sessionId >= sessionCount) {
+                    // Record written after a dictionary entry that did not reach the disk
+                    continue;
+                }
+                visitor.accept(
+                    buffer.getLong(offset),
+                    gameId,
+                    sessionId,
+                    buffer.getInt(offset + FPS_OFFSET),
+                    buffer.getInt(offset + CPU_OFFSET),
+                    buffer.getInt(offset + GPU_OFFSET),
+                    buffer.getInt(offset + LATENCY_OFFSET),
+                    buffer.getInt(offset + TEMPERATURE_OFFSET)
+                );
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Force the dictionary and the active segment to disk. Records are visible to the
+     * OS as soon as they are appended, so this only matters for power loss.
+     */
+    @Scheduled(fixedRateString = "${metrics.persistence.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        try {
+            dictionary.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to flush sample dictionary", e);
+        }
+        active.buffer.force();
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (dictionary.isOpen()) {
+            flush();
+            dictionary.close();
+        }
+    }
+
+    /**
+     * @param gameId Game id passed to a {@link RecordVisitor}
+     * @return Name of the game
+     */
+    public String gameName(int gameId) {
+        return games.nameOf(gameId);
+    }
+
+    /**
+     * @param sessionId Session id passed to a {@link RecordVisitor}
+     * @return Session id string, or null for {@link #NO_SESSION} and evicted sessions
+     */
+    public String sessionName(int sessionId) {
+        return sessionId == NO_SESSION ? null : sessionNames.get(sessionId);
+    }
+
+    /**
+     * @return Number of sessions with retained records
+     */
+    public synchronized int getSessionCount() {
+        return sessionIds.size();
+    }
+
+    /**
+     * @return Number of records currently retained across all segments
+     */
+    public synchronized long getRecordCount() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.count;
+        }
+        return total;
+    }
+
+    /**
+     * @return Number of segment files currently retained
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @param sessionId Session id
+     * @return Whether any retained record belongs to the session
+     */
+    public synchronized boolean hasSession(String sessionId) {
+        Integer id = sessionIds.get(sessionId);
+        BlockList blocks = id == null ? null : sessionBlocks.get(id);
+        return blocks != null && blocks.size > 0;
+    }
+
+    /**
+     * @return Directory holding the segment and dictionary files
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Apply the retention, so sealed segments expire even while nothing is appended.
+     */
+    @Scheduled(fixedRateString = "${metrics.persistence.retention-check-ms:60000}")
+    public void expire() {
+        enforceRetention(System.currentTimeMillis());
+    }
+
+    /**
+     * Delete sealed segments whose newest record is older than the retention, and
+     * evict the sessions that no longer have a record. Records are not appended in
+     * time order, so the newest is the segment's maximum timestamp, not its last record.
+     *
+     * @param nowMillis Current time in epoch milliseconds
+     * @return Number of deleted segments
+     */
+    synchronized int enforceRetention(long nowMillis) {
+        int deleted = 0;
+        while (segments.size() > 1 && segments.get(0).maxTimestamp < nowMillis - retentionMillis) {
+            Segment expired = segments.remove(0);
+            try {
+                Files.deleteIfExists(expired.path);
+                Files.deleteIfExists(indexPath(expired));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete segment " + expired.path, e);
+            }
+            deleted++;
+        }
+        if (deleted > 0) {
+            long firstRetained = segments.get(0).base;
+            gameBlocks.forEach(blocks -> blocks.dropBefore(firstRetained));
+            sessionBlocks.values().forEach(blocks -> blocks.dropBefore(firstRetained));
+            evictSessions();
+        }
+        return deleted;
+    }
+
+    /**
+     * Forget the sessions without any indexed record and rewrite the dictionary without them.
+     */
+    private void evictSessions() {
+        sessionBlocks.values().removeIf(blocks -> blocks.size == 0);
+        lastSessionId = NO_SESSION;
+        lastSessionBlocks = null;
+        int before = sessionIds.size();
+        sessionIds.values().removeIf(id -> !sessionBlocks.containsKey(id));
+        if (sessionIds.size() == before) {
+            return;
+        }
+        sessionNames.keySet().removeIf(id -> !sessionBlocks.containsKey(id));
+        try {
+            rewriteDictionary();
+        } catch (IOException e) {
+            // The evicted entries stay in the file and are evicted again on the next open
+            log.warn("Failed to rewrite sample dictionary", e);
+        }
+    }
+
+    /**
+     * Add one record to the block and game/session indexes of its segment.
+     */
+    private void index(Segment segment, int r, long timestamp, int gameId, int sessionId) {
+        int block = r / blockRecords;
+        segment.blockMin[block] = Math.min(segment.blockMin[block], timestamp);
+        segment.blockMax[block] = Math.max(segment.blockMax[block], timestamp);
+        segment.minTimestamp = Math.min(segment.minTimestamp, timestamp);
+        segment.maxTimestamp = Math.max(segment.maxTimestamp, timestamp);
+
+        long key = segment.base + (long) block * blockRecords;
+        if (gameId >= 0) {
+            blockList(gameBlocks, gameId).add(key);
+        }
+        if (sessionId >= 0) {
+            if (sessionId != lastSessionId) {
+                lastSessionId = sessionId;
+                lastSessionBlocks = sessionBlocks.computeIfAbsent(sessionId, id -> new BlockList());
+            }
+            lastSessionBlocks.add(key);
+        }
+    }
+
+    private static BlockList blockList(List<BlockList> lists, int id) {
+        while (lists.size() <= id) {
+            lists.add(new BlockList());
+        }
+        return lists.get(id);
+    }
+
+    private Path indexPath(Segment segment) {
+        String name = segment.path.getFileName().toString();
+        return segment.path.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    /**
+     * Write the index of a sealed segment:
+     * <pre>
+     *   int blockRecords | int blocks | blocks x (long min | long max)
+     *   | game lists | session lists | int CRC32C of the preceding bytes
+     * </pre>
+     * where each set of lists is {@code int lists | lists x (int id | int n | n x int block)}.
+     */
+    private void writeIndex(Segment segment) throws IOException {
+        int blocks = segment.blockMin.length;
+        List<int[]> gameLists = segmentBlocks(gameBlocks, segment);
+        List<int[]> sessionLists = segmentBlocks(sessionBlocks, segment);
+        int size = 8 + blocks * 16 + listsSize(gameLists) + listsSize(sessionLists) + 4;
+
+        ByteBuffer content = ByteBuffer.allocate(size);
+        content.putInt(blockRecords).putInt(blocks);
+        for (int b = 0; b < blocks; b++) {
+            content.putLong(segment.blockMin[b]).putLong(segment.blockMax[b]);
+        }
+        putLists(content, gameLists);
+        putLists(content, sessionLists);
+        CRC32C indexCrc = new CRC32C();
+        indexCrc.update(content.array(), 0, content.position());
+        content.putInt((int) indexCrc.getValue()).flip();
+
+        // Written aside and moved in place, so a crash never leaves a partial index behind
+        Path target = indexPath(segment);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Extract the blocks of one segment from every list.
+     *
+     * @return {@code [id, block, block, ...]} per id appearing in the segment
+     */
+    private List<int[]> segmentBlocks(List<BlockList> lists, Segment segment) {
+        List<int[]> result = new ArrayList<>();
+        for (int id = 0; id < lists.size(); id++) {
+            addSegmentBlocks(result, id, lists.get(id), segment);
+        }
+        return result;
+    }
+
+    private List<int[]> segmentBlocks(Map<Integer, BlockList> lists, Segment segment) {
+        List<int[]> result = new ArrayList<>();
+        lists.forEach((id, list) -> addSegmentBlocks(result, id, list, segment));
+        return result;
+    }
+
+    private void addSegmentBlocks(List<int[]> result, int id, BlockList list, Segment segment) {
+        int from = list.lowerBound(segment.base);
+        int to = list.lowerBound(segment.base + segment.capacity);
+        if (from == to) {
+            return;
+        }
+        int[] entry = new int[1 + to - from];
+        entry[0] = id;
+        for (int i = from; i < to; i++) {
+            entry[1 + i - from] = (int) ((list.keys[i] - segment.base) / blockRecords);
+        }
+        result.add(entry);
+    }
+
+    private static int listsSize(List<int[]> lists) {
+        int size = 4;
+        for (int[] entry : lists) {
+            size += 4 + entry.length * 4;
+        }
+        return size;
+    }
+
+    private static void putLists(ByteBuffer content, List<int[]> lists) {
+        content.putInt(lists.size());
+        for (int[] entry : lists) {
+            content.putInt(entry[0]).putInt(entry.length - 1);
+            for (int i = 1; i < entry.length; i++) {
+                content.putInt(entry[i]);
+            }
+        }
+    }
+
+    /**
+     * Load the index of a sealed segment from its index file.
+     *
+     * @return Whether a valid index file was found; nothing is indexed otherwise
+     */
+    private boolean loadIndex(Segment segment) {
+        Path file = indexPath(segment);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try {
+            ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+            int checked = content.limit() - 4;
+            CRC32C indexCrc = new CRC32C();
+            indexCrc.update(content.array(), 0, Math.max(0, checked));
+            if (checked < 8 || content.getInt(checked) != (int) indexCrc.getValue()
+                    || content.getInt() != blockRecords || content.getInt() != segment.blockMin.length) {
+                return false;
+            }
+            for (int b = 0; b < segment.blockMin.length; b++) {
+                segment.blockMin[b] = content.getLong();
+                segment.blockMax[b] = content.getLong();
+                segment.minTimestamp = Math.min(segment.minTimestamp, segment.blockMin[b]);
+                segment.maxTimestamp = Math.max(segment.maxTimestamp, segment.blockMax[b]);
+            }
+            loadLists(content, id -> blockList(gameBlocks, id), segment);
+            loadLists(content, id -> sessionBlocks.computeIfAbsent(id, k -> new BlockList()), segment);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable index {}: {}", file, e.toString());
+            return false;
+        }
+    }
+
+    private void loadLists(ByteBuffer content, IntFunction<BlockList> lists, Segment segment) {
+        int count = content.getInt();
+        for (int i = 0; i < count; i++) {
+            BlockList list = lists.apply(content.getInt());
+            int blocks = content.getInt();
+            for (int b = 0; b < blocks; b++) {
+                list.add(segment.base + (long) content.getInt() * blockRecords);
+            }
+        }
+    }
+
+    /**
+     * Index a sealed segment by reading all of its records and save the index file.
+     */
+    private void rebuildIndex(Segment segment) {
+        ByteBuffer buffer = segment.read();
+        for (int r = 0; r < segment.count; r++) {
+            int offset = r * RECORD_SIZE;
+            index(segment, r, buffer.getLong(offset), buffer.getInt(offset + GAME_OFFSET),
+                    buffer.getInt(offset + SESSION_OFFSET));
+        }
+        try {
+            writeIndex(segment);
+        } catch (IOException e) {
+            log.warn("Failed to write index of {}; it will be rebuilt on next open", segment.path, e);
+        }
+    }
+
+    private static ByteBuffer entry(byte kind, int id, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Name longer than " + MAX_NAME_BYTES + " UTF-8 bytes: "
+                    + name.substring(0, 32) + "...");
+        }
+        ByteBuffer entry = ByteBuffer.allocate((kind == SESSION_ENTRY ? 7 : 3) + bytes.length);
+        entry.put(kind);
+        if (kind == SESSION_ENTRY) {
+            entry.putInt(id);
+        }
+        return entry.putShort((short) bytes.length).put(bytes).flip();
+    }
+
+    /**
+     * Dictionary entries of the names first seen in one {@link #appendAll} batch.
+     * Ids are handed out in order as the names are resolved, but only registered
+     * once {@link #commit()} has written and forced the entries, before any record
+     * using them is written.
+     */
+    private final class NewEntries {
+
+        private final Map<String, Integer> newGames = new LinkedHashMap<>();
+        private final Map<String, Integer> newSessions = new LinkedHashMap<>();
+        private final List<ByteBuffer> pending = new ArrayList<>();
+        private int size;
+
+        int gameId(String name) {
+            int id = games.find(name);
+            if (id >= 0) {
+                return id;
+            }
+            Integer assigned = newGames.get(name);
+            if (assigned == null) {
+                assigned = games.size() + newGames.size();
+                add(entry(GAME_ENTRY, assigned, name));
+                newGames.put(name, assigned);
+            }
+            return assigned;
+        }
+
+        int sessionId(String name) {
+            Integer id = sessionIds.get(name);
+            if (id == null) {
+                id = newSessions.get(name);
+            }
+            if (id == null) {
+                id = Math.addExact(nextSessionId, newSessions.size());
+                add(entry(SESSION_ENTRY, id, name));
+                newSessions.put(name, id);
+            }
+            return id;
+        }
+
+        private void add(ByteBuffer entry) {
+            pending.add(entry);
+            size += entry.remaining();
+        }
+
+        /**
+         * Append the entries to the dictionary with a single force, then register their ids.
+         *
+         * @throws UncheckedIOException if the entries cannot be written; no id is registered then
+         */
+        void commit() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            ByteBuffer batch = ByteBuffer.allocate(size);
+            pending.forEach(batch::put);
+            batch.flip();
+            try {
+                while (batch.hasRemaining()) {
+                    dictionary.write(batch, dictionary.size());
+                }
+                dictionary.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write " + pending.size() + " dictionary entries", e);
+            }
+            newGames.keySet().forEach(games::idOf);
+            newSessions.forEach((name, id) -> {
+                sessionIds.put(name, id);
+                sessionNames.put(id, name);
+            });
+            nextSessionId = Math.addExact(nextSessionId, newSessions.size());
+        }
+    }
+
+    /**
+     * Replace the dictionary file with the games and the retained sessions.
+     */
+    private void rewriteDictionary() throws IOException {
+        List<ByteBuffer> entries = new ArrayList<>();
+        for (int id = 0; id < games.size(); id++) {
+            entries.add(entry(GAME_ENTRY, id, games.nameOf(id)));
+        }
+        sessionIds.forEach((name, id) -> entries.add(entry(SESSION_ENTRY, id, name)));
+
+        Path target = directory.resolve(DICTIONARY_FILE);
+        Path temporary = target.resolveSibling(DICTIONARY_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (ByteBuffer entry : entries) {
+                while (entry.hasRemaining()) {
+                    channel.write(entry);
+                }
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dictionary.close();
+        dictionary = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void loadDictionary() throws IOException {
+        ByteBuffer content = ByteBuffer.allocate((int) dictionary.size());
+        while (content.hasRemaining()) {
+            if (dictionary.read(content, content.position()) < 0) {
+                break;
+            }
+        }
+        content.flip();
+
+        int valid = 0;
+        int legacySessions = 0;
+        while (content.remaining() >= 3) {
+            byte kind = content.get();
+            if (kind != GAME_ENTRY && kind != LEGACY_SESSION_ENTRY && kind != SESSION_ENTRY) {
+                break;
+            }
+            if (kind == SESSION_ENTRY && content.remaining() < 6) {
+                break;
+            }
+            int id = kind == SESSION_ENTRY ? content.getInt()
+                    : kind == LEGACY_SESSION_ENTRY ? legacySessions++
+                    : games.size();
+            int length = content.getShort() & 0xFFFF;
+            if (content.remaining() < length) {
+                break;
+            }
+            byte[] bytes = new byte[length];
+            content.get(bytes);
+            String name = new String(bytes, StandardCharsets.UTF_8);
+            if (kind == GAME_ENTRY) {
+                games.idOf(name);
+            } else {
+                sessionIds.put(name, id);
+                sessionNames.put(id, name);
+                nextSessionId = Math.max(nextSessionId, id + 1);
+            }
+            valid = content.position();
+        }
+        // Drop a torn trailing entry so new entries line up with their ids
+        dictionary.truncate(valid);
+    }
+
+    private void openSegments() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            int capacity = (int) (Files.size(file) / RECORD_SIZE);
+            Segment segment = new Segment(file, base, capacity, blockRecords);
+            segment.count = capacity;
+            segments.add(segment);
+        }
+        // Sealed segments first and in order, so every block list stays sorted
+        for (int i = 0; i < segments.size() - 1; i++) {
+            Segment sealed = segments.get(i);
+            if (!loadIndex(sealed)) {
+                rebuildIndex(sealed);
+            }
+        }
+
+        if (segments.isEmpty()) {
+            active = createSegment(0);
+            segments.add(active);
+        } else {
+            active = segments.get(segments.size() - 1);
+            active.map();
+            active.count = recoverCount(active);
+        }
+        log.info("Opened sample log in {}: {} segments, {} records", directory, segments.size(), getRecordCount());
+    }
+
+    /**
+     * Scan the active segment for the first record failing its checksum, indexing
+     * the valid records on the way.
+     */
+    private int recoverCount(Segment segment) {
+        for (int r = 0; r < segment.capacity; r++) {
+            segment.buffer.get(r * RECORD_SIZE, scratch);
+            if (record.getInt(CHECKSUM_OFFSET) != checksum()) {
+                return r;
+            }
+            index(segment, r, record.getLong(0), record.getInt(GAME_OFFSET), record.getInt(SESSION_OFFSET));
+        }
+        return segment.capacity;
+    }
+
+    private void roll() {
+        active.buffer.force();
+        try {
+            writeIndex(active);
+        } catch (IOException e) {
+            log.warn("Failed to write index of {}; it will be rebuilt on next open", active.path, e);
+        }
+        // Let the write mapping go; sealed segments are remapped read-only when replayed
+        active.buffer = null;
+        active = createSegment(active.base + active.capacity);
+        segments.add(active);
+    }
+
+    private Segment createSegment(long base) {
+        Segment segment = new Segment(directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX)),
+                base, recordsPerSegment, blockRecords);
+        try {
+            segment.map();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create segment " + segment.path, e);
+        }
+        return segment;
+    }
+
+    private int checksum() {
+        crc.reset();
+        crc.update(scratch, 0, CHECKSUM_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * One segment file. Only the active segment stays mapped for writing; sealed
+     * segments are mapped read-only on demand.
+     */
+    private static final class Segment {
+
+        final Path path;
+        final long base;
+        final int capacity;
+        MappedByteBuffer buffer;
+        int count;
+
+        /**
+         * Timestamp range of each block of records and of the whole segment.
+         */
+        final long[] blockMin;
+        final long[] blockMax;
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+
+        Segment(Path path, long base, int capacity, int blockRecords) {
+            this.path = path;
+            this.base = base;
+            this.capacity = capacity;
+            int blocks = (capacity + blockRecords - 1) / blockRecords;
+            this.blockMin = new long[blocks];
+            this.blockMax = new long[blocks];
+            Arrays.fill(blockMin, Long.MAX_VALUE);
+            Arrays.fill(blockMax, Long.MIN_VALUE);
+        }
+
+        void map() throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+            }
+        }
+
+        ByteBuffer read() {
+            if (buffer != null) {
+                return buffer;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) capacity * RECORD_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map segment " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Ascending keys of the blocks a game or session appears in. A block key is the
+     * sequence number of the block's first record, so it identifies both the segment
+     * and the block within it.
+     */
+    private static final class BlockList {
+
+        long[] keys = new long[8];
+        int size;
+
+        void add(long key) {
+            if (size > 0 && keys[size - 1] == key) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        }
+
+        /**
+         * @return Index of the first key not below {@code key}
+         */
+        int lowerBound(long key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        void dropBefore(long key) {
+            int first = lowerBound(key);
+            System.arraycopy(keys, first, keys, 0, size - first);
+            size -= first;
+        }
+    }
+}
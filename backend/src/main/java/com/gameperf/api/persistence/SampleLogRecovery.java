@@ -0,0 +1,74 @@
+package com.gameperf.api.persistence;
+
+import com.gameperf.api.store.GameSeries;
+import com.gameperf.api.store.TimeSeriesStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds the in-memory time-series store from the sample log at startup.
+ *
+ * Only the newest records are replayed: the store keeps a bounded window per game,
+ * so replaying the whole log would only overwrite the ring buffers again. Log
+ * dictionary ids are translated to store series and session ids through lookup
+ * tables, so a record only allocates when it is the first of its session.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "metrics.persistence.enabled", havingValue = "true")
+public class SampleLogRecovery {
+
+    private final SampleLog sampleLog;
+    private final TimeSeriesStore store;
+    private final long replayRecords;
+
+    @Autowired
+    public SampleLogRecovery(SampleLog sampleLog, TimeSeriesStore store,
+                             @Value("${metrics.persistence.replay-records:4194304}") long replayRecords) {
+        this.sampleLog = sampleLog;
+        this.store = store;
+        this.replayRecords = replayRecords;
+    }
+
+    /**
+     * Replay the newest records of the log into the store.
+     *
+     * @return Number of replayed records
+     */
+    @PostConstruct
+    public long recover() {
+        long start = System.nanoTime();
+        List<GameSeries> seriesByGame = new ArrayList<>();
+        // Session ids are sparse once sessions have been evicted, so they are mapped through a hash map
+        Map<Integer, Integer> sessionIds = new HashMap<>();
+
+        long replayed = sampleLog.replay((timestamp, gameId, sessionId, fps, cpu, gpu, latency, temperature) -> {
+            while (seriesByGame.size() <= gameId) {
+                seriesByGame.add(store.seriesFor(sampleLog.gameName(seriesByGame.size())));
+            }
+            int storeSession = sessionId == SampleLog.NO_SESSION ? -1
+                    : sessionIds.computeIfAbsent(sessionId, id -> store.sessionIdOf(sampleLog.sessionName(id)));
+            seriesByGame.get(gameId).append(timestamp, storeSession, fps, cpu, gpu, latency, temperature);
+        }, replayRecords);
+
+        log.info("Replayed {} samples from {} in {} ms", replayed, sampleLog.getDirectory(),
+                (System.nanoTime() - start) / 1_000_000);
+        return replayed;
+    }
+
+    /**
+     * @return Log this component recovered from
+     */
+    public SampleLog getSampleLog() {
+        return sampleLog;
+    }
+}
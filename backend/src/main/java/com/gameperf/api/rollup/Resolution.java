@@ -0,0 +1,49 @@
+package com.gameperf.api.rollup;
+
+/**
+ * Rollup resolutions, finest first, with the number of buckets each one retains.
+ */
+public enum Resolution {
+
+    SECOND("1s", 1_000L, 900),
+    MINUTE("1m", 60_000L, 1_440),
+    HOUR("1h", 3_600_000L, 720);
+
+    private final String label;
+    private final long millis;
+    private final int slots;
+
+    Resolution(String label, long millis, int slots) {
+        this.label = label;
+        this.millis = millis;
+        this.slots = slots;
+    }
+
+    /**
+     * @return Short label such as "1m"
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return Width of one bucket in milliseconds
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @return Number of buckets retained
+     */
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * @return Time span covered by the retained buckets in milliseconds
+     */
+    public long getRetentionMillis() {
+        return millis * slots;
+    }
+}
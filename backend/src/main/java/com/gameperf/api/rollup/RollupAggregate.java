@@ -0,0 +1,135 @@
+package com.gameperf.api.rollup;
+
+import com.gameperf.api.stats.PercentileHistogram;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Aggregate of the rollup buckets falling into one point of a query.
+ *
+ * Counts, sums and sums of squares add up exactly, so the mean and population
+ * variance of a point are the same as if they were computed from the raw samples;
+ * percentiles come from the merged bucket sketches.
+ */
+public class RollupAggregate {
+
+    static final int SKETCH_PRECISION_BITS = 4;
+    static final int MAX_FPS = 2000;
+    static final int MAX_LATENCY_MS = 60_000;
+
+    private static final String[] METRIC_NAMES = {"fps", "cpuUsage", "gpuUsage", "latencyMs", "temperatureC"};
+    private static final double[] PERCENTILES = {50, 95, 99};
+    private static final String[] PERCENTILE_KEYS = {"p50", "p95", "p99"};
+
+    private final long start;
+    private long count;
+    private final double[] sums = new double[RollupSeries.METRIC_COUNT];
+    private final double[] sumSquares = new double[RollupSeries.METRIC_COUNT];
+    private final int[] mins = new int[RollupSeries.METRIC_COUNT];
+    private final int[] maxs = new int[RollupSeries.METRIC_COUNT];
+    private PercentileHistogram fpsSketch;
+    private PercentileHistogram latencySketch;
+
+    /**
+     * @param start Start of the point in epoch milliseconds
+     */
+    public RollupAggregate(long start) {
+        this.start = start;
+        Arrays.fill(mins, Integer.MAX_VALUE);
+        Arrays.fill(maxs, Integer.MIN_VALUE);
+    }
+
+    static PercentileHistogram newFpsSketch() {
+        return new PercentileHistogram(SKETCH_PRECISION_BITS, MAX_FPS);
+    }
+
+    static PercentileHistogram newLatencySketch() {
+        return new PercentileHistogram(SKETCH_PRECISION_BITS, MAX_LATENCY_MS);
+    }
+
+    /**
+     * Merge one bucket, given as a slot of the series columns.
+     */
+    void merge(long bucketCount, double[][] bucketSums, double[][] bucketSumSquares,
+               int[][] bucketMins, int[][] bucketMaxs, int slot,
+               PercentileHistogram bucketFps, PercentileHistogram bucketLatency) {
+        count += bucketCount;
+        for (int m = 0; m < RollupSeries.METRIC_COUNT; m++) {
+            sums[m] += bucketSums[m][slot];
+            sumSquares[m] += bucketSumSquares[m][slot];
+            mins[m] = Math.min(mins[m], bucketMins[m][slot]);
+            maxs[m] = Math.max(maxs[m], bucketMaxs[m][slot]);
+        }
+        if (fpsSketch == null) {
+            fpsSketch = newFpsSketch();
+            latencySketch = newLatencySketch();
+        }
+        fpsSketch.merge(bucketFps);
+        latencySketch.merge(bucketLatency);
+    }
+
+    /**
+     * @return Number of samples in the point
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param metric Metric index, see {@link RollupSeries}
+     * @return Mean of the metric, or 0 if the point is empty
+     */
+    public double getMean(int metric) {
+        return count == 0 ? 0 : sums[metric] / count;
+    }
+
+    /**
+     * @param metric Metric index, see {@link RollupSeries}
+     * @return Population variance of the metric, or 0 if the point is empty
+     */
+    public double getVariance(int metric) {
+        if (count == 0) {
+            return 0;
+        }
+        double mean = sums[metric] / count;
+        return Math.max(0, sumSquares[metric] / count - mean * mean);
+    }
+
+    /**
+     * Describe the point with rounded means, standard deviations, extremes and,
+     * for FPS and latency, percentiles.
+     *
+     * @return Map representation of the point
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> point = new LinkedHashMap<>();
+        point.put("t", start);
+        point.put("count", count);
+        for (int m = 0; m < RollupSeries.METRIC_COUNT; m++) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("mean", round(getMean(m)));
+            stats.put("stddev", round(Math.sqrt(getVariance(m))));
+            stats.put("min", mins[m]);
+            stats.put("max", maxs[m]);
+            if (m == RollupSeries.FPS) {
+                putPercentiles(stats, fpsSketch);
+            } else if (m == RollupSeries.LATENCY) {
+                putPercentiles(stats, latencySketch);
+            }
+            point.put(METRIC_NAMES[m], stats);
+        }
+        return point;
+    }
+
+    private static void putPercentiles(Map<String, Object> stats, PercentileHistogram sketch) {
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            stats.put(PERCENTILE_KEYS[i], sketch.valueAtPercentile(PERCENTILES[i]));
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,128 @@
+package com.gameperf.api.rollup;
+
+import com.gameperf.api.stats.PercentileHistogram;
+
+import java.util.Arrays;
+
+/**
+ * Ring of time buckets of one game at one resolution.
+ *
+ * Each bucket keeps count, sum, sum of squares, min and max of every metric in
+ * primitive columns, plus FPS and latency percentile sketches allocated on first
+ * use. A bucket is reset when the ring wraps around to it; samples older than the
+ * bucket currently occupying their slot are dropped. Not thread-safe: callers must
+ * synchronize.
+ */
+class RollupSeries {
+
+    static final int FPS = 0;
+    static final int CPU = 1;
+    static final int GPU = 2;
+    static final int LATENCY = 3;
+    static final int TEMPERATURE = 4;
+    static final int METRIC_COUNT = 5;
+
+    private final Resolution resolution;
+    private final int slots;
+
+    private final long[] epochs;
+    private final long[] counts;
+    private final double[][] sums;
+    private final double[][] sumSquares;
+    private final int[][] mins;
+    private final int[][] maxs;
+    private final PercentileHistogram[] fpsSketches;
+    private final PercentileHistogram[] latencySketches;
+
+    RollupSeries(Resolution resolution) {
+        this.resolution = resolution;
+        this.slots = resolution.getSlots();
+        this.epochs = new long[slots];
+        Arrays.fill(epochs, Long.MIN_VALUE);
+        this.counts = new long[slots];
+        this.sums = new double[METRIC_COUNT][slots];
+        this.sumSquares = new double[METRIC_COUNT][slots];
+        this.mins = new int[METRIC_COUNT][slots];
+        this.maxs = new int[METRIC_COUNT][slots];
+        this.fpsSketches = new PercentileHistogram[slots];
+        this.latencySketches = new PercentileHistogram[slots];
+    }
+
+    /**
+     * Add one sample to the bucket of its timestamp.
+     */
+    void record(long timestamp, int fps, int cpu, int gpu, int latency, int temperature) {
+        long epoch = Math.floorDiv(timestamp, resolution.getMillis());
+        int slot = (int) Math.floorMod(epoch, (long) slots);
+        if (epochs[slot] != epoch) {
+            if (epochs[slot] > epoch) {
+                return;
+            }
+            reset(slot, epoch);
+        }
+
+        counts[slot]++;
+        add(FPS, slot, fps);
+        add(CPU, slot, cpu);
+        add(GPU, slot, gpu);
+        add(LATENCY, slot, latency);
+        add(TEMPERATURE, slot, temperature);
+
+        if (fpsSketches[slot] == null) {
+            fpsSketches[slot] = RollupAggregate.newFpsSketch();
+            latencySketches[slot] = RollupAggregate.newLatencySketch();
+        }
+        fpsSketches[slot].record(fps);
+        latencySketches[slot].record(latency);
+    }
+
+    /**
+     * Merge every bucket starting in {@code [from, from + step * points.length)} into
+     * the point covering its start.
+     *
+     * @param from Start of the first point, aligned to the resolution
+     * @param step Width of one point, a multiple of the resolution
+     * @param points Aggregates to merge into
+     */
+    void aggregate(long from, long step, RollupAggregate[] points) {
+        long to = from + step * points.length;
+        for (int slot = 0; slot < slots; slot++) {
+            if (counts[slot] == 0) {
+                continue;
+            }
+            long start = epochs[slot] * resolution.getMillis();
+            if (start < from || start >= to) {
+                continue;
+            }
+            RollupAggregate point = points[(int) ((start - from) / step)];
+            point.merge(counts[slot], sums, sumSquares, mins, maxs, slot,
+                    fpsSketches[slot], latencySketches[slot]);
+        }
+    }
+
+    private void add(int metric, int slot, int value) {
+        sums[metric][slot] += value;
+        sumSquares[metric][slot] += (double) value * value;
+        if (value < mins[metric][slot]) {
+            mins[metric][slot] = value;
+        }
+        if (value > maxs[metric][slot]) {
+            maxs[metric][slot] = value;
+        }
+    }
+
+    private void reset(int slot, long epoch) {
+        epochs[slot] = epoch;
+        counts[slot] = 0;
+        for (int m = 0; m < METRIC_COUNT; m++) {
+            sums[m][slot] = 0;
+            sumSquares[m][slot] = 0;
+            mins[m][slot] = Integer.MAX_VALUE;
+            maxs[m][slot] = Integer.MIN_VALUE;
+        }
+        if (fpsSketches[slot] != null) {
+            fpsSketches[slot].clear();
+            latencySketches[slot].clear();
+        }
+    }
+}
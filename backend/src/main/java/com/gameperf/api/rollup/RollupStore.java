@@ -0,0 +1,173 @@
+package com.gameperf.api.rollup;
+
+import com.gameperf.api.model.MetricSample;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Multi-resolution rollups of ingested samples.
+ *
+ * Every sample is folded into the 1s, 1m and 1h bucket of its game as it is
+ * ingested, so historical queries read at most a few thousand pre-aggregated
+ * buckets instead of the raw samples. Memory per game is fixed by the number of
+ * retained buckets of each {@link Resolution}.
+ */
+@Component
+public class RollupStore {
+
+    static final int MAX_POINTS = 10_000;
+
+    private static final Resolution[] COARSEST_FIRST = {Resolution.HOUR, Resolution.MINUTE, Resolution.SECOND};
+
+    private final Map<String, GameRollups> games = new ConcurrentHashMap<>();
+
+    /**
+     * Fold a batch of validated samples into the rollups.
+     * Consecutive samples of the same game are recorded under a single lock.
+     *
+     * @param samples Samples with timestamps already assigned
+     */
+    public void recordAll(List<MetricSample> samples) {
+        int size = samples.size();
+        int runStart = 0;
+        while (runStart < size) {
+            String game = samples.get(runStart).getGame();
+            int runEnd = runStart + 1;
+            while (runEnd < size && game.equals(samples.get(runEnd).getGame())) {
+                runEnd++;
+            }
+            games.computeIfAbsent(game, g -> new GameRollups()).record(samples, runStart, runEnd);
+            runStart = runEnd;
+        }
+    }
+
+    /**
+     * Query the aggregates of a game over a time range.
+     *
+     * @param game Name of the game
+     * @param from Start of the range in epoch milliseconds (inclusive)
+     * @param to End of the range in epoch milliseconds (exclusive)
+     * @param step Requested width of one point in milliseconds
+     * @return Map with the chosen resolution, effective step and non-empty points,
+     *         or null if nothing was recorded for the game
+     * @throws IllegalArgumentException if the range or step is invalid or yields too many points
+     */
+    public Map<String, Object> query(String game, long from, long to, long step) {
+        return query(game, from, to, step, System.currentTimeMillis());
+    }
+
+    Map<String, Object> query(String game, long from, long to, long step, long now) {
+        if (to <= from) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+        if (step <= 0) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+        GameRollups rollups = games.get(game);
+        if (rollups == null) {
+            return null;
+        }
+
+        Resolution resolution = chooseResolution(from, step, now);
+        long bucket = resolution.getMillis();
+        long alignedStep = Math.max(1, (step + bucket - 1) / bucket) * bucket;
+        long alignedFrom;
+        long pointCount;
+        try {
+            alignedFrom = Math.multiplyExact(Math.floorDiv(from, bucket), bucket);
+            pointCount = Math.addExact(Math.subtractExact(to, alignedFrom), alignedStep - 1) / alignedStep;
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Range from " + from + " to " + to + " is too long");
+        }
+        if (pointCount > MAX_POINTS) {
+            throw new IllegalArgumentException("Query yields " + pointCount + " points, at most "
+                    + MAX_POINTS + " are allowed; use a larger step");
+        }
+
+        RollupAggregate[] points = new RollupAggregate[(int) pointCount];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new RollupAggregate(alignedFrom + i * alignedStep);
+        }
+        rollups.aggregate(resolution, alignedFrom, alignedStep, points);
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (RollupAggregate point : points) {
+            if (point.getCount() > 0) {
+                result.add(point.toMap());
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("game", game);
+        response.put("resolution", resolution.getLabel());
+        response.put("stepMs", alignedStep);
+        response.put("from", alignedFrom);
+        response.put("to", to);
+        response.put("points", result);
+        return response;
+    }
+
+    /**
+     * Pick the coarsest resolution that is no wider than the step and still retains
+     * the start of the range. If none does both, the finest resolution that retains
+     * the start is used (with a wider step); if none retains it, the coarsest one.
+     *
+     * @param from Start of the range in epoch milliseconds
+     * @param step Requested width of one point in milliseconds
+     * @param now Current time in epoch milliseconds
+     * @return Resolution to answer the query from
+     */
+    static Resolution chooseResolution(long from, long step, long now) {
+        for (Resolution r : COARSEST_FIRST) {
+            if (r.getMillis() <= step && from >= now - r.getRetentionMillis()) {
+                return r;
+            }
+        }
+        for (Resolution r : Resolution.values()) {
+            if (from >= now - r.getRetentionMillis()) {
+                return r;
+            }
+        }
+        return Resolution.HOUR;
+    }
+
+    /**
+     * @return Names of the games with rollups
+     */
+    public List<String> getGames() {
+        return List.copyOf(games.keySet());
+    }
+
+    /**
+     * Rollup series of a single game at every resolution.
+     */
+    private static final class GameRollups {
+
+        private final RollupSeries[] series = new RollupSeries[Resolution.values().length];
+
+        GameRollups() {
+            for (Resolution r : Resolution.values()) {
+                series[r.ordinal()] = new RollupSeries(r);
+            }
+        }
+
+        synchronized void record(List<MetricSample> samples, int from, int to) {
+            for (int i = from; i < to; i++) {
+                MetricSample s = samples.get(i);
+                for (RollupSeries level : series) {
+                    level.record(s.getTimestamp(), s.getFps(), s.getCpuUsage(), s.getGpuUsage(),
+                            s.getLatencyMs(), s.getTemperatureC());
+                }
+            }
+        }
+
+        synchronized void aggregate(Resolution resolution, long from, long step, RollupAggregate[] points) {
+            series[resolution.ordinal()].aggregate(from, step, points);
+        }
+    }
+}
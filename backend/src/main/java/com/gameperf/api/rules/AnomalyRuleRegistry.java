@@ -0,0 +1,157 @@
+package com.gameperf.api.rules;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Holder of the active anomaly and stability rules.
+ *
+ * Rules are read from the JSON file named by {@code metrics.rules.file} at startup
+ * and compiled into a {@link RuleSet}. The file is polled for changes every
+ * {@code metrics.rules.reload-interval-ms}; a changed file is compiled and swapped
+ * in atomically, so readers always see one consistent rule set. A file that fails
+ * to parse or compile on reload is reported and the previous rules stay active;
+ * at startup it fails the application. Without a file the built-in thresholds apply.
+ */
+@Slf4j
+@Component
+public class AnomalyRuleRegistry {
+
+    private final Path file;
+    private final ObjectReader reader;
+    private final Counter successfulReloads;
+    private final Counter failedReloads;
+
+    private volatile RuleSet rules = RuleSet.DEFAULT;
+    private volatile RuleDefinition definition = new RuleDefinition();
+    private volatile long version;
+    private volatile long loadedAt = System.currentTimeMillis();
+    private volatile String lastError;
+
+    /**
+     * Last seen modification time and size of the file, to detect changes. Guarded by {@code this}.
+     */
+    private long fileModified;
+    private long fileSize = -1;
+
+    /**
+     * Create a registry holding the built-in thresholds only.
+     */
+    public AnomalyRuleRegistry() {
+        this(null, new ObjectMapper(), Metrics.globalRegistry);
+    }
+
+    /**
+     * @param file Rules file, or null for the built-in thresholds only
+     * @throws IllegalStateException if the file cannot be read or compiled
+     */
+    @Autowired
+    public AnomalyRuleRegistry(@Value("${metrics.rules.file:#{null}}") Path file,
+                               ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.file = file;
+        // Unlike the web mapper, reject unknown properties so a misspelled limit is not silently ignored
+        this.reader = objectMapper.readerFor(RuleDefinition.class)
+                .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.successfulReloads = Counter.builder("gameperf.rules.reloads")
+                .description("Rule file reloads, by result")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.failedReloads = Counter.builder("gameperf.rules.reloads")
+                .description("Rule file reloads, by result")
+                .tag("result", "failure")
+                .register(meterRegistry);
+        if (file != null) {
+            try {
+                load();
+            } catch (IOException | IllegalArgumentException e) {
+                throw new IllegalStateException("Failed to load rules from " + file + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @return Rules currently in effect
+     */
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Reload the rules file if it changed since it was last read.
+     *
+     * @return Whether new rules were loaded
+     */
+    @Scheduled(fixedDelayString = "${metrics.rules.reload-interval-ms:5000}")
+    public synchronized boolean reloadIfChanged() {
+        if (file == null) {
+            return false;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attributes.lastModifiedTime().toMillis() == fileModified && attributes.size() == fileSize) {
+                return false;
+            }
+            load();
+            successfulReloads.increment();
+            log.info("Reloaded rules from {} (version {})", file, version);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            failedReloads.increment();
+            if (!Objects.equals(e.getMessage(), lastError)) {
+                log.warn("Keeping previous rules, failed to reload {}: {}", file, e.getMessage());
+            }
+            lastError = e.getMessage();
+            return false;
+        }
+    }
+
+    /**
+     * Report the active rules and where they came from.
+     *
+     * @return Map containing the source file, version, load time, last reload error and rule definition
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("file", file == null ? null : file.toString());
+        result.put("version", version);
+        result.put("loadedAt", loadedAt);
+        result.put("lastError", lastError);
+        result.put("rules", definition);
+        return result;
+    }
+
+    private synchronized void load() throws IOException {
+        // Read the attributes first: a write racing with the read is then seen as another change
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        RuleDefinition loaded = reader.readValue(Files.readAllBytes(file));
+        if (loaded == null) {
+            throw new IllegalArgumentException("Rules file is empty");
+        }
+        RuleSet compiled = RuleSet.compile(loaded);
+
+        fileModified = attributes.lastModifiedTime().toMillis();
+        fileSize = attributes.size();
+        definition = loaded;
+        rules = compiled;
+        version++;
+        loadedAt = System.currentTimeMillis();
+        lastError = null;
+    }
+}
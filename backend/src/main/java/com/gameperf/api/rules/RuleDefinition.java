@@ -0,0 +1,92 @@
+package com.gameperf.api.rules;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Anomaly and stability rules as written in the rules file.
+ *
+ * Every limit is optional. A game's limits override those of its hardware tier,
+ * which override the defaults, which override the built-in thresholds:
+ * <pre>
+ * {
+ *   "defaults": {"anomaly": {"maxTemperature": 80, "minFps": 60}},
+ *   "tiers": {"low-end": {"anomaly": {"minFps": 30}, "stability": {"maxFpsVariance": 80}}},
+ *   "games": {"Neon Havoc": {"tier": "low-end", "anomaly": {"maxLatency": 40}}}
+ * }
+ * </pre>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleDefinition {
+
+    /**
+     * Limits applying to every game, on top of the built-in thresholds
+     */
+    private Limits defaults;
+
+    /**
+     * Limits per hardware tier
+     */
+    private Map<String, Limits> tiers = new LinkedHashMap<>();
+
+    /**
+     * Limits and hardware tier per game
+     */
+    private Map<String, GameRule> games = new LinkedHashMap<>();
+
+    /**
+     * Anomaly and stability limits of one scope.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limits {
+        private AnomalyLimits anomaly;
+        private StabilityLimits stability;
+    }
+
+    /**
+     * Limits of one game, optionally inheriting those of a hardware tier.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GameRule {
+        private String tier;
+        private AnomalyLimits anomaly;
+        private StabilityLimits stability;
+    }
+
+    /**
+     * Per-sample anomaly thresholds; null keeps the inherited value.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AnomalyLimits {
+        private Integer maxTemperature;
+        private Integer minFps;
+        private Integer maxLatency;
+        private Integer maxCpu;
+        private Integer maxGpu;
+    }
+
+    /**
+     * Session variance thresholds; null keeps the inherited value.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StabilityLimits {
+        private Double maxFpsVariance;
+        private Double maxCpuVariance;
+        private Double maxGpuVariance;
+        private Double maxLatencyVariance;
+    }
+}
@@ -0,0 +1,151 @@
+package com.gameperf.api.rules;
+
+import com.gameperf.api.stats.AnomalyEvaluator;
+import com.gameperf.api.stats.StabilityThresholds;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiled form of a {@link RuleDefinition}.
+ *
+ * Inheritance is resolved once at compile time: every game and tier maps straight
+ * to an immutable {@link AnomalyEvaluator} and {@link StabilityThresholds}, so
+ * applying a rule costs one map lookup and evaluation runs the same branch-free
+ * loop as the built-in thresholds. Nothing is interpreted per sample.
+ */
+public final class RuleSet {
+
+    /**
+     * Thresholds of one game, tier or the defaults.
+     *
+     * @param anomaly Per-sample anomaly evaluator
+     * @param stability Session variance thresholds
+     */
+    public record Rule(AnomalyEvaluator anomaly, StabilityThresholds stability) {
+    }
+
+    /**
+     * Built-in thresholds only.
+     */
+    public static final RuleSet DEFAULT = compile(new RuleDefinition());
+
+    private final Rule defaults;
+    private final Map<String, Rule> tiers;
+    private final Map<String, Rule> games;
+
+    private RuleSet(Rule defaults, Map<String, Rule> tiers, Map<String, Rule> games) {
+        this.defaults = defaults;
+        this.tiers = tiers;
+        this.games = games;
+    }
+
+    /**
+     * Compile a rule definition.
+     *
+     * @param definition Rules as read from the rules file
+     * @return Compiled rules
+     * @throws IllegalArgumentException if a game refers to an unknown tier or a limit is out of range
+     */
+    public static RuleSet compile(RuleDefinition definition) {
+        RuleDefinition.Limits base = definition.getDefaults();
+        Rule defaults = base == null
+                ? new Rule(AnomalyEvaluator.DEFAULT, StabilityThresholds.DEFAULT)
+                : merge("defaults", new Rule(AnomalyEvaluator.DEFAULT, StabilityThresholds.DEFAULT),
+                        base.getAnomaly(), base.getStability());
+
+        Map<String, Rule> tiers = new HashMap<>();
+        if (definition.getTiers() != null) {
+            definition.getTiers().forEach((tier, limits) -> tiers.put(tier,
+                    merge("tier " + tier, defaults, limits.getAnomaly(), limits.getStability())));
+        }
+
+        Map<String, Rule> games = new HashMap<>();
+        if (definition.getGames() != null) {
+            definition.getGames().forEach((game, rule) -> {
+                Rule parent = defaults;
+                if (rule.getTier() != null) {
+                    parent = tiers.get(rule.getTier());
+                    if (parent == null) {
+                        throw new IllegalArgumentException("Game " + game + " refers to unknown tier " + rule.getTier());
+                    }
+                }
+                games.put(game, merge("game " + game, parent, rule.getAnomaly(), rule.getStability()));
+            });
+        }
+        return new RuleSet(defaults, tiers, games);
+    }
+
+    /**
+     * @return Thresholds applying when neither game nor tier has a rule
+     */
+    public Rule getDefaults() {
+        return defaults;
+    }
+
+    /**
+     * Resolve the thresholds of a game, or of a hardware tier when the game has no rule.
+     *
+     * @param game Name of the game (optional)
+     * @param tier Hardware tier (optional)
+     * @return Rule of the game, else of the tier, else the defaults
+     */
+    public Rule resolve(String game, String tier) {
+        Rule rule = game == null ? null : games.get(game);
+        if (rule == null && tier != null) {
+            rule = tiers.get(tier);
+        }
+        return rule != null ? rule : defaults;
+    }
+
+    /**
+     * @param game Name of the game (optional)
+     * @return Rule of the game, else the defaults
+     */
+    public Rule forGame(String game) {
+        return resolve(game, null);
+    }
+
+    private static Rule merge(String scope, Rule parent,
+                              RuleDefinition.AnomalyLimits anomaly, RuleDefinition.StabilityLimits stability) {
+        AnomalyEvaluator evaluator = parent.anomaly();
+        if (anomaly != null) {
+            evaluator = new AnomalyEvaluator(
+                    limit(scope, anomaly.getMaxTemperature(), evaluator.getMaxTemperature()),
+                    limit(scope, anomaly.getMinFps(), evaluator.getMinFps()),
+                    limit(scope, anomaly.getMaxLatency(), evaluator.getMaxLatency()),
+                    limit(scope, anomaly.getMaxCpu(), evaluator.getMaxCpu()),
+                    limit(scope, anomaly.getMaxGpu(), evaluator.getMaxGpu()));
+        }
+        StabilityThresholds thresholds = parent.stability();
+        if (stability != null) {
+            thresholds = new StabilityThresholds(
+                    limit(scope, stability.getMaxFpsVariance(), thresholds.maxFpsVariance()),
+                    limit(scope, stability.getMaxCpuVariance(), thresholds.maxCpuVariance()),
+                    limit(scope, stability.getMaxGpuVariance(), thresholds.maxGpuVariance()),
+                    limit(scope, stability.getMaxLatencyVariance(), thresholds.maxLatencyVariance()));
+        }
+        return new Rule(evaluator, thresholds);
+    }
+
+    private static int limit(String scope, Integer value, int inherited) {
+        if (value == null) {
+            return inherited;
+        }
+        // The evaluator's sign-bit comparisons need values within ±2^30
+        if (value < -(1 << 30) || value > 1 << 30) {
+            throw new IllegalArgumentException("Anomaly limit out of range in " + scope + ": " + value);
+        }
+        return value;
+    }
+
+    private static double limit(String scope, Double value, double inherited) {
+        if (value == null) {
+            return inherited;
+        }
+        if (!(value >= 0)) {
+            throw new IllegalArgumentException("Variance limit must be a non-negative number in " + scope);
+        }
+        return value;
+    }
+}
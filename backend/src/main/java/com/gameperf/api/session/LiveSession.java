@@ -0,0 +1,131 @@
+package com.gameperf.api.session;
+
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.stats.MetricAccumulator;
+import com.gameperf.api.stats.StutterDetector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Server-side state of a live game session.
+ * Samples are folded into a {@link MetricAccumulator} and a {@link StutterDetector}
+ * as they arrive, and only the newest {@value #MAX_STUTTER_EVENTS} stutter events
+ * are kept, so the session holds O(1) state regardless of its length.
+ */
+public class LiveSession {
+
+    public static final int MAX_STUTTER_EVENTS = 16;
+
+    private final String id;
+    private final long createdAt;
+    private final MetricAccumulator accumulator = new MetricAccumulator();
+    private final StutterDetector stutterDetector = new StutterDetector();
+    private final Consumer<StutterEvent> stutterListener;
+
+    /**
+     * Ring of the newest stutter events. Guarded by {@code this}.
+     */
+    private final StutterEvent[] stutterEvents = new StutterEvent[MAX_STUTTER_EVENTS];
+    private long stutterEventCount;
+
+    private volatile String game;
+    private volatile long lastAccess;
+
+    public LiveSession(String id, String game, long now) {
+        this(id, game, now, event -> { });
+    }
+
+    /**
+     * @param stutterListener Called with every detected stutter event while the session
+     *                        lock is held; must not block
+     */
+    public LiveSession(String id, String game, long now, Consumer<StutterEvent> stutterListener) {
+        this.id = id;
+        this.game = game;
+        this.createdAt = now;
+        this.lastAccess = now;
+        this.stutterListener = stutterListener;
+    }
+
+    /**
+     * Append a run of samples to the session.
+     * Samples without a timestamp are taken to be received now.
+     *
+     * @param samples Batch containing the run
+     * @param from Index of the first sample of the run (inclusive)
+     * @param to Index of the last sample of the run (exclusive)
+     * @param now Current time in epoch milliseconds
+     */
+    public synchronized void append(List<MetricSample> samples, int from, int to, long now) {
+        if (game == null && to > from) {
+            game = samples.get(from).getGame();
+        }
+        for (int i = from; i < to; i++) {
+            MetricSample s = samples.get(i);
+            accumulator.add(s.getFps(), s.getCpuUsage(), s.getGpuUsage(), s.getLatencyMs(), s.getTemperatureC());
+            StutterDetector.Episode episode = stutterDetector.add(s.getTimestamp() > 0 ? s.getTimestamp() : now, s.getFps());
+            if (episode != null) {
+                recordStutter(StutterEvent.of(id, game, episode));
+            }
+        }
+        lastAccess = now;
+    }
+
+    private void recordStutter(StutterEvent event) {
+        stutterEvents[(int) (stutterEventCount % MAX_STUTTER_EVENTS)] = event;
+        stutterEventCount++;
+        stutterListener.accept(event);
+    }
+
+    /**
+     * @return Newest stutter events, oldest first, at most {@value #MAX_STUTTER_EVENTS}
+     */
+    public synchronized List<StutterEvent> getStutterEvents() {
+        int retained = (int) Math.min(stutterEventCount, MAX_STUTTER_EVENTS);
+        List<StutterEvent> events = new ArrayList<>(retained);
+        for (long i = stutterEventCount - retained; i < stutterEventCount; i++) {
+            events.add(stutterEvents[(int) (i % MAX_STUTTER_EVENTS)]);
+        }
+        return events;
+    }
+
+    /**
+     * @return Number of stutter events detected since the session was opened
+     */
+    public synchronized long getStutterEventCount() {
+        return stutterEventCount;
+    }
+
+    /**
+     * Copy the current statistics into the given accumulator.
+     *
+     * @param target Accumulator to merge the session statistics into
+     * @param now Current time in epoch milliseconds
+     */
+    public synchronized void snapshotInto(MetricAccumulator target, long now) {
+        target.merge(accumulator);
+        lastAccess = now;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getGame() {
+        return game;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    public synchronized long getSampleCount() {
+        return accumulator.getCount();
+    }
+}
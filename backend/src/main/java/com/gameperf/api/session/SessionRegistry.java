@@ -0,0 +1,276 @@
+package com.gameperf.api.session;
+
+import com.gameperf.api.GameAnalyticsService;
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.stats.MetricAccumulator;
+import com.gameperf.api.stats.StutterDetector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of live game sessions.
+ *
+ * Sessions are held in a concurrent map and updated incrementally as samples
+ * arrive, so reading a session's stability, variances and recommendation is O(1).
+ * Sessions that receive no samples or reads for longer than the idle timeout are
+ * evicted, and the total number of sessions is capped to keep memory bounded: a new
+ * session first reserves one of the slots, so concurrent opens cannot overshoot it.
+ *
+ * Stutter events detected while appending are also queued for the live stream in
+ * a bounded queue of {@value #MAX_PENDING_STUTTER_EVENTS} events. Appending never
+ * waits for the stream: events that do not fit are only dropped from the stream,
+ * and remain in their session's analysis.
+ */
+@Slf4j
+@Component
+public class SessionRegistry {
+
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 300_000;
+    public static final int MAX_PENDING_STUTTER_EVENTS = 1024;
+
+    private final GameAnalyticsService analyticsService;
+    private final int maxSessions;
+    private final long idleTimeoutMillis;
+
+    private final Map<String, LiveSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Slots taken out of {@code maxSessions}: reserved before a session is inserted
+     * and released when it is removed.
+     */
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final BlockingQueue<StutterEvent> pendingStutterEvents = new ArrayBlockingQueue<>(MAX_PENDING_STUTTER_EVENTS);
+
+    private final Counter stutters;
+    private final Counter degradations;
+    private final Counter droppedStutterEvents;
+
+    public SessionRegistry(GameAnalyticsService analyticsService) {
+        this(analyticsService, DEFAULT_MAX_SESSIONS, DEFAULT_IDLE_TIMEOUT_MS);
+    }
+
+    public SessionRegistry(GameAnalyticsService analyticsService, int maxSessions, long idleTimeoutMillis) {
+        this(analyticsService, maxSessions, idleTimeoutMillis, Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public SessionRegistry(GameAnalyticsService analyticsService,
+                           @Value("${metrics.sessions.max:100000}") int maxSessions,
+                           @Value("${metrics.sessions.idle-timeout-ms:300000}") long idleTimeoutMillis,
+                           MeterRegistry meterRegistry) {
+        this.analyticsService = analyticsService;
+        this.maxSessions = maxSessions;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.stutters = Counter.builder("gameperf.sessions.stutters")
+                .description("Stutter events detected in live sessions, by kind")
+                .tag("kind", StutterDetector.STUTTER)
+                .register(meterRegistry);
+        this.degradations = Counter.builder("gameperf.sessions.stutters")
+                .description("Stutter events detected in live sessions, by kind")
+                .tag("kind", StutterDetector.DEGRADATION)
+                .register(meterRegistry);
+        this.droppedStutterEvents = Counter.builder("gameperf.sessions.stutters.dropped")
+                .description("Stutter events not streamed because the live stream fell behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open a new session with a generated id.
+     *
+     * @param game Name of the game (optional, otherwise taken from the first sample)
+     * @return The new session, or null if the session limit has been reached
+     */
+    public LiveSession open(String game) {
+        return openWithId(UUID.randomUUID().toString(), game);
+    }
+
+    /**
+     * Append samples to an existing session.
+     *
+     * @param sessionId Id of the session
+     * @param samples Samples to append
+     * @return The session, or null if it does not exist
+     */
+    public LiveSession append(String sessionId, List<MetricSample> samples) {
+        LiveSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.append(samples, 0, samples.size(), System.currentTimeMillis());
+        }
+        return session;
+    }
+
+    /**
+     * Record ingested samples into their sessions, opening sessions on first sight.
+     * Consecutive samples of the same session are appended under a single lock.
+     * Samples without a session id are ignored.
+     *
+     * @param samples Validated samples
+     */
+    public void recordAll(List<MetricSample> samples) {
+        long now = System.currentTimeMillis();
+        int size = samples.size();
+        int runStart = 0;
+        while (runStart < size) {
+            String sessionId = samples.get(runStart).getSessionId();
+            int runEnd = runStart + 1;
+            while (runEnd < size && sessionId != null && sessionId.equals(samples.get(runEnd).getSessionId())) {
+                runEnd++;
+            }
+            if (sessionId != null) {
+                LiveSession session = sessions.get(sessionId);
+                if (session == null) {
+                    session = openWithId(sessionId, samples.get(runStart).getGame());
+                }
+                if (session != null) {
+                    session.append(samples, runStart, runEnd, now);
+                }
+            }
+            runStart = runEnd;
+        }
+    }
+
+    /**
+     * Analyze the current state of a session in O(1).
+     *
+     * @param sessionId Id of the session
+     * @return Map containing the analysis, or null if the session does not exist
+     */
+    public Map<String, Object> analyze(String sessionId) {
+        LiveSession session = sessions.get(sessionId);
+        if (session == null) {
+            return null;
+        }
+        return analyze(session);
+    }
+
+    /**
+     * Close a session and return its final analysis.
+     *
+     * @param sessionId Id of the session
+     * @return Map containing the final analysis, or null if the session does not exist
+     */
+    public Map<String, Object> close(String sessionId) {
+        LiveSession session = sessions.remove(sessionId);
+        if (session == null) {
+            return null;
+        }
+        reserved.decrementAndGet();
+        return analyze(session);
+    }
+
+    /**
+     * Move the stutter events queued since the last call to the given collection.
+     *
+     * @param target Collection receiving the events, oldest first
+     * @return Number of events moved
+     */
+    public int drainStutterEvents(Collection<? super StutterEvent> target) {
+        return pendingStutterEvents.drainTo(target);
+    }
+
+    /**
+     * @param sessionId Id of the session
+     * @return The session, or null if it does not exist
+     */
+    public LiveSession get(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    /**
+     * @return Number of live sessions
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Evict sessions that have been idle for longer than the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${metrics.sessions.eviction-interval-ms:30000}")
+    public void evictIdle() {
+        evictIdle(System.currentTimeMillis());
+    }
+
+    /**
+     * @param now Current time in epoch milliseconds
+     * @return Number of evicted sessions
+     */
+    int evictIdle(long now) {
+        long cutoff = now - idleTimeoutMillis;
+        int evicted = 0;
+        for (LiveSession session : sessions.values()) {
+            // Only the remove that wins releases the slot, if the session is closed meanwhile
+            if (session.getLastAccess() < cutoff && sessions.remove(session.getId(), session)) {
+                reserved.decrementAndGet();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle sessions", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * @return The new or already existing session, or null if the limit is reached
+     */
+    private LiveSession openWithId(String sessionId, String game) {
+        LiveSession existing = sessions.get(sessionId);
+        if (existing != null) {
+            return existing;
+        }
+        if (reserved.incrementAndGet() > maxSessions) {
+            reserved.decrementAndGet();
+            return null;
+        }
+        LiveSession created = new LiveSession(sessionId, game, System.currentTimeMillis(), this::onStutter);
+        existing = sessions.putIfAbsent(sessionId, created);
+        if (existing != null) {
+            // Opened concurrently under the same id: keep that one and give the slot back
+            reserved.decrementAndGet();
+            return existing;
+        }
+        return created;
+    }
+
+    private void onStutter(StutterEvent event) {
+        (StutterDetector.DEGRADATION.equals(event.kind()) ? degradations : stutters).increment();
+        if (!pendingStutterEvents.offer(event)) {
+            droppedStutterEvents.increment();
+        }
+    }
+
+    private Map<String, Object> analyze(LiveSession session) {
+        MetricAccumulator accumulator = new MetricAccumulator();
+        session.snapshotInto(accumulator, System.currentTimeMillis());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sessionId", session.getId());
+        if (session.getGame() != null) {
+            result.put("game", session.getGame());
+        }
+        result.put("sampleCount", accumulator.getCount());
+        result.putAll(analyticsService.analyze(accumulator, session.getGame()));
+        // Short drops that the whole-session variance averages away
+        result.put("stutterEventCount", session.getStutterEventCount());
+        result.put("stutterEvents", session.getStutterEvents());
+        return result;
+    }
+}
@@ -0,0 +1,26 @@
+package com.gameperf.api.session;
+
+import com.gameperf.api.stats.StutterDetector;
+
+/**
+ * Stutter or degradation detected in a session, as reported in the session analysis
+ * and on the live stream.
+ *
+ * @param sessionId Id of the session
+ * @param game Name of the game, or null if unknown
+ * @param kind {@value StutterDetector#STUTTER} or {@value StutterDetector#DEGRADATION}
+ * @param start Timestamp of the first degraded sample in epoch milliseconds
+ * @param end Timestamp of the last degraded sample in epoch milliseconds
+ * @param samples Number of degraded samples
+ * @param minFps Lowest FPS of the drop
+ * @param meanFps Mean FPS of the degraded samples
+ * @param baselineFps FPS baseline of the session before the drop
+ */
+public record StutterEvent(String sessionId, String game, String kind, long start, long end, int samples,
+                           int minFps, double meanFps, double baselineFps) {
+
+    static StutterEvent of(String sessionId, String game, StutterDetector.Episode episode) {
+        return new StutterEvent(sessionId, game, episode.kind(), episode.start(), episode.end(),
+                episode.samples(), episode.minFps(), episode.meanFps(), episode.baselineFps());
+    }
+}
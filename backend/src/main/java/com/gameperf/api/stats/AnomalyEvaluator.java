@@ -0,0 +1,123 @@
+package com.gameperf.api.stats;
+
+/**
+ * Branch-free anomaly threshold evaluation over primitive columns.
+ *
+ * Each comparison is turned into a 0/1 bit by taking the sign bit of a subtraction,
+ * so the inner loop is a straight sequence of subtract, shift and or operations that
+ * the JIT can unroll and auto-vectorize. Values are assumed to be within ±2^30,
+ * which holds for any real measurement.
+ *
+ * Instances are immutable; configurable thresholds are compiled into one instance
+ * per game or hardware tier by {@code RuleSet}.
+ */
+public class AnomalyEvaluator {
+
+    public static final int HIGH_TEMPERATURE = 1;
+    public static final int LOW_FPS = 1 << 1;
+    public static final int HIGH_LATENCY = 1 << 2;
+    public static final int HIGH_CPU = 1 << 3;
+    public static final int HIGH_GPU = 1 << 4;
+
+    static final int FLAG_COUNT = 5;
+
+    /**
+     * Thresholds used by {@code GameAnalyticsService.detectAnomalies}.
+     */
+    public static final AnomalyEvaluator DEFAULT = new AnomalyEvaluator(80, 60, 50, 90, 90);
+
+    private final int maxTemperature;
+    private final int minFps;
+    private final int maxLatency;
+    private final int maxCpu;
+    private final int maxGpu;
+
+    /**
+     * @param maxTemperature Temperature above which a sample is anomalous
+     * @param minFps FPS below which a sample is anomalous
+     * @param maxLatency Latency above which a sample is anomalous
+     * @param maxCpu CPU usage above which a sample is anomalous
+     * @param maxGpu GPU usage above which a sample is anomalous
+     */
+    public AnomalyEvaluator(int maxTemperature, int minFps, int maxLatency, int maxCpu, int maxGpu) {
+        this.maxTemperature = maxTemperature;
+        this.minFps = minFps;
+        this.maxLatency = maxLatency;
+        this.maxCpu = maxCpu;
+        this.maxGpu = maxGpu;
+    }
+
+    public int getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    public int getMinFps() {
+        return minFps;
+    }
+
+    public int getMaxLatency() {
+        return maxLatency;
+    }
+
+    public int getMaxCpu() {
+        return maxCpu;
+    }
+
+    public int getMaxGpu() {
+        return maxGpu;
+    }
+
+    /**
+     * Evaluate one sample.
+     *
+     * @return Bitmask of the anomalies of the sample
+     */
+    public int evaluate(int fps, int cpu, int gpu, int latency, int temperature) {
+        return ((maxTemperature - temperature) >>> 31)
+                | (((fps - minFps) >>> 31) << 1)
+                | (((maxLatency - latency) >>> 31) << 2)
+                | (((maxCpu - cpu) >>> 31) << 3)
+                | (((maxGpu - gpu) >>> 31) << 4);
+    }
+
+    /**
+     * Evaluate a range of samples held in primitive columns.
+     *
+     * @param flags Output bitmask per sample
+     * @param from First sample to evaluate (inclusive)
+     * @param to Last sample to evaluate (exclusive)
+     */
+    public void evaluate(int[] fps, int[] cpu, int[] gpu, int[] latency, int[] temperature,
+                         byte[] flags, int from, int to) {
+        // Hoist thresholds into locals so the loop body only touches arrays
+        int maxT = maxTemperature, minF = minFps, maxL = maxLatency, maxC = maxCpu, maxG = maxGpu;
+        for (int i = from; i < to; i++) {
+            flags[i] = (byte) (((maxT - temperature[i]) >>> 31)
+                    | (((fps[i] - minF) >>> 31) << 1)
+                    | (((maxL - latency[i]) >>> 31) << 2)
+                    | (((maxC - cpu[i]) >>> 31) << 3)
+                    | (((maxG - gpu[i]) >>> 31) << 4));
+        }
+    }
+
+    /**
+     * Count how many samples carry each flag, plus how many carry any flag.
+     *
+     * @param flags Bitmask per sample
+     * @param n Number of samples
+     * @return Counts indexed by flag bit position, with the "any" count at index {@code FLAG_COUNT}
+     */
+    public static int[] countFlags(byte[] flags, int n) {
+        int temp = 0, fps = 0, latency = 0, cpu = 0, gpu = 0, any = 0;
+        for (int i = 0; i < n; i++) {
+            int f = flags[i];
+            temp += f & 1;
+            fps += (f >>> 1) & 1;
+            latency += (f >>> 2) & 1;
+            cpu += (f >>> 3) & 1;
+            gpu += (f >>> 4) & 1;
+            any += (f | -f) >>> 31;
+        }
+        return new int[] {temp, fps, latency, cpu, gpu, any};
+    }
+}
@@ -0,0 +1,119 @@
+package com.gameperf.api.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Games ranked by one value, kept sorted incrementally.
+ *
+ * Entries live in a skip list ordered by value (ties broken by name) and are
+ * indexed by name, so changing a game's value costs O(log n) and reading the k
+ * highest or lowest entries walks k nodes from either end, without sorting.
+ * Readers never block; writers are serialized. A reader racing with an update
+ * may momentarily miss the updated game.
+ */
+public class Leaderboard {
+
+    /**
+     * One ranked game.
+     *
+     * @param name Name of the game
+     * @param value Value the game is ranked by
+     */
+    public record Entry(String name, double value) {
+    }
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingDouble(Entry::value).thenComparing(Entry::name);
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Set the value of a game, adding it if needed. NaN removes the game.
+     *
+     * @param name Name of the game
+     * @param value New value
+     */
+    public synchronized void update(String name, double value) {
+        if (Double.isNaN(value)) {
+            remove(name);
+            return;
+        }
+        Entry previous = entries.get(name);
+        if (previous != null && previous.value() == value) {
+            return;
+        }
+        Entry entry = new Entry(name, value);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        ranking.add(entry);
+        entries.put(name, entry);
+    }
+
+    /**
+     * @param name Name of the game to remove
+     */
+    public synchronized void remove(String name) {
+        Entry previous = entries.remove(name);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+
+    /**
+     * Remove every game not in the given set.
+     *
+     * @param names Games to keep
+     */
+    public synchronized void retainAll(Set<String> names) {
+        if (entries.size() == names.size() && names.containsAll(entries.keySet())) {
+            return;
+        }
+        entries.keySet().removeIf(name -> {
+            if (names.contains(name)) {
+                return false;
+            }
+            ranking.remove(entries.get(name));
+            return true;
+        });
+    }
+
+    /**
+     * @param k Maximum number of entries
+     * @return Up to k entries with the highest values, highest first
+     */
+    public List<Entry> highest(int k) {
+        return first(ranking.descendingIterator(), k);
+    }
+
+    /**
+     * @param k Maximum number of entries
+     * @return Up to k entries with the lowest values, lowest first
+     */
+    public List<Entry> lowest(int k) {
+        return first(ranking.iterator(), k);
+    }
+
+    /**
+     * @return Number of ranked games
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static List<Entry> first(Iterator<Entry> iterator, int k) {
+        List<Entry> result = new ArrayList<>(Math.min(k, 64));
+        while (result.size() < k && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+}
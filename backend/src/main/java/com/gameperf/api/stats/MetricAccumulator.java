@@ -0,0 +1,89 @@
+package com.gameperf.api.stats;
+
+import com.gameperf.api.model.GameMetric;
+
+/**
+ * Mergeable single-pass accumulator over all numeric fields of a game session.
+ * One instance replaces the per-field arrays and repeated passes of the old
+ * variance calculation: every sample is visited once and nothing is allocated per sample.
+ */
+public class MetricAccumulator {
+
+    private final RunningStats fps = new RunningStats();
+    private final RunningStats cpu = new RunningStats();
+    private final RunningStats gpu = new RunningStats();
+    private final RunningStats latency = new RunningStats();
+    private final RunningStats temperature = new RunningStats();
+
+    /**
+     * Add one metric sample.
+     *
+     * @param metric GameMetric to add
+     */
+    public void add(GameMetric metric) {
+        add(metric.getAvgFps(), metric.getCpuUsage(), metric.getGpuUsage(),
+            metric.getLatencyMs(), metric.getTemperatureC());
+    }
+
+    /**
+     * Add one sample given as raw measurements.
+     */
+    public void add(int fpsValue, int cpuValue, int gpuValue, int latencyValue, int temperatureValue) {
+        fps.add(fpsValue);
+        cpu.add(cpuValue);
+        gpu.add(gpuValue);
+        latency.add(latencyValue);
+        temperature.add(temperatureValue);
+    }
+
+    /**
+     * Merge another accumulator into this one.
+     *
+     * @param other Accumulator over a disjoint set of samples
+     */
+    public void merge(MetricAccumulator other) {
+        fps.merge(other.fps);
+        cpu.merge(other.cpu);
+        gpu.merge(other.gpu);
+        latency.merge(other.latency);
+        temperature.merge(other.temperature);
+    }
+
+    /**
+     * Reset to the empty state so the instance can be reused.
+     */
+    public void reset() {
+        fps.reset();
+        cpu.reset();
+        gpu.reset();
+        latency.reset();
+        temperature.reset();
+    }
+
+    /**
+     * @return Number of samples added
+     */
+    public long getCount() {
+        return fps.getCount();
+    }
+
+    public RunningStats getFps() {
+        return fps;
+    }
+
+    public RunningStats getCpu() {
+        return cpu;
+    }
+
+    public RunningStats getGpu() {
+        return gpu;
+    }
+
+    public RunningStats getLatency() {
+        return latency;
+    }
+
+    public RunningStats getTemperature() {
+        return temperature;
+    }
+}
@@ -0,0 +1,127 @@
+package com.gameperf.api.stats;
+
+import com.gameperf.api.model.GameMetric;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join accumulation of very large sessions and of many sessions at once.
+ *
+ * Inputs are split into chunks of at most {@link #CHUNK_SIZE} samples, each chunk
+ * is folded into its own {@link MetricAccumulator} and the partial results are merged
+ * pairwise in input order. The merge is the exact parallel form of Welford's update,
+ * so the statistics match a sequential pass up to floating-point rounding.
+ */
+public final class ParallelAnalysis {
+
+    /**
+     * Samples folded sequentially by one task; large enough to amortize forking.
+     */
+    public static final int CHUNK_SIZE = 32_768;
+
+    private ParallelAnalysis() {
+    }
+
+    /**
+     * Accumulate one session in parallel.
+     *
+     * @param samples Samples of the session; should be random access
+     * @param pool Pool to run on
+     * @return Accumulator over every sample
+     */
+    public static MetricAccumulator accumulate(List<GameMetric> samples, ForkJoinPool pool) {
+        return pool.invoke(new ChunkTask(samples, 0, samples.size()));
+    }
+
+    /**
+     * Accumulate many sessions in parallel, splitting both the session list and any
+     * session larger than a chunk.
+     *
+     * @param sessions Samples of each session
+     * @param pool Pool to run on
+     * @return One accumulator per session, in the order of {@code sessions}
+     */
+    public static MetricAccumulator[] accumulateSessions(List<List<GameMetric>> sessions, ForkJoinPool pool) {
+        MetricAccumulator[] results = new MetricAccumulator[sessions.size()];
+        pool.invoke(new SessionsTask(sessions, results, 0, sessions.size()));
+        return results;
+    }
+
+    /**
+     * Folds a range of one session, forking halves until the range fits a chunk.
+     */
+    private static final class ChunkTask extends RecursiveTask<MetricAccumulator> {
+
+        private final List<GameMetric> samples;
+        private final int from;
+        private final int to;
+
+        ChunkTask(List<GameMetric> samples, int from, int to) {
+            this.samples = samples;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected MetricAccumulator compute() {
+            if (to - from <= CHUNK_SIZE) {
+                MetricAccumulator accumulator = new MetricAccumulator();
+                for (int i = from; i < to; i++) {
+                    accumulator.add(samples.get(i));
+                }
+                return accumulator;
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask right = new ChunkTask(samples, mid, to);
+            right.fork();
+            MetricAccumulator left = new ChunkTask(samples, from, mid).compute();
+            left.merge(right.join());
+            return left;
+        }
+    }
+
+    /**
+     * Accumulates a range of sessions, forking halves until the range holds about
+     * a chunk's worth of samples.
+     */
+    private static final class SessionsTask extends RecursiveAction {
+
+        private final List<List<GameMetric>> sessions;
+        private final MetricAccumulator[] results;
+        private final int from;
+        private final int to;
+
+        SessionsTask(List<List<GameMetric>> sessions, MetricAccumulator[] results, int from, int to) {
+            this.sessions = sessions;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1 || sampleCount() <= CHUNK_SIZE) {
+                for (int s = from; s < to; s++) {
+                    // A session larger than a chunk forks its own subtasks from here
+                    List<GameMetric> session = sessions.get(s);
+                    results[s] = new ChunkTask(session, 0, session.size()).compute();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SessionsTask(sessions, results, from, mid),
+                      new SessionsTask(sessions, results, mid, to));
+        }
+
+        private long sampleCount() {
+            long count = 0;
+            for (int s = from; s < to && count <= CHUNK_SIZE; s++) {
+                count += sessions.get(s).size();
+            }
+            return count;
+        }
+    }
+}
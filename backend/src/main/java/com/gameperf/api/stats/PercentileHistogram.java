@@ -0,0 +1,131 @@
+package com.gameperf.api.stats;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-memory log-linear histogram for non-negative int values (HDR style).
+ *
+ * Values below {@code 2^precisionBits} are counted exactly; larger values fall into
+ * buckets whose width doubles with every power of two, so the relative error of a
+ * reported percentile stays below {@code 2^-(precisionBits-1)}. Memory depends only
+ * on the precision and the maximum trackable value, never on the number of samples.
+ */
+public class PercentileHistogram {
+
+    private final int precisionBits;
+    private final int subBucketCount;
+    private final int halfCount;
+    private final int maxValue;
+
+    private final long[] counts;
+    private long totalCount;
+
+    /**
+     * @param precisionBits Number of bits of precision (5 gives ~3% relative error)
+     * @param maxValue Largest trackable value; larger values are clamped to it
+     */
+    public PercentileHistogram(int precisionBits, int maxValue) {
+        if (precisionBits < 2 || precisionBits > 16) {
+            throw new IllegalArgumentException("precisionBits must be between 2 and 16: " + precisionBits);
+        }
+        if (maxValue <= 0) {
+            throw new IllegalArgumentException("maxValue must be positive: " + maxValue);
+        }
+        this.precisionBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.halfCount = subBucketCount >> 1;
+        this.maxValue = maxValue;
+        this.counts = new long[indexOf(maxValue) + 1];
+    }
+
+    /**
+     * Record one value. Negative values count as 0 and values above the maximum are clamped.
+     *
+     * @param value Value to record
+     */
+    public void record(int value) {
+        counts[indexOf(Math.max(0, Math.min(value, maxValue)))]++;
+        totalCount++;
+    }
+
+    /**
+     * Add all counts of another histogram with the same layout.
+     *
+     * @param other Histogram to merge
+     */
+    public void merge(PercentileHistogram other) {
+        if (other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Histogram layouts differ");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * Remove all recorded values.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+    }
+
+    /**
+     * Get the value at a given percentile.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return Midpoint of the bucket holding the percentile, or 0 if empty
+     */
+    public double valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double p = Math.max(0, Math.min(percentile, 100));
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * totalCount));
+
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return midpointOf(i);
+            }
+        }
+        return midpointOf(counts.length - 1);
+    }
+
+    /**
+     * @return Number of recorded values
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return Number of buckets, i.e. the fixed memory footprint in longs
+     */
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    int indexOf(int value) {
+        if (value < subBucketCount) {
+            return value;
+        }
+        // Shift so that the top precisionBits of the value land in [halfCount, subBucketCount)
+        int shift = 31 - Integer.numberOfLeadingZeros(value) - (precisionBits - 1);
+        return subBucketCount + (shift - 1) * halfCount + ((value >> shift) - halfCount);
+    }
+
+    double midpointOf(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int k = index - subBucketCount;
+        int shift = k / halfCount + 1;
+        long mantissa = k % halfCount + halfCount;
+        long lower = mantissa << shift;
+        long upper = ((mantissa + 1) << shift) - 1;
+        return (lower + upper) / 2.0;
+    }
+}
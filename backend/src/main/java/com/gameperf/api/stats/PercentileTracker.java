@@ -0,0 +1,235 @@
+package com.gameperf.api.stats;
+
+import com.gameperf.api.model.MetricSample;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Tracks FPS and latency percentiles per game over configurable sliding windows.
+ *
+ * Each game holds one {@link SlidingWindowHistogram} per metric and window, so
+ * memory per game is constant regardless of ingest rate. Windows are slotted by
+ * server receive time.
+ */
+@Component
+public class PercentileTracker {
+
+    public static final List<String> DEFAULT_WINDOWS = List.of("1m", "5m", "1h");
+
+    static final int PRECISION_BITS = 5;
+    static final int MAX_FPS = 2000;
+    static final int MAX_LATENCY_MS = 60_000;
+
+    private static final double[] PERCENTILES = {50, 95, 99};
+    private static final String[] PERCENTILE_KEYS = {"p50", "p95", "p99"};
+
+    private final List<String> windows;
+    private final long[] windowMillis;
+
+    private final Map<String, GamePercentiles> games = new ConcurrentHashMap<>();
+    private final List<GamePercentiles> gamesInOrder = new CopyOnWriteArrayList<>();
+
+    public PercentileTracker() {
+        this(DEFAULT_WINDOWS);
+    }
+
+    @Autowired
+    public PercentileTracker(@Value("${metrics.percentiles.windows:1m,5m,1h}") List<String> windows) {
+        this.windows = List.copyOf(windows);
+        this.windowMillis = new long[windows.size()];
+        for (int i = 0; i < windowMillis.length; i++) {
+            windowMillis[i] = DurationStyle.detectAndParse(windows.get(i)).toMillis();
+        }
+    }
+
+    /**
+     * Record a batch of samples at the current time.
+     *
+     * @param samples Validated samples
+     */
+    public void recordAll(List<MetricSample> samples) {
+        recordAll(samples, System.currentTimeMillis());
+    }
+
+    /**
+     * Record a batch of samples at the given time.
+     * Consecutive samples of the same game are recorded under a single lock.
+     *
+     * @param samples Validated samples
+     * @param nowMillis Receive time in epoch milliseconds
+     */
+    public void recordAll(List<MetricSample> samples, long nowMillis) {
+        int size = samples.size();
+        int runStart = 0;
+        while (runStart < size) {
+            String game = samples.get(runStart).getGame();
+            int runEnd = runStart + 1;
+            while (runEnd < size && game.equals(samples.get(runEnd).getGame())) {
+                runEnd++;
+            }
+            percentilesFor(game).record(samples, runStart, runEnd, nowMillis);
+            runStart = runEnd;
+        }
+    }
+
+    /**
+     * Report percentiles of every game for every configured window.
+     *
+     * @return Map from window label to the list of per-game percentiles
+     */
+    public Map<String, Object> snapshot() {
+        return snapshot((Set<String>) null);
+    }
+
+    /**
+     * Report percentiles of some games for every configured window. Only the
+     * requested games are summarized.
+     *
+     * @param games Names of the games to report, or null for every game
+     * @return Map from window label to the list of per-game percentiles
+     */
+    public Map<String, Object> snapshot(Set<String> games) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int w = 0; w < windows.size(); w++) {
+            result.put(windows.get(w), summarize(w, now, games));
+        }
+        return result;
+    }
+
+    /**
+     * Report percentiles of every game for one window.
+     *
+     * @param window Window label, e.g. "5m"
+     * @return List of per-game percentiles, or null if the window is not configured
+     */
+    public List<Map<String, Object>> snapshot(String window) {
+        int w = windows.indexOf(window);
+        return w < 0 ? null : summarize(w, System.currentTimeMillis(), null);
+    }
+
+    /**
+     * Report one latency percentile of every game over one window, without building
+     * the full per-game summaries. Games without samples in the window are skipped.
+     *
+     * @param window Window label, e.g. "1m"
+     * @param percentile Percentile to report, e.g. 99
+     * @param action Called with the name of each game and its latency percentile
+     * @throws IllegalArgumentException if the window is not configured
+     */
+    public void forEachLatencyPercentile(String window, double percentile, ObjDoubleConsumer<String> action) {
+        int w = windows.indexOf(window);
+        if (w < 0) {
+            throw new IllegalArgumentException("Unknown window: " + window);
+        }
+        long now = System.currentTimeMillis();
+        for (GamePercentiles game : gamesInOrder) {
+            double value = game.latencyPercentile(w, percentile, now);
+            if (!Double.isNaN(value)) {
+                action.accept(game.game, value);
+            }
+        }
+    }
+
+    /**
+     * @return Configured window labels
+     */
+    public List<String> getWindows() {
+        return windows;
+    }
+
+    private List<Map<String, Object>> summarize(int window, long now, Set<String> filter) {
+        List<Map<String, Object>> result = new ArrayList<>(filter == null ? gamesInOrder.size() : filter.size());
+        for (GamePercentiles game : gamesInOrder) {
+            if (filter != null && !filter.contains(game.game)) {
+                continue;
+            }
+            Map<String, Object> summary = game.summarize(window, now);
+            if (summary != null) {
+                result.add(summary);
+            }
+        }
+        return result;
+    }
+
+    private GamePercentiles percentilesFor(String game) {
+        GamePercentiles p = games.get(game);
+        if (p != null) {
+            return p;
+        }
+        return games.computeIfAbsent(game, g -> {
+            GamePercentiles created = new GamePercentiles(g);
+            gamesInOrder.add(created);
+            return created;
+        });
+    }
+
+    /**
+     * Sliding FPS and latency histograms of a single game.
+     */
+    private final class GamePercentiles {
+
+        private final String game;
+        private final SlidingWindowHistogram[] fps;
+        private final SlidingWindowHistogram[] latency;
+
+        GamePercentiles(String game) {
+            this.game = game;
+            this.fps = new SlidingWindowHistogram[windowMillis.length];
+            this.latency = new SlidingWindowHistogram[windowMillis.length];
+            for (int w = 0; w < windowMillis.length; w++) {
+                fps[w] = new SlidingWindowHistogram(windowMillis[w], SlidingWindowHistogram.DEFAULT_SLOTS,
+                        PRECISION_BITS, MAX_FPS);
+                latency[w] = new SlidingWindowHistogram(windowMillis[w], SlidingWindowHistogram.DEFAULT_SLOTS,
+                        PRECISION_BITS, MAX_LATENCY_MS);
+            }
+        }
+
+        synchronized void record(List<MetricSample> samples, int from, int to, long now) {
+            for (int i = from; i < to; i++) {
+                MetricSample s = samples.get(i);
+                for (int w = 0; w < fps.length; w++) {
+                    fps[w].record(s.getFps(), now);
+                    latency[w].record(s.getLatencyMs(), now);
+                }
+            }
+        }
+
+        synchronized Map<String, Object> summarize(int window, long now) {
+            PercentileHistogram fpsWindow = fps[window].window(now);
+            if (fpsWindow.getTotalCount() == 0) {
+                return null;
+            }
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("name", game);
+            summary.put("samples", fpsWindow.getTotalCount());
+            summary.put("fps", percentiles(fpsWindow));
+            summary.put("latency", percentiles(latency[window].window(now)));
+            return summary;
+        }
+
+        synchronized double latencyPercentile(int window, double percentile, long now) {
+            PercentileHistogram latencyWindow = latency[window].window(now);
+            return latencyWindow.getTotalCount() == 0 ? Double.NaN : latencyWindow.valueAtPercentile(percentile);
+        }
+
+        private Map<String, Object> percentiles(PercentileHistogram histogram) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                values.put(PERCENTILE_KEYS[i], histogram.valueAtPercentile(PERCENTILES[i]));
+            }
+            return values;
+        }
+    }
+}
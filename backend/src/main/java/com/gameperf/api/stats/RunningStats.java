@@ -0,0 +1,112 @@
+package com.gameperf.api.stats;
+
+/**
+ * Single-pass running statistics for one variable using Welford's algorithm.
+ *
+ * Tracks count, mean, population variance, min and max in O(1) memory without
+ * storing the values. Two instances can be merged exactly (Chan et al.), which
+ * lets partial results from chunks or threads be combined.
+ */
+public class RunningStats {
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Add one value.
+     *
+     * @param value Value to add
+     */
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Merge another accumulator into this one.
+     *
+     * @param other Accumulator holding a disjoint set of values
+     */
+    public void merge(RunningStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Reset to the empty state so the instance can be reused.
+     */
+    public void reset() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Mean of the values, or 0 if empty
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return Population variance of the values, or 0 if empty
+     */
+    public double getVariance() {
+        return count == 0 ? 0 : m2 / count;
+    }
+
+    /**
+     * @return Sum of squared deviations from the mean
+     */
+    public double getM2() {
+        return m2;
+    }
+
+    /**
+     * @return Smallest value, or 0 if empty
+     */
+    public double getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return Largest value, or 0 if empty
+     */
+    public double getMax() {
+        return count == 0 ? 0 : max;
+    }
+}
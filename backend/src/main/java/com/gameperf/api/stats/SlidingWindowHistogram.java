@@ -0,0 +1,87 @@
+package com.gameperf.api.stats;
+
+/**
+ * Percentile histogram over a sliding time window.
+ *
+ * The window is split into a fixed ring of slots, each holding its own
+ * {@link PercentileHistogram}. Recording goes to the slot of the current time;
+ * a slot is cleared when the ring wraps around to it. Queries merge the slots that
+ * are still inside the window, so memory is constant no matter the ingest rate and
+ * expired data disappears with a granularity of one slot. Not thread-safe: callers
+ * must synchronize.
+ */
+public class SlidingWindowHistogram {
+
+    public static final int DEFAULT_SLOTS = 12;
+
+    private final long windowMillis;
+    private final long slotMillis;
+    private final PercentileHistogram[] slots;
+    private final long[] slotEpochs;
+    private final PercentileHistogram merged;
+
+    /**
+     * @param windowMillis Width of the window in milliseconds
+     * @param slotCount Number of slots the window is divided into
+     * @param precisionBits Precision of the slot histograms
+     * @param maxValue Largest trackable value
+     */
+    public SlidingWindowHistogram(long windowMillis, int slotCount, int precisionBits, int maxValue) {
+        if (windowMillis < slotCount) {
+            throw new IllegalArgumentException("window must be at least one millisecond per slot");
+        }
+        this.windowMillis = windowMillis;
+        this.slotMillis = windowMillis / slotCount;
+        this.slots = new PercentileHistogram[slotCount];
+        this.slotEpochs = new long[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new PercentileHistogram(precisionBits, maxValue);
+            slotEpochs[i] = -1;
+        }
+        this.merged = new PercentileHistogram(precisionBits, maxValue);
+    }
+
+    /**
+     * Record one value at the given time.
+     *
+     * @param value Value to record
+     * @param nowMillis Current time in epoch milliseconds
+     */
+    public void record(int value, long nowMillis) {
+        slotFor(nowMillis).record(value);
+    }
+
+    /**
+     * Merge all slots still inside the window into a reusable histogram.
+     *
+     * @param nowMillis Current time in epoch milliseconds
+     * @return Histogram of the window; only valid until the next call
+     */
+    public PercentileHistogram window(long nowMillis) {
+        merged.clear();
+        long currentEpoch = nowMillis / slotMillis;
+        for (int i = 0; i < slots.length; i++) {
+            if (slotEpochs[i] > currentEpoch - slots.length) {
+                merged.merge(slots[i]);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * @return Width of the window in milliseconds
+     */
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    private PercentileHistogram slotFor(long nowMillis) {
+        long epoch = nowMillis / slotMillis;
+        int index = (int) (epoch % slots.length);
+        if (slotEpochs[index] != epoch) {
+            slots[index].clear();
+            slotEpochs[index] = epoch;
+        }
+        return slots[index];
+    }
+}
@@ -0,0 +1,21 @@
+package com.gameperf.api.stats;
+
+/**
+ * Variance limits above which a session counts as unstable.
+ *
+ * @param maxFpsVariance FPS variance above which FPS is unstable
+ * @param maxCpuVariance CPU usage variance above which CPU usage is unstable
+ * @param maxGpuVariance GPU usage variance above which GPU usage is unstable
+ * @param maxLatencyVariance Latency variance above which latency is unstable
+ */
+public record StabilityThresholds(
+        double maxFpsVariance,
+        double maxCpuVariance,
+        double maxGpuVariance,
+        double maxLatencyVariance) {
+
+    /**
+     * Thresholds used by {@code GameAnalyticsService.analyze} when no rule applies.
+     */
+    public static final StabilityThresholds DEFAULT = new StabilityThresholds(50, 30, 30, 20);
+}
@@ -0,0 +1,177 @@
+package com.gameperf.api.stats;
+
+/**
+ * Streaming detector of FPS stutters and sustained degradations within one session.
+ *
+ * The FPS baseline is an exponentially weighted moving mean and variance (EWMA).
+ * After a short warm-up every sample is standardized against the baseline, and a
+ * one-sided CUSUM accumulates how far below it the session runs:
+ * {@code S = max(0, S + z - k)}. Dips of less than {@code k} deviations drain
+ * away; once {@code S} exceeds {@code h} a drop is confirmed, dated back to the
+ * first sample that raised {@code S}. Samples of a confirmed drop are kept out of
+ * the baseline, so it does not follow the stutter down.
+ *
+ * A drop that recovers, i.e. a few consecutive samples back within one deviation of
+ * the baseline, is reported as a {@value #STUTTER}. A drop that lasts longer than
+ * {@link #DEGRADATION_MILLIS} or {@link #DEGRADATION_SAMPLES} is reported as a
+ * {@value #DEGRADATION} as soon as it does, and the baseline restarts from the
+ * degraded level, so a lasting drop is reported once rather than forever.
+ *
+ * Unlike the whole-session FPS variance, this catches short bursts in long
+ * sessions. The state is a few fields and each sample costs a few arithmetic
+ * operations, so it runs on every ingested sample without buffering the session.
+ * Not thread-safe; callers serialize access per session.
+ */
+public class StutterDetector {
+
+    public static final String STUTTER = "stutter";
+    public static final String DEGRADATION = "degradation";
+
+    /**
+     * Weight of a new sample in the EWMA baseline.
+     */
+    static final double SMOOTHING = 0.05;
+    static final int WARM_UP_SAMPLES = 20;
+    /**
+     * CUSUM slack {@code k} and decision threshold {@code h}, in baseline deviations.
+     */
+    static final double SLACK = 1.0;
+    static final double THRESHOLD = 5.0;
+    /**
+     * Lower bound of the baseline deviation relative to the mean, so a very steady
+     * frame rate does not turn every small wobble into a stutter.
+     */
+    static final double MIN_DEVIATION_FRACTION = 0.05;
+    static final int RECOVERY_SAMPLES = 3;
+    public static final long DEGRADATION_MILLIS = 5_000;
+    public static final int DEGRADATION_SAMPLES = 300;
+
+    /**
+     * One detected drop.
+     *
+     * @param kind {@value #STUTTER} or {@value #DEGRADATION}
+     * @param start Timestamp of the first degraded sample
+     * @param end Timestamp of the last degraded sample
+     * @param samples Number of degraded samples
+     * @param minFps Lowest FPS of the drop
+     * @param meanFps Mean FPS of the degraded samples
+     * @param baselineFps Baseline FPS before the drop
+     */
+    public record Episode(String kind, long start, long end, int samples, int minFps, double meanFps,
+                          double baselineFps) {
+    }
+
+    private long count;
+    private double mean;
+    private double variance;
+    private double cusum;
+
+    /**
+     * Current drop: suspected while the CUSUM is positive, confirmed once it crosses the threshold.
+     */
+    private boolean confirmed;
+    private int recovered;
+    private int dropSamples;
+    private long dropStart;
+    private long dropEnd;
+    private int dropMin;
+    private long dropSum;
+
+    /**
+     * Add one sample.
+     *
+     * @param timestamp Sample timestamp in epoch milliseconds
+     * @param fps Frames per second
+     * @return The drop this sample completed, or null
+     */
+    public Episode add(long timestamp, int fps) {
+        count++;
+        if (count == 1) {
+            mean = fps;
+            return null;
+        }
+        if (count <= WARM_UP_SAMPLES) {
+            updateBaseline(fps);
+            return null;
+        }
+
+        double deviation = Math.max(Math.sqrt(variance), Math.max(MIN_DEVIATION_FRACTION * mean, 1.0));
+        double z = (mean - fps) / deviation;
+
+        if (confirmed) {
+            if (z > 1) {
+                addToDrop(timestamp, fps);
+                recovered = 0;
+            } else if (++recovered >= RECOVERY_SAMPLES) {
+                Episode stutter = close(STUTTER);
+                updateBaseline(fps);
+                return stutter;
+            }
+            if (dropEnd - dropStart >= DEGRADATION_MILLIS || dropSamples >= DEGRADATION_SAMPLES) {
+                double degradedMean = dropSum / (double) dropSamples;
+                Episode degradation = close(DEGRADATION);
+                // The degraded level is the new normal; only drops below it are reported from now on
+                mean = degradedMean;
+                return degradation;
+            }
+            return null;
+        }
+
+        cusum = Math.max(0, cusum + z - SLACK);
+        if (cusum == 0) {
+            dropSamples = 0;
+            updateBaseline(fps);
+            return null;
+        }
+        if (z > SLACK) {
+            addToDrop(timestamp, fps);
+        }
+        if (cusum > THRESHOLD) {
+            confirmed = true;
+            recovered = 0;
+        } else {
+            // Keeping merely suspected samples out would bias the baseline upwards
+            updateBaseline(fps);
+        }
+        return null;
+    }
+
+    /**
+     * @return Current FPS baseline
+     */
+    public double getBaseline() {
+        return mean;
+    }
+
+    private void updateBaseline(int fps) {
+        double diff = fps - mean;
+        double increment = SMOOTHING * diff;
+        mean += increment;
+        variance = (1 - SMOOTHING) * (variance + diff * increment);
+    }
+
+    private void addToDrop(long timestamp, int fps) {
+        if (dropSamples == 0) {
+            dropStart = timestamp;
+            dropMin = fps;
+            dropSum = 0;
+        }
+        dropSamples++;
+        dropEnd = timestamp;
+        dropMin = Math.min(dropMin, fps);
+        dropSum += fps;
+    }
+
+    private Episode close(String kind) {
+        Episode episode = new Episode(kind, dropStart, dropEnd, dropSamples, dropMin,
+                round(dropSum / (double) dropSamples), round(mean));
+        confirmed = false;
+        cusum = 0;
+        dropSamples = 0;
+        return episode;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,217 @@
+package com.gameperf.api.store;
+
+import com.gameperf.api.model.MetricSample;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Totals of every ingested sample, keyed by game, region and hardware tier.
+ *
+ * Unlike the time-series store, which keeps a bounded window per game behind a
+ * per-series lock, the registry only keeps running sums, held in striped
+ * {@link GameAggregate} accumulators. Writers look their key up without locking
+ * and add each batch to a per-thread cell; readers merge the cells of the keys they
+ * need at read time, holding each cell only while copying it, so a summary can be
+ * read while ingestion is running, at the cost of a read possibly seeing part of a
+ * batch.
+ *
+ * Region and hardware tier are free-form client input, so their cardinality is
+ * capped: values longer than {@value #MAX_LABEL_LENGTH} characters, and new values
+ * once {@code metrics.aggregates.max-regions} or {@code max-hardware-tiers} distinct
+ * values have been seen, are grouped as {@value #OTHER}.
+ *
+ * Totals cover samples ingested since startup; they are not rebuilt from the sample log.
+ */
+@Component
+public class AggregateRegistry {
+
+    public static final String GAME = "game";
+    public static final String REGION = "region";
+    public static final String HARDWARE_TIER = "hardwareTier";
+
+    /**
+     * Group name of samples that did not report a region or hardware tier.
+     */
+    public static final String UNKNOWN = "unknown";
+
+    /**
+     * Group name of regions and hardware tiers past the cardinality cap or the length limit.
+     */
+    public static final String OTHER = "other";
+
+    public static final int MAX_LABEL_LENGTH = 64;
+    public static final int DEFAULT_MAX_REGIONS = 64;
+    public static final int DEFAULT_MAX_HARDWARE_TIERS = 16;
+
+    /**
+     * Aggregate key. Region and hardware tier are null when not reported.
+     */
+    record Key(String game, String region, String hardwareTier) {
+    }
+
+    private final Map<Key, GameAggregate> aggregates = new ConcurrentHashMap<>();
+    private final Labels regions;
+    private final Labels hardwareTiers;
+
+    public AggregateRegistry() {
+        this(DEFAULT_MAX_REGIONS, DEFAULT_MAX_HARDWARE_TIERS);
+    }
+
+    /**
+     * @param maxRegions Distinct regions kept apart before new ones are grouped as {@value #OTHER}
+     * @param maxHardwareTiers Distinct hardware tiers kept apart before new ones are grouped as {@value #OTHER}
+     */
+    @Autowired
+    public AggregateRegistry(@Value("${metrics.aggregates.max-regions:64}") int maxRegions,
+                             @Value("${metrics.aggregates.max-hardware-tiers:16}") int maxHardwareTiers) {
+        this.regions = new Labels(maxRegions);
+        this.hardwareTiers = new Labels(maxHardwareTiers);
+    }
+
+    /**
+     * Add a batch of validated samples.
+     * The batch is first summed per key into local totals, which are then added to
+     * the shared aggregates once per key.
+     *
+     * @param samples Samples with a game name
+     */
+    public void recordAll(List<MetricSample> samples) {
+        // Local runs by game; runs of the same game with another region or tier are chained
+        Map<String, GameAggregate.Run> runs = new HashMap<>();
+        GameAggregate.Run run = null;
+        for (MetricSample sample : samples) {
+            // Samples of one client usually arrive together, so most samples skip the lookup
+            if (run == null || !run.matches(sample)) {
+                GameAggregate.Run head = runs.get(sample.getGame());
+                run = head;
+                // Runs chained under a game all have that game
+                while (run != null && !run.matchesGroup(sample)) {
+                    run = run.getNext();
+                }
+                if (run == null) {
+                    run = new GameAggregate.Run(sample, head);
+                    runs.put(sample.getGame(), run);
+                }
+            }
+            run.add(sample);
+        }
+        for (GameAggregate.Run head : runs.values()) {
+            for (GameAggregate.Run r = head; r != null; r = r.getNext()) {
+                aggregateFor(new Key(r.getGame(), regions.of(r.getRegion()), hardwareTiers.of(r.getHardwareTier())))
+                        .add(r);
+            }
+        }
+    }
+
+    private GameAggregate aggregateFor(Key key) {
+        // Plain get first: computeIfAbsent may lock the bin even when the key is present
+        GameAggregate aggregate = aggregates.get(key);
+        return aggregate != null ? aggregate : aggregates.computeIfAbsent(key, k -> new GameAggregate());
+    }
+
+    /**
+     * @return Totals over every key
+     */
+    public AggregateTotals total() {
+        AggregateTotals totals = new AggregateTotals();
+        aggregates.values().forEach(aggregate -> aggregate.mergeInto(totals));
+        return totals;
+    }
+
+    /**
+     * Merge the totals of every key by one dimension.
+     *
+     * @param by One of {@value #GAME}, {@value #REGION} or {@value #HARDWARE_TIER}
+     * @return Totals per group, sorted by group name
+     * @throws IllegalArgumentException if {@code by} is unknown
+     */
+    public Map<String, AggregateTotals> totalsBy(String by) {
+        Function<Key, String> dimension = dimension(by);
+        Map<String, AggregateTotals> groups = new TreeMap<>();
+        aggregates.forEach((key, aggregate) -> {
+            String group = Objects.requireNonNullElse(dimension.apply(key), UNKNOWN);
+            aggregate.mergeInto(groups.computeIfAbsent(group, g -> new AggregateTotals()));
+        });
+        return groups;
+    }
+
+    /**
+     * Describe the totals overall and per group.
+     *
+     * @param by One of {@value #GAME}, {@value #REGION} or {@value #HARDWARE_TIER}
+     * @return Map containing the grouping, the overall totals and the totals per group
+     * @throws IllegalArgumentException if {@code by} is unknown
+     */
+    public Map<String, Object> describe(String by) {
+        Map<String, Object> groups = new LinkedHashMap<>();
+        totalsBy(by).forEach((group, totals) -> groups.put(group, totals.toMap()));
+        return Map.of(
+            "by", by,
+            "total", total().toMap(),
+            "groups", groups
+        );
+    }
+
+    /**
+     * @return Number of distinct game, region and hardware tier combinations seen
+     */
+    public int getKeyCount() {
+        return aggregates.size();
+    }
+
+    private static Function<Key, String> dimension(String by) {
+        return switch (by) {
+            case GAME -> Key::game;
+            case REGION -> Key::region;
+            case HARDWARE_TIER -> Key::hardwareTier;
+            default -> throw new IllegalArgumentException("Unknown grouping: " + by + " (expected "
+                    + GAME + ", " + REGION + " or " + HARDWARE_TIER + ")");
+        };
+    }
+
+    /**
+     * Distinct values of one free-form dimension, up to a cap.
+     */
+    private static final class Labels {
+        private final Set<String> known = ConcurrentHashMap.newKeySet();
+        private final int max;
+
+        Labels(int max) {
+            if (max < 1) {
+                throw new IllegalArgumentException("Label cap must be positive: " + max);
+            }
+            this.max = max;
+        }
+
+        /**
+         * @param value Reported value, or null
+         * @return The value, null if not reported, or {@value AggregateRegistry#OTHER} if it is too long or past the cap
+         */
+        String of(String value) {
+            if (value == null || known.contains(value)) {
+                return value;
+            }
+            if (value.length() > MAX_LABEL_LENGTH) {
+                return OTHER;
+            }
+            synchronized (this) {
+                if (known.size() < max) {
+                    known.add(value);
+                    return value;
+                }
+            }
+            return OTHER;
+        }
+    }
+}
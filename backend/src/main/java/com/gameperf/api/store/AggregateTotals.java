@@ -0,0 +1,82 @@
+package com.gameperf.api.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-side merge of one or more {@link GameAggregate}s.
+ *
+ * Counts, sums and sums of squares add up exactly, so the mean and population
+ * standard deviation are the same as if they were computed from the raw samples.
+ */
+public class AggregateTotals {
+
+    private static final String[] METRIC_NAMES = {"fps", "cpuUsage", "gpuUsage", "latencyMs", "temperatureC"};
+
+    private long count;
+    private final long[] sums = new long[GameAggregate.METRIC_COUNT];
+    private final long[] sumSquares = new long[GameAggregate.METRIC_COUNT];
+    private long lastTimestamp;
+
+    void merge(long otherCount, long[] otherSums, long[] otherSquares, long otherLastTimestamp) {
+        count += otherCount;
+        for (int m = 0; m < GameAggregate.METRIC_COUNT; m++) {
+            sums[m] += otherSums[m];
+            sumSquares[m] += otherSquares[m];
+        }
+        lastTimestamp = Math.max(lastTimestamp, otherLastTimestamp);
+    }
+
+    /**
+     * @return Number of samples
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Newest sample timestamp in epoch milliseconds, or 0 when empty
+     */
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * @param metric Index of the metric: fps, cpuUsage, gpuUsage, latencyMs, temperatureC
+     * @return Mean of the metric, or 0 when empty
+     */
+    public double mean(int metric) {
+        return count == 0 ? 0 : (double) sums[metric] / count;
+    }
+
+    /**
+     * @param metric Index of the metric: fps, cpuUsage, gpuUsage, latencyMs, temperatureC
+     * @return Population standard deviation of the metric, or 0 when empty
+     */
+    public double stdDev(int metric) {
+        if (count == 0) {
+            return 0;
+        }
+        double mean = mean(metric);
+        // Clamped: a read racing with a write can leave the sums slightly ahead of the count
+        return Math.sqrt(Math.max(0, (double) sumSquares[metric] / count - mean * mean));
+    }
+
+    /**
+     * @return Map containing the sample count, the newest timestamp and the mean and
+     *         standard deviation of each metric, rounded to two decimals
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("samples", count);
+        result.put("lastTimestamp", lastTimestamp);
+        for (int m = 0; m < GameAggregate.METRIC_COUNT; m++) {
+            result.put(METRIC_NAMES[m], Map.of("mean", round(mean(m)), "stdDev", round(stdDev(m))));
+        }
+        return result;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,184 @@
+package com.gameperf.api.store;
+
+import com.gameperf.api.model.MetricSample;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Running totals of every sample ingested for one aggregate key.
+ *
+ * The totals are striped over cells picked by writer thread, up to one per CPU.
+ * A writer adds a whole batch to its cell under that cell's monitor, which is
+ * uncontended unless more threads write the key than there are cells, so ingest
+ * threads writing the same game do not serialize. A reader sums the cells one at
+ * a time: each cell is read consistently, so every sample it counts is in its sums,
+ * but a read racing with writes may include a batch in one cell and not yet in
+ * another.
+ */
+public class GameAggregate {
+
+    static final int METRIC_COUNT = 5;
+
+    private static final int CELL_COUNT = Math.min(64,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)));
+
+    /**
+     * Cells created on first use by a thread mapping to them.
+     */
+    private final AtomicReferenceArray<Cell> cells = new AtomicReferenceArray<>(CELL_COUNT);
+
+    /**
+     * Totals written by the threads mapping to one cell. Guarded by itself.
+     */
+    private static final class Cell {
+        long count;
+        final long[] sums = new long[METRIC_COUNT];
+        final long[] sumSquares = new long[METRIC_COUNT];
+        long lastTimestamp;
+    }
+
+    /**
+     * Add the local totals of a batch.
+     *
+     * @param run Totals of the samples of one batch with this key
+     */
+    void add(Run run) {
+        Cell cell = cell((int) Thread.currentThread().getId() & (CELL_COUNT - 1));
+        synchronized (cell) {
+            cell.count += run.count;
+            for (int m = 0; m < METRIC_COUNT; m++) {
+                cell.sums[m] += run.sums[m];
+                cell.sumSquares[m] += run.sumSquares[m];
+            }
+            cell.lastTimestamp = Math.max(cell.lastTimestamp, run.lastTimestamp);
+        }
+    }
+
+    private Cell cell(int index) {
+        Cell cell = cells.get(index);
+        if (cell == null) {
+            cells.compareAndSet(index, null, new Cell());
+            cell = cells.get(index);
+        }
+        return cell;
+    }
+
+    /**
+     * Add the current totals of this aggregate to a read-side total.
+     *
+     * @param totals Totals to merge into
+     */
+    void mergeInto(AggregateTotals totals) {
+        long[] currentSums = new long[METRIC_COUNT];
+        long[] currentSquares = new long[METRIC_COUNT];
+        long currentCount = 0;
+        long currentLast = 0;
+        for (int i = 0; i < CELL_COUNT; i++) {
+            Cell cell = cells.get(i);
+            if (cell == null) {
+                continue;
+            }
+            synchronized (cell) {
+                currentCount += cell.count;
+                for (int m = 0; m < METRIC_COUNT; m++) {
+                    currentSums[m] += cell.sums[m];
+                    currentSquares[m] += cell.sumSquares[m];
+                }
+                currentLast = Math.max(currentLast, cell.lastTimestamp);
+            }
+        }
+        totals.merge(currentCount, currentSums, currentSquares, currentLast);
+    }
+
+    /**
+     * @return Number of samples added so far
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < CELL_COUNT; i++) {
+            Cell cell = cells.get(i);
+            if (cell != null) {
+                synchronized (cell) {
+                    count += cell.count;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Plain, thread-confined totals of the samples of one batch, summed locally so
+     * the shared accumulators are touched once per batch and key rather than per sample.
+     */
+    static class Run {
+        private final String game;
+        private final String region;
+        private final String hardwareTier;
+        private final Run next;
+        private long count;
+        private final long[] sums = new long[METRIC_COUNT];
+        private final long[] sumSquares = new long[METRIC_COUNT];
+        private long lastTimestamp;
+
+        /**
+         * @param first First sample of the run, giving its key
+         * @param next Another run of the same game in the batch, or null
+         */
+        Run(MetricSample first, Run next) {
+            this.game = first.getGame();
+            this.region = first.getRegion();
+            this.hardwareTier = first.getHardwareTier();
+            this.next = next;
+        }
+
+        /**
+         * @return Whether the sample has the key of this run
+         */
+        boolean matches(MetricSample sample) {
+            String other = sample.getGame();
+            // The cached hashes tell interleaved games apart without comparing their names
+            return (game == other || game.hashCode() == other.hashCode() && game.equals(other))
+                    && matchesGroup(sample);
+        }
+
+        /**
+         * @return Whether the sample has the region and hardware tier of this run, whatever its game
+         */
+        boolean matchesGroup(MetricSample sample) {
+            return Objects.equals(region, sample.getRegion())
+                    && Objects.equals(hardwareTier, sample.getHardwareTier());
+        }
+
+        String getGame() {
+            return game;
+        }
+
+        String getRegion() {
+            return region;
+        }
+
+        String getHardwareTier() {
+            return hardwareTier;
+        }
+
+        Run getNext() {
+            return next;
+        }
+
+        void add(MetricSample sample) {
+            count++;
+            add(0, sample.getFps());
+            add(1, sample.getCpuUsage());
+            add(2, sample.getGpuUsage());
+            add(3, sample.getLatencyMs());
+            add(4, sample.getTemperatureC());
+            lastTimestamp = Math.max(lastTimestamp, sample.getTimestamp());
+        }
+
+        private void add(int metric, int value) {
+            sums[metric] += value;
+            sumSquares[metric] += (long) value * value;
+        }
+    }
+}
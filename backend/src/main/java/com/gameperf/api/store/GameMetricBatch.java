@@ -0,0 +1,235 @@
+package com.gameperf.api.store;
+
+import com.gameperf.api.model.GameMetric;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Growable columnar batch of game metric samples.
+ *
+ * Each field lives in its own primitive array and game names are dictionary-encoded
+ * to int ids, so a sample costs 14 bytes instead of a {@link GameMetric} object
+ * (about 60 bytes with its header and list reference). Measurements are stored as
+ * shorts and saturate at {@link Short#MAX_VALUE}. Scores are not stored: they are
+ * derived from the measurements when read through a {@link Cursor}.
+ *
+ * Not thread-safe; a batch is filled by one thread and then read.
+ */
+public class GameMetricBatch {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Heap bytes per retained sample: an int name id plus five short measurements.
+     */
+    public static final int BYTES_PER_SAMPLE = Integer.BYTES + 5 * Short.BYTES;
+
+    private final NameDictionary names;
+
+    private int[] nameIds;
+    private short[] fps;
+    private short[] cpu;
+    private short[] gpu;
+    private short[] latency;
+    private short[] temperature;
+    private int size;
+
+    public GameMetricBatch() {
+        this(new NameDictionary(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param names Dictionary used to encode game names, may be shared between batches
+     * @param initialCapacity Number of samples to allocate for up front
+     */
+    public GameMetricBatch(NameDictionary names, int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must not be negative: " + initialCapacity);
+        }
+        this.names = names;
+        allocate(Math.max(initialCapacity, 1));
+    }
+
+    /**
+     * Copy a list of metrics into a new batch.
+     *
+     * @param metrics Metrics to copy; their scores are ignored
+     * @return Batch holding the measurements of every metric
+     */
+    public static GameMetricBatch of(List<GameMetric> metrics) {
+        GameMetricBatch batch = new GameMetricBatch(new NameDictionary(), metrics.size());
+        for (GameMetric metric : metrics) {
+            batch.add(metric);
+        }
+        return batch;
+    }
+
+    /**
+     * Append the measurements of a metric; its scores are ignored.
+     */
+    public void add(GameMetric metric) {
+        add(metric.getName(), metric.getAvgFps(), metric.getCpuUsage(), metric.getGpuUsage(),
+            metric.getLatencyMs(), metric.getTemperatureC());
+    }
+
+    /**
+     * Append one sample given as raw measurements.
+     */
+    public void add(String name, int fpsValue, int cpuValue, int gpuValue, int latencyValue, int temperatureValue) {
+        if (size == nameIds.length) {
+            grow();
+        }
+        nameIds[size] = names.idOf(name);
+        fps[size] = saturate(fpsValue);
+        cpu[size] = saturate(cpuValue);
+        gpu[size] = saturate(gpuValue);
+        latency[size] = saturate(latencyValue);
+        temperature[size] = saturate(temperatureValue);
+        size++;
+    }
+
+    /**
+     * @return Number of samples in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Dictionary encoding the game names of this batch
+     */
+    public NameDictionary getNames() {
+        return names;
+    }
+
+    /**
+     * @return Heap bytes held by the sample columns, excluding array headers
+     *         and the shared name dictionary
+     */
+    public long getRetainedBytes() {
+        return (long) nameIds.length * BYTES_PER_SAMPLE;
+    }
+
+    /**
+     * Materialize one sample, with scores calculated.
+     * Meant for the few samples that leave the batch, e.g. to be serialized.
+     *
+     * @param index Index of the sample
+     * @return New GameMetric holding the sample
+     */
+    public GameMetric get(int index) {
+        Cursor cursor = cursor();
+        cursor.moveTo(index);
+        return new GameMetric(cursor.getName(), cursor.getAvgFps(), cursor.getCpuUsage(),
+            cursor.getGpuUsage(), cursor.getLatencyMs(), cursor.getTemperatureC(),
+            cursor.getPerformanceScore(), cursor.getStabilityIndex());
+    }
+
+    /**
+     * Open a cursor positioned before the first sample.
+     * A single cursor can walk the whole batch without allocating per sample.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void allocate(int capacity) {
+        nameIds = new int[capacity];
+        fps = new short[capacity];
+        cpu = new short[capacity];
+        gpu = new short[capacity];
+        latency = new short[capacity];
+        temperature = new short[capacity];
+    }
+
+    private void grow() {
+        int capacity = nameIds.length + (nameIds.length >> 1) + 1;
+        nameIds = Arrays.copyOf(nameIds, capacity);
+        fps = Arrays.copyOf(fps, capacity);
+        cpu = Arrays.copyOf(cpu, capacity);
+        gpu = Arrays.copyOf(gpu, capacity);
+        latency = Arrays.copyOf(latency, capacity);
+        temperature = Arrays.copyOf(temperature, capacity);
+    }
+
+    private static short saturate(int value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+    }
+
+    /**
+     * Read-only view of one sample at a time, with the same getters as {@link GameMetric}.
+     */
+    public final class Cursor {
+
+        private int index = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Advance to the next sample.
+         *
+         * @return true if the cursor now points at a sample, false past the end
+         */
+        public boolean next() {
+            if (index + 1 >= size) {
+                index = size;
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        /**
+         * Position the cursor on a sample.
+         *
+         * @param position Index of the sample
+         * @throws IndexOutOfBoundsException if there is no such sample
+         */
+        public void moveTo(int position) {
+            index = Objects.checkIndex(position, size);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getNameId() {
+            return nameIds[index];
+        }
+
+        public String getName() {
+            return names.nameOf(nameIds[index]);
+        }
+
+        public int getAvgFps() {
+            return fps[index];
+        }
+
+        public int getCpuUsage() {
+            return cpu[index];
+        }
+
+        public int getGpuUsage() {
+            return gpu[index];
+        }
+
+        public int getLatencyMs() {
+            return latency[index];
+        }
+
+        public int getTemperatureC() {
+            return temperature[index];
+        }
+
+        public double getPerformanceScore() {
+            return GameMetric.performanceScore(fps[index], cpu[index], gpu[index], latency[index]);
+        }
+
+        public double getStabilityIndex() {
+            return GameMetric.stabilityIndex(cpu[index], gpu[index]);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.gameperf.api.store;
+
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.model.MetricSample;
+
+import java.util.List;
+
+/**
+ * Columnar ring buffer holding the most recent samples of a single game.
+ *
+ * Every field lives in its own primitive array, so a retained sample costs
+ * 32 bytes and no object header. Once the buffer is full the oldest samples
+ * are overwritten, which keeps heap usage fixed at construction time.
+ */
+public class GameSeries {
+
+    private final String game;
+    private final int capacity;
+    private final int mask;
+
+    private final long[] timestamps;
+    private final int[] sessionIds;
+    private final int[] fps;
+    private final int[] cpu;
+    private final int[] gpu;
+    private final int[] latency;
+    private final int[] temperature;
+
+    /**
+     * Total number of samples ever appended; the next write goes to {@code written & mask}.
+     */
+    private long written;
+
+    /**
+     * @param game Name of the game this series belongs to
+     * @param capacity Number of samples retained, rounded up to a power of two
+     */
+    public GameSeries(String game, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.game = game;
+        this.capacity = ceilPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+
+        this.timestamps = new long[this.capacity];
+        this.sessionIds = new int[this.capacity];
+        this.fps = new int[this.capacity];
+        this.cpu = new int[this.capacity];
+        this.gpu = new int[this.capacity];
+        this.latency = new int[this.capacity];
+        this.temperature = new int[this.capacity];
+    }
+
+    /**
+     * Append one sample, overwriting the oldest one when the buffer is full.
+     */
+    public synchronized void append(long timestamp, int sessionId, int fpsValue, int cpuValue,
+                                    int gpuValue, int latencyValue, int temperatureValue) {
+        int i = (int) (written++ & mask);
+        timestamps[i] = timestamp;
+        sessionIds[i] = sessionId;
+        fps[i] = fpsValue;
+        cpu[i] = cpuValue;
+        gpu[i] = gpuValue;
+        latency[i] = latencyValue;
+        temperature[i] = temperatureValue;
+    }
+
+    /**
+     * Append a run of samples of this game under a single lock acquisition.
+     *
+     * @param samples Batch containing the run
+     * @param from Index of the first sample of the run (inclusive)
+     * @param to Index of the last sample of the run (exclusive)
+     * @param sessions Dictionary used to encode session ids
+     */
+    public synchronized void appendRun(List<MetricSample> samples, int from, int to, NameDictionary sessions) {
+        for (int k = from; k < to; k++) {
+            MetricSample s = samples.get(k);
+            int i = (int) (written++ & mask);
+            timestamps[i] = s.getTimestamp();
+            sessionIds[i] = s.getSessionId() == null ? -1 : sessions.idOf(s.getSessionId());
+            fps[i] = s.getFps();
+            cpu[i] = s.getCpuUsage();
+            gpu[i] = s.getGpuUsage();
+            latency[i] = s.getLatencyMs();
+            temperature[i] = s.getTemperatureC();
+        }
+    }
+
+    /**
+     * Re-encode the session ids of the retained samples into another dictionary.
+     *
+     * @param from Dictionary the retained ids come from
+     * @param to Dictionary to encode them with
+     */
+    public synchronized void remapSessions(NameDictionary from, NameDictionary to) {
+        for (long w = written - size(); w < written; w++) {
+            int i = (int) (w & mask);
+            if (sessionIds[i] >= 0) {
+                sessionIds[i] = to.idOf(from.nameOf(sessionIds[i]));
+            }
+        }
+    }
+
+    /**
+     * Average the samples of the latest window, i.e. every retained sample whose
+     * timestamp lies within {@code windowMillis} of the newest sample.
+     *
+     * @param windowMillis Width of the window in milliseconds
+     * @return GameMetric holding the window averages (scores not yet calculated),
+     *         or null if the series is empty
+     */
+    public synchronized GameMetric latestWindow(long windowMillis) {
+        int size = size();
+        if (size == 0) {
+            return null;
+        }
+
+        long newest = timestamps[(int) ((written - 1) & mask)];
+        long from = newest - windowMillis;
+
+        long sumFps = 0, sumCpu = 0, sumGpu = 0, sumLatency = 0, sumTemp = 0;
+        int n = 0;
+        for (long w = written - 1; w >= written - size; w--) {
+            int i = (int) (w & mask);
+            if (timestamps[i] < from) {
+                break;
+            }
+            sumFps += fps[i];
+            sumCpu += cpu[i];
+            sumGpu += gpu[i];
+            sumLatency += latency[i];
+            sumTemp += temperature[i];
+            n++;
+        }
+
+        return new GameMetric(
+            game,
+            (int) Math.round((double) sumFps / n),
+            (int) Math.round((double) sumCpu / n),
+            (int) Math.round((double) sumGpu / n),
+            (int) Math.round((double) sumLatency / n),
+            (int) Math.round((double) sumTemp / n),
+            0, 0
+        );
+    }
+
+    /**
+     * @return Name of the game
+     */
+    public String getGame() {
+        return game;
+    }
+
+    /**
+     * @return Maximum number of retained samples
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Number of samples currently retained
+     */
+    public synchronized int size() {
+        return (int) Math.min(written, capacity);
+    }
+
+    /**
+     * @return Total number of samples appended since creation
+     */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    private static int ceilPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(value);
+        return highest == value ? value : highest << 1;
+    }
+}
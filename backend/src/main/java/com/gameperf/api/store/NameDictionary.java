@@ -0,0 +1,63 @@
+package com.gameperf.api.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe dictionary encoding strings (game names, session ids) to dense int ids.
+ * Lookups of known names are lock-free; only the first sighting of a name takes a lock.
+ */
+public class NameDictionary {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Get the id for a name, assigning the next free id on first use.
+     *
+     * @param name Name to encode
+     * @return Dense int id of the name
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (names) {
+            return ids.computeIfAbsent(name, n -> {
+                names.add(n);
+                return names.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Get the id for a name without assigning one.
+     *
+     * @param name Name to look up
+     * @return Id of the name, or -1 if it has never been seen
+     */
+    public int find(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id Id previously returned by {@link #idOf(String)}
+     * @return Name for the id
+     */
+    public String nameOf(int id) {
+        synchronized (names) {
+            return names.get(id);
+        }
+    }
+
+    /**
+     * @return Number of distinct names encoded so far
+     */
+    public int size() {
+        return ids.size();
+    }
+}
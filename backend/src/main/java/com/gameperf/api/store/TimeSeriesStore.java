@@ -0,0 +1,200 @@
+package com.gameperf.api.store;
+
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.model.MetricSample;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory per-game time-series store.
+ *
+ * Each game gets its own fixed-capacity {@link GameSeries}, so heap usage is bounded
+ * by (number of games x capacity) regardless of ingest rate. Session ids are
+ * dictionary-encoded to ints before they are stored. Once the dictionary has grown
+ * to twice the sessions it held after the last compaction, it is rebuilt from the
+ * sessions still retained by some series, so ids of overwritten sessions do not
+ * pile up.
+ */
+@Component
+public class TimeSeriesStore {
+
+    public static final int DEFAULT_CAPACITY_PER_GAME = 16384;
+    static final int MIN_COMPACTION_SESSIONS = 1024;
+
+    private final int capacityPerGame;
+
+    private final Map<String, GameSeries> series = new ConcurrentHashMap<>();
+    private final List<GameSeries> seriesInOrder = new CopyOnWriteArrayList<>();
+
+    /**
+     * Appends hold the read lock while they use the dictionary; compaction swaps it under the write lock.
+     */
+    private final ReadWriteLock sessionsLock = new ReentrantReadWriteLock();
+    private volatile NameDictionary sessions = new NameDictionary();
+    private volatile int compactAt = MIN_COMPACTION_SESSIONS;
+
+    public TimeSeriesStore() {
+        this(DEFAULT_CAPACITY_PER_GAME);
+    }
+
+    @Autowired
+    public TimeSeriesStore(@Value("${metrics.store.capacity-per-game:16384}") int capacityPerGame) {
+        this.capacityPerGame = capacityPerGame;
+    }
+
+    /**
+     * Append a batch of samples. Consecutive samples of the same game are written
+     * under a single lock acquisition of that game's series.
+     *
+     * @param samples Samples to store (must be validated by the caller)
+     */
+    public void appendAll(List<MetricSample> samples) {
+        int size = samples.size();
+        int runStart = 0;
+        Lock lock = sessionsLock.readLock();
+        lock.lock();
+        try {
+            while (runStart < size) {
+                String game = samples.get(runStart).getGame();
+                int runEnd = runStart + 1;
+                while (runEnd < size && game.equals(samples.get(runEnd).getGame())) {
+                    runEnd++;
+                }
+                seriesFor(game).appendRun(samples, runStart, runEnd, sessions);
+                runStart = runEnd;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (sessions.size() > compactAt) {
+            compactSessions();
+        }
+    }
+
+    /**
+     * Append a single sample.
+     *
+     * @param sample Sample to store
+     */
+    public void append(MetricSample sample) {
+        appendAll(List.of(sample));
+    }
+
+    /**
+     * Read the latest window of every game as averaged GameMetric objects.
+     *
+     * @param windowMillis Width of the window in milliseconds
+     * @return One GameMetric per game, in order of first appearance
+     */
+    public List<GameMetric> latestWindow(long windowMillis) {
+        List<GameMetric> result = new ArrayList<>(seriesInOrder.size());
+        for (GameSeries s : seriesInOrder) {
+            GameMetric metric = s.latestWindow(windowMillis);
+            if (metric != null) {
+                result.add(metric);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the series of a game, creating it on first use.
+     *
+     * @param game Name of the game
+     * @return Series of the game
+     */
+    public GameSeries seriesFor(String game) {
+        GameSeries s = series.get(game);
+        if (s != null) {
+            return s;
+        }
+        return series.computeIfAbsent(game, g -> {
+            GameSeries created = new GameSeries(g, capacityPerGame);
+            seriesInOrder.add(created);
+            return created;
+        });
+    }
+
+    /**
+     * Rebuild the session dictionary from the sessions still retained by some series
+     * and renumber the retained samples.
+     */
+    void compactSessions() {
+        Lock lock = sessionsLock.writeLock();
+        lock.lock();
+        try {
+            if (sessions.size() <= compactAt) {
+                return;
+            }
+            NameDictionary retained = new NameDictionary();
+            for (GameSeries s : seriesInOrder) {
+                s.remapSessions(sessions, retained);
+            }
+            sessions = retained;
+            compactAt = Math.max(MIN_COMPACTION_SESSIONS, 2 * retained.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Only meant for replay at startup: the id is valid until the next compaction,
+     * which only an {@link #appendAll(List)} can trigger.
+     *
+     * @param sessionId Session id string
+     * @return Dictionary id the store uses for the session
+     */
+    public int sessionIdOf(String sessionId) {
+        return sessionId == null ? -1 : sessions.idOf(sessionId);
+    }
+
+    /**
+     * @param game Name of the game
+     * @return Series of the game, or null if nothing was ingested for it
+     */
+    public GameSeries getSeries(String game) {
+        return series.get(game);
+    }
+
+    /**
+     * @return Number of session ids in the dictionary, including ones no longer retained
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return Names of the games with stored samples, in order of first appearance
+     */
+    public List<String> getGames() {
+        List<String> games = new ArrayList<>(seriesInOrder.size());
+        for (GameSeries s : seriesInOrder) {
+            games.add(s.getGame());
+        }
+        return games;
+    }
+
+    /**
+     * @return Number of games with stored samples
+     */
+    public int getGameCount() {
+        return seriesInOrder.size();
+    }
+
+    /**
+     * @return Configured capacity of each game series
+     */
+    public int getCapacityPerGame() {
+        return capacityPerGame;
+    }
+}
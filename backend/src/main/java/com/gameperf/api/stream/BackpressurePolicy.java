@@ -0,0 +1,41 @@
+package com.gameperf.api.stream;
+
+import java.util.Locale;
+
+/**
+ * What a reactive live stream does with updates its client is not ready for.
+ * Each policy holds at most a bounded number of updates per client, so a stalled
+ * client costs a fixed amount of memory however long it stalls.
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * Discard updates published while the client has no demand; it receives the
+     * next update published after it catches up.
+     */
+    DROP,
+
+    /**
+     * Keep only the newest pending update. Every update is a snapshot of all games,
+     * so this conflates to the latest values per game.
+     */
+    LATEST,
+
+    /**
+     * Keep up to a configured number of pending updates, discarding the oldest when full.
+     */
+    BUFFER;
+
+    /**
+     * @param name Policy name, case-insensitive
+     * @return Policy with that name
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static BackpressurePolicy parse(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown backpressure policy: " + name + " (expected drop, latest or buffer)");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.gameperf.api.stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor writing live updates to individual subscribers.
+ *
+ * Writes block until the client takes the data, so they run here instead of on a
+ * scheduler thread. Every stream has at most one write in flight (a busy subscriber
+ * is skipped), so the queue is bounded by the number of subscribers, and a stalled
+ * client holds at most one of the {@code metrics.live.push-threads} threads until the
+ * container's write timeout fails the write. With virtual threads each write gets a
+ * virtual thread of its own instead.
+ */
+@Configuration
+public class LivePushConfig {
+
+    public static final String LIVE_PUSH_EXECUTOR = "livePushExecutor";
+
+    @Bean(name = LIVE_PUSH_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor livePushExecutor(@Value("${metrics.live.push-threads:16}") int pushThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pushThreads);
+        executor.setMaxPoolSize(pushThreads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("live-push-");
+        return executor;
+    }
+
+    @Bean(name = LIVE_PUSH_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor livePushExecutorVirtualThreads() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("live-push-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
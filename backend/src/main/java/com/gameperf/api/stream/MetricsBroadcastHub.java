@@ -0,0 +1,598 @@
+package com.gameperf.api.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameperf.api.SchedulingConfig;
+import com.gameperf.api.GameMetricsService;
+import com.gameperf.api.MetricsSnapshot;
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.session.SessionRegistry;
+import com.gameperf.api.session.StutterEvent;
+import com.gameperf.api.stats.PercentileTracker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared broadcast hub for the live metrics stream.
+ *
+ * Subscribers choose a push interval and optionally the games they want. They are
+ * grouped by {@link View}, that is identical interval, game filter and encoding.
+ * A scheduler tick every {@code metrics.live.tick-ms} pushes the groups whose
+ * interval has elapsed. Within a pass each distinct content (filter and encoding)
+ * is encoded once and the same bytes are fanned out to every member of every group
+ * showing it, so a fast view of one game never makes the full fleet get
+ * serialized for everyone. Unfiltered views reuse the snapshot's pre-serialized
+ * JSON and CBOR. Emitters are removed as soon as they complete, time out or fail,
+ * and a group goes away with its last member.
+ *
+ * Every view costs an encoding per push, so a filter names at most
+ * {@value #MAX_FILTER_GAMES} games and at most {@code metrics.live.max-views} views
+ * exist at once; a subscriber asking for a new view past that is refused.
+ *
+ * Stutter events detected in live sessions are sent as {@code stutter-event} to every
+ * subscriber whose game filter includes the session's game; events of sessions
+ * without a game only go to unfiltered subscribers. They are queued by the
+ * {@link SessionRegistry} on ingest and sent on the next tick, whatever the
+ * subscriber's interval, so ingest never waits for a subscriber. They take the same
+ * fan-out path as the metrics, ahead of a push due on the same tick.
+ *
+ * Binary subscribers ({@link #subscribeBinary}) receive the same events as a CBOR
+ * sequence: the metrics in columnar CBOR and the percentiles as CBOR, each wrapped
+ * as {@code {"event": name, "data": ...}}.
+ *
+ * Each subscriber is written on its own task of the push executor
+ * ({@link LivePushConfig}), so one slow client cannot hold up the others. The tick
+ * runs on its own scheduler thread and waits for the tasks at most one tick
+ * ({@code metrics.live.tick-ms}) per broadcast, so the next tick is never held up;
+ * a subscriber whose previous write is still running is skipped until it finishes.
+ */
+@Slf4j
+@Component
+public class MetricsBroadcastHub {
+
+    static final String EVENT_NAME = "metrics-update";
+    static final String PERCENTILES_EVENT_NAME = "percentiles-update";
+    static final String STUTTER_EVENT_NAME = "stutter-event";
+    static final long DEFAULT_TICK_MS = 100;
+
+    public static final long DEFAULT_INTERVAL_MS = 3000;
+    public static final long MIN_INTERVAL_MS = 100;
+    public static final long MAX_INTERVAL_MS = 60_000;
+    public static final int MAX_FILTER_GAMES = 32;
+    public static final int DEFAULT_MAX_VIEWS = 256;
+
+    private final GameMetricsService metricsService;
+    private final PercentileTracker percentileTracker;
+    private final SessionRegistry sessionRegistry;
+    private final ObjectMapper objectMapper;
+    private final long defaultIntervalMillis;
+    private final int maxViews;
+
+    private static final MediaType CBOR_SEQ = MediaType.parseMediaType(MetricsCborCodec.CBOR_SEQ_VALUE);
+
+    /**
+     * What a group of subscribers is sent and how often.
+     *
+     * @param intervalMillis Push interval in milliseconds
+     * @param games Games to include, or null for every game; at most {@value #MAX_FILTER_GAMES}
+     * @param binary Whether events are encoded as a CBOR sequence instead of SSE
+     * @throws IllegalArgumentException if the filter names too many games
+     */
+    public record View(long intervalMillis, Set<String> games, boolean binary) {
+
+        public View {
+            if (games != null && games.size() > MAX_FILTER_GAMES) {
+                throw new IllegalArgumentException("At most " + MAX_FILTER_GAMES + " games can be selected: "
+                        + games.size());
+            }
+            games = games == null || games.isEmpty() ? null : Set.copyOf(games);
+        }
+
+        Content content() {
+            return new Content(games, binary);
+        }
+    }
+
+    /**
+     * Encoded content of a view, shared by every view with the same filter and encoding.
+     */
+    private record Content(Set<String> games, boolean binary) {
+    }
+
+    /**
+     * Encoded metrics and percentiles events of one content.
+     *
+     * @param version Version of the snapshot the metrics event was encoded from
+     */
+    private record Events(long version, Set<DataWithMediaType> metrics, Set<DataWithMediaType> percentiles) {
+
+        List<Set<DataWithMediaType>> all() {
+            return List.of(metrics, percentiles);
+        }
+    }
+
+    /**
+     * Subscribers sharing one view. Due times are only touched by the broadcast thread.
+     */
+    private static final class Group {
+        final View view;
+        final Set<ResponseBodyEmitter> emitters = ConcurrentHashMap.newKeySet();
+        long nextDueNanos;
+        volatile Events lastEvents;
+
+        Group(View view) {
+            this.view = view;
+            this.nextDueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(view.intervalMillis());
+        }
+    }
+
+    private final Map<View, Group> groups = new ConcurrentHashMap<>();
+
+    private final AtomicLong broadcasts = new AtomicLong();
+    private final AtomicLong totalFanOutNanos = new AtomicLong();
+    private final AtomicLong maxFanOutNanos = new AtomicLong();
+    private volatile long lastFanOutNanos;
+
+    private final Timer sendTimer;
+
+    /**
+     * Executor writing to individual subscribers.
+     */
+    private final Executor pushExecutor;
+
+    /**
+     * Longest the scheduler waits for the push tasks of one broadcast.
+     */
+    private final long fanOutWaitNanos;
+
+    /**
+     * Subscribers with a push task still running on the push executor.
+     */
+    private final Set<ResponseBodyEmitter> pushing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong skippedPushes = new AtomicLong();
+
+    /**
+     * Hub without stutter events that writes on the calling thread, with the default
+     * interval, tick and view limit.
+     */
+    MetricsBroadcastHub(GameMetricsService metricsService, PercentileTracker percentileTracker,
+                        ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this(metricsService, percentileTracker, null, objectMapper, meterRegistry, Runnable::run,
+                DEFAULT_INTERVAL_MS, DEFAULT_TICK_MS, DEFAULT_MAX_VIEWS);
+    }
+
+    /**
+     * @param sessionRegistry Source of stutter events, or null to stream none
+     * @param pushExecutor Executor writing to individual subscribers
+     * @param defaultIntervalMillis Push interval of subscribers that do not choose one
+     * @param tickMillis Scheduler tick period, the longest a broadcast waits for its push tasks
+     * @param maxViews Most distinct views subscribed at once
+     */
+    @Autowired
+    public MetricsBroadcastHub(GameMetricsService metricsService, PercentileTracker percentileTracker,
+                               SessionRegistry sessionRegistry, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                               @Qualifier(LivePushConfig.LIVE_PUSH_EXECUTOR) Executor pushExecutor,
+                               @Value("${metrics.live.interval-ms:3000}") long defaultIntervalMillis,
+                               @Value("${metrics.live.tick-ms:100}") long tickMillis,
+                               @Value("${metrics.live.max-views:256}") int maxViews) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tick-ms must be positive: " + tickMillis);
+        }
+        if (maxViews < 1) {
+            throw new IllegalArgumentException("max-views must be positive: " + maxViews);
+        }
+        this.maxViews = maxViews;
+        this.fanOutWaitNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.metricsService = metricsService;
+        this.percentileTracker = percentileTracker;
+        this.sessionRegistry = sessionRegistry;
+        this.objectMapper = objectMapper;
+        this.pushExecutor = pushExecutor;
+        this.defaultIntervalMillis = checkInterval(defaultIntervalMillis);
+        Gauge.builder("gameperf.sse.emitters", this, MetricsBroadcastHub::getSubscriberCount)
+                .description("Currently registered SSE and binary subscribers")
+                .register(meterRegistry);
+        Gauge.builder("gameperf.sse.groups", groups, Map::size)
+                .description("Distinct live views (interval, game filter and encoding) with subscribers")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("gameperf.sse.send")
+                .description("Time to hand one event to one SSE subscriber")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Register a new subscriber for every game at the default interval and send it
+     * the most recent snapshot right away.
+     *
+     * @return SseEmitter registered with the hub
+     */
+    public SseEmitter subscribe() {
+        return subscribe(defaultIntervalMillis, null);
+    }
+
+    /**
+     * Register a new subscriber and send it the most recent snapshot right away.
+     *
+     * @param intervalMillis Push interval, {@value #MIN_INTERVAL_MS} to {@value #MAX_INTERVAL_MS} ms
+     * @param games Games to include, or null or empty for every game
+     * @return SseEmitter registered with the hub, or null if the view limit is reached
+     * @throws IllegalArgumentException if the interval is out of range or too many games are selected
+     */
+    public SseEmitter subscribe(long intervalMillis, Set<String> games) {
+        return register(new SseEmitter(Long.MAX_VALUE), new View(checkInterval(intervalMillis), games, false));
+    }
+
+    /**
+     * Register a new binary subscriber, streamed as a CBOR sequence, and send it the
+     * most recent snapshot right away.
+     *
+     * @param intervalMillis Push interval, {@value #MIN_INTERVAL_MS} to {@value #MAX_INTERVAL_MS} ms
+     * @param games Games to include, or null or empty for every game
+     * @return ResponseBodyEmitter registered with the hub, or null if the view limit is reached
+     * @throws IllegalArgumentException if the interval is out of range or too many games are selected
+     */
+    public ResponseBodyEmitter subscribeBinary(long intervalMillis, Set<String> games) {
+        return register(new ResponseBodyEmitter(Long.MAX_VALUE), new View(checkInterval(intervalMillis), games, true));
+    }
+
+    /**
+     * @return Push interval of subscribers that do not choose one, in milliseconds
+     */
+    public long getDefaultIntervalMillis() {
+        return defaultIntervalMillis;
+    }
+
+    private static long checkInterval(long intervalMillis) {
+        if (intervalMillis < MIN_INTERVAL_MS || intervalMillis > MAX_INTERVAL_MS) {
+            throw new IllegalArgumentException("Interval must be between " + MIN_INTERVAL_MS + " ms and "
+                    + MAX_INTERVAL_MS + " ms: " + intervalMillis + " ms");
+        }
+        return intervalMillis;
+    }
+
+    /**
+     * Register an SSE emitter for every game at the default interval.
+     *
+     * @param emitter Emitter to register
+     * @return The registered emitter
+     */
+    SseEmitter register(SseEmitter emitter) {
+        return register(emitter, new View(defaultIntervalMillis, null, false));
+    }
+
+    /**
+     * Register a binary emitter for every game at the default interval.
+     *
+     * @param emitter Emitter to register
+     * @return The registered emitter
+     */
+    ResponseBodyEmitter registerBinary(ResponseBodyEmitter emitter) {
+        return register(emitter, new View(defaultIntervalMillis, null, true));
+    }
+
+    /**
+     * Add an emitter to the group of its view, wiring its lifecycle callbacks so it
+     * is removed again on completion, timeout or error, and send it the latest
+     * events of the group, or freshly encoded ones for a new group.
+     *
+     * @param emitter Emitter to register
+     * @param view View the emitter subscribes to
+     * @return The registered emitter, or null if the view is new and the view limit is reached
+     */
+    <E extends ResponseBodyEmitter> E register(E emitter, View view) {
+        Group group = groups.compute(view, (v, existing) -> {
+            if (existing == null && groups.size() >= maxViews) {
+                return null;
+            }
+            Group g = existing != null ? existing : new Group(v);
+            g.emitters.add(emitter);
+            return g;
+        });
+        if (group == null) {
+            log.debug("Refusing live subscriber: {} views subscribed", maxViews);
+            return null;
+        }
+        emitter.onCompletion(() -> remove(view, emitter));
+        emitter.onTimeout(() -> remove(view, emitter));
+        emitter.onError(e -> remove(view, emitter));
+
+        Events events = group.lastEvents;
+        if (events == null) {
+            events = new Pass().events(group);
+        }
+        push(view, emitter, events.all());
+        return emitter;
+    }
+
+    private void remove(View view, ResponseBodyEmitter emitter) {
+        groups.computeIfPresent(view, (v, group) -> {
+            group.emitters.remove(emitter);
+            return group.emitters.isEmpty() ? null : group;
+        });
+    }
+
+    /**
+     * Send the queued stutter events, then push every group whose interval has elapsed.
+     */
+    @Scheduled(fixedRateString = "${metrics.live.tick-ms:100}", scheduler = SchedulingConfig.LIVE_TICK_SCHEDULER)
+    public void tick() {
+        tick(System.nanoTime());
+    }
+
+    void tick(long nowNanos) {
+        Map<Group, List<Set<DataWithMediaType>>> outgoing = stutterEvents();
+        List<Group> due = new ArrayList<>();
+        for (Group group : groups.values()) {
+            if (nowNanos - group.nextDueNanos >= 0) {
+                long intervalNanos = TimeUnit.MILLISECONDS.toNanos(group.view.intervalMillis());
+                group.nextDueNanos += intervalNanos;
+                if (nowNanos - group.nextDueNanos >= 0) {
+                    // Fell behind by more than an interval: skip the missed pushes rather than bunch them
+                    group.nextDueNanos = nowNanos + intervalNanos;
+                }
+                due.add(group);
+            }
+        }
+        broadcast(due, outgoing);
+    }
+
+    /**
+     * Push the current snapshot and percentiles to every subscriber now, whatever its interval.
+     */
+    public void broadcast() {
+        broadcast(List.copyOf(groups.values()), new LinkedHashMap<>());
+    }
+
+    /**
+     * @param due Groups to push the current snapshot and percentiles to
+     * @param outgoing Events already queued per group, sent ahead of the push; added to
+     */
+    private void broadcast(List<Group> due, Map<Group, List<Set<DataWithMediaType>>> outgoing) {
+        if (due.isEmpty() && outgoing.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + fanOutWaitNanos;
+        if (!due.isEmpty()) {
+            Pass pass = new Pass();
+            for (Group group : due) {
+                outgoing.computeIfAbsent(group, g -> new ArrayList<>(2)).addAll(pass.events(group).all());
+            }
+        }
+        outgoing.forEach((group, events) -> fanOut(group, events, deadline));
+        if (!due.isEmpty()) {
+            recordFanOut(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Drain the queued stutter events and match them to the groups whose filter
+     * includes their game. Each event is encoded at most once per encoding.
+     *
+     * @return Encoded events per group, in queue order
+     */
+    private Map<Group, List<Set<DataWithMediaType>>> stutterEvents() {
+        Map<Group, List<Set<DataWithMediaType>>> byGroup = new LinkedHashMap<>();
+        if (sessionRegistry == null) {
+            return byGroup;
+        }
+        List<StutterEvent> pending = new ArrayList<>();
+        // Drained even without subscribers, so a later subscriber never gets a backlog
+        if (sessionRegistry.drainStutterEvents(pending) == 0 || groups.isEmpty()) {
+            return byGroup;
+        }
+        for (StutterEvent event : pending) {
+            Set<DataWithMediaType> json = null;
+            Set<DataWithMediaType> cbor = null;
+            for (Group group : groups.values()) {
+                Set<String> games = group.view.games();
+                // A session without a game only matches unfiltered views; Set.copyOf sets reject null lookups
+                if (games != null && (event.game() == null || !games.contains(event.game()))) {
+                    continue;
+                }
+                Set<DataWithMediaType> encoded;
+                if (group.view.binary()) {
+                    encoded = cbor != null ? cbor
+                            : (cbor = binaryEvent(STUTTER_EVENT_NAME, MetricsCborCodec.encodeValue(event)));
+                } else {
+                    encoded = json != null ? json : (json = encode(STUTTER_EVENT_NAME, event));
+                }
+                byGroup.computeIfAbsent(group, g -> new ArrayList<>()).add(encoded);
+            }
+        }
+        return byGroup;
+    }
+
+    /**
+     * @param deadline {@link System#nanoTime()} after which the scheduler stops waiting for push tasks
+     */
+    private void fanOut(Group group, List<Set<DataWithMediaType>> events, long deadline) {
+        List<ResponseBodyEmitter> targets = List.copyOf(group.emitters);
+        CountDownLatch done = new CountDownLatch(targets.size());
+        for (ResponseBodyEmitter emitter : targets) {
+            if (!pushing.add(emitter)) {
+                // Still writing an earlier push: skip it rather than queue another task behind it
+                skippedPushes.incrementAndGet();
+                done.countDown();
+                continue;
+            }
+            try {
+                pushExecutor.execute(() -> {
+                    try {
+                        push(group.view, emitter, events);
+                    } finally {
+                        pushing.remove(emitter);
+                        done.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Executor shutting down with the context
+                pushing.remove(emitter);
+                done.countDown();
+            }
+        }
+        try {
+            if (!done.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                log.debug("Fan-out to {} subscribers still running after one tick; not waiting", targets.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Send events in order, stopping at the first failed send.
+     */
+    private void push(View view, ResponseBodyEmitter emitter, List<Set<DataWithMediaType>> events) {
+        for (Set<DataWithMediaType> event : events) {
+            if (!send(view, emitter, event)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Number of currently registered subscribers
+     */
+    public int getSubscriberCount() {
+        int count = 0;
+        for (Group group : groups.values()) {
+            count += group.emitters.size();
+        }
+        return count;
+    }
+
+    /**
+     * Report subscriber count and fan-out latency of the broadcast loop.
+     *
+     * @return Map containing hub statistics
+     */
+    public Map<String, Object> getStats() {
+        long count = broadcasts.get();
+        double avgMs = count == 0 ? 0 : totalFanOutNanos.get() / (double) count / 1_000_000.0;
+        int binary = 0;
+        for (Group group : groups.values()) {
+            if (group.view.binary()) {
+                binary += group.emitters.size();
+            }
+        }
+
+        return Map.of(
+            "subscribers", getSubscriberCount(),
+            "binarySubscribers", binary,
+            "groups", groups.size(),
+            "broadcasts", count,
+            "skippedPushes", skippedPushes.get(),
+            "lastFanOutMs", Math.round(lastFanOutNanos / 10_000.0) / 100.0,
+            "averageFanOutMs", Math.round(avgMs * 100.0) / 100.0,
+            "maxFanOutMs", Math.round(maxFanOutNanos.get() / 10_000.0) / 100.0
+        );
+    }
+
+    /**
+     * One broadcast pass: reads the snapshot once and encodes each distinct content at most once.
+     */
+    private final class Pass {
+        private final MetricsSnapshot snapshot = metricsService.getSnapshot();
+        private final Map<Content, Events> encoded = new HashMap<>();
+
+        Events events(Group group) {
+            Events events = encoded.computeIfAbsent(group.view.content(), content -> encodeContent(content, group.lastEvents));
+            group.lastEvents = events;
+            return events;
+        }
+
+        private Events encodeContent(Content content, Events previous) {
+            // The metrics only change with the snapshot, so a view pushed faster than the refresh reuses them
+            Set<DataWithMediaType> metrics = previous != null && previous.version() == snapshot.version()
+                    ? previous.metrics()
+                    : encodeMetrics(content);
+            Object percentiles = percentileTracker.snapshot(content.games());
+            Set<DataWithMediaType> percentilesEvent = content.binary()
+                    ? binaryEvent(PERCENTILES_EVENT_NAME, MetricsCborCodec.encodeValue(percentiles))
+                    : encode(PERCENTILES_EVENT_NAME, percentiles);
+            return new Events(snapshot.version(), metrics, percentilesEvent);
+        }
+
+        private Set<DataWithMediaType> encodeMetrics(Content content) {
+            if (content.games() == null) {
+                // The full snapshot is already serialized once per refresh tick; only the framing is added here
+                return content.binary()
+                        ? binaryEvent(EVENT_NAME, snapshot.metricsCbor())
+                        : SseEmitter.event().name(EVENT_NAME).data(snapshot.metricsJson()).build();
+            }
+            List<GameMetric> selected = new ArrayList<>(content.games().size());
+            for (GameMetric metric : snapshot.metrics()) {
+                if (content.games().contains(metric.getName())) {
+                    selected.add(metric);
+                }
+            }
+            return content.binary()
+                    ? binaryEvent(EVENT_NAME, MetricsCborCodec.encode(selected))
+                    : encode(EVENT_NAME, selected);
+        }
+    }
+
+    private Set<DataWithMediaType> encode(String name, Object data) {
+        try {
+            return SseEmitter.event()
+                    .name(name)
+                    .data(objectMapper.writeValueAsBytes(data))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + name + " event", e);
+        }
+    }
+
+    private static Set<DataWithMediaType> binaryEvent(String name, byte[] payload) {
+        return Set.of(new DataWithMediaType(MetricsCborCodec.event(name, payload), CBOR_SEQ));
+    }
+
+    private boolean send(View view, ResponseBodyEmitter emitter, Set<DataWithMediaType> event) {
+        long start = System.nanoTime();
+        try {
+            emitter.send(event);
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away (or emitter already completed): drop it from its group
+            remove(view, emitter);
+            log.debug("Removing dead subscriber: {}", e.getMessage());
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void recordFanOut(long nanos) {
+        lastFanOutNanos = nanos;
+        broadcasts.incrementAndGet();
+        totalFanOutNanos.addAndGet(nanos);
+        maxFanOutNanos.accumulateAndGet(nanos, Math::max);
+    }
+}
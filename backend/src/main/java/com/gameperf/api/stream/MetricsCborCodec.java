@@ -0,0 +1,207 @@
+package com.gameperf.api.stream;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORParser;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.gameperf.api.model.GameMetric;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact CBOR encoding of the metrics list, written and read with the streaming
+ * generator and parser so no intermediate tree or per-field objects are created.
+ *
+ * The list is encoded column-wise as one CBOR map from field name to an array of
+ * values, so each field name appears once per payload instead of once per game:
+ * <pre>
+ *   {"name": ["Cyber Drift X", ...], "avgFps": [144, ...], "cpuUsage": [...],
+ *    "gpuUsage": [...], "latencyMs": [...], "temperatureC": [...],
+ *    "performanceScore": [72.45, ...], "stabilityIndex": [...]}
+ * </pre>
+ * Measurements are CBOR integers (1-3 bytes each) and scores are single-precision
+ * floats, as in the binary WebSocket frames.
+ */
+public final class MetricsCborCodec {
+
+    public static final String CBOR_SEQ_VALUE = "application/cbor-seq";
+
+    private static final CBORFactory CBOR = new CBORFactory();
+    private static final ObjectMapper MAPPER = new CBORMapper(CBOR);
+
+    private static final String[] FIELDS = {
+        "name", "avgFps", "cpuUsage", "gpuUsage", "latencyMs", "temperatureC", "performanceScore", "stabilityIndex"
+    };
+
+    private static final byte[] EVENT_KEY = "event".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DATA_KEY = "data".getBytes(StandardCharsets.US_ASCII);
+
+    private MetricsCborCodec() {
+    }
+
+    /**
+     * Encode a metrics list column-wise.
+     *
+     * @param metrics Scored metrics
+     * @return CBOR encoding of the columns
+     */
+    public static byte[] encode(List<GameMetric> metrics) {
+        int n = metrics.size();
+        try (ByteArrayBuilder out = new ByteArrayBuilder(64 + n * 32);
+             CBORGenerator gen = CBOR.createGenerator(out)) {
+            gen.writeStartObject(FIELDS.length);
+            gen.writeFieldName(FIELDS[0]);
+            gen.writeStartArray(null, n);
+            for (GameMetric m : metrics) {
+                gen.writeString(m.getName());
+            }
+            gen.writeEndArray();
+            for (int field = 1; field < FIELDS.length; field++) {
+                gen.writeFieldName(FIELDS[field]);
+                gen.writeStartArray(null, n);
+                for (GameMetric m : metrics) {
+                    switch (field) {
+                        case 1 -> gen.writeNumber(m.getAvgFps());
+                        case 2 -> gen.writeNumber(m.getCpuUsage());
+                        case 3 -> gen.writeNumber(m.getGpuUsage());
+                        case 4 -> gen.writeNumber(m.getLatencyMs());
+                        case 5 -> gen.writeNumber(m.getTemperatureC());
+                        case 6 -> gen.writeNumber((float) m.getPerformanceScore());
+                        default -> gen.writeNumber((float) m.getStabilityIndex());
+                    }
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+            gen.flush();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode metrics as CBOR", e);
+        }
+    }
+
+    /**
+     * Decode a payload produced by {@link #encode(List)}. Unknown fields are skipped.
+     *
+     * @param cbor CBOR payload
+     * @return Decoded metrics, in payload order
+     * @throws IllegalArgumentException if the payload is not a column map of equal-length arrays
+     */
+    public static List<GameMetric> decode(byte[] cbor) {
+        try (CBORParser parser = CBOR.createParser(cbor)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a CBOR map of metric columns");
+            }
+            List<GameMetric> metrics = new ArrayList<>();
+            // The first column read decides the number of metrics
+            boolean sized = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                int field = fieldIndex(parser.currentName());
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IllegalArgumentException("Expected an array for " + parser.currentName());
+                }
+                if (field < 0) {
+                    parser.skipChildren();
+                    continue;
+                }
+                int i = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (i == metrics.size()) {
+                        if (sized) {
+                            throw mismatch(field, metrics.size());
+                        }
+                        metrics.add(new GameMetric());
+                    }
+                    set(metrics.get(i++), field, parser);
+                }
+                if (i != metrics.size()) {
+                    throw mismatch(field, metrics.size());
+                }
+                sized = true;
+            }
+            return metrics;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed CBOR metrics payload", e);
+        }
+    }
+
+    /**
+     * Encode any other value (such as the percentiles map) with Jackson data binding.
+     *
+     * @param value Value to encode
+     * @return CBOR encoding of the value
+     */
+    public static byte[] encodeValue(Object value) {
+        try {
+            return MAPPER.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode value as CBOR", e);
+        }
+    }
+
+    /**
+     * Wrap an encoded payload as one item of a CBOR sequence ({@code application/cbor-seq}):
+     * a two-entry map {@code {"event": name, "data": payload}}. The payload bytes are
+     * copied in as they are, so a shared payload is never re-encoded.
+     *
+     * @param name Event name, at most 23 ASCII characters
+     * @param payload Encoded CBOR data item
+     * @return Encoded sequence item
+     */
+    public static byte[] event(String name, byte[] payload) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.US_ASCII);
+        if (nameBytes.length > 23) {
+            throw new IllegalArgumentException("Event name too long: " + name);
+        }
+        byte[] item = new byte[1 + 6 + 1 + nameBytes.length + 5 + payload.length];
+        int pos = 0;
+        item[pos++] = (byte) 0xA2;                       // map with 2 entries
+        pos = writeShortText(item, pos, EVENT_KEY);
+        item[pos++] = (byte) (0x60 | nameBytes.length);  // text string of < 24 bytes
+        System.arraycopy(nameBytes, 0, item, pos, nameBytes.length);
+        pos += nameBytes.length;
+        pos = writeShortText(item, pos, DATA_KEY);
+        System.arraycopy(payload, 0, item, pos, payload.length);
+        return item;
+    }
+
+    private static int writeShortText(byte[] out, int pos, byte[] text) {
+        out[pos++] = (byte) (0x60 | text.length);
+        System.arraycopy(text, 0, out, pos, text.length);
+        return pos + text.length;
+    }
+
+    private static IllegalArgumentException mismatch(int field, int expected) {
+        return new IllegalArgumentException("Column " + FIELDS[field] + " does not have " + expected + " values");
+    }
+
+    private static int fieldIndex(String name) {
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (FIELDS[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void set(GameMetric m, int field, CBORParser parser) throws IOException {
+        switch (field) {
+            case 0 -> m.setName(parser.getText());
+            case 1 -> m.setAvgFps(parser.getIntValue());
+            case 2 -> m.setCpuUsage(parser.getIntValue());
+            case 3 -> m.setGpuUsage(parser.getIntValue());
+            case 4 -> m.setLatencyMs(parser.getIntValue());
+            case 5 -> m.setTemperatureC(parser.getIntValue());
+            case 6 -> m.setPerformanceScore(parser.getFloatValue());
+            default -> m.setStabilityIndex(parser.getFloatValue());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.gameperf.api.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameperf.api.model.GameMetric;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Field-level delta encoding of game metrics for the WebSocket channel.
+ *
+ * A change mask records which fields of a game differ from the previously sent
+ * state. Each changed game is encoded once per tick as a JSON fragment and/or a
+ * binary fragment; frames for individual subscribers are then assembled by
+ * concatenating the fragments of the games they follow.
+ *
+ * Binary frame layout (big-endian, shorts are unsigned):
+ * <pre>
+ *   byte  type        1 = snapshot, 2 = delta
+ *   long  version     snapshot version
+ *   short count       number of game fragments
+ *   count x fragment:
+ *     short id        game id
+ *     byte  mask      changed fields (bits below); NAME means a name follows the values,
+ *                     0 ({@link #REMOVED}) means the game left the snapshot
+ *     int   fps, cpu, gpu, latency, temperature    (only if the bit is set)
+ *     float performanceScore, stabilityIndex      (only if the bit is set)
+ *     short length + UTF-8 bytes of the name      (only if NAME is set)
+ * </pre>
+ * Ids, name lengths and fragment counts past {@value #MAX_SHORT} cannot be encoded
+ * and are refused rather than truncated. Ingest keeps far below that: names are at
+ * most 128 characters and the number of games is capped.
+ */
+public class MetricsDeltaEncoder {
+
+    public static final int FPS = 1;
+    public static final int CPU = 1 << 1;
+    public static final int GPU = 1 << 2;
+    public static final int LATENCY = 1 << 3;
+    public static final int TEMPERATURE = 1 << 4;
+    public static final int PERFORMANCE = 1 << 5;
+    public static final int STABILITY = 1 << 6;
+    public static final int NAME = 1 << 7;
+
+    public static final int ALL_FIELDS = FPS | CPU | GPU | LATENCY | TEMPERATURE | PERFORMANCE | STABILITY;
+
+    /**
+     * Mask of a removed game. Unchanged games are never encoded, so an empty mask is free for it.
+     */
+    public static final int REMOVED = 0;
+
+    public static final byte SNAPSHOT_FRAME = 1;
+    public static final byte DELTA_FRAME = 2;
+
+    /**
+     * Largest value of an unsigned short field.
+     */
+    public static final int MAX_SHORT = 0xFFFF;
+
+    private static final byte[] JSON_SEPARATOR = {','};
+
+    private final ObjectMapper objectMapper;
+
+    public MetricsDeltaEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Compute the change mask between the previously sent and the current state of a game.
+     *
+     * @param previous Previously sent state, or null if the game is new
+     * @param current Current state
+     * @return Mask of changed fields (all fields plus NAME for a new game)
+     */
+    public static int diff(GameMetric previous, GameMetric current) {
+        if (previous == null) {
+            return ALL_FIELDS | NAME;
+        }
+        int mask = 0;
+        if (previous.getAvgFps() != current.getAvgFps()) mask |= FPS;
+        if (previous.getCpuUsage() != current.getCpuUsage()) mask |= CPU;
+        if (previous.getGpuUsage() != current.getGpuUsage()) mask |= GPU;
+        if (previous.getLatencyMs() != current.getLatencyMs()) mask |= LATENCY;
+        if (previous.getTemperatureC() != current.getTemperatureC()) mask |= TEMPERATURE;
+        if (previous.getPerformanceScore() != current.getPerformanceScore()) mask |= PERFORMANCE;
+        if (previous.getStabilityIndex() != current.getStabilityIndex()) mask |= STABILITY;
+        return mask;
+    }
+
+    /**
+     * Encode the changed fields of one game as a JSON object.
+     *
+     * @param id Game id
+     * @param metric Current state of the game
+     * @param mask Fields to include, or {@link #REMOVED}
+     * @return UTF-8 JSON object
+     */
+    public byte[] jsonFragment(int id, GameMetric metric, int mask) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", id);
+        fields.put("name", metric.getName());
+        if (mask == REMOVED) fields.put("removed", true);
+        if ((mask & FPS) != 0) fields.put("avgFps", metric.getAvgFps());
+        if ((mask & CPU) != 0) fields.put("cpuUsage", metric.getCpuUsage());
+        if ((mask & GPU) != 0) fields.put("gpuUsage", metric.getGpuUsage());
+        if ((mask & LATENCY) != 0) fields.put("latencyMs", metric.getLatencyMs());
+        if ((mask & TEMPERATURE) != 0) fields.put("temperatureC", metric.getTemperatureC());
+        if ((mask & PERFORMANCE) != 0) fields.put("performanceScore", metric.getPerformanceScore());
+        if ((mask & STABILITY) != 0) fields.put("stabilityIndex", metric.getStabilityIndex());
+        try {
+            return objectMapper.writeValueAsBytes(fields);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode delta for " + metric.getName(), e);
+        }
+    }
+
+    /**
+     * Encode the changed fields of one game in the binary layout.
+     *
+     * @param id Game id
+     * @param metric Current state of the game
+     * @param mask Fields to include, or {@link #REMOVED}
+     * @return Binary fragment
+     * @throws IllegalArgumentException if the id or the name length does not fit an unsigned short
+     */
+    public static byte[] binaryFragment(int id, GameMetric metric, int mask) {
+        byte[] name = (mask & NAME) != 0 ? metric.getName().getBytes(StandardCharsets.UTF_8) : null;
+        checkShort("Game id", id);
+        if (name != null) {
+            checkShort("Game name length", name.length);
+        }
+        int size = 3 + 4 * Integer.bitCount(mask & ALL_FIELDS) + (name != null ? 2 + name.length : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putShort((short) id);
+        buffer.put((byte) mask);
+        if ((mask & FPS) != 0) buffer.putInt(metric.getAvgFps());
+        if ((mask & CPU) != 0) buffer.putInt(metric.getCpuUsage());
+        if ((mask & GPU) != 0) buffer.putInt(metric.getGpuUsage());
+        if ((mask & LATENCY) != 0) buffer.putInt(metric.getLatencyMs());
+        if ((mask & TEMPERATURE) != 0) buffer.putInt(metric.getTemperatureC());
+        if ((mask & PERFORMANCE) != 0) buffer.putFloat((float) metric.getPerformanceScore());
+        if ((mask & STABILITY) != 0) buffer.putFloat((float) metric.getStabilityIndex());
+        if (name != null) {
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Assemble a JSON frame from pre-encoded fragments.
+     *
+     * @param type Frame type ("snapshot" or "delta")
+     * @param version Snapshot version
+     * @param fragments JSON fragments of the games in the frame
+     * @return UTF-8 JSON frame
+     */
+    public static byte[] jsonFrame(String type, long version, List<byte[]> fragments) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + totalLength(fragments) + fragments.size());
+        out.writeBytes(("{\"type\":\"" + type + "\",\"version\":" + version + ",\"games\":[")
+                .getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < fragments.size(); i++) {
+            if (i > 0) {
+                out.writeBytes(JSON_SEPARATOR);
+            }
+            out.writeBytes(fragments.get(i));
+        }
+        out.writeBytes("]}".getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    /**
+     * Assemble a binary frame from pre-encoded fragments.
+     *
+     * @param type {@link #SNAPSHOT_FRAME} or {@link #DELTA_FRAME}
+     * @param version Snapshot version
+     * @param fragments Binary fragments of the games in the frame
+     * @return Binary frame
+     * @throws IllegalArgumentException if there are more than {@value #MAX_SHORT} fragments
+     */
+    public static byte[] binaryFrame(byte type, long version, List<byte[]> fragments) {
+        checkShort("Fragment count", fragments.size());
+        ByteBuffer buffer = ByteBuffer.allocate(11 + totalLength(fragments));
+        buffer.put(type);
+        buffer.putLong(version);
+        buffer.putShort((short) fragments.size());
+        for (byte[] fragment : fragments) {
+            buffer.put(fragment);
+        }
+        return buffer.array();
+    }
+
+    private static void checkShort(String field, int value) {
+        if (value < 0 || value > MAX_SHORT) {
+            throw new IllegalArgumentException(field + " does not fit an unsigned short: " + value);
+        }
+    }
+
+    private static int totalLength(List<byte[]> fragments) {
+        int total = 0;
+        for (byte[] fragment : fragments) {
+            total += fragment.length;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,323 @@
+package com.gameperf.api.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameperf.api.GameMetricsService;
+import com.gameperf.api.MetricsSnapshot;
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.store.NameDictionary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Raw WebSocket channel that streams field-level metric deltas.
+ *
+ * A client subscribes by sending
+ * {@code {"action":"subscribe","games":["Neon Havoc"],"format":"json"|"binary"}};
+ * omitting {@code games} follows every game. The client then receives a full
+ * snapshot of its games followed, on every new metrics snapshot, by a delta frame
+ * holding only the fields that changed, or the removal of a game that left the
+ * snapshot. Changed games are encoded once per tick
+ * regardless of the number of subscribers, and subscribers following every game
+ * share a single frame, so serialization cost scales with what changed.
+ *
+ * A client that cannot keep up (its send buffer or send time exceeds the limits)
+ * is closed and dropped on its own; the tick goes on for everyone else.
+ */
+@Slf4j
+@Component
+public class MetricsWebSocketHandler extends TextWebSocketHandler {
+
+    static final int SEND_TIME_LIMIT_MS = 5_000;
+    static final int BUFFER_SIZE_LIMIT = 512 * 1024;
+
+    private final GameMetricsService metricsService;
+    private final ObjectMapper objectMapper;
+    private final MetricsDeltaEncoder encoder;
+
+    private final int sendTimeLimitMillis;
+    private final int bufferSizeLimit;
+
+    private final NameDictionary gameIds = new NameDictionary();
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Last state sent to subscribers, keyed by game name in snapshot order.
+     * Guarded by {@code this}.
+     */
+    private Map<String, GameMetric> sent;
+    private long sentVersion = -1;
+
+    @Autowired
+    public MetricsWebSocketHandler(GameMetricsService metricsService, ObjectMapper objectMapper) {
+        this(metricsService, objectMapper, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT);
+    }
+
+    MetricsWebSocketHandler(GameMetricsService metricsService, ObjectMapper objectMapper,
+                            int sendTimeLimitMillis, int bufferSizeLimit) {
+        this.metricsService = metricsService;
+        this.objectMapper = objectMapper;
+        this.encoder = new MetricsDeltaEncoder(objectMapper);
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        subscribers.put(session.getId(), new Subscriber(
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis, bufferSizeLimit)));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        subscribers.remove(session.getId());
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        subscribers.remove(session.getId());
+        log.debug("WebSocket transport error: {}", exception.getMessage());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        Subscriber subscriber = subscribers.get(session.getId());
+        if (subscriber == null) {
+            return;
+        }
+
+        JsonNode request;
+        try {
+            request = objectMapper.readTree(message.getPayload());
+        } catch (IOException e) {
+            sendError(subscriber, "Malformed message");
+            return;
+        }
+
+        String action = request.path("action").asText();
+        if (!"subscribe".equals(action)) {
+            sendError(subscriber, "Unknown action: " + action);
+            return;
+        }
+
+        String format = request.path("format").asText("json");
+        if (!"json".equals(format) && !"binary".equals(format)) {
+            sendError(subscriber, "Unknown format: " + format);
+            return;
+        }
+
+        Set<String> games = null;
+        if (request.hasNonNull("games")) {
+            games = new HashSet<>();
+            for (JsonNode game : request.get("games")) {
+                games.add(game.asText());
+            }
+        }
+
+        synchronized (this) {
+            subscriber.games = games;
+            subscriber.binary = "binary".equals(format);
+            subscriber.subscribed = true;
+            if (sent == null) {
+                advance(metricsService.getSnapshot());
+            }
+            sendSnapshot(subscriber);
+        }
+    }
+
+    /**
+     * Diff the latest metrics snapshot against the last sent state and push the
+     * changes, including removed games, to every subscriber following an affected game.
+     */
+    @Scheduled(fixedRateString = "${metrics.refresh-ms:1000}")
+    public synchronized void broadcastDeltas() {
+        MetricsSnapshot snapshot = metricsService.getSnapshot();
+        if (snapshot.version() == sentVersion) {
+            return;
+        }
+
+        Map<String, GameMetric> previous = sent == null ? Map.of() : sent;
+        advance(snapshot);
+
+        List<Change> changes = new ArrayList<>();
+        for (GameMetric metric : sent.values()) {
+            int mask = MetricsDeltaEncoder.diff(previous.get(metric.getName()), metric);
+            if (mask != 0) {
+                changes.add(new Change(gameIds.idOf(metric.getName()), metric, mask));
+            }
+        }
+        for (GameMetric metric : previous.values()) {
+            if (!sent.containsKey(metric.getName())) {
+                changes.add(new Change(gameIds.idOf(metric.getName()), metric, MetricsDeltaEncoder.REMOVED));
+            }
+        }
+        if (changes.isEmpty() || subscribers.isEmpty()) {
+            return;
+        }
+
+        // Frames for subscribers following every game are built once and shared
+        WebSocketMessage<?> allJson = null;
+        WebSocketMessage<?> allBinary = null;
+
+        for (Subscriber subscriber : subscribers.values()) {
+            if (!subscriber.subscribed) {
+                continue;
+            }
+            WebSocketMessage<?> frame;
+            if (subscriber.games == null) {
+                if (subscriber.binary) {
+                    frame = allBinary != null ? allBinary : (allBinary = frame(changes, null, true, false));
+                } else {
+                    frame = allJson != null ? allJson : (allJson = frame(changes, null, false, false));
+                }
+            } else {
+                frame = frame(changes, subscriber.games, subscriber.binary, false);
+            }
+            if (frame != null) {
+                send(subscriber, frame);
+            }
+        }
+    }
+
+    /**
+     * @return Number of open WebSocket connections
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void advance(MetricsSnapshot snapshot) {
+        Map<String, GameMetric> current = new LinkedHashMap<>();
+        for (GameMetric metric : snapshot.metrics()) {
+            current.put(metric.getName(), metric);
+        }
+        sent = current;
+        sentVersion = snapshot.version();
+    }
+
+    private void sendSnapshot(Subscriber subscriber) {
+        List<Change> all = new ArrayList<>(sent.size());
+        for (GameMetric metric : sent.values()) {
+            all.add(new Change(gameIds.idOf(metric.getName()), metric,
+                    MetricsDeltaEncoder.ALL_FIELDS | MetricsDeltaEncoder.NAME));
+        }
+        send(subscriber, frame(all, subscriber.games, subscriber.binary, true));
+    }
+
+    /**
+     * Concatenate the encoded fragments of the changes a subscriber follows.
+     *
+     * @return Frame to send, or null if none of the changes concern the subscriber
+     */
+    private WebSocketMessage<?> frame(List<Change> changes, Set<String> games, boolean binary, boolean snapshot) {
+        List<byte[]> fragments = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            if (games == null || games.contains(change.metric.getName())) {
+                fragments.add(binary ? change.binary() : change.json());
+            }
+        }
+        if (fragments.isEmpty() && !snapshot) {
+            return null;
+        }
+        if (binary) {
+            byte type = snapshot ? MetricsDeltaEncoder.SNAPSHOT_FRAME : MetricsDeltaEncoder.DELTA_FRAME;
+            return new BinaryMessage(MetricsDeltaEncoder.binaryFrame(type, sentVersion, fragments));
+        }
+        return new TextMessage(MetricsDeltaEncoder.jsonFrame(snapshot ? "snapshot" : "delta", sentVersion, fragments));
+    }
+
+    private void sendError(Subscriber subscriber, String error) throws IOException {
+        send(subscriber, new TextMessage(objectMapper.writeValueAsBytes(Map.of("type", "error", "error", error))));
+    }
+
+    /**
+     * Send a frame to one subscriber. A failure only drops that subscriber, so the
+     * others still get the frame of a tick whose state has already been advanced.
+     */
+    private void send(Subscriber subscriber, WebSocketMessage<?> frame) {
+        try {
+            subscriber.session.sendMessage(frame);
+        } catch (SessionLimitExceededException e) {
+            // Slow client: the decorator leaves closing the session to the caller
+            drop(subscriber, e.getStatus(), e);
+        } catch (IOException | RuntimeException e) {
+            drop(subscriber, CloseStatus.SERVER_ERROR, e);
+        }
+    }
+
+    private void drop(Subscriber subscriber, CloseStatus status, Exception cause) {
+        subscribers.remove(subscriber.session.getId());
+        log.debug("Removing dead WebSocket subscriber: {}", cause.getMessage());
+        try {
+            subscriber.session.close(status);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to close WebSocket subscriber: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Connection state of one WebSocket client.
+     */
+    private static final class Subscriber {
+
+        final WebSocketSession session;
+        volatile Set<String> games;
+        volatile boolean binary;
+        volatile boolean subscribed;
+
+        Subscriber(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * One changed game of a tick; its fragments are encoded lazily and at most once.
+     */
+    private final class Change {
+
+        final int id;
+        final GameMetric metric;
+        final int mask;
+        private byte[] json;
+        private byte[] binary;
+
+        Change(int id, GameMetric metric, int mask) {
+            this.id = id;
+            this.metric = metric;
+            this.mask = mask;
+        }
+
+        byte[] json() {
+            if (json == null) {
+                json = encoder.jsonFragment(id, metric, mask);
+            }
+            return json;
+        }
+
+        byte[] binary() {
+            if (binary == null) {
+                binary = MetricsDeltaEncoder.binaryFragment(id, metric, mask);
+            }
+            return binary;
+        }
+    }
+}
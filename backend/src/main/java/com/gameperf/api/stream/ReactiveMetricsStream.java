@@ -0,0 +1,249 @@
+package com.gameperf.api.stream;
+
+import com.gameperf.api.GameMetricsService;
+import com.gameperf.api.MetricsSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Demand-driven variant of the live metrics stream.
+ *
+ * Every tick the current {@link MetricsSnapshot} is published to a multicast sink
+ * that never waits for subscribers. Each subscriber's flux applies its own
+ * {@link BackpressurePolicy}, so an update is only written once the client has
+ * requested it; what arrives in the meantime is dropped, conflated to the newest
+ * snapshot or kept in a small bounded buffer. Snapshots are immutable and shared,
+ * so a pending update costs a reference, not a copy.
+ *
+ * Events carry the tick sequence number as their id, so a client can tell how many
+ * updates it skipped. Skipped updates are counted per policy in
+ * {@code gameperf.live.reactive.skipped}.
+ *
+ * Streams opened with {@link #open} are written on the shared live push executor
+ * ({@link LivePushConfig}), one write task at a time: the next update is only
+ * requested once the previous write returned, so while a client is busy its updates
+ * go to its policy and no thread waits for it. A stalled client holds one push
+ * thread until the container's write timeout ({@code server.tomcat.connection-timeout})
+ * fails the write.
+ */
+@Component
+public class ReactiveMetricsStream {
+
+    public static final int MAX_BUFFER_SIZE = 256;
+
+    private final GameMetricsService metricsService;
+    private final Sinks.Many<Tick> ticks = Sinks.many().multicast().directBestEffort();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Map<BackpressurePolicy, Counter> skipped = new EnumMap<>(BackpressurePolicy.class);
+    private final Executor pushExecutor;
+
+    /**
+     * One published snapshot.
+     *
+     * @param sequence Number of the tick, starting at 1
+     * @param snapshot Snapshot current at the tick
+     */
+    record Tick(long sequence, MetricsSnapshot snapshot) {
+    }
+
+    public ReactiveMetricsStream(GameMetricsService metricsService) {
+        this(metricsService, Metrics.globalRegistry);
+    }
+
+    public ReactiveMetricsStream(GameMetricsService metricsService, MeterRegistry meterRegistry) {
+        this(metricsService, meterRegistry, Runnable::run);
+    }
+
+    /**
+     * @param pushExecutor Executor writing to the streams opened with {@link #open}
+     */
+    @Autowired
+    public ReactiveMetricsStream(GameMetricsService metricsService, MeterRegistry meterRegistry,
+                                 @Qualifier(LivePushConfig.LIVE_PUSH_EXECUTOR) Executor pushExecutor) {
+        this.metricsService = metricsService;
+        this.pushExecutor = pushExecutor;
+        Gauge.builder("gameperf.live.reactive.subscribers", subscribers, AtomicInteger::get)
+                .description("Currently subscribed reactive live streams")
+                .register(meterRegistry);
+        for (BackpressurePolicy policy : BackpressurePolicy.values()) {
+            skipped.put(policy, Counter.builder("gameperf.live.reactive.skipped")
+                    .description("Live updates a reactive subscriber skipped because it was not ready")
+                    .tag("policy", policy.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Publish the current snapshot to every subscriber.
+     * Subscribers without demand are handled by their own policy; this never blocks.
+     */
+    @Scheduled(fixedRateString = "${metrics.live.interval-ms:3000}")
+    public void publish() {
+        if (ticks.currentSubscriberCount() > 0) {
+            ticks.tryEmitNext(new Tick(sequence.incrementAndGet(), metricsService.getSnapshot()));
+        }
+    }
+
+    /**
+     * Subscribe to the live metrics. The current snapshot is sent first, then every
+     * published update the client has demand for.
+     *
+     * @param policy What to do with updates the client is not ready for
+     * @param bufferSize Pending updates kept per client with {@link BackpressurePolicy#BUFFER},
+     *                   1 to {@value #MAX_BUFFER_SIZE}
+     * @return Flux of {@code metrics-update} events carrying the metrics JSON
+     * @throws IllegalArgumentException if the buffer size is out of range
+     */
+    public Flux<ServerSentEvent<byte[]>> subscribe(BackpressurePolicy policy, int bufferSize) {
+        if (bufferSize < 1 || bufferSize > MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be between 1 and " + MAX_BUFFER_SIZE + ": " + bufferSize);
+        }
+        return Flux.defer(() -> {
+            Flux<Tick> updates = ticks.asFlux();
+            updates = switch (policy) {
+                case DROP -> updates.onBackpressureDrop();
+                case LATEST -> updates.onBackpressureLatest();
+                case BUFFER -> updates.onBackpressureBuffer(bufferSize, BufferOverflowStrategy.DROP_OLDEST);
+            };
+            Counter skippedCounter = skipped.get(policy);
+            long[] lastSequence = {-1};
+            return Flux.concat(Mono.fromSupplier(() -> new Tick(sequence.get(), metricsService.getSnapshot())), updates)
+                    .doOnNext(tick -> {
+                        // Gaps in the sequence are updates lost to the policy
+                        if (lastSequence[0] >= 0 && tick.sequence() > lastSequence[0] + 1) {
+                            skippedCounter.increment(tick.sequence() - lastSequence[0] - 1);
+                        }
+                        lastSequence[0] = tick.sequence();
+                    })
+                    .map(ReactiveMetricsStream::event)
+                    .doOnSubscribe(s -> subscribers.incrementAndGet())
+                    .doFinally(signal -> subscribers.decrementAndGet());
+        });
+    }
+
+    /**
+     * Open a live stream on an SSE emitter, written on the live push executor.
+     *
+     * @param policy What to do with updates the client is not ready for
+     * @param bufferSize Pending updates kept per client with {@link BackpressurePolicy#BUFFER}
+     * @return Emitter streaming the updates
+     * @throws IllegalArgumentException if the buffer size is out of range
+     */
+    public SseEmitter open(BackpressurePolicy policy, int bufferSize) {
+        return open(new SseEmitter(Long.MAX_VALUE), policy, bufferSize);
+    }
+
+    /**
+     * Stream the updates to the given emitter.
+     *
+     * @param emitter Emitter to write to
+     * @param policy What to do with updates the client is not ready for
+     * @param bufferSize Pending updates kept per client with {@link BackpressurePolicy#BUFFER}
+     * @return The emitter
+     */
+    SseEmitter open(SseEmitter emitter, BackpressurePolicy policy, int bufferSize) {
+        Writer writer = new Writer(emitter);
+        subscribe(policy, bufferSize).subscribe(writer);
+        emitter.onCompletion(writer::dispose);
+        emitter.onTimeout(writer::dispose);
+        emitter.onError(e -> writer.dispose());
+        return emitter;
+    }
+
+    /**
+     * Writes one update at a time on the push executor and requests the next once
+     * the write returned, so a busy client is skipped by demand instead of queueing
+     * tasks or holding the publishing thread.
+     */
+    private final class Writer extends BaseSubscriber<ServerSentEvent<byte[]>> {
+        private final SseEmitter emitter;
+
+        Writer(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(1);
+        }
+
+        @Override
+        protected void hookOnNext(ServerSentEvent<byte[]> event) {
+            try {
+                pushExecutor.execute(() -> write(event));
+            } catch (RejectedExecutionException e) {
+                // Executor shutting down with the context
+                dispose();
+                emitter.complete();
+            }
+        }
+
+        private void write(ServerSentEvent<byte[]> event) {
+            try {
+                emitter.send(SseEmitter.event().id(event.id()).name(event.event()).data(event.data()));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away, the write timed out or the emitter already completed
+                dispose();
+                emitter.completeWithError(e);
+                return;
+            }
+            request(1);
+        }
+
+        @Override
+        protected void hookOnError(Throwable error) {
+            emitter.completeWithError(error);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            emitter.complete();
+        }
+    }
+
+    private static ServerSentEvent<byte[]> event(Tick tick) {
+        return ServerSentEvent.builder(tick.snapshot().metricsJson())
+                .id(Long.toString(tick.sequence()))
+                .event(MetricsBroadcastHub.EVENT_NAME)
+                .build();
+    }
+
+    /**
+     * @return Number of currently subscribed streams
+     */
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    /**
+     * @param policy Backpressure policy
+     * @return Updates skipped by subscribers with that policy so far
+     */
+    double getSkipped(BackpressurePolicy policy) {
+        return skipped.get(policy).count();
+    }
+}
@@ -0,0 +1,25 @@
+package com.gameperf.api.stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Registers the raw WebSocket endpoints.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    public static final String METRICS_PATH = "/ws/metrics";
+
+    @Autowired
+    private MetricsWebSocketHandler metricsHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(metricsHandler, METRICS_PATH).setAllowedOrigins("*");
+    }
+}
@@ -0,0 +1,103 @@
+package com.gameperf.api;
+
+import com.gameperf.api.importer.ImportFormat;
+import com.gameperf.api.rollup.RollupStore;
+import com.gameperf.api.session.SessionRegistry;
+import com.gameperf.api.stats.PercentileTracker;
+import com.gameperf.api.store.AggregateRegistry;
+import com.gameperf.api.store.TimeSeriesStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BulkImportService.
+ */
+@DisplayName("BulkImportService Tests")
+class BulkImportServiceTest {
+
+    @Test
+    @DisplayName("Pipelined and inline imports should ingest the same samples")
+    void testPipelinedMatchesInline() throws IOException {
+        StringBuilder csv = new StringBuilder("game,sessionId,timestamp,fps,cpuUsage,latencyMs\n");
+        for (int i = 0; i < 50_000; i++) {
+            csv.append("Game").append(i % 4).append(",replay-").append(i / 5_000).append(',')
+               .append(1_700_000_000_000L + i).append(',').append(i % 7 == 0 ? -1 : 40 + i % 140).append(',')
+               .append(30 + i % 70).append(',').append(i % 120).append('\n');
+        }
+        byte[] content = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        TimeSeriesStore pipelinedStore = new TimeSeriesStore();
+        Map<String, Object> pipelined = service(pipelinedStore, true)
+                .importSamples(new ByteArrayInputStream(content), ImportFormat.CSV);
+        Map<String, Object> inline = service(new TimeSeriesStore(), false)
+                .importSamples(new ByteArrayInputStream(content), ImportFormat.CSV);
+
+        assertEquals(50_000L - 7_143, pipelined.get("accepted"));
+        assertEquals(7_143L, pipelined.get("rejected"), "Negative FPS should be rejected by ingest");
+        assertEquals((long) content.length, pipelined.get("bytes"));
+        assertEquals(inline.get("accepted"), pipelined.get("accepted"));
+        assertEquals(inline.get("analysis"), pipelined.get("analysis"));
+        assertEquals(4, pipelinedStore.latestWindow(1000).size());
+    }
+
+    @Test
+    @DisplayName("Should fail on a header without game or fps in both modes")
+    void testInvalidHeader() {
+        for (boolean pipelined : new boolean[] {true, false}) {
+            BulkImportService service = service(new TimeSeriesStore(), pipelined);
+            assertThrows(IllegalArgumentException.class, () -> service.importSamples(
+                    new ByteArrayInputStream("cpu,gpu\n1,2\n".getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV));
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse streaming imports past the limit until one finishes")
+    void testStreamLimit() throws Exception {
+        BulkImportService service = service(new TimeSeriesStore(), false);
+        PipedOutputStream upload = new PipedOutputStream();
+        PipedInputStream body = new PipedInputStream(upload);
+        List<ResponseBodyEmitter> open = new ArrayList<>();
+        try {
+            for (int i = 0; i < BulkImportService.DEFAULT_MAX_STREAMS; i++) {
+                open.add(service.openStream(i == 0 ? body : new PipedInputStream(new PipedOutputStream()),
+                        ImportFormat.NDJSON, 1));
+            }
+            assertFalse(open.contains(null));
+            assertNull(service.openStream(new ByteArrayInputStream(new byte[0]), ImportFormat.NDJSON, 1),
+                    "A stream past the limit should be refused");
+
+            // Ending one upload frees its slot
+            upload.close();
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (service.getActiveStreams() == BulkImportService.DEFAULT_MAX_STREAMS && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(BulkImportService.DEFAULT_MAX_STREAMS - 1, service.getActiveStreams());
+            assertNotNull(service.openStream(new ByteArrayInputStream(new byte[0]), ImportFormat.NDJSON, 1));
+        } finally {
+            open.forEach(emitter -> emitter.completeWithError(new IOException("Test over")));
+            service.shutdown();
+        }
+    }
+
+    private static BulkImportService service(TimeSeriesStore store, boolean pipelined) {
+        GameAnalyticsService analytics = new GameAnalyticsService(new SimpleMeterRegistry());
+        MetricsIngestService ingest = new MetricsIngestService(store, new SessionRegistry(analytics),
+                new PercentileTracker(), new RollupStore(), new AggregateRegistry(), Optional.empty(), new SimpleMeterRegistry());
+        return new BulkImportService(ingest, analytics, pipelined, BulkImportService.DEFAULT_MAX_STREAMS);
+    }
+}
@@ -1,13 +1,28 @@
 package com.gameperf.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameperf.api.model.AnomalyBatchRequest;
+import com.gameperf.api.model.AnomalyBatchResult;
 import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.rules.AnomalyRuleRegistry;
+import com.gameperf.api.stats.AnomalyEvaluator;
+import com.gameperf.api.store.GameMetricBatch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -94,6 +109,24 @@ class GameAnalyticsServiceTest {
         assertEquals(0.0, (Double) analysis.get("fpsVariance"), 0.01, "Variance should be 0 for identical values");
     }
 
+    @Test
+    @DisplayName("Should report population variance and averages rounded to two decimals")
+    void testVarianceValues() {
+        List<GameMetric> data = Arrays.asList(
+            new GameMetric("Game1", 144, 60, 65, 20, 65, 0, 0),
+            new GameMetric("Game2", 90, 62, 67, 22, 66, 0, 0),
+            new GameMetric("Game3", 160, 58, 63, 18, 64, 0, 0),
+            new GameMetric("Game4", 75, 64, 69, 24, 68, 0, 0)
+        );
+        
+        Map<String, Object> analysis = service.analyzeSession(data);
+        
+        assertEquals(1267.69, (Double) analysis.get("fpsVariance"), 1e-9);
+        assertEquals(5.0, (Double) analysis.get("cpuVariance"), 1e-9);
+        assertEquals(117.25, (Double) analysis.get("averageFps"), 1e-9);
+        assertEquals(21.0, (Double) analysis.get("averageLatency"), 1e-9);
+    }
+
     @Test
     @DisplayName("Should provide recommendations for unstable session")
     void testRecommendations() {
@@ -163,4 +196,210 @@ class GameAnalyticsServiceTest {
         
         assertEquals("TestGame", anomalies.get("gameName"), "Should include correct game name");
     }
+
+    @Test
+    @DisplayName("Batch anomaly flags should match single-metric detection")
+    void testBatchAnomaliesMatchSingleDetection() {
+        Random random = new Random(3);
+        int n = 5000;
+        AnomalyBatchRequest batch = new AnomalyBatchRequest(new int[n], new int[n], new int[n], new int[n], new int[n]);
+        for (int i = 0; i < n; i++) {
+            batch.getFps()[i] = 30 + random.nextInt(150);
+            batch.getCpuUsage()[i] = 40 + random.nextInt(61);
+            batch.getGpuUsage()[i] = 40 + random.nextInt(61);
+            batch.getLatencyMs()[i] = 5 + random.nextInt(100);
+            batch.getTemperatureC()[i] = 50 + random.nextInt(50);
+        }
+        
+        AnomalyBatchResult result = service.detectAnomalies(batch);
+        
+        int anomalous = 0;
+        for (int i = 0; i < n; i++) {
+            GameMetric metric = new GameMetric("Game", batch.getFps()[i], batch.getCpuUsage()[i],
+                    batch.getGpuUsage()[i], batch.getLatencyMs()[i], batch.getTemperatureC()[i], 0, 0);
+            Map<String, Object> single = service.detectAnomalies(metric);
+            boolean flagged = result.getFlags()[i] != 0;
+            assertEquals(single.get("hasAnomalies"), flagged, "Sample " + i + " should agree");
+            if (flagged) {
+                anomalous++;
+            }
+        }
+        assertEquals(n, result.getSampleCount());
+        assertEquals(anomalous, result.getAnomalousCount());
+    }
+
+    @Test
+    @DisplayName("Batch anomaly detection should set one flag per threshold")
+    void testBatchAnomalyFlags() {
+        AnomalyBatchRequest batch = new AnomalyBatchRequest(
+            new int[] {144, 45, 144, 144, 144, 144},
+            new int[] {60, 60, 60, 95, 60, 60},
+            new int[] {65, 65, 65, 65, 95, 65},
+            new int[] {20, 20, 120, 20, 20, 20},
+            new int[] {65, 65, 65, 65, 65, 85}
+        );
+        
+        AnomalyBatchResult result = service.detectAnomalies(batch);
+        
+        assertArrayEquals(new byte[] {0, 2, 4, 8, 16, 1}, result.getFlags());
+        assertEquals(5, result.getAnomalousCount());
+        assertEquals(1, result.getLowFpsCount());
+        assertEquals(1, result.getHighTemperatureCount());
+        assertEquals(1, result.getHighGpuCount());
+    }
+
+    @Test
+    @DisplayName("Batch anomaly detection should reject columns of different length")
+    void testBatchAnomalyValidation() {
+        AnomalyBatchRequest batch = new AnomalyBatchRequest(
+            new int[] {144, 45}, new int[] {60}, new int[] {65, 65}, new int[] {20, 20}, new int[] {65, 65}
+        );
+        
+        assertThrows(IllegalArgumentException.class, () -> service.detectAnomalies(batch));
+    }
+
+    @Test
+    @DisplayName("Should time session analysis by size bucket")
+    void testAnalysisMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GameAnalyticsService instrumented = new GameAnalyticsService(registry, new AnomalyRuleRegistry(), 1);
+        
+        instrumented.analyzeSession(List.of(
+            new GameMetric("Game1", 144, 60, 65, 20, 65, 0, 0),
+            new GameMetric("Game2", 145, 61, 66, 21, 66, 0, 0)
+        ));
+        
+        assertEquals(1, registry.get("gameperf.analysis.session").tag("size", "small").functionTimer().count());
+        assertEquals(0, registry.get("gameperf.analysis.session").tag("size", "large").functionTimer().count());
+        assertEquals(2, registry.get("gameperf.analysis.session.samples").functionCounter().count());
+        assertEquals(2, GameAnalyticsService.sizeBucket(100_000), "Bucket limits should be exclusive");
+    }
+
+    @Test
+    @DisplayName("Should count anomaly detection results")
+    void testAnomalyMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GameAnalyticsService instrumented = new GameAnalyticsService(registry, new AnomalyRuleRegistry(), 1);
+        
+        instrumented.detectAnomalies(new GameMetric("Hot", 144, 60, 65, 20, 85, 0, 0));
+        instrumented.detectAnomalies(new AnomalyBatchRequest(
+            new int[] {144, 45}, new int[] {60, 60}, new int[] {65, 65}, new int[] {20, 20}, new int[] {65, 65}
+        ));
+        
+        assertEquals(2, registry.get("gameperf.anomalies.evaluated").tag("result", "anomalous").functionCounter().count());
+        assertEquals(1, registry.get("gameperf.anomalies.evaluated").tag("result", "normal").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Should count every small session analysis exactly and only sample its timing")
+    void testSampledAnalysisMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GameAnalyticsService instrumented = new GameAnalyticsService(registry);
+        List<GameMetric> session = List.of(new GameMetric("Game1", 144, 60, 65, 20, 65, 0, 0));
+        int calls = GameAnalyticsService.DEFAULT_SAMPLE_INTERVAL * 200 + 3;
+        for (int i = 0; i < calls; i++) {
+            instrumented.analyzeSession(session);
+            instrumented.detectAnomalies(session.get(0));
+        }
+        
+        assertEquals(calls, registry.get("gameperf.analysis.session").tag("size", "small").functionTimer().count());
+        assertEquals(calls, registry.get("gameperf.analysis.session.samples").functionCounter().count());
+        assertEquals(calls, registry.get("gameperf.anomalies.evaluated").tag("result", "normal").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Batch session analysis should match list analysis")
+    void testAnalyzeBatchSession() {
+        Random random = new Random(7);
+        List<GameMetric> session = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            session.add(new GameMetric("Game" + (i % 3), 40 + random.nextInt(140), 30 + random.nextInt(70),
+                30 + random.nextInt(70), 5 + random.nextInt(120), 50 + random.nextInt(45), 0, 0));
+        }
+        
+        assertEquals(service.analyzeSession(session), service.analyzeBatch(GameMetricBatch.of(session)));
+        assertEquals(false, service.analyzeBatch(new GameMetricBatch()).get("sessionStable"));
+    }
+
+    @Test
+    @DisplayName("Parallel analysis should match sequential analysis")
+    void testAnalyzeSessionParallel() {
+        List<GameMetric> session = randomSession(new Random(11), 200_000);
+        
+        assertEquals(service.analyzeSession(session), service.analyzeSessionParallel(session));
+    }
+
+    @Test
+    @DisplayName("Multi-session report should hold per-session and fleet-wide analyses")
+    void testAnalyzeSessions() {
+        Random random = new Random(13);
+        Map<String, List<GameMetric>> sessions = new LinkedHashMap<>();
+        List<GameMetric> all = new ArrayList<>();
+        for (int s = 0; s < 40; s++) {
+            List<GameMetric> session = randomSession(random, s == 7 ? 100_000 : 1 + random.nextInt(5_000));
+            sessions.put("session-" + s, session);
+            all.addAll(session);
+        }
+        sessions.put("empty", List.of());
+        
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GameAnalyticsService instrumented = new GameAnalyticsService(registry);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Map<String, Object> report;
+        try {
+            report = instrumented.analyzeSessions(sessions, pool);
+        } finally {
+            pool.shutdown();
+        }
+        
+        assertEquals(41, report.get("sessionCount"));
+        assertEquals((long) all.size(), report.get("sampleCount"));
+        Map<?, ?> perSession = (Map<?, ?>) report.get("sessions");
+        assertEquals(service.analyzeSession(sessions.get("session-7")), perSession.get("session-7"));
+        assertEquals(service.analyzeSession(List.of()), perSession.get("empty"));
+        assertEquals(service.analyzeSession(all), report.get("fleet"), "Fleet should be merged from all sessions");
+        assertEquals(1, registry.get("gameperf.analysis.fleet").timer().count());
+        assertEquals(41, registry.get("gameperf.analysis.fleet.sessions").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should apply the anomaly and stability rules of each game")
+    void testPerGameRules(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("rules.json");
+        Files.writeString(file, """
+            {
+              "tiers": {"low-end": {"anomaly": {"minFps": 30}, "stability": {"maxFpsVariance": 1000}}},
+              "games": {"Neon Havoc": {"tier": "low-end"}}
+            }
+            """);
+        GameAnalyticsService ruled = new GameAnalyticsService(new SimpleMeterRegistry(),
+            new AnomalyRuleRegistry(file, new ObjectMapper(), new SimpleMeterRegistry()));
+
+        assertEquals(false, ruled.detectAnomalies(new GameMetric("Neon Havoc", 45, 50, 50, 20, 60, 0, 0))
+            .get("hasAnomalies"), "45 FPS is fine on a low-end tier");
+        assertEquals(true, ruled.detectAnomalies(new GameMetric("Cyber Drift X", 45, 50, 50, 20, 60, 0, 0))
+            .get("hasAnomalies"), "Other games keep the built-in thresholds");
+        assertEquals(false, ruled.detectAnomalies(new GameMetric("Neon Havoc", 45, 50, 50, 20, 60, 0, 0),
+            ruled.anomalyRule("Neon Havoc")).get("hasAnomalies"), "A resolved rule should apply the same thresholds");
+
+        List<GameMetric> swinging = List.of(
+            new GameMetric("Neon Havoc", 60, 50, 50, 20, 60, 0, 0),
+            new GameMetric("Neon Havoc", 120, 50, 50, 20, 60, 0, 0));
+        assertEquals(true, ruled.analyzeSession(swinging).get("sessionStable"));
+        assertEquals(false, service.analyzeSession(swinging).get("sessionStable"));
+
+        AnomalyBatchRequest batch = new AnomalyBatchRequest(
+            new int[] {45}, new int[] {50}, new int[] {50}, new int[] {20}, new int[] {60});
+        assertEquals(0, ruled.detectAnomalies(batch, null, "low-end").getAnomalousCount());
+        assertEquals(AnomalyEvaluator.LOW_FPS, ruled.detectAnomalies(batch, "Cyber Drift X", null).getFlags()[0]);
+    }
+
+    private static List<GameMetric> randomSession(Random random, int size) {
+        List<GameMetric> session = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            session.add(new GameMetric("Game", 40 + random.nextInt(140), 30 + random.nextInt(70),
+                30 + random.nextInt(70), 5 + random.nextInt(120), 50 + random.nextInt(45), 0, 0));
+        }
+        return session;
+    }
 }
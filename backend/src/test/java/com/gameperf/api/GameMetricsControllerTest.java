@@ -1,5 +1,9 @@
 package com.gameperf.api;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.stream.MetricsCborCodec;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,15 +11,24 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Integration tests for GameMetricsController.
+ * The snapshot refresh is slowed down so conditional requests see a stable ETag,
+ * and the demo feed supplies the six sample games.
  */
-@SpringBootTest
+@SpringBootTest(properties = {"metrics.refresh-ms=3600000", "metrics.demo.enabled=true"})
 @AutoConfigureMockMvc
 @DisplayName("GameMetricsController Integration Tests")
 class GameMetricsControllerTest {
@@ -40,6 +53,46 @@ class GameMetricsControllerTest {
                 .andExpect(jsonPath("$[0].stabilityIndex", notNullValue()));
     }
 
+    @Test
+    @DisplayName("GET /api/metrics should return 304 when the ETag still matches")
+    void testGetAllMetricsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/metrics").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/metrics").header("If-None-Match", "\"stale\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /api/metrics should negotiate columnar CBOR with its own ETag")
+    void testGetAllMetricsCbor() throws Exception {
+        MvcResult json = mockMvc.perform(get("/api/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn();
+        MvcResult cbor = mockMvc.perform(get("/api/metrics").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        byte[] body = cbor.getResponse().getContentAsByteArray();
+        List<GameMetric> metrics = MetricsCborCodec.decode(body);
+        assertEquals(6, metrics.size());
+        assertTrue(body.length * 2 < json.getResponse().getContentAsByteArray().length,
+                "CBOR should be less than half the size of the JSON");
+
+        String etag = cbor.getResponse().getHeader("ETag");
+        assertTrue(!etag.equals(json.getResponse().getHeader("ETag")), "Representations need distinct ETags");
+        mockMvc.perform(get("/api/metrics").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     @DisplayName("GET /api/metrics/analyze should return analysis summary")
     void testAnalyzeAll() throws Exception {
@@ -67,6 +120,244 @@ class GameMetricsControllerTest {
                 .andExpect(jsonPath("$.version", is("1.0.0")));
     }
 
+    @Test
+    @DisplayName("POST /api/metrics/ingest should accept valid samples and reject invalid ones")
+    void testIngest() throws Exception {
+        String body = """
+            [
+              {"game": "Cyber Drift X", "sessionId": "s-1", "fps": 144, "cpuUsage": 62,
+               "gpuUsage": 75, "latencyMs": 21, "temperatureC": 68},
+              {"game": "Cyber Drift X", "sessionId": "s-1", "fps": 142, "cpuUsage": 63,
+               "gpuUsage": 74, "latencyMs": 22, "temperatureC": 68},
+              {"sessionId": "s-1", "fps": 140},
+              {"game": "Cyber Drift X", "fps": 140, "cpuUsage": 180},
+              {"game": "Cyber Drift X", "fps": 140, "temperatureC": 900},
+              {"game": "Cyber Drift X", "fps": 140, "sessionId": "%s"}
+            ]
+            """.formatted("s".repeat(MetricsIngestService.MAX_NAME_LENGTH + 1));
+
+        mockMvc.perform(post("/api/metrics/ingest")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.rejected", is(4)));
+    }
+
+    @Test
+    @DisplayName("POST /api/metrics/ingest should accept a CBOR-encoded batch")
+    void testIngestCbor() throws Exception {
+        MetricSample sample = new MetricSample();
+        sample.setGame("Neon Havoc");
+        sample.setSessionId("s-cbor");
+        sample.setFps(120);
+        sample.setCpuUsage(55);
+
+        mockMvc.perform(post("/api/metrics/ingest")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .content(new CBORMapper().writeValueAsBytes(List.of(sample, sample))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(2)));
+    }
+
+    @Test
+    @DisplayName("POST /api/metrics/import should stream a CSV body into the store")
+    void testImportCsv() throws Exception {
+        String body = """
+            game,sessionId,timestamp,fps,cpuUsage,gpuUsage,latencyMs,temperatureC
+            Neon Havoc,replay-1,0,144,62,75,21,68
+            Neon Havoc,replay-1,0,140.6,63,74,22,68
+            Neon Havoc,replay-1,0,not-a-number,63,74,22,68
+            """;
+
+        mockMvc.perform(post("/api/metrics/import")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.format", is("csv")))
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.malformed", is(1)))
+                .andExpect(jsonPath("$.analysis.averageFps", is(142.5)));
+    }
+
+    @Test
+    @DisplayName("POST /api/metrics/ingest/stream should report progress per batch as NDJSON")
+    void testIngestStream() throws Exception {
+        String body = """
+            {"game": "Neon Havoc", "sessionId": "stream-1", "fps": 120, "cpuUsage": 50}
+            {"game": "Neon Havoc", "sessionId": "stream-1", "fps": 118, "cpuUsage": 51}
+            {"game": "Neon Havoc", "sessionId": "stream-1", "fps": -1}
+            not json
+            """;
+
+        MvcResult result = mockMvc.perform(post("/api/metrics/ingest/stream")
+                        .param("batchSize", "2")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String progress = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = progress.trim().split("\n");
+        assertEquals(2, lines.length, progress);
+        assertTrue(lines[0].contains("\"accepted\":2"), lines[0]);
+        assertTrue(lines[1].contains("\"batch\":2") && lines[1].contains("\"rejected\":1")
+                && lines[1].contains("\"malformed\":1"), lines[1]);
+
+        mockMvc.perform(post("/api/metrics/ingest/stream").param("batchSize", "0")
+                        .contentType("application/x-ndjson").content(body))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/metrics/live/reactive should start a stream and validate its policy")
+    void testLiveReactive() throws Exception {
+        mockMvc.perform(get("/api/metrics/live/reactive").param("policy", "buffer").param("bufferSize", "4"))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(get("/api/metrics/live/reactive").param("policy", "block"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /api/metrics/import should read NDJSON and reject unknown formats")
+    void testImportNdjson() throws Exception {
+        String body = """
+            {"game": "Neon Havoc", "sessionId": "replay-2", "fps": 120, "cpuUsage": 50}
+            {"game": "Neon Havoc", "sessionId": "replay-2", "fps": -1}
+            """;
+
+        mockMvc.perform(post("/api/metrics/import?format=ndjson")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(1)))
+                .andExpect(jsonPath("$.rejected", is(1)));
+
+        mockMvc.perform(post("/api/metrics/import")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", notNullValue()));
+    }
+
+    @Test
+    @DisplayName("GET /api/metrics/percentiles should return percentiles per window")
+    void testPercentiles() throws Exception {
+        mockMvc.perform(get("/api/metrics"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/metrics/percentiles"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['1m']", notNullValue()))
+                .andExpect(jsonPath("$['5m']", notNullValue()))
+                .andExpect(jsonPath("$['1h'][0].fps.p99", notNullValue()))
+                .andExpect(jsonPath("$['1h'][0].latency.p50", notNullValue()));
+
+        mockMvc.perform(get("/api/metrics/percentiles").param("window", "7m"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /api/metrics/anomalies/batch should return flags and counts")
+    void testBatchAnomalies() throws Exception {
+        String body = """
+            {"fps": [144, 45], "cpuUsage": [60, 60], "gpuUsage": [65, 65],
+             "latencyMs": [20, 20], "temperatureC": [65, 85]}
+            """;
+
+        mockMvc.perform(post("/api/metrics/anomalies/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sampleCount", is(2)))
+                .andExpect(jsonPath("$.anomalousCount", is(1)))
+                .andExpect(jsonPath("$.lowFpsCount", is(1)))
+                .andExpect(jsonPath("$.highTemperatureCount", is(1)))
+                .andExpect(jsonPath("$.flags", is("AAM=")));
+
+        mockMvc.perform(post("/api/metrics/anomalies/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fps\": [144]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", notNullValue()));
+    }
+
+    @Test
+    @DisplayName("GET /api/metrics/top should return the best and worst games")
+    void testTop() throws Exception {
+        mockMvc.perform(get("/api/metrics/top").param("by", "stabilityIndex").param("k", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ranked", is(6)))
+                .andExpect(jsonPath("$.best", hasSize(2)))
+                .andExpect(jsonPath("$.worst", hasSize(2)))
+                .andExpect(jsonPath("$.best[0].name", notNullValue()))
+                .andExpect(jsonPath("$.best[0].value", greaterThanOrEqualTo(0.0)));
+
+        mockMvc.perform(get("/api/metrics/top").param("by", "fps"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/metrics/top").param("k", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/metrics/history should report that persistence is disabled")
+    void testHistoryDisabled() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/metrics/history").param("game", "Neon Havoc"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", containsString("Persistence is disabled")));
+    }
+
+    @Test
+    @DisplayName("GET /api/metrics/aggregates should group ingested samples by region")
+    void testAggregates() throws Exception {
+        String body = """
+            [
+              {"game": "Shadow Protocol", "fps": 90, "cpuUsage": 50, "gpuUsage": 60,
+               "latencyMs": 30, "temperatureC": 70, "region": "aggregates-test", "hardwareTier": "high"},
+              {"game": "Shadow Protocol", "fps": 110, "cpuUsage": 50, "gpuUsage": 60,
+               "latencyMs": 30, "temperatureC": 70, "region": "aggregates-test", "hardwareTier": "high"}
+            ]
+            """;
+        mockMvc.perform(post("/api/metrics/ingest").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/metrics/aggregates").param("by", "region"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.by", is("region")))
+                .andExpect(jsonPath("$.groups['aggregates-test'].samples", is(2)))
+                .andExpect(jsonPath("$.groups['aggregates-test'].fps.mean", is(100.0)))
+                .andExpect(jsonPath("$.groups['aggregates-test'].fps.stdDev", is(10.0)))
+                .andExpect(jsonPath("$.total.samples", greaterThanOrEqualTo(2)));
+        mockMvc.perform(get("/api/metrics/aggregates").param("by", "continent"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/metrics/rules should describe the built-in rules")
+    void testRules() throws Exception {
+        mockMvc.perform(get("/api/metrics/rules"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(0)))
+                .andExpect(jsonPath("$.file", nullValue()))
+                .andExpect(jsonPath("$.rules", notNullValue()));
+    }
+
+    @Test
+    @DisplayName("GET /api/metrics/live/stats should return broadcast hub statistics")
+    void testLiveStreamStats() throws Exception {
+        mockMvc.perform(get("/api/metrics/live/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subscribers", greaterThanOrEqualTo(0)))
+                .andExpect(jsonPath("$.averageFanOutMs", notNullValue()))
+                .andExpect(jsonPath("$.maxFanOutMs", notNullValue()));
+    }
+
     @Test
     @DisplayName("Performance scores should be in valid range")
     void testPerformanceScoreRange() throws Exception {
@@ -135,4 +426,36 @@ class GameMetricsControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.totalGames", is(6)));
     }
+
+    @Test
+    @DisplayName("GET /api/metrics/rollups should aggregate a game's history")
+    void testGetRollups() throws Exception {
+        mockMvc.perform(get("/api/metrics/rollups").param("game", "Cyber Drift X").param("range", "10m"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.game").value("Cyber Drift X"))
+                .andExpect(jsonPath("$.resolution").value("1s"))
+                .andExpect(jsonPath("$.points[0].fps.mean", notNullValue()));
+    }
+
+    @Test
+    @DisplayName("GET /api/metrics/rollups should return 404 for unknown games")
+    void testGetRollupsUnknownGame() throws Exception {
+        mockMvc.perform(get("/api/metrics/rollups").param("game", "Nope"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", containsString("Nope")));
+    }
+
+    @Test
+    @DisplayName("GET /api/metrics/rollups should reject ranges that overflow with 400")
+    void testGetRollupsOverflow() throws Exception {
+        mockMvc.perform(get("/api/metrics/rollups").param("game", "Cyber Drift X")
+                        .param("to", "0").param("range", "106751991167d"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/metrics/rollups").param("game", "Cyber Drift X")
+                        .param("from", String.valueOf(Long.MIN_VALUE)).param("to", "1000"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/metrics/rollups").param("game", "Cyber Drift X")
+                        .param("from", String.valueOf(Long.MIN_VALUE)).param("to", "1000").param("step", "1h"))
+                .andExpect(status().isBadRequest());
+    }
 }
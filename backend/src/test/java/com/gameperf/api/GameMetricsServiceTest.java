@@ -1,6 +1,7 @@
 package com.gameperf.api;
 
 import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.store.GameMetricBatch;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -121,9 +122,10 @@ class GameMetricsServiceTest {
     }
 
     @Test
-    @DisplayName("Should generate different data on multiple calls (randomization)")
+    @DisplayName("Should generate different data on successive refresh ticks (randomization)")
     void testDataRandomization() {
         List<GameMetric> metrics1 = service.getMetrics();
+        service.refresh();
         List<GameMetric> metrics2 = service.getMetrics();
         
         // At least some values should differ due to randomization
@@ -137,4 +139,39 @@ class GameMetricsServiceTest {
         
         assertTrue(hasDifference, "Metrics should have some variation due to randomization");
     }
+
+    @Test
+    @DisplayName("Should serve the same snapshot until the next refresh")
+    void testSnapshotSharedBetweenReads() {
+        MetricsSnapshot snapshot = service.getSnapshot();
+        
+        assertSame(snapshot.metrics(), service.getMetrics(), "Reads should not recompute metrics");
+        assertSame(snapshot.summary(), service.getAnalysisSummary(), "Reads should not recompute the summary");
+        
+        service.refresh();
+        
+        assertNotSame(snapshot, service.getSnapshot(), "Refresh should publish a new snapshot");
+        assertEquals(snapshot.version() + 1, service.getSnapshot().version());
+    }
+
+    @Test
+    @DisplayName("Snapshot should carry pre-serialized JSON and content-based ETags")
+    void testSnapshotSerialization() {
+        MetricsSnapshot snapshot = service.getSnapshot();
+        String json = new String(snapshot.metricsJson());
+        
+        assertTrue(json.startsWith("["), "Metrics JSON should be an array");
+        assertTrue(json.contains("performanceScore"), "Metrics JSON should include scores");
+        assertTrue(new String(snapshot.summaryJson()).contains("totalGames"));
+        assertEquals(MetricsSnapshot.etagOf(snapshot.metricsJson()), snapshot.metricsEtag());
+        assertNotEquals(snapshot.metricsEtag(), snapshot.summaryEtag());
+    }
+
+    @Test
+    @DisplayName("Batch summary should match the snapshot summary")
+    void testSummarizeBatch() {
+        Map<String, Object> summary = service.summarize(GameMetricBatch.of(service.getMetrics()));
+        
+        assertEquals(service.getAnalysisSummary(), summary);
+    }
 }
@@ -0,0 +1,51 @@
+package com.gameperf.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the GameSessionScheduler aggregation stage.
+ */
+@DisplayName("GameSessionScheduler Tests")
+class GameSessionSchedulerTest {
+
+    @Test
+    @DisplayName("Should publish the snapshot summary as gauges and time each run")
+    void testAggregation() {
+        GameMetricsService metricsService = new GameMetricsService();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GameSessionScheduler scheduler = new GameSessionScheduler(metricsService, registry, 10_000);
+
+        scheduler.aggregateMetrics();
+
+        Map<String, Object> summary = metricsService.getAnalysisSummary();
+        assertEquals(((Number) summary.get("totalGames")).doubleValue(),
+                registry.get("gameperf.summary.games").gauge().value());
+        assertEquals(((Number) summary.get("averageFps")).doubleValue(),
+                registry.get("gameperf.summary.fps").gauge().value());
+        assertEquals(GameSessionScheduler.SUMMARY_GAUGES.length, registry.getMeters().stream()
+                .filter(m -> m.getId().getName().startsWith("gameperf.summary."))
+                .count());
+        assertEquals(1, registry.get("gameperf.scheduler.aggregation").timer().count());
+        assertEquals(0, registry.get("gameperf.scheduler.overruns").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should count runs that start an interval late as overruns")
+    void testOverrun() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GameSessionScheduler scheduler = new GameSessionScheduler(new GameMetricsService(), registry, 50);
+
+        scheduler.aggregateMetrics();
+        Thread.sleep(150);
+        scheduler.aggregateMetrics();
+
+        assertEquals(1, registry.get("gameperf.scheduler.overruns").counter().count());
+        scheduler.healthCheck();
+    }
+}
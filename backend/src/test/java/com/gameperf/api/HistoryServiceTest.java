@@ -0,0 +1,126 @@
+package com.gameperf.api;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.persistence.SampleLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HistoryService.
+ */
+@DisplayName("HistoryService Tests")
+class HistoryServiceTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    // Like Spring's mapper, ignore the timestamp and session id GameMetric has no field for
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should replay a session as metrics that analyze like the original samples")
+    void testSessionReplay() throws IOException {
+        try (SampleLog sampleLog = new SampleLog(directory, 64, Duration.ofDays(3650), 8)) {
+            List<MetricSample> samples = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                samples.add(new MetricSample("Neon Havoc", i % 2 == 0 ? "replay-1" : "replay-2",
+                        START + i, 60 + i % 50, 40 + i % 30, 50, 20 + i % 10, 70));
+            }
+            sampleLog.appendAll(samples);
+            HistoryService service = new HistoryService(Optional.of(sampleLog));
+
+            List<GameMetric> replayed = read(service.session("replay-1", Long.MIN_VALUE, Long.MAX_VALUE));
+
+            List<GameMetric> expected = new ArrayList<>();
+            for (int i = 0; i < 100; i += 2) {
+                MetricSample s = samples.get(i);
+                expected.add(new GameMetric(s.getGame(), s.getFps(), s.getCpuUsage(), s.getGpuUsage(),
+                        s.getLatencyMs(), s.getTemperatureC(),
+                        GameMetric.performanceScore(s.getFps(), s.getCpuUsage(), s.getGpuUsage(), s.getLatencyMs()),
+                        GameMetric.stabilityIndex(s.getCpuUsage(), s.getGpuUsage())));
+            }
+            assertEquals(expected, replayed);
+
+            GameAnalyticsService analytics = new GameAnalyticsService();
+            assertEquals(analytics.analyzeSession(expected), analytics.analyzeSession(replayed));
+            assertNull(service.session("unknown", Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    @DisplayName("Should return raw samples of a range, or per-game point means with a step")
+    void testRange() throws IOException {
+        try (SampleLog sampleLog = new SampleLog(directory, 64, Duration.ofDays(3650), 8)) {
+            List<MetricSample> samples = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                samples.add(new MetricSample(i % 2 == 0 ? "Neon Havoc" : "Shadow Protocol", null,
+                        START + i * 100L, 100 + i, 50, 50, 20, 70));
+            }
+            sampleLog.appendAll(samples);
+            HistoryService service = new HistoryService(Optional.of(sampleLog));
+
+            List<Map<String, Object>> raw = readMaps(service.range("Neon Havoc", START + 1000, START + 2000, null));
+            assertEquals(5, raw.size());
+            assertEquals(START + 1000, ((Number) raw.get(0).get("timestamp")).longValue());
+            assertEquals(110, raw.get(0).get("avgFps"));
+
+            List<Map<String, Object>> points = readMaps(service.range(null, START, START + 2000, 1000L));
+            assertEquals(4, points.size(), "Two points for each of the two games");
+            assertEquals("Neon Havoc", points.get(0).get("name"));
+            assertEquals(5, points.get(0).get("samples"));
+            assertEquals(104, points.get(0).get("avgFps"), "Mean of fps 100, 102, 104, 106, 108");
+            assertEquals("Shadow Protocol", points.get(1).get("name"));
+            assertEquals(START + 1000, ((Number) points.get(2).get("timestamp")).longValue());
+
+            assertThrows(IllegalArgumentException.class, () -> service.range(null, START, START, null));
+            assertThrows(IllegalArgumentException.class, () -> service.range(null, START, START + 1_000_000, 1L));
+            assertThrows(IllegalArgumentException.class, () -> service.range(null, Long.MIN_VALUE, START, 1000L),
+                    "An overflowing range should be rejected before the body is streamed");
+            assertDoesNotThrow(() -> readMaps(service.range(null, START, Long.MAX_VALUE, Long.MAX_VALUE - 1)),
+                    "Rounding the point count up should not overflow");
+        }
+    }
+
+    @Test
+    @DisplayName("Should report persistence as disabled without a sample log")
+    void testDisabled() {
+        HistoryService service = new HistoryService(Optional.empty());
+
+        assertFalse(service.isEnabled());
+        assertThrows(IllegalStateException.class, () -> service.session("s1", 0, 1));
+    }
+
+    private List<GameMetric> read(StreamingResponseBody body) throws IOException {
+        return objectMapper.readValue(write(body), new TypeReference<>() { });
+    }
+
+    private List<Map<String, Object>> readMaps(StreamingResponseBody body) throws IOException {
+        return objectMapper.readValue(write(body), new TypeReference<>() { });
+    }
+
+    private static byte[] write(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,44 @@
+package com.gameperf.api;
+
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.rollup.RollupStore;
+import com.gameperf.api.session.SessionRegistry;
+import com.gameperf.api.stats.PercentileTracker;
+import com.gameperf.api.store.AggregateRegistry;
+import com.gameperf.api.store.TimeSeriesStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MetricsIngestService.
+ */
+@DisplayName("MetricsIngestService Tests")
+class MetricsIngestServiceTest {
+
+    @Test
+    @DisplayName("Should reject samples of new games past the game cap before they are stored")
+    void testGameCap() {
+        TimeSeriesStore store = new TimeSeriesStore(16);
+        MetricsIngestService service = new MetricsIngestService(store,
+                new SessionRegistry(new GameAnalyticsService(new SimpleMeterRegistry())), new PercentileTracker(),
+                new RollupStore(), new AggregateRegistry(), Optional.empty(), new SimpleMeterRegistry(), 2);
+
+        assertEquals(Map.of("accepted", 2, "rejected", 0), service.ingest(List.of(sample("A"), sample("B"))));
+        assertEquals(Map.of("accepted", 2, "rejected", 1), service.ingest(List.of(sample("C"), sample("A"), sample("B"))));
+
+        assertEquals(2, service.getGameCount());
+        assertEquals(List.of("A", "B"), store.getGames());
+        assertNull(store.getSeries("C"), "No series should be created for a rejected game");
+    }
+
+    private static MetricSample sample(String game) {
+        return new MetricSample(game, null, 0, 120, 50, 60, 20, 60);
+    }
+}
@@ -0,0 +1,123 @@
+package com.gameperf.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for SessionController.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DisplayName("SessionController Integration Tests")
+class SessionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Should open a session, append samples and analyze it")
+    void testSessionLifecycle() throws Exception {
+        String response = mockMvc.perform(post("/api/sessions").param("game", "Cyber Drift X"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.sessionId", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+        String sessionId = (String) objectMapper.readValue(response, Map.class).get("sessionId");
+
+        String samples = """
+            [
+              {"game": "Cyber Drift X", "fps": 144, "cpuUsage": 60, "gpuUsage": 65, "latencyMs": 20, "temperatureC": 65},
+              {"game": "Cyber Drift X", "fps": 90, "cpuUsage": 62, "gpuUsage": 67, "latencyMs": 22, "temperatureC": 66}
+            ]
+            """;
+        mockMvc.perform(post("/api/sessions/" + sessionId + "/samples")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(samples))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sampleCount", is(2)));
+
+        mockMvc.perform(get("/api/sessions/" + sessionId + "/analysis"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessionId", is(sessionId)))
+                .andExpect(jsonPath("$.sessionStable", is(false)))
+                .andExpect(jsonPath("$.fpsVariance", is(729.0)))
+                .andExpect(jsonPath("$.recommendation", containsString("Unstable FPS")));
+
+        mockMvc.perform(delete("/api/sessions/" + sessionId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sampleCount", is(2)));
+
+        mockMvc.perform(get("/api/sessions/" + sessionId + "/analysis"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should return 404 for unknown sessions")
+    void testUnknownSession() throws Exception {
+        mockMvc.perform(get("/api/sessions/unknown/analysis"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", containsString("unknown")));
+    }
+
+    @Test
+    @DisplayName("Ingested samples should be tracked in their session")
+    void testIngestFeedsSession() throws Exception {
+        String body = """
+            [
+              {"game": "Neon Havoc", "sessionId": "ingest-session", "fps": 132, "cpuUsage": 64,
+               "gpuUsage": 71, "latencyMs": 25, "temperatureC": 69}
+            ]
+            """;
+        mockMvc.perform(post("/api/metrics/ingest")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/sessions/ingest-session/analysis"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.game", is("Neon Havoc")))
+                .andExpect(jsonPath("$.sampleCount", is(1)));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid samples with 400 and fill in the session's game")
+    void testInvalidSamples() throws Exception {
+        String response = mockMvc.perform(post("/api/sessions").param("game", "Shadow Protocol"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String sessionId = (String) objectMapper.readValue(response, Map.class).get("sessionId");
+
+        for (String body : new String[] {
+                "[null]",
+                "[{\"fps\": 90}, {\"fps\": 90, \"cpuUsage\": 500}]",
+                "[{\"fps\": -1}]"}) {
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/samples")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", startsWith("Invalid sample at index")));
+        }
+
+        mockMvc.perform(post("/api/sessions/" + sessionId + "/samples")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"fps\": 90, \"cpuUsage\": 50}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sampleCount", is(1)));
+        mockMvc.perform(get("/api/sessions/" + sessionId + "/analysis"))
+                .andExpect(jsonPath("$.game", is("Shadow Protocol")));
+    }
+}
@@ -0,0 +1,144 @@
+package com.gameperf.api.importer;
+
+import com.gameperf.api.model.MetricSample;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CSV and NDJSON sample readers.
+ */
+@DisplayName("SampleReader Tests")
+class SampleReaderTest {
+
+    @Test
+    @DisplayName("Should map CSV columns by header name in any order")
+    void testCsvColumns() throws IOException {
+        List<MetricSample> samples = readAll(ImportFormat.CSV, """
+            fps,Game,ignored,latency_ms,sessionId,timestamp\r
+            144,Neon Havoc,x,21,s-1,1735689600000\r
+            \r
+            59.5, "Quoted, \"\"Name\"\"\" ,y,30,,5
+            """);
+
+        assertEquals(2, samples.size());
+        MetricSample first = samples.get(0);
+        assertEquals("Neon Havoc", first.getGame());
+        assertEquals("s-1", first.getSessionId());
+        assertEquals(1735689600000L, first.getTimestamp());
+        assertEquals(144, first.getFps());
+        assertEquals(21, first.getLatencyMs());
+        assertEquals(0, first.getCpuUsage(), "Missing columns should default to 0");
+
+        MetricSample second = samples.get(1);
+        assertEquals("Quoted, \"Name\"", second.getGame());
+        assertNull(second.getSessionId(), "Empty session should be null");
+        assertEquals(60, second.getFps(), "Fractions should be rounded");
+    }
+
+    @Test
+    @DisplayName("Should count malformed CSV lines and reject headers without game or fps")
+    void testCsvMalformed() throws IOException {
+        SampleReader reader = SampleReader.of(ImportFormat.CSV, stream("""
+            game,fps
+            Game1,abc
+            ,60
+            Game1,"unterminated
+            Game1,61
+            """));
+        List<MetricSample> samples = new ArrayList<>();
+        reader.readBatch(samples, 100);
+
+        assertEquals(1, samples.size());
+        assertEquals(3, reader.getMalformed());
+        assertEquals(5, reader.getLines());
+
+        SampleReader noFps = SampleReader.of(ImportFormat.CSV, stream("game,cpu\nGame1,50\n"));
+        assertThrows(IllegalArgumentException.class, () -> noFps.readBatch(new ArrayList<>(), 100));
+    }
+
+    @Test
+    @DisplayName("Should parse NDJSON lines and skip malformed ones")
+    void testNdjson() throws IOException {
+        SampleReader reader = SampleReader.of(ImportFormat.NDJSON, stream("""
+            {"game":"Game1","sessionId":"s-1","timestamp":5,"fps":144,"extra":{"a":[1,2]},"temperatureC":70}
+            {"game":"Game1","fps":
+            [1, 2]
+            {"fps": 60}
+            {"game":"Game2","fps":90}
+            """));
+        List<MetricSample> samples = new ArrayList<>();
+        reader.readBatch(samples, 100);
+
+        assertEquals(2, samples.size());
+        assertEquals(3, reader.getMalformed());
+        assertEquals("s-1", samples.get(0).getSessionId());
+        assertEquals(70, samples.get(0).getTemperatureC());
+        assertEquals("Game2", samples.get(1).getGame());
+    }
+
+    @Test
+    @DisplayName("Should read a stream larger than the buffer in bounded batches")
+    void testLargeStream() throws IOException {
+        int lines = 50_000;
+        StringBuilder csv = new StringBuilder("game,sessionId,fps\n");
+        for (int i = 0; i < lines; i++) {
+            csv.append("Game").append(i % 3).append(",session-").append(i / 1000).append(',').append(i % 200).append('\n');
+        }
+        // Deliver the data in small reads so lines straddle buffer refills
+        InputStream in = new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 777));
+            }
+        };
+        SampleReader reader = SampleReader.of(ImportFormat.CSV, in);
+
+        List<MetricSample> batch = new ArrayList<>();
+        int total = 0;
+        long fpsSum = 0;
+        int read;
+        while ((read = reader.readBatch(batch, 4096)) > 0) {
+            assertTrue(batch.size() <= 4096, "Batches should be bounded");
+            total += read;
+            for (MetricSample sample : batch) {
+                fpsSum += sample.getFps();
+            }
+            batch.clear();
+        }
+
+        assertEquals(lines, total);
+        assertEquals(0, reader.getMalformed());
+        assertEquals(lines / 200 * (199 * 200 / 2), fpsSum);
+    }
+
+    @Test
+    @DisplayName("Should resolve the format from name, content type or file name")
+    void testResolveFormat() {
+        assertEquals(ImportFormat.NDJSON, ImportFormat.resolve("jsonl", "text/csv", null));
+        assertEquals(ImportFormat.CSV, ImportFormat.resolve(null, "text/csv; charset=UTF-8", null));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.resolve(null, null, "replay.ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> ImportFormat.resolve(null, "text/plain", "x.bin"));
+    }
+
+    private static List<MetricSample> readAll(ImportFormat format, String content) throws IOException {
+        SampleReader reader = SampleReader.of(format, stream(content));
+        List<MetricSample> samples = new ArrayList<>();
+        while (reader.readBatch(samples, 100) > 0) {
+            // keep reading
+        }
+        return samples;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,324 @@
+package com.gameperf.api.persistence;
+
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.store.TimeSeriesStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SampleLog and SampleLogRecovery.
+ */
+@DisplayName("SampleLog Tests")
+class SampleLogTest {
+
+    private static final Duration RETENTION = Duration.ofDays(3);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should replay appended samples with their names")
+    void testAppendAndReplay() throws IOException {
+        try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION)) {
+            sampleLog.appendAll(List.of(
+                sample("Neon Havoc", "s1", 1000, 132),
+                sample("Cyber Drift X", null, 1001, 144)
+            ));
+
+            List<String> replayed = replay(sampleLog, Long.MAX_VALUE);
+
+            assertEquals(List.of("Neon Havoc/s1/1000/132", "Cyber Drift X/null/1001/144"), replayed);
+        }
+    }
+
+    @Test
+    @DisplayName("Should recover records and dictionary after reopening")
+    void testReopen() throws IOException {
+        try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION)) {
+            sampleLog.appendAll(List.of(sample("Neon Havoc", "s1", 1000, 132)));
+        }
+        try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION)) {
+            assertEquals(1, sampleLog.getRecordCount(), "Preallocated space should not count as records");
+
+            sampleLog.appendAll(List.of(sample("Neon Havoc", "s2", 1001, 133)));
+
+            assertEquals(List.of("Neon Havoc/s1/1000/132", "Neon Havoc/s2/1001/133"),
+                    replay(sampleLog, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject names that do not fit a dictionary entry")
+    void testNameLength() throws IOException {
+        String longest = "x".repeat(SampleLog.MAX_NAME_BYTES);
+        try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> sampleLog.appendAll(List.of(sample(longest + "x", "s1", 1000, 132))));
+            assertThrows(IllegalArgumentException.class,
+                    () -> sampleLog.appendAll(List.of(sample("Neon Havoc", longest + "x", 1000, 132))));
+            assertEquals(0, sampleLog.getRecordCount(), "A rejected name should not write a record");
+
+            sampleLog.appendAll(List.of(sample(longest, "s1", 1001, 133)));
+        }
+        try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION)) {
+            assertEquals(List.of(longest + "/s1/1001/133"), replay(sampleLog, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    @DisplayName("Should write the new names of a batch together and keep their ids across reopening")
+    void testBatchDictionary() throws IOException {
+        String tooLong = "x".repeat(SampleLog.MAX_NAME_BYTES + 1);
+        try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION)) {
+            assertThrows(IllegalArgumentException.class, () -> sampleLog.appendAll(List.of(
+                sample("Neon Havoc", "s1", 1000, 132),
+                sample("Cyber Drift X", "s2", 1001, 144),
+                sample("Neon Havoc", "s2", 1002, 130),
+                sample(tooLong, "s3", 1003, 120),
+                sample("Neon Havoc", "s4", 1004, 128)
+            )));
+            assertEquals(3, sampleLog.getRecordCount(), "Samples before the rejected name should be appended");
+
+            sampleLog.appendAll(List.of(sample("Star Forge", "s3", 1005, 90), sample("Cyber Drift X", "s1", 1006, 141)));
+        }
+        try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION)) {
+            assertEquals(List.of("Neon Havoc/s1/1000/132", "Cyber Drift X/s2/1001/144", "Neon Havoc/s2/1002/130",
+                    "Star Forge/s3/1005/90", "Cyber Drift X/s1/1006/141"), replay(sampleLog, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    @DisplayName("Should discard a torn record at the tail")
+    void testTornTail() throws IOException {
+        try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION)) {
+            sampleLog.appendAll(List.of(
+                sample("Neon Havoc", null, 1000, 132),
+                sample("Neon Havoc", null, 1001, 133)
+            ));
+        }
+        // Corrupt the second record as if the process died mid-write
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3}), SampleLog.RECORD_SIZE + SampleLog.FPS_OFFSET);
+        }
+
+        try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION)) {
+            assertEquals(1, sampleLog.getRecordCount());
+            sampleLog.appendAll(List.of(sample("Neon Havoc", null, 1002, 134)));
+
+            assertEquals(List.of("Neon Havoc/null/1000/132", "Neon Havoc/null/1002/134"),
+                    replay(sampleLog, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    @DisplayName("Should roll segments and delete expired ones")
+    void testRollingAndRetention() throws IOException {
+        try (SampleLog sampleLog = new SampleLog(directory, 4, Duration.ofMillis(10))) {
+            List<MetricSample> samples = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                samples.add(sample("Neon Havoc", null, 1000 + i, 100 + i));
+            }
+            sampleLog.appendAll(samples);
+
+            // Timestamps are from 1970, so every sealed segment is already expired
+            assertEquals(1, sampleLog.getSegmentCount(), "Expired sealed segments should be deleted on roll");
+            assertEquals(1, segments().size());
+            assertEquals(2, sampleLog.getRecordCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Should expire segments by their newest sample, also without appends")
+    void testRetentionByNewestSample() throws IOException {
+        long now = System.currentTimeMillis();
+        try (SampleLog sampleLog = new SampleLog(directory, 2, Duration.ofHours(1))) {
+            // A late sample from the past ends the first segment, which holds a recent one
+            sampleLog.appendAll(List.of(
+                sample("Neon Havoc", null, now, 100),
+                sample("Neon Havoc", null, 1000, 101),
+                sample("Neon Havoc", null, now + 1, 102)
+            ));
+            assertEquals(2, sampleLog.getSegmentCount(), "A segment with a recent sample should be kept");
+
+            assertEquals(0, sampleLog.enforceRetention(now + Duration.ofMinutes(59).toMillis()));
+            assertEquals(1, sampleLog.enforceRetention(now + Duration.ofMinutes(61).toMillis()),
+                    "The segment should expire once its newest sample is older than the retention");
+            assertEquals(1, sampleLog.getSegmentCount());
+            assertEquals(List.of("Neon Havoc/null/" + (now + 1) + "/102"), replay(sampleLog, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    @DisplayName("Should evict sessions without retained records from memory and the dictionary")
+    void testSessionEviction() throws IOException {
+        long now = System.currentTimeMillis();
+        try (SampleLog sampleLog = new SampleLog(directory, 4, Duration.ofHours(1))) {
+            List<MetricSample> samples = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                samples.add(sample("Neon Havoc", "expired-" + i, 1000 + i, 100));
+            }
+            sampleLog.appendAll(samples);
+
+            sampleLog.appendAll(List.of(
+                sample("Neon Havoc", "live", now, 120),
+                sample("Neon Havoc", "live", now + 1, 121),
+                sample("Neon Havoc", "live", now + 2, 122),
+                sample("Neon Havoc", null, now + 3, 123),
+                sample("Neon Havoc", "live", now + 4, 124)
+            ));
+
+            assertEquals(1, sampleLog.getSessionCount(), "Only the session with retained records should be kept");
+            assertFalse(sampleLog.hasSession("expired-0"));
+            assertEquals(3 + "Neon Havoc".length() + 7 + "live".length(),
+                    Files.size(directory.resolve(SampleLog.DICTIONARY_FILE)), "One game and one session entry");
+        }
+        try (SampleLog sampleLog = new SampleLog(directory, 4, Duration.ofHours(1))) {
+            assertEquals(1, sampleLog.getSessionCount());
+            assertEquals(List.of("Neon Havoc/live/" + now + "/120", "Neon Havoc/live/" + (now + 1) + "/121",
+                    "Neon Havoc/live/" + (now + 2) + "/122", "Neon Havoc/null/" + (now + 3) + "/123",
+                    "Neon Havoc/live/" + (now + 4) + "/124"), replay(sampleLog, Long.MAX_VALUE));
+
+            sampleLog.appendAll(List.of(sample("Neon Havoc", "new", now + 5, 125)));
+            List<String> sessions = new ArrayList<>();
+            sampleLog.select(null, "new", now, now + 10).forEach((timestamp, gameId, sessionId, fps, cpu, gpu,
+                    latency, temperature) -> sessions.add(sampleLog.sessionName(sessionId)));
+            assertEquals(List.of("new"), sessions);
+        }
+    }
+
+    @Test
+    @DisplayName("Should only replay the newest records across segments")
+    void testReplayLimit() throws IOException {
+        try (SampleLog sampleLog = new SampleLog(directory, 4, RETENTION)) {
+            List<MetricSample> samples = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < 10; i++) {
+                samples.add(sample("Neon Havoc", null, now + i, 100 + i));
+            }
+            sampleLog.appendAll(samples);
+
+            assertEquals(3, sampleLog.getSegmentCount());
+            List<String> replayed = replay(sampleLog, 5);
+            assertEquals(5, replayed.size());
+            assertTrue(replayed.get(0).endsWith("/105"), "Replay should start at the fifth newest record");
+        }
+    }
+
+    @Test
+    @DisplayName("Should rebuild the time-series store at startup")
+    void testRecovery() throws IOException {
+        try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION)) {
+            sampleLog.appendAll(List.of(
+                sample("Neon Havoc", "s1", 1000, 130),
+                sample("Neon Havoc", "s1", 1001, 134)
+            ));
+            TimeSeriesStore store = new TimeSeriesStore();
+
+            long replayed = new SampleLogRecovery(sampleLog, store, 1000).recover();
+
+            assertEquals(2, replayed);
+            assertEquals(132, store.latestWindow(5000).get(0).getAvgFps());
+        }
+    }
+
+    @Test
+    @DisplayName("Should only read the index blocks of the requested game, session and time range")
+    void testSelect() throws IOException {
+        try (SampleLog sampleLog = new SampleLog(directory, 64, RETENTION, 8)) {
+            long now = System.currentTimeMillis();
+            List<MetricSample> samples = new ArrayList<>();
+            for (int i = 0; i < 256; i++) {
+                // Blocks of eight records alternate between the two games; s7 spans records 56-63
+                String game = (i / 8) % 2 == 0 ? "Neon Havoc" : "Cyber Drift X";
+                samples.add(sample(game, "s" + i / 8, now + i, 100 + i % 100));
+            }
+            sampleLog.appendAll(samples);
+            assertEquals(4, sampleLog.getSegmentCount());
+
+            RecordScan range = sampleLog.select(null, null, now + 100, now + 110);
+            assertEquals(10, range.forEach((timestamp, gameId, sessionId, fps, cpu, gpu, latency, temperature) -> { }));
+            assertEquals(16, range.getCandidateCount(), "Only the two blocks overlapping the range should be read");
+
+            RecordScan game = sampleLog.select("Cyber Drift X", null, now, now + 64);
+            assertEquals(32, game.forEach((timestamp, gameId, sessionId, fps, cpu, gpu, latency, temperature) ->
+                    assertEquals("Cyber Drift X", sampleLog.gameName(gameId))));
+            assertEquals(32, game.getCandidateCount());
+
+            List<String> session = new ArrayList<>();
+            RecordScan sessionScan = sampleLog.select(null, "s7", Long.MIN_VALUE, Long.MAX_VALUE);
+            sessionScan.forEach((timestamp, gameId, sessionId, fps, cpu, gpu, latency, temperature) ->
+                    session.add(sampleLog.sessionName(sessionId) + "/" + (timestamp - now)));
+            assertEquals(8, session.size());
+            assertEquals("s7/56", session.get(0));
+            assertEquals(8, sessionScan.getCandidateCount());
+
+            assertTrue(sampleLog.hasSession("s7"));
+            assertFalse(sampleLog.hasSession("unknown"));
+            assertEquals(0, sampleLog.select("Unknown", null, now, now + 256).getCandidateCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Should load sealed segment indexes on reopen and rebuild missing ones")
+    void testIndexReopen() throws IOException {
+        long now = System.currentTimeMillis();
+        try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION, 4)) {
+            List<MetricSample> samples = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                samples.add(sample(i % 2 == 0 ? "Neon Havoc" : "Shadow Protocol", "s" + i / 10, now + i, 100));
+            }
+            sampleLog.appendAll(samples);
+        }
+        List<Path> indexes;
+        try (Stream<Path> files = Files.list(directory)) {
+            indexes = files.filter(p -> p.toString().endsWith(SampleLog.INDEX_SUFFIX)).sorted().toList();
+        }
+        assertEquals(2, indexes.size(), "Every sealed segment should have an index file");
+        Files.delete(indexes.get(1));
+
+        for (int reopen = 0; reopen < 2; reopen++) {
+            try (SampleLog sampleLog = new SampleLog(directory, 16, RETENTION, 4)) {
+                RecordScan scan = sampleLog.select("Shadow Protocol", "s2", now, now + 40);
+                List<Long> offsets = new ArrayList<>();
+                scan.forEach((timestamp, gameId, sessionId, fps, cpu, gpu, latency, temperature) ->
+                        offsets.add(timestamp - now));
+                assertEquals(List.of(21L, 23L, 25L, 27L, 29L), offsets);
+                assertEquals(12, scan.getCandidateCount(), "Session s2 spans records 20-29, three blocks");
+            }
+            assertTrue(Files.exists(indexes.get(1)), "A missing index should be rebuilt and saved");
+        }
+    }
+
+    private List<String> replay(SampleLog sampleLog, long maxRecords) {
+        List<String> result = new ArrayList<>();
+        sampleLog.replay((timestamp, gameId, sessionId, fps, cpu, gpu, latency, temperature) ->
+                result.add(sampleLog.gameName(gameId) + "/" + sampleLog.sessionName(sessionId)
+                        + "/" + timestamp + "/" + fps), maxRecords);
+        return result;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.toString().endsWith(SampleLog.SEGMENT_SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static MetricSample sample(String game, String session, long timestamp, int fps) {
+        return new MetricSample(game, session, timestamp, fps, 60, 70, 20, 65);
+    }
+}
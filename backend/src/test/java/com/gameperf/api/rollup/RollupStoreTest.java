@@ -0,0 +1,104 @@
+package com.gameperf.api.rollup;
+
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.stats.RunningStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RollupStore.
+ */
+@DisplayName("RollupStore Tests")
+class RollupStoreTest {
+
+    private static final long NOW = 1_800_000_000_000L;
+    private static final long HOUR = 3_600_000L;
+
+    private RollupStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new RollupStore();
+    }
+
+    @Test
+    @DisplayName("Should pick the coarsest resolution fitting step and range")
+    void testChooseResolution() {
+        assertEquals(Resolution.HOUR, RollupStore.chooseResolution(NOW - 24 * HOUR, HOUR, NOW));
+        assertEquals(Resolution.MINUTE, RollupStore.chooseResolution(NOW - 24 * HOUR, 5 * 60_000, NOW));
+        assertEquals(Resolution.SECOND, RollupStore.chooseResolution(NOW - 60_000, 10_000, NOW));
+        assertEquals(Resolution.MINUTE, RollupStore.chooseResolution(NOW - 2 * HOUR, 1_000, NOW),
+                "Second buckets no longer cover the range, so minutes should be used");
+        assertEquals(Resolution.HOUR, RollupStore.chooseResolution(NOW - 100 * 24 * HOUR, 60_000, NOW));
+    }
+
+    @Test
+    @DisplayName("Should match raw-sample mean and variance")
+    void testAggregatesMatchRawSamples() {
+        Random random = new Random(7);
+        List<MetricSample> samples = new ArrayList<>();
+        RunningStats fps = new RunningStats();
+        for (int i = 0; i < 5000; i++) {
+            int value = 60 + random.nextInt(120);
+            samples.add(new MetricSample("Neon Havoc", null, NOW - 24 * HOUR + i * 10_000L,
+                    value, 60, 70, 20 + random.nextInt(10), 65));
+            fps.add(value);
+        }
+        store.recordAll(samples);
+
+        Map<String, Object> result = store.query("Neon Havoc", NOW - 24 * HOUR, NOW, 24 * HOUR, NOW);
+
+        assertEquals("1h", result.get("resolution"));
+        List<Map<String, Object>> points = points(result);
+        assertEquals(1, points.size(), "A step as wide as the range should yield one point");
+        Map<String, Object> point = points.get(0);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> fpsStats = (Map<String, Object>) point.get("fps");
+        assertEquals(5000L, point.get("count"));
+        assertEquals(Math.round(fps.getMean() * 100.0) / 100.0, (double) fpsStats.get("mean"), 0.01);
+        assertEquals(Math.sqrt(fps.getVariance()), (double) fpsStats.get("stddev"), 0.01);
+        assertEquals((int) fps.getMin(), fpsStats.get("min"));
+        assertTrue(fpsStats.containsKey("p99"), "FPS should carry percentiles");
+    }
+
+    @Test
+    @DisplayName("Should split the range into aligned points")
+    void testPoints() {
+        store.recordAll(List.of(
+            new MetricSample("Neon Havoc", null, NOW - 90_000, 100, 60, 70, 20, 65),
+            new MetricSample("Neon Havoc", null, NOW - 80_000, 120, 60, 70, 20, 65),
+            new MetricSample("Neon Havoc", null, NOW - 10_000, 140, 60, 70, 20, 65)
+        ));
+
+        Map<String, Object> result = store.query("Neon Havoc", NOW - 120_000, NOW, 60_000, NOW);
+
+        assertEquals("1m", result.get("resolution"));
+        List<Map<String, Object>> points = points(result);
+        assertEquals(2, points.size());
+        assertEquals(2L, points.get(0).get("count"));
+        assertEquals(1L, points.get(1).get("count"));
+    }
+
+    @Test
+    @DisplayName("Should reject queries with too many points")
+    void testTooManyPoints() {
+        store.recordAll(List.of(new MetricSample("Neon Havoc", null, NOW, 100, 60, 70, 20, 65)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.query("Neon Havoc", NOW - HOUR, NOW + 365 * 24 * HOUR, 60_000, NOW));
+        assertNull(store.query("Unknown", NOW - HOUR, NOW, 60_000, NOW), "Unknown games should yield null");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> points(Map<String, Object> result) {
+        return (List<Map<String, Object>>) result.get("points");
+    }
+}
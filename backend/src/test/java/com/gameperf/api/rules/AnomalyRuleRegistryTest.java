@@ -0,0 +1,68 @@
+package com.gameperf.api.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AnomalyRuleRegistry loading and hot reload.
+ */
+@DisplayName("AnomalyRuleRegistry Tests")
+class AnomalyRuleRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should hot-reload a changed rules file and keep the old rules on a bad edit")
+    void testReload() throws IOException {
+        Path file = directory.resolve("rules.json");
+        write(file, "{\"games\": {\"Neon Havoc\": {\"anomaly\": {\"minFps\": 45}}}}", 1);
+        AnomalyRuleRegistry registry = new AnomalyRuleRegistry(file, new ObjectMapper(), new SimpleMeterRegistry());
+
+        assertEquals(45, minFps(registry));
+        assertFalse(registry.reloadIfChanged(), "Unchanged file should not be reloaded");
+
+        write(file, "{\"games\": {\"Neon Havoc\": {\"anomaly\": {\"minFps\": 50}}}}", 2);
+        assertTrue(registry.reloadIfChanged());
+        assertEquals(50, minFps(registry));
+        assertEquals(2L, registry.describe().get("version"));
+
+        write(file, "{\"games\": {\"Neon Havoc\": {\"anomaly\": {\"minFPS\": 20}}}}", 3);
+        assertFalse(registry.reloadIfChanged(), "Misspelled limit should be rejected");
+        assertEquals(50, minFps(registry), "Previous rules should stay active");
+        assertNotNull(registry.describe().get("lastError"));
+    }
+
+    @Test
+    @DisplayName("Should fail at startup on an invalid rules file and default without one")
+    void testStartup() throws IOException {
+        Path file = directory.resolve("rules.json");
+        write(file, "{\"games\": {\"G\": {\"tier\": \"missing\"}}}", 1);
+
+        assertThrows(IllegalStateException.class,
+                () -> new AnomalyRuleRegistry(file, new ObjectMapper(), new SimpleMeterRegistry()));
+        AnomalyRuleRegistry defaults = new AnomalyRuleRegistry();
+        assertSame(RuleSet.DEFAULT, defaults.getRules());
+        assertFalse(defaults.reloadIfChanged());
+    }
+
+    private static int minFps(AnomalyRuleRegistry registry) {
+        return registry.getRules().forGame("Neon Havoc").anomaly().getMinFps();
+    }
+
+    private static void write(Path file, String content, int generation) throws IOException {
+        Files.writeString(file, content);
+        // Distinct modification times even when edits land within the file system's timestamp granularity
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_700_000_000_000L + generation * 1000L));
+    }
+}
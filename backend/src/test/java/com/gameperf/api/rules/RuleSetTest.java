@@ -0,0 +1,75 @@
+package com.gameperf.api.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameperf.api.stats.AnomalyEvaluator;
+import com.gameperf.api.stats.StabilityThresholds;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RuleSet compilation.
+ */
+@DisplayName("RuleSet Tests")
+class RuleSetTest {
+
+    private static final String RULES = """
+        {
+          "defaults": {"anomaly": {"maxTemperature": 85}},
+          "tiers": {
+            "low-end": {"anomaly": {"minFps": 30}, "stability": {"maxFpsVariance": 80}}
+          },
+          "games": {
+            "Neon Havoc": {"tier": "low-end", "anomaly": {"maxLatency": 40}},
+            "Cyber Drift X": {"stability": {"maxLatencyVariance": 5}}
+          }
+        }
+        """;
+
+    @Test
+    @DisplayName("Should resolve game over tier over defaults over built-in thresholds")
+    void testInheritance() throws Exception {
+        RuleSet rules = RuleSet.compile(new ObjectMapper().readValue(RULES, RuleDefinition.class));
+
+        AnomalyEvaluator neon = rules.forGame("Neon Havoc").anomaly();
+        assertEquals(85, neon.getMaxTemperature(), "From the defaults");
+        assertEquals(30, neon.getMinFps(), "From the tier");
+        assertEquals(40, neon.getMaxLatency(), "From the game");
+        assertEquals(90, neon.getMaxCpu(), "Built in");
+        assertEquals(80, rules.forGame("Neon Havoc").stability().maxFpsVariance());
+
+        StabilityThresholds cyber = rules.forGame("Cyber Drift X").stability();
+        assertEquals(5, cyber.maxLatencyVariance());
+        assertEquals(StabilityThresholds.DEFAULT.maxFpsVariance(), cyber.maxFpsVariance());
+
+        assertEquals(30, rules.resolve("Unknown Game", "low-end").anomaly().getMinFps(), "Tier when the game has no rule");
+        assertSame(rules.getDefaults(), rules.resolve(null, "unknown-tier"));
+        assertEquals(60, rules.forGame(null).anomaly().getMinFps());
+    }
+
+    @Test
+    @DisplayName("Should evaluate exactly like a hand-built evaluator with the same thresholds")
+    void testCompiledEvaluation() throws Exception {
+        RuleSet rules = RuleSet.compile(new ObjectMapper().readValue(RULES, RuleDefinition.class));
+        AnomalyEvaluator compiled = rules.forGame("Neon Havoc").anomaly();
+        AnomalyEvaluator expected = new AnomalyEvaluator(85, 30, 40, 90, 90);
+
+        for (int v = 0; v < 150; v += 7) {
+            assertEquals(expected.evaluate(v, v, v, v, v), compiled.evaluate(v, v, v, v, v));
+        }
+        assertEquals(AnomalyEvaluator.LOW_FPS | AnomalyEvaluator.HIGH_LATENCY, compiled.evaluate(29, 50, 50, 41, 85));
+        assertSame(AnomalyEvaluator.DEFAULT, RuleSet.DEFAULT.getDefaults().anomaly());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown tiers and invalid limits")
+    void testInvalidRules() {
+        ObjectMapper mapper = new ObjectMapper();
+
+        assertThrows(IllegalArgumentException.class, () -> RuleSet.compile(mapper.readValue(
+                "{\"games\": {\"G\": {\"tier\": \"missing\"}}}", RuleDefinition.class)));
+        assertThrows(IllegalArgumentException.class, () -> RuleSet.compile(mapper.readValue(
+                "{\"defaults\": {\"stability\": {\"maxFpsVariance\": -1}}}", RuleDefinition.class)));
+    }
+}
@@ -0,0 +1,170 @@
+package com.gameperf.api.session;
+
+import com.gameperf.api.GameAnalyticsService;
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.model.MetricSample;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SessionRegistry.
+ */
+@DisplayName("SessionRegistry Tests")
+class SessionRegistryTest {
+
+    private GameAnalyticsService analyticsService;
+    private SessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        analyticsService = new GameAnalyticsService();
+        registry = new SessionRegistry(analyticsService, 3, 1000);
+    }
+
+    @Test
+    @DisplayName("Incremental analysis should match analyzing the whole session at once")
+    void testIncrementalAnalysisMatchesBatch() {
+        LiveSession session = registry.open("Game1");
+        List<GameMetric> all = new ArrayList<>();
+
+        int[] fps = {144, 90, 160, 75};
+        for (int value : fps) {
+            registry.append(session.getId(), List.of(sample(session.getId(), value)));
+            all.add(new GameMetric("Game1", value, 60, 65, 20, 65, 0, 0));
+        }
+
+        Map<String, Object> incremental = registry.analyze(session.getId());
+        Map<String, Object> batch = analyticsService.analyzeSession(all);
+
+        assertEquals(4L, incremental.get("sampleCount"));
+        assertEquals(batch.get("fpsVariance"), incremental.get("fpsVariance"));
+        assertEquals(batch.get("sessionStable"), incremental.get("sessionStable"));
+        assertEquals(batch.get("recommendation"), incremental.get("recommendation"));
+    }
+
+    @Test
+    @DisplayName("Ingested samples should open sessions on first sight")
+    void testRecordAllOpensSessions() {
+        registry.recordAll(List.of(
+            sample("a", 144), sample("a", 140), sample("b", 120), sample(null, 100)
+        ));
+
+        assertEquals(2, registry.size(), "Samples without a session id should be ignored");
+        assertEquals(2, registry.get("a").getSampleCount());
+        assertEquals("Game1", registry.get("b").getGame());
+    }
+
+    @Test
+    @DisplayName("Should refuse new sessions beyond the limit")
+    void testSessionLimit() {
+        registry.open("Game1");
+        registry.open("Game1");
+        registry.open("Game1");
+
+        assertNull(registry.open("Game1"), "Fourth session should be refused");
+        assertEquals(3, registry.size());
+    }
+
+    @Test
+    @DisplayName("Concurrent opens should never exceed the limit and closing should free slots")
+    void testConcurrentSessionLimit() throws Exception {
+        SessionRegistry capped = new SessionRegistry(analyticsService, 50, 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<LiveSession>> opens = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                opens.add(executor.submit(() -> capped.open("Game1")));
+            }
+            List<LiveSession> opened = new ArrayList<>();
+            for (Future<LiveSession> open : opens) {
+                if (open.get() != null) {
+                    opened.add(open.get());
+                }
+            }
+            assertEquals(50, opened.size());
+            assertEquals(50, capped.size());
+
+            capped.close(opened.get(0).getId());
+            assertNotNull(capped.open("Game1"), "A closed session should free its slot");
+            assertNull(capped.open("Game1"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should evict idle sessions")
+    void testEvictIdle() {
+        LiveSession session = registry.open("Game1");
+
+        assertEquals(0, registry.evictIdle(session.getLastAccess() + 500), "Recent session should stay");
+        assertEquals(1, registry.evictIdle(session.getLastAccess() + 5000), "Idle session should be evicted");
+        assertNull(registry.analyze(session.getId()));
+    }
+
+    @Test
+    @DisplayName("Closing a session should return its final analysis and remove it")
+    void testClose() {
+        LiveSession session = registry.open("Game1");
+        registry.append(session.getId(), List.of(sample(session.getId(), 144)));
+
+        Map<String, Object> analysis = registry.close(session.getId());
+
+        assertNotNull(analysis);
+        assertTrue((Boolean) analysis.get("sessionStable"));
+        assertNull(registry.get(session.getId()));
+    }
+
+    @Test
+    @DisplayName("Empty session should report an error")
+    void testAnalyzeEmptySession() {
+        LiveSession session = registry.open("Game1");
+
+        Map<String, Object> analysis = registry.analyze(session.getId());
+
+        assertTrue(analysis.containsKey("error"));
+        assertEquals(0L, analysis.get("sampleCount"));
+    }
+
+    @Test
+    @DisplayName("Should report stutter bursts in the analysis and keep only the newest events")
+    void testStutterEvents() {
+        List<MetricSample> samples = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            // A four-frame drop every 100 frames, after a clean warm-up
+            boolean stutter = i >= 100 && i % 100 < 4;
+            samples.add(new MetricSample("Game1", "stuttering", 1_000 + i * 16L, stutter ? 40 : 144, 60, 65, 20, 65));
+        }
+        registry.recordAll(samples);
+
+        Map<String, Object> analysis = registry.analyze("stuttering");
+
+        assertEquals(29L, analysis.get("stutterEventCount"));
+        List<?> events = (List<?>) analysis.get("stutterEvents");
+        assertEquals(LiveSession.MAX_STUTTER_EVENTS, events.size(), "Only the newest events should be kept");
+        StutterEvent newest = (StutterEvent) events.get(events.size() - 1);
+        assertEquals("stuttering", newest.sessionId());
+        assertEquals("Game1", newest.game());
+        assertEquals(1_000 + 2_900 * 16L, newest.start());
+        assertEquals(4, newest.samples());
+
+        List<StutterEvent> streamed = new ArrayList<>();
+        assertEquals(29, registry.drainStutterEvents(streamed));
+        assertEquals(newest, streamed.get(28));
+        assertEquals(0, registry.drainStutterEvents(streamed));
+    }
+
+    private static MetricSample sample(String sessionId, int fps) {
+        return new MetricSample("Game1", sessionId, 1000, fps, 60, 65, 20, 65);
+    }
+}
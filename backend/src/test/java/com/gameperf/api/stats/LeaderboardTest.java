@@ -0,0 +1,67 @@
+package com.gameperf.api.stats;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Leaderboard.
+ */
+@DisplayName("Leaderboard Tests")
+class LeaderboardTest {
+
+    @Test
+    @DisplayName("Should move games as their values change")
+    void testUpdate() {
+        Leaderboard board = new Leaderboard();
+        board.update("A", 50);
+        board.update("B", 70);
+        board.update("C", 60);
+
+        assertEquals(List.of("B", "C"), names(board.highest(2)));
+        assertEquals(List.of("A", "C", "B"), names(board.lowest(5)), "k larger than the board returns all");
+
+        board.update("A", 90);
+        board.update("C", 70);
+        assertEquals(List.of("A", "C", "B"), names(board.highest(3)), "Ties are broken by name");
+        assertEquals(3, board.size(), "Updates should not duplicate games");
+
+        board.update("B", Double.NaN);
+        board.retainAll(Set.of("A", "X"));
+        assertEquals(List.of("A"), names(board.highest(3)));
+        assertEquals(1, board.size());
+    }
+
+    @Test
+    @DisplayName("Should agree with a full sort after many random updates")
+    void testMatchesSort() {
+        Leaderboard board = new Leaderboard();
+        Random random = new Random(5);
+        double[] values = new double[500];
+        for (int round = 0; round < 20_000; round++) {
+            int game = random.nextInt(values.length);
+            values[game] = random.nextInt(1000) / 10.0;
+            board.update("Game" + game, values[game]);
+        }
+
+        List<String> expected = IntStream.range(0, values.length).boxed()
+                .sorted((a, b) -> values[a] != values[b]
+                        ? Double.compare(values[b], values[a])
+                        : ("Game" + b).compareTo("Game" + a))
+                .limit(10)
+                .map(i -> "Game" + i)
+                .toList();
+        assertEquals(expected, names(board.highest(10)));
+        assertEquals(values.length, board.size());
+    }
+
+    private static List<String> names(List<Leaderboard.Entry> entries) {
+        return entries.stream().map(Leaderboard.Entry::name).toList();
+    }
+}
@@ -0,0 +1,119 @@
+package com.gameperf.api.stats;
+
+import com.gameperf.api.model.GameMetric;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RunningStats and MetricAccumulator.
+ */
+@DisplayName("MetricAccumulator Tests")
+class MetricAccumulatorTest {
+
+    @Test
+    @DisplayName("Should compute mean, variance, min and max in one pass")
+    void testRunningStats() {
+        RunningStats stats = new RunningStats();
+        for (int v : new int[] {144, 90, 160, 75}) {
+            stats.add(v);
+        }
+
+        assertEquals(4, stats.getCount());
+        assertEquals(117.25, stats.getMean(), 1e-9);
+        assertEquals(1267.6875, stats.getVariance(), 1e-9, "Should be the population variance");
+        assertEquals(75, stats.getMin());
+        assertEquals(160, stats.getMax());
+    }
+
+    @Test
+    @DisplayName("Should report zeros when empty")
+    void testEmptyStats() {
+        RunningStats stats = new RunningStats();
+
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getVariance());
+        assertEquals(0, stats.getMin());
+        assertEquals(0, stats.getMax());
+    }
+
+    @Test
+    @DisplayName("Should match the two-pass variance for large inputs")
+    void testMatchesTwoPassVariance() {
+        Random random = new Random(42);
+        int[] values = new int[100_000];
+        RunningStats stats = new RunningStats();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 60 + random.nextInt(200);
+            stats.add(values[i]);
+        }
+
+        double mean = 0;
+        for (int v : values) {
+            mean += v;
+        }
+        mean /= values.length;
+        double variance = 0;
+        for (int v : values) {
+            variance += (v - mean) * (v - mean);
+        }
+        variance /= values.length;
+
+        assertEquals(mean, stats.getMean(), 1e-9);
+        assertEquals(variance, stats.getVariance(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Merged accumulators should equal a single accumulator over all samples")
+    void testMerge() {
+        Random random = new Random(7);
+        MetricAccumulator all = new MetricAccumulator();
+        MetricAccumulator left = new MetricAccumulator();
+        MetricAccumulator right = new MetricAccumulator();
+
+        for (int i = 0; i < 1000; i++) {
+            GameMetric metric = new GameMetric("Game", 60 + random.nextInt(100), random.nextInt(100),
+                    random.nextInt(100), random.nextInt(80), 50 + random.nextInt(40), 0, 0);
+            all.add(metric);
+            (i < 300 ? left : right).add(metric);
+        }
+        left.merge(right);
+
+        assertEquals(all.getCount(), left.getCount());
+        assertEquals(all.getFps().getMean(), left.getFps().getMean(), 1e-9);
+        assertEquals(all.getFps().getVariance(), left.getFps().getVariance(), 1e-9);
+        assertEquals(all.getLatency().getVariance(), left.getLatency().getVariance(), 1e-9);
+        assertEquals(all.getCpu().getMin(), left.getCpu().getMin());
+        assertEquals(all.getGpu().getMax(), left.getGpu().getMax());
+    }
+
+    @Test
+    @DisplayName("Merging into an empty accumulator should copy the other side")
+    void testMergeIntoEmpty() {
+        MetricAccumulator empty = new MetricAccumulator();
+        MetricAccumulator other = new MetricAccumulator();
+        other.add(100, 50, 60, 20, 65);
+        other.add(120, 55, 65, 25, 66);
+
+        empty.merge(other);
+
+        assertEquals(2, empty.getCount());
+        assertEquals(110, empty.getFps().getMean(), 1e-9);
+        assertEquals(100, empty.getFps().getVariance(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Reset should return the accumulator to the empty state")
+    void testReset() {
+        MetricAccumulator accumulator = new MetricAccumulator();
+        accumulator.add(100, 50, 60, 20, 65);
+
+        accumulator.reset();
+
+        assertEquals(0, accumulator.getCount());
+        assertEquals(0, accumulator.getFps().getMean());
+    }
+}
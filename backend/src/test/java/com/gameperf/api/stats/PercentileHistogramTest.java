@@ -0,0 +1,100 @@
+package com.gameperf.api.stats;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PercentileHistogram and SlidingWindowHistogram.
+ */
+@DisplayName("PercentileHistogram Tests")
+class PercentileHistogramTest {
+
+    @Test
+    @DisplayName("Should report exact percentiles for small values")
+    void testExactSmallValues() {
+        PercentileHistogram histogram = new PercentileHistogram(5, 1000);
+        for (int v = 1; v <= 20; v++) {
+            histogram.record(v);
+        }
+
+        assertEquals(10, histogram.valueAtPercentile(50));
+        assertEquals(19, histogram.valueAtPercentile(95));
+        assertEquals(20, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    @DisplayName("Should stay within the relative error bound against sorted samples")
+    void testRelativeError() {
+        Random random = new Random(1);
+        PercentileHistogram histogram = new PercentileHistogram(5, 60_000);
+        int[] values = new int[50_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (int) Math.abs(random.nextGaussian() * 2000) + 10;
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double p : new double[] {50, 95, 99}) {
+            int exact = values[(int) Math.ceil(p / 100.0 * values.length) - 1];
+            double reported = histogram.valueAtPercentile(p);
+            assertEquals(exact, reported, exact * 0.07, "p" + p + " should be within bucket error");
+        }
+    }
+
+    @Test
+    @DisplayName("Bucket count should not depend on the number of samples")
+    void testFixedMemory() {
+        PercentileHistogram histogram = new PercentileHistogram(5, 60_000);
+        int buckets = histogram.getBucketCount();
+        for (int i = 0; i < 1_000_000; i++) {
+            histogram.record(i % 70_000);
+        }
+
+        assertEquals(buckets, histogram.getBucketCount());
+        assertEquals(1_000_000, histogram.getTotalCount());
+        assertTrue(histogram.valueAtPercentile(100) <= 60_000 * 1.04, "Values should be clamped to the max");
+    }
+
+    @Test
+    @DisplayName("Bucket indexes should be monotonic")
+    void testIndexMonotonic() {
+        PercentileHistogram histogram = new PercentileHistogram(5, 100_000);
+        int previous = -1;
+        for (int v = 0; v <= 100_000; v++) {
+            int index = histogram.indexOf(v);
+            assertTrue(index == previous || index == previous + 1, "Index should grow by at most one at " + v);
+            previous = index;
+        }
+    }
+
+    @Test
+    @DisplayName("Sliding window should forget slots that fell out of the window")
+    void testSlidingWindowExpiry() {
+        SlidingWindowHistogram window = new SlidingWindowHistogram(60_000, 12, 5, 1000);
+        long start = 1_000_000_000L;
+
+        window.record(10, start);
+        window.record(500, start + 59_000);
+
+        assertEquals(2, window.window(start + 59_000).getTotalCount());
+        assertEquals(1, window.window(start + 65_000).getTotalCount(), "First slot should have expired");
+        assertEquals(0, window.window(start + 200_000).getTotalCount(), "Whole window should have expired");
+    }
+
+    @Test
+    @DisplayName("Sliding window should reuse slots when the ring wraps around")
+    void testSlidingWindowWrap() {
+        SlidingWindowHistogram window = new SlidingWindowHistogram(1200, 12, 5, 1000);
+
+        for (long t = 0; t < 10_000; t += 10) {
+            window.record((int) (t % 100), t);
+        }
+
+        assertEquals(120, window.window(9_990).getTotalCount(), "Only the last 12 slots should be counted");
+    }
+}
@@ -0,0 +1,72 @@
+package com.gameperf.api.stats;
+
+import com.gameperf.api.model.MetricSample;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PercentileTracker.
+ */
+@DisplayName("PercentileTracker Tests")
+class PercentileTrackerTest {
+
+    @Test
+    @DisplayName("Should report p50/p95/p99 per game and window")
+    @SuppressWarnings("unchecked")
+    void testSnapshotPerGame() {
+        PercentileTracker tracker = new PercentileTracker();
+        List<MetricSample> samples = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            samples.add(new MetricSample("Game1", "s", 0, i, 50, 50, i, 60));
+        }
+        samples.add(new MetricSample("Game2", "s", 0, 60, 50, 50, 30, 60));
+        tracker.recordAll(samples);
+
+        List<Map<String, Object>> games = tracker.snapshot("1m");
+
+        assertEquals(2, games.size());
+        Map<String, Object> game1 = games.get(0);
+        assertEquals("Game1", game1.get("name"));
+        assertEquals(100L, game1.get("samples"));
+        Map<String, Object> latency = (Map<String, Object>) game1.get("latency");
+        assertEquals(50.0, (Double) latency.get("p50"), 2.0);
+        assertEquals(95.0, (Double) latency.get("p95"), 3.0);
+        assertEquals(99.0, (Double) latency.get("p99"), 3.0);
+    }
+
+    @Test
+    @DisplayName("Should visit one latency percentile per game")
+    void testForEachLatencyPercentile() {
+        PercentileTracker tracker = new PercentileTracker();
+        List<MetricSample> samples = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            samples.add(new MetricSample("Game1", "s", 0, 60, 50, 50, i, 60));
+        }
+        tracker.recordAll(samples);
+
+        Map<String, Double> p99 = new HashMap<>();
+        tracker.forEachLatencyPercentile("5m", 99, p99::put);
+
+        assertEquals(1, p99.size());
+        assertEquals(99.0, p99.get("Game1"), 3.0);
+        assertThrows(IllegalArgumentException.class, () -> tracker.forEachLatencyPercentile("2m", 99, p99::put));
+    }
+
+    @Test
+    @DisplayName("Should expose every configured window")
+    void testWindows() {
+        PercentileTracker tracker = new PercentileTracker(List.of("30s", "10m"));
+
+        Map<String, Object> snapshot = tracker.snapshot();
+
+        assertEquals(List.of("30s", "10m"), List.copyOf(snapshot.keySet()));
+        assertNull(tracker.snapshot("1h"), "Unknown windows should not resolve");
+    }
+}
@@ -0,0 +1,98 @@
+package com.gameperf.api.stats;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StutterDetector.
+ */
+@DisplayName("StutterDetector Tests")
+class StutterDetectorTest {
+
+    private static final long FRAME_MS = 16;
+
+    private final Random random = new Random(42);
+
+    @Test
+    @DisplayName("Should report a short burst in a long session that whole-session variance misses")
+    void testStutter() {
+        StutterDetector detector = new StutterDetector();
+        List<StutterDetector.Episode> episodes = new ArrayList<>();
+        RunningStats fps = new RunningStats();
+        for (int i = 0; i < 20_000; i++) {
+            int value = i >= 10_000 && i < 10_004 ? 38 + i % 2 : 141 + random.nextInt(7);
+            fps.add(value);
+            add(detector, i, value, episodes);
+        }
+
+        assertTrue(fps.getVariance() < 50, "The burst should be invisible to the session variance");
+        assertEquals(1, episodes.size());
+        StutterDetector.Episode stutter = episodes.get(0);
+        assertEquals(StutterDetector.STUTTER, stutter.kind());
+        assertEquals(10_000 * FRAME_MS, stutter.start());
+        assertEquals(10_003 * FRAME_MS, stutter.end());
+        assertEquals(4, stutter.samples());
+        assertEquals(38, stutter.minFps());
+        assertEquals(38.5, stutter.meanFps());
+        assertEquals(144, stutter.baselineFps(), 1.5);
+    }
+
+    @Test
+    @DisplayName("Should report a lasting drop once as a degradation and adopt the new level")
+    void testDegradation() {
+        StutterDetector detector = new StutterDetector();
+        List<StutterDetector.Episode> episodes = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            add(detector, i, i < 1_000 ? 118 + random.nextInt(5) : 70 + random.nextInt(5), episodes);
+        }
+
+        assertEquals(1, episodes.size(), "A lasting drop should be reported once");
+        StutterDetector.Episode degradation = episodes.get(0);
+        assertEquals(StutterDetector.DEGRADATION, degradation.kind());
+        assertEquals(1_000 * FRAME_MS, degradation.start());
+        assertTrue(degradation.end() - degradation.start() >= StutterDetector.DEGRADATION_MILLIS
+                || degradation.samples() >= StutterDetector.DEGRADATION_SAMPLES);
+        assertEquals(72, degradation.meanFps(), 1);
+        assertEquals(72, detector.getBaseline(), 2);
+    }
+
+    @Test
+    @DisplayName("Should stay quiet on noisy but steady frame rates")
+    void testNoise() {
+        StutterDetector detector = new StutterDetector();
+        List<StutterDetector.Episode> episodes = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            add(detector, i, 60 + random.nextInt(7) - 3, episodes);
+        }
+
+        assertEquals(List.of(), episodes);
+    }
+
+    @Test
+    @DisplayName("Should end a drop that never reports timestamps after a bounded number of samples")
+    void testWithoutTimestamps() {
+        StutterDetector detector = new StutterDetector();
+        StutterDetector.Episode episode = null;
+        int i = 0;
+        while (episode == null && i < 10_000) {
+            episode = detector.add(0, i++ < 100 ? 144 : 30);
+        }
+
+        assertNotNull(episode);
+        assertEquals(StutterDetector.DEGRADATION, episode.kind());
+        assertEquals(StutterDetector.DEGRADATION_SAMPLES, episode.samples());
+    }
+
+    private static void add(StutterDetector detector, int frame, int fps, List<StutterDetector.Episode> episodes) {
+        StutterDetector.Episode episode = detector.add(frame * FRAME_MS, fps);
+        if (episode != null) {
+            episodes.add(episode);
+        }
+    }
+}
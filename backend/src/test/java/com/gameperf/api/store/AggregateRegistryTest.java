@@ -0,0 +1,116 @@
+package com.gameperf.api.store;
+
+import com.gameperf.api.model.MetricSample;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AggregateRegistry.
+ */
+@DisplayName("AggregateRegistry Tests")
+class AggregateRegistryTest {
+
+    @Test
+    @DisplayName("Should merge totals by game, region and hardware tier")
+    void testTotalsBy() {
+        AggregateRegistry registry = new AggregateRegistry();
+        registry.recordAll(List.of(
+                sample("A", "eu", "high", 100, 20),
+                sample("A", "eu", "high", 120, 40),
+                sample("A", "us", null, 60, 30),
+                sample("B", "eu", "low", 30, 90)));
+
+        assertEquals(3, registry.getKeyCount());
+        assertEquals(4, registry.total().getCount());
+
+        Map<String, AggregateTotals> byGame = registry.totalsBy(AggregateRegistry.GAME);
+        assertEquals(List.of("A", "B"), List.copyOf(byGame.keySet()));
+        assertEquals(3, byGame.get("A").getCount());
+        assertEquals(280 / 3.0, byGame.get("A").mean(0), 1e-9);
+
+        Map<String, AggregateTotals> byRegion = registry.totalsBy(AggregateRegistry.REGION);
+        assertEquals(3, byRegion.get("eu").getCount());
+        assertEquals(50.0, byRegion.get("eu").mean(3), 1e-9, "Mean latency of eu");
+
+        Map<String, AggregateTotals> byTier = registry.totalsBy(AggregateRegistry.HARDWARE_TIER);
+        assertEquals(1, byTier.get(AggregateRegistry.UNKNOWN).getCount());
+        AggregateTotals high = byTier.get("high");
+        assertEquals(110.0, high.mean(0), 1e-9);
+        assertEquals(10.0, high.stdDev(0), 1e-9);
+
+        assertThrows(IllegalArgumentException.class, () -> registry.totalsBy("continent"));
+    }
+
+    @Test
+    @DisplayName("Should group regions and tiers past the cap or length limit as other")
+    void testLabelCap() {
+        AggregateRegistry registry = new AggregateRegistry(2, 1);
+        registry.recordAll(List.of(sample("A", "eu", "high", 100, 20), sample("A", "us", "high", 100, 20)));
+        registry.recordAll(List.of(
+                sample("A", "ap", "low", 100, 20),
+                sample("A", "eu", null, 100, 20),
+                sample("A", "x".repeat(AggregateRegistry.MAX_LABEL_LENGTH + 1), "high", 100, 20)));
+
+        Map<String, AggregateTotals> byRegion = registry.totalsBy(AggregateRegistry.REGION);
+        assertEquals(List.of("eu", AggregateRegistry.OTHER, "us"), List.copyOf(byRegion.keySet()));
+        assertEquals(2, byRegion.get(AggregateRegistry.OTHER).getCount(), "Third region and over-long region");
+        Map<String, AggregateTotals> byTier = registry.totalsBy(AggregateRegistry.HARDWARE_TIER);
+        assertEquals(3, byTier.get("high").getCount());
+        assertEquals(1, byTier.get(AggregateRegistry.OTHER).getCount());
+        assertEquals(1, byTier.get(AggregateRegistry.UNKNOWN).getCount(), "A missing tier is not capped");
+    }
+
+    @Test
+    @DisplayName("Should count every sample written by concurrent writers while being read")
+    void testConcurrentWriters() throws Exception {
+        AggregateRegistry registry = new AggregateRegistry();
+        int writers = 4;
+        int batches = 500;
+        List<MetricSample> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(sample("Game" + (i % 3), i % 2 == 0 ? "eu" : "us", null, 60, 10));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                futures.add(executor.submit(() -> {
+                    for (int b = 0; b < batches; b++) {
+                        registry.recordAll(batch);
+                    }
+                }));
+            }
+            long previous = 0;
+            while (!futures.stream().allMatch(Future::isDone)) {
+                long count = registry.total().getCount();
+                assertTrue(count >= previous, "Totals should never go backwards");
+                previous = count;
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        AggregateTotals total = registry.total();
+        assertEquals((long) writers * batches * batch.size(), total.getCount());
+        assertEquals(60.0, total.mean(0), 1e-9);
+        assertEquals(0.0, total.stdDev(0), 1e-9);
+    }
+
+    private static MetricSample sample(String game, String region, String tier, int fps, int latency) {
+        return new MetricSample(game, "s", 1000, fps, 50, 50, latency, 70, region, tier);
+    }
+}
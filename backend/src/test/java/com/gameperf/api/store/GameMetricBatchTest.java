@@ -0,0 +1,112 @@
+package com.gameperf.api.store;
+
+import com.gameperf.api.model.GameMetric;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GameMetricBatch.
+ */
+@DisplayName("GameMetricBatch Tests")
+class GameMetricBatchTest {
+
+    @Test
+    @DisplayName("Cursor should read back every sample with derived scores")
+    void testCursor() {
+        GameMetricBatch batch = new GameMetricBatch(new NameDictionary(), 1);
+        batch.add("Game1", 144, 60, 65, 20, 65);
+        batch.add("Game2", 90, 40, 95, 80, 82);
+        batch.add("Game1", 120, 50, 50, 30, 70);
+
+        assertEquals(3, batch.size(), "Batch should grow past its initial capacity");
+        assertEquals(2, batch.getNames().size(), "Names should be dictionary-encoded");
+
+        GameMetricBatch.Cursor cursor = batch.cursor();
+        assertTrue(cursor.next());
+        assertEquals("Game1", cursor.getName());
+        assertEquals(144, cursor.getAvgFps());
+        assertEquals(GameMetric.performanceScore(144, 60, 65, 20), cursor.getPerformanceScore(), 1e-9);
+        assertEquals(97.0, cursor.getStabilityIndex(), 1e-9);
+        assertTrue(cursor.next());
+        assertEquals(82, cursor.getTemperatureC());
+        assertTrue(cursor.next());
+        assertEquals(idOfFirst(batch), cursor.getNameId(), "Repeated names should share an id");
+        assertFalse(cursor.next(), "Cursor should stop after the last sample");
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    @DisplayName("Should materialize a sample with the same scores as a scored GameMetric")
+    void testGet() {
+        GameMetricBatch batch = GameMetricBatch.of(List.of(new GameMetric("Game1", 144, 60, 65, 20, 65, 0, 0)));
+
+        GameMetric metric = batch.get(0);
+
+        assertEquals("Game1", metric.getName());
+        assertEquals(65, metric.getTemperatureC());
+        assertEquals(GameMetric.performanceScore(144, 60, 65, 20), metric.getPerformanceScore(), 1e-9);
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.get(1));
+    }
+
+    @Test
+    @DisplayName("Should saturate measurements outside the short range")
+    void testSaturation() {
+        GameMetricBatch batch = new GameMetricBatch();
+        batch.add("Game1", 100_000, 50, 50, -100_000, 60);
+
+        GameMetricBatch.Cursor cursor = batch.cursor();
+        cursor.moveTo(0);
+        assertEquals(Short.MAX_VALUE, cursor.getAvgFps());
+        assertEquals(Short.MIN_VALUE, cursor.getLatencyMs());
+    }
+
+    @Test
+    @DisplayName("Should retain at least 4x less heap than a list of GameMetric objects")
+    void testMemoryFootprint() {
+        int n = 1_000_000;
+        String[] names = {"Game0", "Game1", "Game2", "Game3", "Game4", "Game5"};
+
+        GameMetricBatch batch = new GameMetricBatch(new NameDictionary(), n);
+        for (int i = 0; i < n; i++) {
+            batch.add(names[i % 6], 60 + i % 100, i % 100, i % 97, i % 120, 50 + i % 40);
+        }
+
+        // Smallest a list element can be: a compressed reference to an object with a 12-byte header
+        long listBytesPerSample = Integer.BYTES + minimumInstanceBytes(GameMetric.class);
+        assertEquals(n, batch.size());
+        assertEquals((long) n * GameMetricBatch.BYTES_PER_SAMPLE, batch.getRetainedBytes());
+        assertTrue(listBytesPerSample >= 4 * batch.getRetainedBytes() / n,
+            "List retains at least " + listBytesPerSample + " bytes per sample, batch "
+                + batch.getRetainedBytes() / n);
+    }
+
+    /**
+     * @return Lower bound of the heap size of an instance: header plus fields, references compressed
+     */
+    private static long minimumInstanceBytes(Class<?> type) {
+        long bytes = 12;
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            Class<?> fieldType = field.getType();
+            bytes += fieldType == long.class || fieldType == double.class ? 8
+                : fieldType == short.class || fieldType == char.class ? 2
+                : fieldType == byte.class || fieldType == boolean.class ? 1
+                : 4;
+        }
+        return bytes;
+    }
+
+    private static int idOfFirst(GameMetricBatch batch) {
+        GameMetricBatch.Cursor cursor = batch.cursor();
+        cursor.next();
+        return cursor.getNameId();
+    }
+}
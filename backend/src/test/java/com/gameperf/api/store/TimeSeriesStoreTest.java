@@ -0,0 +1,94 @@
+package com.gameperf.api.store;
+
+import com.gameperf.api.model.GameMetric;
+import com.gameperf.api.model.MetricSample;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TimeSeriesStore and GameSeries.
+ */
+@DisplayName("TimeSeriesStore Tests")
+class TimeSeriesStoreTest {
+
+    private TimeSeriesStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new TimeSeriesStore(8);
+    }
+
+    @Test
+    @DisplayName("Should return empty window for empty store")
+    void testEmptyStore() {
+        assertTrue(store.latestWindow(1000).isEmpty(), "Empty store should have no games");
+    }
+
+    @Test
+    @DisplayName("Should average the latest window per game")
+    void testLatestWindowAverages() {
+        store.appendAll(List.of(
+            sample("Game1", 1000, 100, 50),
+            sample("Game1", 2000, 120, 60),
+            sample("Game2", 2000, 60, 90),
+            sample("Game1", 9000, 140, 70)
+        ));
+
+        List<GameMetric> window = store.latestWindow(7000);
+
+        assertEquals(2, window.size(), "Should report one metric per game");
+        GameMetric game1 = window.get(0);
+        assertEquals("Game1", game1.getName(), "Games should keep order of first appearance");
+        assertEquals(130, game1.getAvgFps(), "Sample older than the window should be excluded");
+        assertEquals(65, game1.getCpuUsage());
+        assertEquals(60, window.get(1).getAvgFps());
+    }
+
+    @Test
+    @DisplayName("Should keep only the newest samples when capacity is exceeded")
+    void testRingBufferOverwritesOldest() {
+        List<MetricSample> samples = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            samples.add(sample("Game1", 1000 + i, i < 12 ? 10 : 200, 50));
+        }
+        store.appendAll(samples);
+
+        GameSeries series = store.getSeries("Game1");
+        assertEquals(8, series.size(), "Series should be bounded by its capacity");
+        assertEquals(20, series.getWritten(), "All appends should be counted");
+        assertEquals(200, store.latestWindow(Long.MAX_VALUE / 2).get(0).getAvgFps(),
+                "Only the newest samples should remain");
+    }
+
+    @Test
+    @DisplayName("Should forget session ids once their samples are overwritten")
+    void testSessionCompaction() {
+        for (int i = 0; i < 10 * TimeSeriesStore.MIN_COMPACTION_SESSIONS; i++) {
+            store.append(new MetricSample("Game1", "session-" + i, 1000 + i, 100, 50, 60, 20, 65));
+        }
+
+        assertTrue(store.getSessionCount() <= TimeSeriesStore.MIN_COMPACTION_SESSIONS + 1,
+                "Only the sessions of the 8 retained samples should survive a compaction");
+        store.compactSessions();
+        assertTrue(store.getSessionCount() <= TimeSeriesStore.MIN_COMPACTION_SESSIONS + 1);
+        assertEquals(100, store.latestWindow(1000).get(0).getAvgFps());
+    }
+
+    @Test
+    @DisplayName("Should round capacity up to a power of two")
+    void testCapacityRounding() {
+        assertEquals(16, new GameSeries("Game1", 10).getCapacity());
+        assertEquals(16, new GameSeries("Game1", 16).getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new GameSeries("Game1", 0));
+    }
+
+    private static MetricSample sample(String game, long timestamp, int fps, int cpu) {
+        return new MetricSample(game, "session", timestamp, fps, cpu, 60, 20, 65);
+    }
+}
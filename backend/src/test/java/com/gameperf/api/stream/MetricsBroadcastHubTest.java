@@ -0,0 +1,377 @@
+package com.gameperf.api.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameperf.api.GameAnalyticsService;
+import com.gameperf.api.GameMetricsService;
+import com.gameperf.api.model.MetricSample;
+import com.gameperf.api.session.SessionRegistry;
+import com.gameperf.api.stats.PercentileTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MetricsBroadcastHub.
+ */
+@DisplayName("MetricsBroadcastHub Tests")
+class MetricsBroadcastHubTest {
+
+    private MetricsBroadcastHub hub;
+
+    @BeforeEach
+    void setUp() {
+        hub = new MetricsBroadcastHub(new GameMetricsService(), new PercentileTracker(), new ObjectMapper(),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should register subscribers")
+    void testSubscribe() {
+        hub.subscribe();
+        hub.subscribe();
+
+        assertEquals(2, hub.getSubscriberCount(), "Should track both subscribers");
+    }
+
+    @Test
+    @DisplayName("Should report fan-out statistics after broadcast")
+    void testBroadcastStats() {
+        hub.subscribe();
+        hub.broadcast();
+        hub.broadcast();
+
+        Map<String, Object> stats = hub.getStats();
+
+        assertEquals(1, stats.get("subscribers"), "Should report subscriber count");
+        assertEquals(2L, stats.get("broadcasts"), "Should count broadcasts");
+        assertTrue(stats.containsKey("averageFanOutMs"), "Should report fan-out latency");
+    }
+
+    @Test
+    @DisplayName("Should skip broadcast when nobody is subscribed")
+    void testBroadcastWithoutSubscribers() {
+        hub.broadcast();
+
+        assertEquals(0L, hub.getStats().get("broadcasts"), "Should not count idle ticks");
+    }
+
+    @Test
+    @DisplayName("Should remove emitters whose send fails")
+    void testDeadEmitterRemoved() {
+        hub.subscribe();
+        hub.register(new FailingEmitter(2));
+
+        assertEquals(2, hub.getSubscriberCount(), "Both emitters should receive the initial snapshot");
+
+        hub.broadcast();
+
+        assertEquals(1, hub.getSubscriberCount(), "Failed emitter should be dropped on the next tick");
+    }
+
+    @Test
+    @DisplayName("Should not register emitters that fail on the initial snapshot")
+    void testEmitterFailingOnSubscribe() {
+        hub.register(new FailingEmitter(0));
+
+        assertEquals(0, hub.getSubscriberCount(), "Emitter should be dropped immediately");
+    }
+
+    @Test
+    @DisplayName("Should publish subscriber gauge and send timings")
+    void testMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MetricsBroadcastHub instrumented = new MetricsBroadcastHub(new GameMetricsService(),
+                new PercentileTracker(), new ObjectMapper(), registry);
+
+        instrumented.subscribe();
+        instrumented.broadcast();
+
+        assertEquals(1, registry.get("gameperf.sse.emitters").gauge().value());
+        assertEquals(4, registry.get("gameperf.sse.send").timer().count(), "Two events on subscribe and two per tick");
+    }
+
+    @Test
+    @DisplayName("Should fan out on the push executor when configured")
+    void testParallelFanOut() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            MetricsBroadcastHub parallel = new MetricsBroadcastHub(new GameMetricsService(), new PercentileTracker(),
+                    null, new ObjectMapper(), new SimpleMeterRegistry(), executor, MetricsBroadcastHub.DEFAULT_INTERVAL_MS,
+                    MetricsBroadcastHub.DEFAULT_TICK_MS, MetricsBroadcastHub.DEFAULT_MAX_VIEWS);
+            parallel.subscribe();
+            parallel.register(new FailingEmitter(2));
+
+            parallel.broadcast();
+
+            assertEquals(1, parallel.getSubscriberCount(), "Failed emitter should be dropped by its push task");
+            assertEquals(1L, parallel.getStats().get("broadcasts"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should wait at most one tick for a stalled subscriber and skip it while it is stalled")
+    void testStalledSubscriber() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        StallingEmitter stalled = new StallingEmitter(2);
+        try {
+            MetricsBroadcastHub parallel = new MetricsBroadcastHub(new GameMetricsService(), new PercentileTracker(),
+                    null, new ObjectMapper(), new SimpleMeterRegistry(), executor, 1000, 50,
+                    MetricsBroadcastHub.DEFAULT_MAX_VIEWS);
+            parallel.register(stalled);
+            StallingEmitter healthy = new StallingEmitter(Integer.MAX_VALUE);
+            parallel.register(healthy);
+
+            long start = System.nanoTime();
+            parallel.broadcast();
+            long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            parallel.broadcast();
+
+            assertTrue(waitedMs < 1000, "Broadcast should not wait long for a stalled subscriber: " + waitedMs + " ms");
+            assertEquals(1L, parallel.getStats().get("skippedPushes"), "Stalled subscriber should be skipped");
+            assertEquals(6, healthy.sent.get(), "Healthy subscriber should get two events on subscribe and two per broadcast");
+        } finally {
+            stalled.release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should stream CBOR sequence items to binary subscribers")
+    void testBinarySubscriber() {
+        RecordingEmitter binary = new RecordingEmitter();
+        hub.registerBinary(binary);
+        hub.subscribe();
+
+        hub.broadcast();
+
+        assertEquals(2, hub.getSubscriberCount(), "Binary and SSE subscribers should both count");
+        assertEquals(1, hub.getStats().get("binarySubscribers"));
+        assertEquals(4, binary.items.size(), "Initial snapshot plus one broadcast, two events each");
+        for (DataWithMediaType item : binary.items) {
+            assertEquals(MetricsCborCodec.CBOR_SEQ_VALUE, item.getMediaType().toString());
+            assertInstanceOf(byte[].class, item.getData(), "Items should be raw CBOR bytes");
+        }
+        byte[] first = (byte[]) binary.items.get(0).getData();
+        assertEquals((byte) 0xA2, first[0], "Each item should be a two-entry CBOR map");
+    }
+
+    @Test
+    @DisplayName("Should encode each distinct view once and filter it to the requested games")
+    void testGroupedViews() throws IOException {
+        MetricsBroadcastHub.View neon = new MetricsBroadcastHub.View(250, Set.of("Neon Havoc"), false);
+        RecordingEmitter first = hub.register(new RecordingEmitter(), neon);
+        RecordingEmitter second = hub.register(new RecordingEmitter(),
+                new MetricsBroadcastHub.View(250, Set.of("Neon Havoc"), false));
+        RecordingEmitter slower = hub.register(new RecordingEmitter(), new MetricsBroadcastHub.View(5000, Set.of("Neon Havoc"), false));
+        RecordingEmitter everything = hub.register(new RecordingEmitter(), new MetricsBroadcastHub.View(250, null, false));
+
+        assertEquals(3, hub.getStats().get("groups"), "Equal views should share a group");
+        hub.broadcast();
+
+        byte[] shared = payload(first, 2);
+        assertSame(shared, payload(second, 2), "Members of a group should get the same bytes");
+        assertSame(shared, payload(slower, 2), "Views with the same content should share the encoding");
+        List<?> games = new ObjectMapper().readValue(shared, List.class);
+        assertEquals(1, games.size());
+        assertEquals("Neon Havoc", ((Map<?, ?>) games.get(0)).get("name"));
+        assertEquals(6, new ObjectMapper().readValue(payload(everything, 2), List.class).size());
+
+        assertThrows(IllegalArgumentException.class, () -> hub.subscribe(50, null));
+        assertThrows(IllegalArgumentException.class, () -> hub.subscribe(120_000, null));
+    }
+
+    @Test
+    @DisplayName("Should refuse new views past the view limit and oversized game filters")
+    void testViewLimit() {
+        MetricsBroadcastHub limited = new MetricsBroadcastHub(new GameMetricsService(), new PercentileTracker(),
+                null, new ObjectMapper(), new SimpleMeterRegistry(), Runnable::run, 1000, 100, 2);
+        MetricsBroadcastHub.View first = new MetricsBroadcastHub.View(1000, Set.of("Neon Havoc"), false);
+        MetricsBroadcastHub.View second = new MetricsBroadcastHub.View(1000, null, false);
+        assertNotNull(limited.register(new RecordingEmitter(), first));
+        assertNotNull(limited.register(new RecordingEmitter(), second));
+
+        assertNull(limited.register(new RecordingEmitter(), new MetricsBroadcastHub.View(500, null, false)),
+                "A third view should be refused");
+        assertNotNull(limited.register(new RecordingEmitter(), first), "Existing views should still accept members");
+        assertEquals(3, limited.getSubscriberCount());
+
+        Set<String> tooMany = new HashSet<>();
+        for (int i = 0; i <= MetricsBroadcastHub.MAX_FILTER_GAMES; i++) {
+            tooMany.add("Game" + i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> limited.subscribe(1000, tooMany));
+    }
+
+    @Test
+    @DisplayName("Should push each group only when its interval has elapsed")
+    void testIntervals() {
+        long start = System.nanoTime();
+        RecordingEmitter fast = hub.register(new RecordingEmitter(), new MetricsBroadcastHub.View(100, null, false));
+        RecordingEmitter slow = hub.register(new RecordingEmitter(), new MetricsBroadcastHub.View(1000, null, false));
+        int initial = fast.items.size();
+
+        hub.tick(start + TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(2 * initial, fast.items.size(), "Fast group should be pushed once it is due");
+        assertEquals(initial, slow.items.size(), "Slow group should not be due yet");
+
+        hub.tick(start + TimeUnit.MILLISECONDS.toNanos(1500));
+        assertEquals(3 * initial, fast.items.size(), "Missed pushes should be skipped, not bunched");
+        assertEquals(2 * initial, slow.items.size());
+
+        fast.complete();
+        slow.complete();
+    }
+
+    @Test
+    @DisplayName("Should send stutter events on the next tick to subscribers of the session's game")
+    void testStutterEvents() throws IOException {
+        SessionRegistry sessions = new SessionRegistry(new GameAnalyticsService());
+        MetricsBroadcastHub streaming = new MetricsBroadcastHub(new GameMetricsService(), new PercentileTracker(),
+                sessions, new ObjectMapper(), new SimpleMeterRegistry(), Runnable::run, MetricsBroadcastHub.DEFAULT_INTERVAL_MS,
+                MetricsBroadcastHub.DEFAULT_TICK_MS, MetricsBroadcastHub.DEFAULT_MAX_VIEWS);
+        RecordingEmitter neon = streaming.register(new RecordingEmitter(),
+                new MetricsBroadcastHub.View(5000, Set.of("Neon Havoc"), false));
+        RecordingEmitter shadow = streaming.register(new RecordingEmitter(),
+                new MetricsBroadcastHub.View(5000, Set.of("Shadow Protocol"), false));
+        int initial = neon.items.size();
+
+        List<MetricSample> samples = new ArrayList<>();
+        for (int i = 0; i < 110; i++) {
+            samples.add(new MetricSample("Neon Havoc", "stutter-session", 1000 + i * 16L,
+                    i >= 100 && i < 103 ? 35 : 144, 60, 70, 20, 65));
+        }
+        sessions.recordAll(samples);
+        streaming.tick(System.nanoTime());
+
+        assertEquals(initial, shadow.items.size(), "Other games' subscribers should not get the event");
+        assertTrue(neon.items.stream().anyMatch(item -> item.getData().toString().contains("stutter-event")));
+        Map<?, ?> event = new ObjectMapper().readValue(payload(neon, 2), Map.class);
+        assertEquals("stutter", event.get("kind"));
+        assertEquals("stutter-session", event.get("sessionId"));
+        assertEquals(35, event.get("minFps"));
+
+        streaming.tick(System.nanoTime());
+        assertEquals(initial + 3, neon.items.size(), "Sent events should not be sent again");
+    }
+
+    @Test
+    @DisplayName("Should send stutter events of sessions without a game to unfiltered subscribers through the push executor")
+    void testStutterEventsWithoutGame() {
+        SessionRegistry sessions = new SessionRegistry(new GameAnalyticsService());
+        AtomicInteger tasks = new AtomicInteger();
+        Executor counting = task -> {
+            tasks.incrementAndGet();
+            task.run();
+        };
+        MetricsBroadcastHub streaming = new MetricsBroadcastHub(new GameMetricsService(), new PercentileTracker(),
+                sessions, new ObjectMapper(), new SimpleMeterRegistry(), counting, MetricsBroadcastHub.DEFAULT_INTERVAL_MS,
+                MetricsBroadcastHub.DEFAULT_TICK_MS, MetricsBroadcastHub.DEFAULT_MAX_VIEWS);
+        RecordingEmitter neon = streaming.register(new RecordingEmitter(),
+                new MetricsBroadcastHub.View(5000, Set.of("Neon Havoc"), false));
+        RecordingEmitter everything = streaming.register(new RecordingEmitter(),
+                new MetricsBroadcastHub.View(5000, null, false));
+        int initial = neon.items.size();
+
+        List<MetricSample> samples = new ArrayList<>();
+        for (int i = 0; i < 110; i++) {
+            samples.add(new MetricSample(null, "anonymous-session", 1000 + i * 16L,
+                    i >= 100 && i < 103 ? 35 : 144, 60, 70, 20, 65));
+        }
+        sessions.recordAll(samples);
+        streaming.tick(System.nanoTime());
+
+        assertEquals(initial, neon.items.size(), "Filtered subscribers should not get events without a game");
+        assertTrue(everything.items.size() > initial, "Unfiltered subscribers should get the event");
+        assertEquals(1, tasks.get(), "The event should be sent on the push executor");
+    }
+
+    /**
+     * @return The n-th raw payload the emitter received
+     */
+    private static byte[] payload(RecordingEmitter emitter, int n) {
+        return emitter.items.stream()
+                .map(DataWithMediaType::getData)
+                .filter(byte[].class::isInstance)
+                .map(byte[].class::cast)
+                .skip(n)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * Emitter that keeps every item it is asked to send.
+     */
+    private static class RecordingEmitter extends ResponseBodyEmitter {
+        private final List<DataWithMediaType> items = new ArrayList<>();
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> batch) {
+            items.addAll(batch);
+        }
+    }
+
+    /**
+     * Emitter that accepts a fixed number of events and then behaves like a disconnected client.
+     */
+    private static class FailingEmitter extends SseEmitter {
+        private int remaining;
+
+        FailingEmitter(int successfulSends) {
+            this.remaining = successfulSends;
+        }
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+            if (remaining-- <= 0) {
+                throw new IOException("Broken pipe");
+            }
+        }
+    }
+
+    /**
+     * Emitter that accepts a fixed number of events and then blocks, like a client that stopped reading.
+     */
+    private static class StallingEmitter extends SseEmitter {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger sent = new AtomicInteger();
+        private final int sendsBeforeStall;
+
+        StallingEmitter(int sendsBeforeStall) {
+            this.sendsBeforeStall = sendsBeforeStall;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            if (sent.get() < sendsBeforeStall) {
+                sent.incrementAndGet();
+                return;
+            }
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.gameperf.api.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.gameperf.api.model.GameMetric;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MetricsCborCodec.
+ */
+@DisplayName("MetricsCborCodec Tests")
+class MetricsCborCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip metrics through the columnar encoding")
+    void testRoundTrip() {
+        List<GameMetric> metrics = List.of(
+                new GameMetric("Neon Havoc", 132, 64, 71, 25, 69, 90.25, 85.5),
+                new GameMetric("Cyber Drift X", 1440, 100, 0, 3000, -5, 0.0, 100.0));
+
+        List<GameMetric> decoded = MetricsCborCodec.decode(MetricsCborCodec.encode(metrics));
+
+        assertEquals(metrics, decoded, "Float32 scores should survive these values exactly");
+        assertTrue(MetricsCborCodec.decode(MetricsCborCodec.encode(List.of())).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should be much smaller than the JSON encoding")
+    void testSize() throws Exception {
+        List<GameMetric> metrics = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            metrics.add(new GameMetric("Game " + i, 60 + i, 40 + i % 50, 50 + i % 40, 10 + i % 30, 60 + i % 20,
+                    71.35 + i % 7, 88.123 - i % 5));
+        }
+
+        byte[] cbor = MetricsCborCodec.encode(metrics);
+        byte[] json = new ObjectMapper().writeValueAsBytes(metrics);
+
+        assertTrue(cbor.length * 3 < json.length,
+                "CBOR was " + cbor.length + " bytes against " + json.length + " bytes of JSON");
+    }
+
+    @Test
+    @DisplayName("Should wrap payloads as generic CBOR event maps")
+    void testEvent() throws Exception {
+        byte[] payload = MetricsCborCodec.encodeValue(List.of(1, 2, 3));
+
+        JsonNode event = new CBORMapper().readTree(MetricsCborCodec.event("metrics-update", payload));
+
+        assertEquals("metrics-update", event.get("event").asText());
+        assertEquals(3, event.get("data").size());
+        assertThrows(IllegalArgumentException.class,
+                () -> MetricsCborCodec.event("an-event-name-that-is-too-long", payload));
+    }
+
+    @Test
+    @DisplayName("Should reject payloads with mismatched column lengths")
+    void testMalformed() throws Exception {
+        byte[] mismatched = new CBORMapper().writeValueAsBytes(
+                Map.of("name", List.of("A", "B"), "avgFps", List.of(60)));
+
+        assertThrows(IllegalArgumentException.class, () -> MetricsCborCodec.decode(mismatched));
+        assertThrows(IllegalArgumentException.class, () -> MetricsCborCodec.decode(new byte[] {(byte) 0x83}));
+    }
+}
@@ -0,0 +1,105 @@
+package com.gameperf.api.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameperf.api.model.GameMetric;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MetricsDeltaEncoder.
+ */
+@DisplayName("MetricsDeltaEncoder Tests")
+class MetricsDeltaEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MetricsDeltaEncoder encoder = new MetricsDeltaEncoder(objectMapper);
+
+    @Test
+    @DisplayName("Should flag only the fields that changed")
+    void testDiff() {
+        GameMetric before = new GameMetric("Neon Havoc", 132, 64, 71, 25, 69, 90.0, 85.0);
+        GameMetric after = new GameMetric("Neon Havoc", 135, 64, 71, 25, 70, 90.0, 85.0);
+
+        assertEquals(MetricsDeltaEncoder.FPS | MetricsDeltaEncoder.TEMPERATURE,
+                MetricsDeltaEncoder.diff(before, after));
+        assertEquals(0, MetricsDeltaEncoder.diff(before, before), "Unchanged game should produce no delta");
+        assertEquals(MetricsDeltaEncoder.ALL_FIELDS | MetricsDeltaEncoder.NAME,
+                MetricsDeltaEncoder.diff(null, after), "New game should be sent in full with its name");
+    }
+
+    @Test
+    @DisplayName("Should encode only masked fields in JSON fragments")
+    void testJsonFragment() throws Exception {
+        GameMetric metric = new GameMetric("Neon Havoc", 135, 64, 71, 25, 70, 90.0, 85.0);
+
+        JsonNode node = objectMapper.readTree(encoder.jsonFragment(3, metric, MetricsDeltaEncoder.FPS));
+
+        assertEquals(3, node.get("id").asInt());
+        assertEquals("Neon Havoc", node.get("name").asText());
+        assertEquals(135, node.get("avgFps").asInt());
+        assertFalse(node.has("cpuUsage"), "Unchanged fields should be omitted");
+    }
+
+    @Test
+    @DisplayName("Should lay out binary fragments as id, mask, values and name")
+    void testBinaryFragment() {
+        GameMetric metric = new GameMetric("Neon Havoc", 135, 64, 71, 25, 70, 90.5, 85.0);
+        int mask = MetricsDeltaEncoder.FPS | MetricsDeltaEncoder.PERFORMANCE | MetricsDeltaEncoder.NAME;
+
+        ByteBuffer buffer = ByteBuffer.wrap(MetricsDeltaEncoder.binaryFragment(7, metric, mask));
+
+        assertEquals(7, buffer.getShort());
+        assertEquals(mask, buffer.get() & 0xFF);
+        assertEquals(135, buffer.getInt());
+        assertEquals(90.5f, buffer.getFloat());
+        byte[] name = new byte[buffer.getShort()];
+        buffer.get(name);
+        assertEquals("Neon Havoc", new String(name, StandardCharsets.UTF_8));
+        assertFalse(buffer.hasRemaining(), "Fragment should hold nothing else");
+    }
+
+    @Test
+    @DisplayName("Should encode short fields unsigned and refuse values that do not fit")
+    void testShortFieldWidth() {
+        GameMetric metric = new GameMetric("Neon Havoc", 135, 64, 71, 25, 70, 90.5, 85.0);
+
+        ByteBuffer buffer = ByteBuffer.wrap(MetricsDeltaEncoder.binaryFragment(40_000, metric, MetricsDeltaEncoder.FPS));
+        assertEquals(40_000, buffer.getShort() & 0xFFFF);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> MetricsDeltaEncoder.binaryFragment(MetricsDeltaEncoder.MAX_SHORT + 1, metric, MetricsDeltaEncoder.FPS));
+        GameMetric longName = new GameMetric("x".repeat(MetricsDeltaEncoder.MAX_SHORT + 1), 1, 2, 3, 4, 5, 6, 7);
+        assertThrows(IllegalArgumentException.class,
+                () -> MetricsDeltaEncoder.binaryFragment(0, longName, MetricsDeltaEncoder.NAME));
+        assertThrows(IllegalArgumentException.class, () -> MetricsDeltaEncoder.binaryFrame(MetricsDeltaEncoder.DELTA_FRAME, 1,
+                Collections.nCopies(MetricsDeltaEncoder.MAX_SHORT + 1, new byte[0])));
+    }
+
+    @Test
+    @DisplayName("Should concatenate fragments into frames")
+    void testFrames() throws Exception {
+        byte[] a = encoder.jsonFragment(0, new GameMetric("A", 1, 2, 3, 4, 5, 6, 7), MetricsDeltaEncoder.FPS);
+        byte[] b = encoder.jsonFragment(1, new GameMetric("B", 1, 2, 3, 4, 5, 6, 7), MetricsDeltaEncoder.CPU);
+
+        JsonNode frame = objectMapper.readTree(MetricsDeltaEncoder.jsonFrame("delta", 42, List.of(a, b)));
+
+        assertEquals("delta", frame.get("type").asText());
+        assertEquals(42, frame.get("version").asLong());
+        assertEquals(2, frame.get("games").size());
+
+        ByteBuffer binary = ByteBuffer.wrap(
+                MetricsDeltaEncoder.binaryFrame(MetricsDeltaEncoder.DELTA_FRAME, 42, List.of(new byte[]{1, 2, 3})));
+        assertEquals(MetricsDeltaEncoder.DELTA_FRAME, binary.get());
+        assertEquals(42, binary.getLong());
+        assertEquals(1, binary.getShort());
+        assertEquals(3, binary.remaining());
+    }
+}
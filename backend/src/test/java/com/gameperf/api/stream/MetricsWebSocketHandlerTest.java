@@ -0,0 +1,338 @@
+package com.gameperf.api.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameperf.api.GameMetricsService;
+import com.gameperf.api.MetricsSnapshot;
+import com.gameperf.api.model.GameMetric;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MetricsWebSocketHandler.
+ */
+@DisplayName("MetricsWebSocketHandler Tests")
+class MetricsWebSocketHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private GameMetricsService metricsService;
+    private MetricsWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        metricsService = new GameMetricsService();
+        handler = new MetricsWebSocketHandler(metricsService, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Should send a full snapshot on subscribe")
+    void testSnapshotOnSubscribe() throws Exception {
+        RecordingSession session = connect("1");
+
+        subscribe(session, "{\"action\":\"subscribe\"}");
+
+        JsonNode frame = json(session.messages.get(0));
+        assertEquals("snapshot", frame.get("type").asText());
+        assertEquals(6, frame.get("games").size(), "Snapshot should hold every game");
+        assertTrue(frame.get("games").get(0).has("avgFps"), "Snapshot should hold every field");
+    }
+
+    @Test
+    @DisplayName("Should only send deltas after a new metrics snapshot")
+    void testDeltasOnRefresh() throws Exception {
+        RecordingSession session = connect("1");
+        subscribe(session, "{\"action\":\"subscribe\"}");
+
+        handler.broadcastDeltas();
+        assertEquals(1, session.messages.size(), "Nothing should be sent while the snapshot is unchanged");
+
+        metricsService.refresh();
+        handler.broadcastDeltas();
+
+        assertEquals(2, session.messages.size(), "A delta frame should follow the refresh");
+        JsonNode frame = json(session.messages.get(1));
+        assertEquals("delta", frame.get("type").asText());
+        assertEquals(metricsService.getSnapshot().version(), frame.get("version").asLong());
+    }
+
+    @Test
+    @DisplayName("Should only send games the client subscribed to")
+    void testGameFilter() throws Exception {
+        RecordingSession session = connect("1");
+        subscribe(session, "{\"action\":\"subscribe\",\"games\":[\"Neon Havoc\"]}");
+
+        for (int i = 0; i < 3; i++) {
+            metricsService.refresh();
+            handler.broadcastDeltas();
+        }
+
+        for (WebSocketMessage<?> message : session.messages) {
+            for (JsonNode game : json(message).get("games")) {
+                assertEquals("Neon Havoc", game.get("name").asText(), "Only the subscribed game should be sent");
+            }
+        }
+        assertEquals(1, json(session.messages.get(0)).get("games").size());
+    }
+
+    @Test
+    @DisplayName("Should send binary frames when requested")
+    void testBinaryFormat() throws Exception {
+        RecordingSession session = connect("1");
+
+        subscribe(session, "{\"action\":\"subscribe\",\"format\":\"binary\"}");
+
+        WebSocketMessage<?> message = session.messages.get(0);
+        assertInstanceOf(BinaryMessage.class, message);
+        ByteBuffer frame = ((BinaryMessage) message).getPayload();
+        assertEquals(MetricsDeltaEncoder.SNAPSHOT_FRAME, frame.get());
+        assertEquals(metricsService.getSnapshot().version(), frame.getLong());
+        assertEquals(6, frame.getShort(), "Binary snapshot should hold every game");
+    }
+
+    @Test
+    @DisplayName("Should drop a client over its send limits and still send the tick to the others")
+    void testSlowClient() throws Exception {
+        handler = new MetricsWebSocketHandler(metricsService, objectMapper, 50, 1024);
+        RecordingSession healthy = connect("1");
+        BlockingSession slow = new BlockingSession("2");
+        handler.afterConnectionEstablished(slow);
+        subscribe(healthy, "{\"action\":\"subscribe\"}");
+        subscribe(slow, "{\"action\":\"subscribe\"}");
+
+        // The error reply blocks in the socket write, like a client that stopped reading
+        slow.blocking = true;
+        Thread stalled = new Thread(() -> {
+            try {
+                subscribe(slow, "{\"action\":\"dance\"}");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        stalled.start();
+        assertTrue(slow.entered.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        metricsService.refresh();
+        handler.broadcastDeltas();
+
+        assertEquals(2, healthy.messages.size(), "The healthy client should still get the delta");
+        assertEquals("delta", json(healthy.messages.get(1)).get("type").asText());
+        assertEquals(1, handler.getSubscriberCount(), "Only the slow client should be dropped");
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, slow.closeStatus);
+
+        slow.release.countDown();
+        stalled.join(5000);
+    }
+
+    @Test
+    @DisplayName("Should send games that left the snapshot as removed")
+    void testRemovedGame() throws Exception {
+        MetricsSnapshot initial = metricsService.getSnapshot();
+        AtomicReference<MetricsSnapshot> published = new AtomicReference<>(initial);
+        handler = new MetricsWebSocketHandler(new GameMetricsService() {
+            @Override
+            public MetricsSnapshot getSnapshot() {
+                return published.get();
+            }
+        }, objectMapper);
+        RecordingSession session = connect("1");
+        subscribe(session, "{\"action\":\"subscribe\",\"games\":[\"Neon Havoc\"]}");
+
+        List<GameMetric> remaining = initial.metrics().stream()
+                .filter(metric -> !metric.getName().equals("Neon Havoc"))
+                .toList();
+        published.set(new MetricsSnapshot(initial.version() + 1, initial.createdAt(), remaining,
+                initial.summary(), initial.metricsJson(), initial.summaryJson(), initial.metricsCbor()));
+        handler.broadcastDeltas();
+
+        assertEquals(2, session.messages.size(), "The removal should be sent to followers of the game");
+        JsonNode removed = json(session.messages.get(1)).get("games").get(0);
+        assertEquals("Neon Havoc", removed.get("name").asText());
+        assertTrue(removed.get("removed").asBoolean());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown actions")
+    void testUnknownAction() throws Exception {
+        RecordingSession session = connect("1");
+
+        subscribe(session, "{\"action\":\"dance\"}");
+
+        JsonNode frame = json(session.messages.get(0));
+        assertEquals("error", frame.get("type").asText());
+    }
+
+    @Test
+    @DisplayName("Should drop closed connections")
+    void testConnectionClosed() throws Exception {
+        RecordingSession session = connect("1");
+        connect("2");
+
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+
+        assertEquals(1, handler.getSubscriberCount());
+    }
+
+    private RecordingSession connect(String id) throws Exception {
+        RecordingSession session = new RecordingSession(id);
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+
+    private void subscribe(RecordingSession session, String request) throws Exception {
+        handler.handleMessage(session, new TextMessage(request));
+    }
+
+    private JsonNode json(WebSocketMessage<?> message) throws Exception {
+        return objectMapper.readTree(((TextMessage) message).getPayload());
+    }
+
+    /**
+     * Minimal open session that records every message sent to it.
+     */
+    private static class RecordingSession implements WebSocketSession {
+        private final String id;
+        private final List<WebSocketMessage<?>> messages = new ArrayList<>();
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        RecordingSession(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return URI.create("ws://localhost" + WebSocketConfig.METRICS_PATH);
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            messages.add(message);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+        }
+    }
+
+    /**
+     * Session whose writes block once {@link #blocking} is set, like a client that stopped reading.
+     */
+    private static class BlockingSession extends RecordingSession {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blocking;
+        private volatile CloseStatus closeStatus;
+
+        BlockingSession(String id) {
+            super(id);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            if (blocking) {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.sendMessage(message);
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+            closeStatus = status;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.gameperf.api.stream;
+
+import com.gameperf.api.GameMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReactiveMetricsStream backpressure policies.
+ */
+@DisplayName("ReactiveMetricsStream Tests")
+class ReactiveMetricsStreamTest {
+
+    private ReactiveMetricsStream stream;
+
+    @BeforeEach
+    void setUp() {
+        stream = new ReactiveMetricsStream(new GameMetricsService(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should keep only the newest update for a stalled LATEST subscriber")
+    void testLatest() {
+        ManualSubscriber subscriber = subscribe(BackpressurePolicy.LATEST, 16);
+        publish(5);
+        assertEquals(List.of("0"), subscriber.ids, "Only the initial snapshot was requested");
+
+        subscriber.request(3);
+        assertEquals(List.of("0", "5"), subscriber.ids);
+        assertEquals(4, stream.getSkipped(BackpressurePolicy.LATEST));
+
+        publish(1);
+        assertEquals(List.of("0", "5", "6"), subscriber.ids, "Outstanding demand is served as updates arrive");
+        subscriber.dispose();
+        assertEquals(0, stream.getSubscriberCount());
+    }
+
+    @Test
+    @DisplayName("Should drop updates for a DROP subscriber without demand")
+    void testDrop() {
+        ManualSubscriber subscriber = subscribe(BackpressurePolicy.DROP, 16);
+        publish(3);
+        subscriber.request(1);
+        assertEquals(List.of("0"), subscriber.ids);
+
+        publish(1);
+        assertEquals(List.of("0", "4"), subscriber.ids);
+        assertEquals(3, stream.getSkipped(BackpressurePolicy.DROP));
+    }
+
+    @Test
+    @DisplayName("Should keep the newest updates up to the buffer size for a BUFFER subscriber")
+    void testBuffer() {
+        ManualSubscriber subscriber = subscribe(BackpressurePolicy.BUFFER, 2);
+        assertEquals(1, stream.getSubscriberCount());
+        publish(5);
+        subscriber.request(10);
+
+        assertEquals(List.of("0", "4", "5"), subscriber.ids);
+        assertThrows(IllegalArgumentException.class, () -> stream.subscribe(BackpressurePolicy.BUFFER, 0));
+        assertThrows(IllegalArgumentException.class, () -> BackpressurePolicy.parse("block"));
+    }
+
+    @Test
+    @DisplayName("Should keep one write in flight per stream on the shared push executor")
+    void testStalledStream() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        AtomicInteger tasks = new AtomicInteger();
+        Executor counting = task -> {
+            tasks.incrementAndGet();
+            pool.execute(task);
+        };
+        ReactiveMetricsStream shared = new ReactiveMetricsStream(new GameMetricsService(), new SimpleMeterRegistry(), counting);
+        BlockingEmitter stalled = new BlockingEmitter(new CountDownLatch(1), 0);
+        BlockingEmitter healthy = new BlockingEmitter(new CountDownLatch(0), 4);
+        try {
+            shared.open(stalled, BackpressurePolicy.BUFFER, 16);
+            shared.open(healthy, BackpressurePolicy.BUFFER, 16);
+            for (int i = 0; i < 3; i++) {
+                shared.publish();
+            }
+
+            assertTrue(healthy.received.await(5, TimeUnit.SECONDS),
+                    "A stalled stream should not delay another stream's writes");
+            assertEquals(5, tasks.get(), "The stalled stream should have one write in flight, not one per update");
+        } finally {
+            stalled.release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private ManualSubscriber subscribe(BackpressurePolicy policy, int bufferSize) {
+        ManualSubscriber subscriber = new ManualSubscriber();
+        stream.subscribe(policy, bufferSize).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private void publish(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            stream.publish();
+        }
+    }
+
+    /**
+     * Counts written events, blocking every write until released.
+     */
+    private static class BlockingEmitter extends SseEmitter {
+        final CountDownLatch release;
+        final CountDownLatch received;
+
+        BlockingEmitter(CountDownLatch release, int expected) {
+            this.release = release;
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(SseEventBuilder event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.countDown();
+        }
+    }
+
+    /**
+     * Requests the initial snapshot, then only what the test asks for.
+     */
+    private static class ManualSubscriber extends BaseSubscriber<ServerSentEvent<byte[]>> {
+        final List<String> ids = new ArrayList<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(1);
+        }
+
+        @Override
+        protected void hookOnNext(ServerSentEvent<byte[]> event) {
+            ids.add(event.id());
+        }
+    }
+}